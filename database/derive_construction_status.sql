@@ -0,0 +1,15 @@
+-- Cambio de modo del estado de las órdenes (cityfuture.status.mode).
+-- Ejecutar con la aplicación detenida, justo antes de iniciarla con el nuevo modo.
+
+-- stored -> derived: el estado pasa a calcularse de las fechas y la columna solo guarda los
+-- estados fijados a mano. Hasta ahora el estado solo lo cambiaba el scheduler, así que se
+-- vacía por completo; si ya se fijaron estados a mano, limitar el UPDATE a las demás órdenes.
+UPDATE construction_orders SET estado = NULL;
+
+-- derived -> stored: cada orden sin estado fijado guarda el que le corresponde hoy.
+-- UPDATE construction_orders SET estado = CASE
+--     WHEN start_date > CURRENT_DATE THEN 'P'
+--     WHEN entrega_date < CURRENT_DATE THEN 'F'
+--     ELSE 'E'
+-- END
+-- WHERE estado IS NULL;
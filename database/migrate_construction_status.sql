@@ -0,0 +1,18 @@
+-- Migra el estado de las órdenes de etiquetas ('Pendiente', 'En progreso', 'Finalizado')
+-- al código de una letra que guarda ConstructionStatusConverter.
+-- Ejecutar una vez sobre bases creadas antes del cambio, con la aplicación detenida.
+
+UPDATE construction_orders SET estado = CASE
+    WHEN LOWER(estado) = 'pendiente' THEN 'P'
+    WHEN LOWER(estado) = 'en progreso' THEN 'E'
+    WHEN LOWER(estado) = 'finalizado' THEN 'F'
+    ELSE estado
+END
+WHERE LENGTH(estado) > 1;
+
+ALTER TABLE construction_orders ALTER COLUMN estado TYPE VARCHAR(1);
+
+CREATE INDEX IF NOT EXISTS idx_construction_orders_estado_start_date
+    ON construction_orders (estado, start_date);
+CREATE INDEX IF NOT EXISTS idx_construction_orders_estado_entrega_date
+    ON construction_orders (estado, entrega_date);
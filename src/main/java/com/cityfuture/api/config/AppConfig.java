@@ -1,16 +1,32 @@
 package com.cityfuture.api.config;
 
 import com.cityfuture.api.controller.ConstructionController;
+import com.cityfuture.api.idempotency.IdempotencyStore;
 import com.cityfuture.infrastructure.mapper.ConstructionMapper;
 import com.cityfuture.infrastructure.mapper.MaterialMapper;
+import com.cityfuture.infrastructure.persistence.repository.JdbcConstructionOrderBatchRepository;
+import com.cityfuture.infrastructure.persistence.repository.JdbcConstructionStatusRepository;
 import com.cityfuture.infrastructure.persistence.repository.JpaConstructionOrderRepository;
 import com.cityfuture.infrastructure.persistence.repository.JpaMaterialRepository;
 
+import com.cityfuture.infrastructure.service.AsyncOrderIntake;
 import com.cityfuture.infrastructure.service.ConstructionRequestUseCase;
+import com.cityfuture.infrastructure.service.ConstructionStatusPolicy;
+import com.cityfuture.infrastructure.service.ConstructionTypeCatalog;
+import com.cityfuture.infrastructure.service.InventorySnapshot;
+import com.cityfuture.infrastructure.service.LocationOccupancyService;
+import com.cityfuture.infrastructure.service.MaterialReservationService;
 import com.cityfuture.infrastructure.service.MaterialServiceUseCase;
+import com.cityfuture.infrastructure.service.MaterialWriteGuard;
+import com.cityfuture.infrastructure.service.OrderCommandPipeline;
+import com.cityfuture.infrastructure.service.OverdueOrderProcessor;
+import com.cityfuture.infrastructure.service.TimelineAllocator;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Clock;
+
 @Configuration
 public class AppConfig {
 
@@ -18,18 +34,38 @@ public class AppConfig {
     @Bean
     ConstructionRequestUseCase constructionRequestUseCase(JpaConstructionOrderRepository orderRepository,
                                                           ConstructionMapper mapper,
-                                                          JpaMaterialRepository materialRepository) {
-        return new ConstructionRequestUseCase(orderRepository, mapper, materialRepository);
+                                                          MaterialReservationService materialReservationService,
+                                                          TimelineAllocator timelineAllocator,
+                                                          LocationOccupancyService locationOccupancyService,
+                                                          JdbcConstructionOrderBatchRepository batchRepository,
+                                                          JdbcConstructionStatusRepository statusRepository,
+                                                          OverdueOrderProcessor overdueOrderProcessor,
+                                                          InventorySnapshot inventorySnapshot,
+                                                          ConstructionTypeCatalog constructionTypeCatalog,
+                                                          ApplicationEventPublisher eventPublisher,
+                                                          ConstructionStatusPolicy statusPolicy,
+                                                          Clock clock) {
+        return new ConstructionRequestUseCase(orderRepository, mapper, materialReservationService,
+                timelineAllocator, locationOccupancyService, batchRepository, statusRepository,
+                overdueOrderProcessor, inventorySnapshot, constructionTypeCatalog, eventPublisher,
+                statusPolicy, clock);
     }
 
     @Bean
     MaterialServiceUseCase materialServiceUseCase(JpaMaterialRepository materialRepository,
-                                                  MaterialMapper mapper) {
-        return new MaterialServiceUseCase(materialRepository, mapper);
+                                                  MaterialMapper mapper,
+                                                  ApplicationEventPublisher eventPublisher,
+                                                  MaterialWriteGuard materialWriteGuard) {
+        return new MaterialServiceUseCase(materialRepository, mapper, eventPublisher,
+                materialWriteGuard);
     }
 
     @Bean
-    ConstructionController constructionController(ConstructionRequestUseCase constructionRequestUseCase) {
-        return new ConstructionController(constructionRequestUseCase);
+    ConstructionController constructionController(ConstructionRequestUseCase constructionRequestUseCase,
+                                                  OrderCommandPipeline orderCommandPipeline,
+                                                  AsyncOrderIntake asyncOrderIntake,
+                                                  IdempotencyStore idempotencyStore) {
+        return new ConstructionController(constructionRequestUseCase, orderCommandPipeline,
+                asyncOrderIntake, idempotencyStore);
     }
 }
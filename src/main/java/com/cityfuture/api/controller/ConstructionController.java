@@ -1,8 +1,19 @@
 package com.cityfuture.api.controller;
 
+import com.cityfuture.api.dto.BatchConstructionOrderRequest;
+import com.cityfuture.api.dto.BulkDeleteRequest;
 import com.cityfuture.api.dto.CreateConstructionOrderRequest;
+import com.cityfuture.api.exception.ConstructionOrderNotFoundException;
+import com.cityfuture.api.idempotency.IdempotencyStore;
+import com.cityfuture.domain.model.BatchOrderResult;
+import com.cityfuture.domain.model.BulkDeleteResult;
 import com.cityfuture.domain.model.ConstructionOrder;
+import com.cityfuture.domain.model.OrderTicket;
+import com.cityfuture.domain.model.QueuePlacement;
+import com.cityfuture.infrastructure.service.AsyncOrderIntake;
 import com.cityfuture.infrastructure.service.ConstructionRequestUseCase;
+import com.cityfuture.infrastructure.service.OrderCommandPipeline;
+import com.cityfuture.infrastructure.service.OverdueOrderProcessor;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -17,15 +28,20 @@ import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Clock;
 import java.time.LocalDate;
+import java.net.URI;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @Tag(name = "Construcciones", description = "API para gestión de órdenes de construcción")
 @RestController
@@ -35,6 +51,10 @@ import java.util.Map;
 public class ConstructionController {
     private static final Logger logger = LoggerFactory.getLogger(ConstructionController.class);
     private final ConstructionRequestUseCase constructionRequestService;
+    private final OrderCommandPipeline orderCommandPipeline;
+    private final AsyncOrderIntake asyncOrderIntake;
+    private final IdempotencyStore idempotencyStore;
+    private final Clock clock;
 
     @Operation(summary = "Crear nueva orden de construcción", 
                description = "Crea una nueva orden de construcción con validaciones automáticas de ubicación y materiales")
@@ -46,12 +66,22 @@ public class ConstructionController {
         @ApiResponse(responseCode = "500", description = "Error interno del servidor")
     })
     @PostMapping
-    public ResponseEntity<Map<String, Object>> createOrder(@Valid @RequestBody CreateConstructionOrderRequest request) {
+    public ResponseEntity<Map<String, Object>> createOrder(
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody CreateConstructionOrderRequest request) {
+        return idempotencyStore.execute("crear", idempotencyKey, request,
+                () -> processCreateOrder(request));
+    }
+
+    private ResponseEntity<Map<String, Object>> processCreateOrder(
+            CreateConstructionOrderRequest request) {
         logger.info("Solicitud de creación de orden recibida - Proyecto: {}", request.projectName());
 
         try {
             ConstructionOrder order = request.toDomain();
-            ConstructionOrder createdOrder = constructionRequestService.createOrder(order);
+            QueuePlacement placement = request.toPlacement();
+            ConstructionOrder createdOrder = orderCommandPipeline.execute("crear",
+                    () -> constructionRequestService.createOrder(order, placement));
             Map<String, Object> response = Map.of("idOrden", createdOrder.id(), "message",
                     "La solicitud de construcción se efectuó correctamente", "estado",
                     "Estado actual: ".concat(createdOrder.estado()));
@@ -67,6 +97,15 @@ public class ConstructionController {
                     request.projectName());
             return ResponseEntity.badRequest().body(Map.of("error", "Materiales insuficientes",
                     "message", e.getMessage(), "timestamp", LocalDateTime.now()));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Solicitud de orden inválida - Proyecto: {}, Error: {}",
+                    request.projectName(), e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", "Solicitud inválida",
+                    "message", e.getMessage(), "timestamp", LocalDateTime.now()));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Cola de órdenes llena - Proyecto: {}", request.projectName());
+            return ResponseEntity.status(503).body(Map.of("error", "Servicio saturado",
+                    "message", e.getMessage(), "timestamp", LocalDateTime.now()));
         } catch (Exception e) {
             logger.error("Error inesperado al crear orden - Proyecto: {}", request.projectName(), e);
             return ResponseEntity.status(500)
@@ -76,6 +115,116 @@ public class ConstructionController {
         }
     }
 
+    @Operation(summary = "Crear orden de construcción de forma asíncrona",
+               description = "Acepta la solicitud y la procesa en segundo plano; el resultado se consulta con el ticket devuelto")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Solicitud aceptada",
+                    content = @Content(mediaType = "application/json",
+                    examples = @ExampleObject(value = "{\"ticketId\": \"3f2b...\", \"status\": \"EN_COLA\", \"location\": \"/api/constructions/tickets/3f2b...\"}"))),
+        @ApiResponse(responseCode = "429", description = "Límite de órdenes en proceso alcanzado")
+    })
+    @PostMapping("/async")
+    public ResponseEntity<Map<String, Object>> createOrderAsync(
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody CreateConstructionOrderRequest request) {
+        return idempotencyStore.execute("crear-async", idempotencyKey, request,
+                () -> processCreateOrderAsync(request));
+    }
+
+    private ResponseEntity<Map<String, Object>> processCreateOrderAsync(
+            CreateConstructionOrderRequest request) {
+        logger.info("Solicitud asíncrona de creación de orden recibida - Proyecto: {}",
+                request.projectName());
+
+        try {
+            OrderTicket ticket = asyncOrderIntake.submit(request.toDomain(),
+                    request.toPlacement());
+            URI location = URI.create("/api/constructions/tickets/" + ticket.id());
+            return ResponseEntity.accepted().location(location).body(Map.of("ticketId",
+                    ticket.id(), "status", ticket.status(), "location", location.toString()));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Solicitud asíncrona inválida - Proyecto: {}, Error: {}",
+                    request.projectName(), e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", "Solicitud inválida",
+                    "message", e.getMessage(), "timestamp", LocalDateTime.now()));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Orden asíncrona rechazada por admisión - Proyecto: {}",
+                    request.projectName());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header("Retry-After", "1")
+                    .body(Map.of("error", "Demasiadas solicitudes", "message", e.getMessage(),
+                            "timestamp", LocalDateTime.now()));
+        }
+    }
+
+    @Operation(summary = "Consultar ticket de orden asíncrona",
+               description = "Estado del procesamiento: EN_COLA, PROCESANDO, COMPLETADO o RECHAZADO")
+    @GetMapping("/tickets/{ticketId}")
+    public ResponseEntity<?> getTicket(@PathVariable String ticketId) {
+        return asyncOrderIntake.findTicket(ticketId).<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(404).body(Map.of("error",
+                        "Ticket no encontrado", "message",
+                        "No existe un ticket con el ID: " + ticketId, "timestamp",
+                        LocalDateTime.now())));
+    }
+
+    @Operation(summary = "Crear órdenes de construcción en lote",
+               description = "Valida tipos y ubicaciones, reserva los materiales agregados del lote una sola vez y asigna fechas consecutivas. "
+                       + "Modo ALL_OR_NOTHING (por defecto) o PARTIAL")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Lote procesado; el resultado de cada orden se reporta por índice"),
+        @ApiResponse(responseCode = "400", description = "Lote rechazado en modo ALL_OR_NOTHING o error de validación"),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @PostMapping("/batch")
+    public ResponseEntity<Map<String, Object>> createOrdersBatch(
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody BatchConstructionOrderRequest request) {
+        return idempotencyStore.execute("crear-lote", idempotencyKey, request,
+                () -> processCreateOrdersBatch(request));
+    }
+
+    private ResponseEntity<Map<String, Object>> processCreateOrdersBatch(
+            BatchConstructionOrderRequest request) {
+        logger.info("Solicitud de creación en lote recibida - Órdenes: {}, Modo: {}",
+                request.orders().size(), request.mode());
+
+        try {
+            List<ConstructionOrder> orders = request.orders().stream()
+                    .map(CreateConstructionOrderRequest::toDomain).toList();
+            List<BatchOrderResult> results = orderCommandPipeline.execute("crear-lote",
+                    () -> constructionRequestService.createOrders(orders, request.allOrNothing()));
+            long accepted = results.stream().filter(BatchOrderResult::accepted).count();
+
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("mode", request.allOrNothing() ? BatchConstructionOrderRequest.Mode.ALL_OR_NOTHING
+                    : BatchConstructionOrderRequest.Mode.PARTIAL);
+            response.put("accepted", accepted);
+            response.put("rejected", results.size() - accepted);
+            response.put("results", results);
+
+            if (accepted < results.size() && request.allOrNothing()) {
+                return ResponseEntity.badRequest().body(response);
+            }
+            return ResponseEntity.ok(response);
+        } catch (com.cityfuture.domain.exception.LocationAlreadyOccupiedException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Ubicación ocupada", "message",
+                    e.getMessage(), "timestamp", LocalDateTime.now()));
+        } catch (com.cityfuture.domain.exception.InsufficientMaterialException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Materiales insuficientes",
+                    "message", e.getMessage(), "timestamp", LocalDateTime.now()));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(503).body(Map.of("error", "Servicio saturado",
+                    "message", e.getMessage(), "timestamp", LocalDateTime.now()));
+        } catch (Exception e) {
+            logger.error("Error inesperado al crear lote de órdenes", e);
+            return ResponseEntity.status(500)
+                    .body(Map.of("error", "Error interno del servidor", "message",
+                            "Ocurrió un error inesperado al procesar el lote", "timestamp",
+                            LocalDateTime.now()));
+        }
+    }
+
     @PreAuthorize("hasRole('ARQUITECTO')")
     @PostMapping("/validate")
     public ResponseEntity<Map<String, Object>> validateConstructionRequest(
@@ -137,25 +286,83 @@ public class ConstructionController {
 
     @PreAuthorize("hasRole('ARQUITECTO')")
     @PutMapping("/{id}")
-    public ResponseEntity<ConstructionOrder> updateOrder(@PathVariable Long id,
+    public ResponseEntity<?> updateOrder(@PathVariable Long id,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
             @RequestBody ConstructionOrder order) {
-        return ResponseEntity.ok(constructionRequestService.updateOrder(id, order));
+        return idempotencyStore.execute("actualizar", idempotencyKey, List.of(id, order),
+                () -> processUpdateOrder(id, order));
+    }
+
+    // El 404 queda solo para la orden inexistente; los demás errores del comando conservan su
+    // propio estado y no se cachean como si la orden no existiera
+    private ResponseEntity<Object> processUpdateOrder(Long id, ConstructionOrder order) {
+        try {
+            return ResponseEntity.ok(orderCommandPipeline.execute("actualizar",
+                    () -> constructionRequestService.updateOrder(id, order)));
+        } catch (ConstructionOrderNotFoundException e) {
+            logger.warn("Intento de actualizar orden inexistente - ID: {}", id);
+            return ResponseEntity.status(404).body(Map.of("error", "Orden no encontrada",
+                    "message", e.getMessage(), "timestamp", LocalDateTime.now()));
+        } catch (com.cityfuture.domain.exception.InsufficientMaterialException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Materiales insuficientes",
+                    "message", e.getMessage(), "timestamp", LocalDateTime.now()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Solicitud inválida",
+                    "message", e.getMessage(), "timestamp", LocalDateTime.now()));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Cola de órdenes llena - Actualización de orden ID: {}", id);
+            return ResponseEntity.status(503).body(Map.of("error", "Servicio saturado",
+                    "message", e.getMessage(), "timestamp", LocalDateTime.now()));
+        } catch (Exception e) {
+            logger.error("Error inesperado al actualizar orden - ID: {}", id, e);
+            return ResponseEntity.status(500).body(Map.of("error", "Error interno del servidor",
+                    "message", "Error al actualizar la orden", "timestamp", LocalDateTime.now()));
+        }
+    }
+
+    @Operation(summary = "Fijar el estado de una orden a mano",
+               description = "Sin estado se quita el fijado y la orden vuelve al que corresponde por sus fechas")
+    @Parameter(name = "estado", description = "Pendiente, En progreso o Finalizado", required = false)
+    @PreAuthorize("hasRole('ARQUITECTO')")
+    @PutMapping("/{id}/estado")
+    public ResponseEntity<?> overrideStatus(@PathVariable @NotNull @Min(1) Long id,
+            @RequestParam(value = "estado", required = false) String estado) {
+        try {
+            return ResponseEntity.ok(constructionRequestService.overrideStatus(id, estado));
+        } catch (ConstructionOrderNotFoundException e) {
+            return ResponseEntity.status(404).body(Map.of("error", "Orden no encontrada",
+                    "message", e.getMessage(), "timestamp", LocalDateTime.now()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Estado inválido",
+                    "message", e.getMessage(), "timestamp", LocalDateTime.now()));
+        }
     }
 
     @PreAuthorize("hasRole('ARQUITECTO')")
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteOrder(@PathVariable @NotNull @Min(1) Long id) {
+    public ResponseEntity<?> deleteOrder(@PathVariable @NotNull @Min(1) Long id,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotencyStore.execute("eliminar", idempotencyKey, id, () -> processDeleteOrder(id));
+    }
+
+    private ResponseEntity<Object> processDeleteOrder(Long id) {
         logger.info("Solicitud de eliminación de orden - ID: {}", id);
 
         try {
-            constructionRequestService.deleteOrder(id);
-            logger.info("Orden eliminada exitosamente - ID: {}", id);
+            int shifted = orderCommandPipeline.execute("eliminar",
+                    () -> constructionRequestService.deleteOrder(id));
+            logger.info("Orden eliminada exitosamente - ID: {}, Órdenes reprogramadas: {}", id,
+                    shifted);
             return ResponseEntity.noContent().build();
-        } catch (RuntimeException e) {
+        } catch (ConstructionOrderNotFoundException e) {
             logger.warn("Intento de eliminar orden inexistente - ID: {}", id);
             return ResponseEntity.status(404)
                     .body(Map.of("error", "No se pudo eliminar la orden de construcción", "message",
                             e.getMessage(), "timestamp", LocalDateTime.now()));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Cola de órdenes llena - Eliminación de orden ID: {}", id);
+            return ResponseEntity.status(503).body(Map.of("error", "Servicio saturado",
+                    "message", e.getMessage(), "timestamp", LocalDateTime.now()));
         } catch (Exception e) {
             logger.error("Error inesperado al eliminar orden - ID: {}", id, e);
             return ResponseEntity.status(500).body(Map.of("error", "Error interno del servidor",
@@ -163,23 +370,68 @@ public class ConstructionController {
         }
     }
 
+    @Operation(summary = "Eliminar órdenes en lote",
+               description = "Elimina por lista de IDs o por filtro (estado y/o tipo) con una sola devolución de materiales y una sola reprogramación")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Órdenes eliminadas; se informan los IDs inexistentes"),
+        @ApiResponse(responseCode = "400", description = "Selección inválida"),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @PreAuthorize("hasRole('ARQUITECTO')")
+    @DeleteMapping
+    public ResponseEntity<Map<String, Object>> deleteOrders(
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody BulkDeleteRequest request) {
+        return idempotencyStore.execute("eliminar-lote", idempotencyKey, request,
+                () -> processDeleteOrders(request));
+    }
+
+    private ResponseEntity<Map<String, Object>> processDeleteOrders(BulkDeleteRequest request) {
+        logger.info("Solicitud de eliminación en lote - IDs: {}, Estado: {}, Tipo: {}",
+                request.byIds() ? request.ids().size() : 0, request.estado(),
+                request.typeConstruction());
+
+        try {
+            BulkDeleteResult result = orderCommandPipeline.execute("eliminar-lote",
+                    () -> request.byIds() ? constructionRequestService.deleteOrders(request.ids())
+                            : constructionRequestService.deleteOrdersMatching(request.estado(),
+                                    request.typeConstruction()));
+            return ResponseEntity.ok(Map.of("deleted", result.deleted(), "rescheduled",
+                    result.rescheduled(), "notFound", result.notFound(), "message",
+                    "Se eliminaron " + result.deleted() + " órdenes de construcción"));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Eliminación en lote rechazada: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", "Solicitud inválida",
+                    "message", e.getMessage(), "timestamp", LocalDateTime.now()));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Cola de órdenes llena - Eliminación en lote");
+            return ResponseEntity.status(503).body(Map.of("error", "Servicio saturado",
+                    "message", e.getMessage(), "timestamp", LocalDateTime.now()));
+        } catch (Exception e) {
+            logger.error("Error inesperado al eliminar órdenes en lote", e);
+            return ResponseEntity.status(500).body(Map.of("error", "Error interno del servidor",
+                    "message", "Error al eliminar las órdenes", "timestamp", LocalDateTime.now()));
+        }
+    }
+
     @PostMapping("/test-scheduler")
     public ResponseEntity<String> testScheduler() {
         constructionRequestService.updateConstructionStatuses();
-        return ResponseEntity.ok("Scheduler ejecutado manualmente en fecha: " + LocalDate.now());
+        return ResponseEntity.ok("Scheduler ejecutado manualmente en fecha: " + LocalDate.now(clock));
     }
 
     @PostMapping("/process-overdue")
     public ResponseEntity<String> processOverdueOrders() {
-        constructionRequestService.processOverdueOrders();
-        return ResponseEntity
-                .ok("Órdenes atrasadas procesadas correctamente en fecha: " + LocalDate.now());
+        OverdueOrderProcessor.Result result = constructionRequestService.processOverdueOrders();
+        return ResponseEntity.ok("Órdenes atrasadas procesadas correctamente en fecha: "
+                + LocalDate.now(clock) + " - Órdenes: " + result.processed() + ", Tramos: "
+                + result.chunks());
     }
 
     @GetMapping("/debug-order/{id}")
     public ResponseEntity<Map<String, Object>> debugOrder(@PathVariable Long id) {
         ConstructionOrder order = constructionRequestService.getOrderById(id);
-        LocalDate today = LocalDate.now();
+        LocalDate today = LocalDate.now(clock);
         LocalDate startDate = order.entregaDate().minusDays(order.estimatedDays() - 1);
 
         Map<String, Object> debug = Map.of("orderId", order.id(), "entregaDate",
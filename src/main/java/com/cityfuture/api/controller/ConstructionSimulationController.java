@@ -0,0 +1,59 @@
+package com.cityfuture.api.controller;
+
+import com.cityfuture.api.dto.SimulationRequest;
+import com.cityfuture.domain.model.SimulationCommand;
+import com.cityfuture.domain.model.SimulationResult;
+import com.cityfuture.infrastructure.service.TimelineSimulator;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.AllArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Tag(name = "Simulación", description = "API para simular cambios sobre el plan de construcción")
+@RestController
+@RequestMapping("/api/constructions/simulate")
+@AllArgsConstructor
+public class ConstructionSimulationController {
+    private static final Logger logger =
+            LoggerFactory.getLogger(ConstructionSimulationController.class);
+    private final TimelineSimulator timelineSimulator;
+
+    @Operation(summary = "Simular cambios sobre el plan",
+               description = "Aplica comandos hipotéticos de creación, eliminación o actualización sobre una copia del plan y del inventario, sin modificar la BD")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Resumen del proyecto y balance de materiales resultantes"),
+        @ApiResponse(responseCode = "400", description = "Error de validación"),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @PreAuthorize("hasRole('ARQUITECTO')")
+    @PostMapping
+    public ResponseEntity<?> simulate(@Valid @RequestBody SimulationRequest request) {
+        logger.info("Solicitud de simulación recibida - Comandos: {}", request.commands().size());
+
+        try {
+            List<SimulationCommand> commands = request.commands().stream()
+                    .map(SimulationRequest.Command::toDomain).toList();
+            SimulationResult result = timelineSimulator.simulate(commands);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            logger.error("Error inesperado al simular cambios sobre el plan", e);
+            return ResponseEntity.status(500).body(Map.of("error", "Error interno del servidor",
+                    "message", "Ocurrió un error inesperado al procesar la simulación",
+                    "timestamp", LocalDateTime.now()));
+        }
+    }
+}
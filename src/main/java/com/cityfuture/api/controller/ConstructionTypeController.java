@@ -0,0 +1,70 @@
+package com.cityfuture.api.controller;
+
+import com.cityfuture.infrastructure.service.ConstructionTypeCatalog;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.AllArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Tag(name = "Tipos de construcción", description = "API del catálogo de tipos de construcción")
+@RestController
+@RequestMapping("/api/constructions/types")
+@AllArgsConstructor
+public class ConstructionTypeController {
+    private static final Logger logger = LoggerFactory.getLogger(ConstructionTypeController.class);
+    private final ConstructionTypeCatalog constructionTypeCatalog;
+
+    @Operation(summary = "Consultar el catálogo de tipos de construcción",
+               description = "Tipos vigentes con sus días estimados y materiales requeridos")
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getTypes() {
+        return ResponseEntity.ok(describe(constructionTypeCatalog.current()));
+    }
+
+    @Operation(summary = "Recargar el catálogo de tipos de construcción",
+               description = "Vuelve a leer los tipos desde BD y recompila los vectores de requerimientos sin reiniciar")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Catálogo recargado"),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @PreAuthorize("hasRole('ARQUITECTO')")
+    @PostMapping("/reload")
+    public ResponseEntity<Map<String, Object>> reloadTypes() {
+        logger.info("Solicitud de recarga del catálogo de tipos de construcción");
+
+        try {
+            constructionTypeCatalog.reload();
+            return ResponseEntity.ok(describe(constructionTypeCatalog.current()));
+        } catch (Exception e) {
+            logger.error("Error al recargar el catálogo de tipos de construcción", e);
+            return ResponseEntity.status(500).body(Map.of("error", "Error interno del servidor",
+                    "message", "Error al recargar el catálogo", "timestamp", LocalDateTime.now()));
+        }
+    }
+
+    private Map<String, Object> describe(ConstructionTypeCatalog.Compiled catalog) {
+        Map<String, Object> types = new TreeMap<>();
+        catalog.types().forEach((name, type) -> types.put(name,
+                Map.of("estimatedDays", type.estimatedDays(), "materials",
+                        type.requirements().toMap())));
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("version", catalog.version());
+        response.put("types", types);
+        return response;
+    }
+}
@@ -1,5 +1,8 @@
 package com.cityfuture.api.controller;
 
+import com.cityfuture.api.exception.MaterialNotFoundException;
+import com.cityfuture.api.exception.MaterialVersionConflictException;
+import com.cityfuture.api.idempotency.IdempotencyStore;
 import com.cityfuture.domain.model.Material;
 import com.cityfuture.infrastructure.service.MaterialServiceUseCase;
 import io.swagger.v3.oas.annotations.Operation;
@@ -12,6 +15,8 @@ import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
@@ -30,6 +35,7 @@ public class MaterialController {
 
     private static final Logger logger = LoggerFactory.getLogger(MaterialController.class);
     private final MaterialServiceUseCase materialServiceUseCase;
+    private final IdempotencyStore idempotencyStore;
 
     @Operation(summary = "Crear nuevo material", description = "Crea un nuevo material en el inventario")
     @ApiResponses(value = {
@@ -38,7 +44,14 @@ public class MaterialController {
         @ApiResponse(responseCode = "500", description = "Error interno del servidor")
     })
     @PostMapping
-    public ResponseEntity<?> createMaterial(@Valid @RequestBody Material material) {
+    public ResponseEntity<?> createMaterial(
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody Material material) {
+        return idempotencyStore.execute("crear-material", idempotencyKey, material,
+                () -> processCreateMaterial(material));
+    }
+
+    private ResponseEntity<Object> processCreateMaterial(Material material) {
         logger.info("Solicitud de creación de material - Nombre: {}", material.materialName());
 
         try {
@@ -59,19 +72,53 @@ public class MaterialController {
 
     @GetMapping("/{id}")
     public ResponseEntity<Material> getMaterialById(@PathVariable @NotNull @Min(1) Long id) {
-        return ResponseEntity.ok(materialServiceUseCase.getMaterialById(id));
+        Material material = materialServiceUseCase.getMaterialById(id);
+        return withETag(ResponseEntity.ok(), material).body(material);
     }
 
+    // La versión esperada llega en If-Match o en el campo version del cuerpo; sin ninguna de
+    // las dos no se puede detectar una actualización perdida, así que se rechaza con 428
     @PreAuthorize("hasRole('ARQUITECTO')")
     @PutMapping("/{id}")
     public ResponseEntity<?> updateMaterial(@PathVariable @NotNull @Min(1) Long id,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody Material material) {
+        Long expectedVersion;
+        try {
+            expectedVersion = ifMatch != null ? parseVersion(ifMatch) : material.version();
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Versión inválida",
+                    "message", "If-Match debe contener la versión del material: " + ifMatch));
+        }
+        if (expectedVersion == null) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_REQUIRED).body(Map.of(
+                    "error", "Versión requerida",
+                    "message",
+                    "Envíe la versión leída del material en If-Match o en el campo version"));
+        }
+        Material versioned = new Material(material.id(), material.materialName(), material.code(),
+                material.quantity(), expectedVersion);
+        return idempotencyStore.execute("actualizar-material", idempotencyKey,
+                List.of(id, versioned), () -> processUpdateMaterial(id, versioned));
+    }
+
+    private ResponseEntity<Object> processUpdateMaterial(Long id, Material material) {
         logger.info("Solicitud de actualización de material - ID: {}, Nombre: {}", id, material.materialName());
         
         try {
             Material updatedMaterial = materialServiceUseCase.updateMaterial(id, material);
             logger.info("Material actualizado exitosamente - ID: {}", updatedMaterial.id());
-            return ResponseEntity.ok(updatedMaterial);
+            return withETag(ResponseEntity.ok(), updatedMaterial).body(updatedMaterial);
+        } catch (MaterialVersionConflictException e) {
+            logger.warn("Conflicto de versión al actualizar material - ID: {}: {}", id,
+                    e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(
+                    Map.of("error", "El material fue modificado por otra operación",
+                            "message", e.getMessage()));
+        } catch (MaterialNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(
+                    Map.of("error", "Material no encontrado", "message", e.getMessage()));
         } catch (Exception e) {
             logger.error("Error al actualizar material - ID: {}", id, e);
             return ResponseEntity.status(500).body(Map.of(
@@ -82,8 +129,30 @@ public class MaterialController {
         }
     }
 
+    private static ResponseEntity.BodyBuilder withETag(ResponseEntity.BodyBuilder builder,
+            Material material) {
+        return material != null && material.version() != null
+                ? builder.eTag(String.valueOf(material.version()))
+                : builder;
+    }
+
+    // Acepta el ETag tal como lo devuelve el GET ("3") y también su forma débil (W/"3")
+    private static Long parseVersion(String ifMatch) {
+        String value = ifMatch.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        return Long.valueOf(value.replace("\"", ""));
+    }
+
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteMaterial(@PathVariable @NotNull @Min(1) Long id) {
+    public ResponseEntity<?> deleteMaterial(@PathVariable @NotNull @Min(1) Long id,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotencyStore.execute("eliminar-material", idempotencyKey, id,
+                () -> processDeleteMaterial(id));
+    }
+
+    private ResponseEntity<Object> processDeleteMaterial(Long id) {
         try {
             materialServiceUseCase.deleteMaterial(id);
             return ResponseEntity.noContent().build();
@@ -0,0 +1,36 @@
+package com.cityfuture.api.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record BatchConstructionOrderRequest(
+        @NotEmpty(message = "El lote debe contener al menos una orden")
+        @Size(max = 10000, message = "El lote no puede exceder 10,000 órdenes")
+        List<@NotNull(message = "Las órdenes del lote no pueden ser nulas") @Valid CreateConstructionOrderRequest> orders,
+
+        // ALL_OR_NOTHING (por defecto): si una orden falla no se crea ninguna
+        // PARTIAL: se crean las órdenes válidas y se reportan las rechazadas
+        Mode mode
+) {
+    public enum Mode {
+        ALL_OR_NOTHING, PARTIAL
+    }
+
+    // Las fechas del lote se asignan consecutivas al final de la cola; insertar órdenes sueltas
+    // en otra posición se hace con POST /api/constructions
+    @AssertTrue(message = "Las órdenes del lote no admiten insertBeforeOrderId ni priority")
+    public boolean isPlacementAtEnd() {
+        return orders == null || orders.stream()
+                .allMatch(order -> order == null || (order.insertBeforeOrderId() == null
+                        && !Boolean.TRUE.equals(order.priority())));
+    }
+
+    public boolean allOrNothing() {
+        return mode != Mode.PARTIAL;
+    }
+}
@@ -0,0 +1,35 @@
+package com.cityfuture.api.dto;
+
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+// Órdenes a eliminar por lista de IDs o por filtro (estado y/o tipo); no se admite un filtro
+// vacío para no borrar todo el plan por accidente
+public record BulkDeleteRequest(
+        @Size(max = 10000, message = "No se pueden eliminar más de 10,000 órdenes por solicitud")
+        List<@NotNull(message = "Los IDs no pueden ser nulos")
+             @Positive(message = "Los IDs deben ser positivos") Long> ids,
+
+        String estado,
+
+        String typeConstruction
+) {
+    @AssertTrue(message = "Indique una lista de IDs o al menos un criterio de filtro, no ambos")
+    public boolean isSelectionValid() {
+        boolean byIds = ids != null && !ids.isEmpty();
+        boolean byFilter = hasText(estado) || hasText(typeConstruction);
+        return byIds != byFilter;
+    }
+
+    public boolean byIds() {
+        return ids != null && !ids.isEmpty();
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+}
@@ -3,8 +3,10 @@ package com.cityfuture.api.dto;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.Size;
 import com.cityfuture.domain.model.Coordinate;
+import com.cityfuture.domain.model.QueuePlacement;
 
 public record CreateConstructionOrderRequest(
         @NotBlank(message = "El nombre del proyecto no puede estar vacío")
@@ -17,8 +19,24 @@ public record CreateConstructionOrderRequest(
         
         @NotBlank(message = "El tipo de construcción no puede estar vacío")
         @Size(min = 2, max = 50, message = "El tipo de construcción debe tener entre 2 y 50 caracteres")
-        String typeConstruction
+        String typeConstruction,
+
+        // Opcional: insertar la orden antes de otra que aún no inicia
+        @Positive(message = "El ID de la orden de referencia debe ser positivo")
+        Long insertBeforeOrderId,
+
+        // Opcional: insertar la orden antes de la primera que aún no inicia
+        Boolean priority
 ) {
+    public CreateConstructionOrderRequest(String projectName, Coordinate location,
+            String typeConstruction) {
+        this(projectName, location, typeConstruction, null, null);
+    }
+
+    public QueuePlacement toPlacement() {
+        return new QueuePlacement(insertBeforeOrderId, Boolean.TRUE.equals(priority));
+    }
+
     // Método para convertir a ConstructionOrder (sin los campos calculados)
     public com.cityfuture.domain.model.ConstructionOrder toDomain() {
         return new com.cityfuture.domain.model.ConstructionOrder(
@@ -0,0 +1,29 @@
+package com.cityfuture.api.dto;
+
+import com.cityfuture.domain.model.SimulationCommand;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record SimulationRequest(
+        @NotEmpty(message = "La simulación debe contener al menos un comando")
+        @Size(max = 10000, message = "La simulación no puede exceder 10,000 comandos")
+        List<@NotNull(message = "Los comandos no pueden ser nulos") @Valid Command> commands
+) {
+    // CREATE requiere typeConstruction; DELETE requiere orderId; UPDATE requiere ambos
+    public record Command(
+            @NotNull(message = "La acción es obligatoria")
+            SimulationCommand.Action action,
+
+            Long orderId,
+
+            String typeConstruction
+    ) {
+        public SimulationCommand toDomain() {
+            return new SimulationCommand(action, orderId, typeConstruction);
+        }
+    }
+}
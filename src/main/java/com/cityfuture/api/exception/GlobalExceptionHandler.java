@@ -32,6 +32,13 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
     }
 
+    @ExceptionHandler(MaterialVersionConflictException.class)
+    public ResponseEntity<ErrorResponse> handleMaterialVersionConflict(
+            MaterialVersionConflictException ex) {
+        ErrorResponse error = new ErrorResponse("MATERIAL_VERSION_CONFLICT", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
     @ExceptionHandler(InsufficientMaterialException.class)
     public ResponseEntity<Object> handleInsufficientMaterialException(
             InsufficientMaterialException ex) {
@@ -0,0 +1,7 @@
+package com.cityfuture.api.exception;
+
+public class MaterialVersionConflictException extends RuntimeException {
+    public MaterialVersionConflictException(String message) {
+        super(message);
+    }
+}
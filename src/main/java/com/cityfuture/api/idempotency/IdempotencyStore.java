@@ -0,0 +1,167 @@
+package com.cityfuture.api.idempotency;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+// Deduplicación de escrituras por cabecera Idempotency-Key: la primera petición ejecuta la
+// operación y las repeticiones (o las concurrentes con la misma clave) reciben la misma respuesta
+@Component
+public class IdempotencyStore {
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Map<String, Entry> entries;
+
+    public IdempotencyStore(@Value("${cityfuture.idempotency.max-entries:10000}") int maxEntries,
+            @Value("${cityfuture.idempotency.ttl-minutes:60}") long ttlMinutes) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlNanos = Duration.ofMinutes(ttlMinutes).toNanos();
+        // LRU acotado: al superar el máximo se descarta la clave usada hace más tiempo (ver evict)
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    // Se guarda la solicitud completa (DTOs record con equals por valor): un hash de 32 bits
+    // puede colisionar y devolver la respuesta de otra solicitud
+    private static final class Entry {
+        private final Object request;
+        private final CompletableFuture<ResponseEntity<?>> response = new CompletableFuture<>();
+        private volatile long expiresAt = Long.MAX_VALUE;
+
+        private Entry(Object request) {
+            this.request = request;
+        }
+
+        private boolean pending() {
+            return expiresAt == Long.MAX_VALUE;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> ResponseEntity<T> execute(String scope, String key, Object request,
+            Supplier<ResponseEntity<T>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            return (ResponseEntity<T>) error(HttpStatus.BAD_REQUEST, "Idempotency-Key inválida",
+                    "La clave no puede superar " + MAX_KEY_LENGTH + " caracteres");
+        }
+
+        String storeKey = principal() + "|" + scope + "|" + key;
+        Entry entry;
+        boolean owner = false;
+        synchronized (entries) {
+            entry = entries.get(storeKey);
+            if (entry != null && entry.expiresAt < System.nanoTime()) {
+                entries.remove(storeKey);
+                entry = null;
+            }
+            if (entry == null) {
+                entry = new Entry(request);
+                entries.put(storeKey, entry);
+                evict();
+                owner = true;
+            }
+        }
+
+        if (!owner) {
+            if (!Objects.equals(entry.request, request)) {
+                return (ResponseEntity<T>) error(HttpStatus.UNPROCESSABLE_ENTITY,
+                        "Idempotency-Key reutilizada",
+                        "La clave ya se usó con una solicitud diferente");
+            }
+            logger.debug("Solicitud repetida con Idempotency-Key {} en {}, reutilizando respuesta",
+                    key, scope);
+            try {
+                return (ResponseEntity<T>) replayed(entry.response.join());
+            } catch (CompletionException e) {
+                // La ejecución original falló sin respuesta: se reintenta como nueva
+                return execute(scope, key, request, action);
+            }
+        }
+
+        try {
+            ResponseEntity<T> response = action.get();
+            if (isReplayable(response)) {
+                entry.expiresAt = System.nanoTime() + ttlNanos;
+            } else {
+                forget(storeKey, entry);
+            }
+            entry.response.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            forget(storeKey, entry);
+            entry.response.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    // Los errores transitorios (5xx, 429) no se guardan para que el reintento vuelva a ejecutar
+    private boolean isReplayable(ResponseEntity<?> response) {
+        int status = response.getStatusCode().value();
+        return status < 500 && status != HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    // Descarta las claves usadas hace más tiempo, salvo las que siguen en ejecución: quitarlas
+    // dejaría pasar un duplicado concurrente. Las pendientes están acotadas por las peticiones en
+    // curso, así que el mapa solo supera el máximo mientras duren. Se invoca con el lock tomado
+    private void evict() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > maxEntries && iterator.hasNext()) {
+            if (!iterator.next().pending()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private void forget(String storeKey, Entry entry) {
+        synchronized (entries) {
+            entries.remove(storeKey, entry);
+        }
+    }
+
+    private ResponseEntity<?> replayed(ResponseEntity<?> original) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(original.getHeaders());
+        headers.set(REPLAYED_HEADER, "true");
+        return new ResponseEntity<>(original.getBody(), headers, original.getStatusCode());
+    }
+
+    private ResponseEntity<?> error(HttpStatus status, String error, String message) {
+        return ResponseEntity.status(status).body(Map.of("error", error, "message", message,
+                "timestamp", LocalDateTime.now()));
+    }
+
+    private String principal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : "anonimo";
+    }
+}
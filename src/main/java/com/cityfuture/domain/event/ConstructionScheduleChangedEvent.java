@@ -0,0 +1,8 @@
+package com.cityfuture.domain.event;
+
+import java.time.LocalDate;
+
+// Se publica cuando se crean, eliminan o reprograman órdenes; from es el primer día cuyas
+// transiciones de estado pueden haber cambiado
+public record ConstructionScheduleChangedEvent(LocalDate from) {
+}
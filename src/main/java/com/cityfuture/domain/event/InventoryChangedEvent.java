@@ -0,0 +1,5 @@
+package com.cityfuture.domain.event;
+
+// Se publica cada vez que cambia el stock de materiales (órdenes o mantenimiento de materiales)
+public record InventoryChangedEvent(String reason) {
+}
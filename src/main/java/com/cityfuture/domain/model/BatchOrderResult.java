@@ -0,0 +1,16 @@
+package com.cityfuture.domain.model;
+
+import java.time.LocalDate;
+
+public record BatchOrderResult(int index, String projectName, boolean accepted, Long id,
+        LocalDate startDate, LocalDate entregaDate, String error) {
+
+    public static BatchOrderResult accepted(int index, String projectName, Long id,
+            LocalDate startDate, LocalDate entregaDate) {
+        return new BatchOrderResult(index, projectName, true, id, startDate, entregaDate, null);
+    }
+
+    public static BatchOrderResult rejected(int index, String projectName, String error) {
+        return new BatchOrderResult(index, projectName, false, null, null, null, error);
+    }
+}
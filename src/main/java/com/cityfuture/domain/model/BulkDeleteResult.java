@@ -0,0 +1,6 @@
+package com.cityfuture.domain.model;
+
+import java.util.List;
+
+public record BulkDeleteResult(int deleted, int rescheduled, List<Long> notFound) {
+}
@@ -21,7 +21,7 @@ public record ConstructionOrder(
         String typeConstruction,
         
         @NotBlank(message = "El estado no puede estar vacío")
-        @Pattern(regexp = "^(Pendiente|En Progreso|Finalizado)$", message = "El estado debe ser: Pendiente, En Progreso o Finalizado")
+        @Pattern(regexp = "(?i)^(Pendiente|En progreso|Finalizado)$", message = "El estado debe ser: Pendiente, En progreso o Finalizado")
         String estado,
         
         @NotNull(message = "Los días estimados son obligatorios")
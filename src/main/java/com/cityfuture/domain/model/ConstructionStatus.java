@@ -0,0 +1,64 @@
+package com.cityfuture.domain.model;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Optional;
+
+import lombok.Getter;
+
+// Estado de una orden; en BD se guarda el código de una letra y en la API la etiqueta
+@Getter
+public enum ConstructionStatus {
+    PENDIENTE("P", "Pendiente"),
+    EN_PROGRESO("E", "En progreso"),
+    FINALIZADO("F", "Finalizado");
+
+    private final String code;
+    private final String label;
+
+    ConstructionStatus(String code, String label) {
+        this.code = code;
+        this.label = label;
+    }
+
+    public static ConstructionStatus fromCode(String code) {
+        return Arrays.stream(values()).filter(status -> status.code.equals(code)).findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Código de estado inválido: " + code));
+    }
+
+    // Acepta la etiqueta sin distinguir mayúsculas ("En Progreso" y "En progreso") o el nombre
+    public static Optional<ConstructionStatus> find(String value) {
+        if (value == null) {
+            return Optional.empty();
+        }
+        String trimmed = value.trim();
+        return Arrays.stream(values())
+                .filter(status -> status.label.equalsIgnoreCase(trimmed)
+                        || status.name().equalsIgnoreCase(trimmed))
+                .findFirst();
+    }
+
+    public static ConstructionStatus fromLabel(String label) {
+        return find(label).orElseThrow(() -> new IllegalArgumentException(
+                "El estado debe ser: Pendiente, En progreso o Finalizado"));
+    }
+
+    // Estado que corresponde por fechas: pendiente antes del inicio, en progreso hasta el día de
+    // entrega inclusive y finalizado después
+    public static ConstructionStatus derive(LocalDate startDate, LocalDate entregaDate,
+            LocalDate today) {
+        if (today.isBefore(startDate)) {
+            return PENDIENTE;
+        }
+        return today.isAfter(entregaDate) ? FINALIZADO : EN_PROGRESO;
+    }
+
+    // El estado guardado manda; sin él se deriva de las fechas
+    public static ConstructionStatus effective(ConstructionStatus stored, LocalDate startDate,
+            LocalDate entregaDate, LocalDate today) {
+        if (stored != null || startDate == null || entregaDate == null) {
+            return stored;
+        }
+        return derive(startDate, entregaDate, today);
+    }
+}
@@ -1,10 +1,14 @@
 package com.cityfuture.domain.model;
 
+import java.util.Map;
+
 import lombok.Data;
 
 @Data
 public class ConstructionType {
         private Long id;
         private String typeName;
+        private Integer estimatedDays;
+        private Map<String, Integer> materials;
 
 }
@@ -17,5 +17,8 @@ public record Material(
         @NotNull(message = "La cantidad es obligatoria")
         @Min(value = 0, message = "La cantidad no puede ser negativa")
         @Max(value = 999999, message = "La cantidad no puede exceder 999,999 unidades")
-        Integer quantity
+        Integer quantity,
+
+        // Versión leída por el cliente; al actualizar debe coincidir con la guardada
+        Long version
 ) {}
\ No newline at end of file
@@ -0,0 +1,108 @@
+package com.cityfuture.domain.model;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Cantidades de materiales indexadas por slot; los códigos de cada slot los define el
+// catálogo compilado de tipos de construcción
+public record MaterialVector(String[] codes, int[] quantities) {
+
+    public static MaterialVector empty(String[] codes) {
+        return new MaterialVector(codes, new int[codes.length]);
+    }
+
+    public static MaterialVector of(String[] codes, Map<String, Integer> materials) {
+        int[] quantities = new int[codes.length];
+        for (int slot = 0; slot < codes.length; slot++) {
+            quantities[slot] = materials.getOrDefault(codes[slot], 0);
+        }
+        return new MaterialVector(codes, quantities);
+    }
+
+    // Vector con un slot por cada código del mapa, en orden alfabético
+    public static MaterialVector of(Map<String, Integer> materials) {
+        return of(new TreeMap<>(materials).keySet().toArray(String[]::new), materials);
+    }
+
+    public int size() {
+        return codes.length;
+    }
+
+    public String code(int slot) {
+        return codes[slot];
+    }
+
+    public int quantity(int slot) {
+        return quantities[slot];
+    }
+
+    public boolean isEmpty() {
+        for (int quantity : quantities) {
+            if (quantity != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public MaterialVector plus(MaterialVector other) {
+        return combine(other, 1);
+    }
+
+    public MaterialVector minus(MaterialVector other) {
+        return combine(other, -1);
+    }
+
+    // Mismo vector expresado sobre otro layout de slots (p. ej. tras recargar el catálogo)
+    public MaterialVector alignTo(String[] targetCodes) {
+        if (codes == targetCodes || Arrays.equals(codes, targetCodes)) {
+            return this;
+        }
+        return of(targetCodes, toMap());
+    }
+
+    // Solo las entradas distintas de cero, en orden de slot
+    public Map<String, Integer> toMap() {
+        Map<String, Integer> materials = new LinkedHashMap<>();
+        for (int slot = 0; slot < codes.length; slot++) {
+            if (quantities[slot] != 0) {
+                materials.put(codes[slot], quantities[slot]);
+            }
+        }
+        return materials;
+    }
+
+    private MaterialVector combine(MaterialVector other, int sign) {
+        if (codes == other.codes || Arrays.equals(codes, other.codes)) {
+            int[] result = quantities.clone();
+            for (int slot = 0; slot < result.length; slot++) {
+                result[slot] += sign * other.quantities[slot];
+            }
+            return new MaterialVector(codes, result);
+        }
+
+        // Vectores de versiones distintas del catálogo: se alinean por código
+        Map<String, Integer> merged = toMap();
+        other.toMap().forEach((code, quantity) -> merged.merge(code, sign * quantity, Integer::sum));
+        String[] mergedCodes = merged.keySet().toArray(String[]::new);
+        return of(mergedCodes, merged);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof MaterialVector other && Arrays.equals(codes, other.codes)
+                && Arrays.equals(quantities, other.quantities);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(codes) + Arrays.hashCode(quantities);
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+}
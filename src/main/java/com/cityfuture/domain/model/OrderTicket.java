@@ -0,0 +1,35 @@
+package com.cityfuture.domain.model;
+
+import java.time.Instant;
+
+public record OrderTicket(String id, String projectName, Status status, Long orderId,
+        String estado, String error, String message, Instant acceptedAt, Instant completedAt) {
+
+    public enum Status {
+        EN_COLA, PROCESANDO, COMPLETADO, RECHAZADO
+    }
+
+    public static OrderTicket queued(String id, String projectName, Instant acceptedAt) {
+        return new OrderTicket(id, projectName, Status.EN_COLA, null, null, null, null, acceptedAt,
+                null);
+    }
+
+    public OrderTicket processing() {
+        return new OrderTicket(id, projectName, Status.PROCESANDO, null, null, null, null,
+                acceptedAt, null);
+    }
+
+    public OrderTicket completed(ConstructionOrder order, Instant completedAt) {
+        return new OrderTicket(id, projectName, Status.COMPLETADO, order.id(), order.estado(), null,
+                "La solicitud de construcción se efectuó correctamente", acceptedAt, completedAt);
+    }
+
+    public OrderTicket rejected(String error, String message, Instant completedAt) {
+        return new OrderTicket(id, projectName, Status.RECHAZADO, null, null, error, message,
+                acceptedAt, completedAt);
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETADO || status == Status.RECHAZADO;
+    }
+}
@@ -0,0 +1,19 @@
+package com.cityfuture.domain.model;
+
+// Posición de una nueva orden en la cola de construcción: al final (por defecto), como
+// prioritaria (antes de la primera orden que aún no inicia) o antes de una orden específica
+public record QueuePlacement(Long beforeOrderId, boolean priority) {
+
+    public static final QueuePlacement END = new QueuePlacement(null, false);
+
+    public QueuePlacement {
+        if (beforeOrderId != null && priority) {
+            throw new IllegalArgumentException(
+                    "Indique prioridad o la orden antes de la cual insertar, no ambas");
+        }
+    }
+
+    public boolean atEnd() {
+        return beforeOrderId == null && !priority;
+    }
+}
@@ -0,0 +1,10 @@
+package com.cityfuture.domain.model;
+
+// Cambio hipotético sobre el plan: crear una orden de un tipo, eliminar una orden existente o
+// cambiar su tipo
+public record SimulationCommand(Action action, Long orderId, String typeConstruction) {
+
+    public enum Action {
+        CREATE, DELETE, UPDATE
+    }
+}
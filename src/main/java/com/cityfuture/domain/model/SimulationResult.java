@@ -0,0 +1,15 @@
+package com.cityfuture.domain.model;
+
+import java.util.List;
+import java.util.Map;
+
+public record SimulationResult(ProjectSummary projectSummary, int appliedCommands,
+        List<Rejection> rejectedCommands, Map<String, MaterialBalance> materials) {
+
+    public record Rejection(int index, SimulationCommand.Action action, String error) {
+    }
+
+    // Stock actual y el que quedaría tras aplicar los comandos
+    public record MaterialBalance(String materialName, int available, int simulated) {
+    }
+}
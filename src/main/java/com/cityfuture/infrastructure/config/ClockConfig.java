@@ -0,0 +1,17 @@
+package com.cityfuture.infrastructure.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+// Única fuente de la fecha y hora actuales para la lógica de negocio: los tests y el arnés de
+// carga la reemplazan por un reloj simulado
+@Configuration
+public class ClockConfig {
+
+    @Bean
+    public Clock clock() {
+        return Clock.systemDefaultZone();
+    }
+}
@@ -1,6 +1,9 @@
 package com.cityfuture.infrastructure.config;
 
+import com.cityfuture.domain.model.ConstructionTypeCriteria;
+import com.cityfuture.infrastructure.persistence.entity.ConstructionTypeEntity;
 import com.cityfuture.infrastructure.persistence.entity.MaterialEntity;
+import com.cityfuture.infrastructure.persistence.repository.JpaConstructionTypeRepository;
 import com.cityfuture.infrastructure.persistence.repository.JpaMaterialRepository;
 import lombok.AllArgsConstructor;
 import org.slf4j.Logger;
@@ -9,6 +12,7 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 
 @Component
@@ -17,10 +21,12 @@ public class DataInitializer implements CommandLineRunner {
     private static final Logger logger = LoggerFactory.getLogger(DataInitializer.class);
     
     private final JpaMaterialRepository materialRepository;
+    private final JpaConstructionTypeRepository constructionTypeRepository;
     
     @Override
     public void run(String... args) throws Exception {
         initializeMaterials();
+        initializeConstructionTypes();
     }
     
     private void initializeMaterials() {
@@ -52,5 +58,27 @@ public class DataInitializer implements CommandLineRunner {
         logger.info("Inicialización de materiales completada.");
     }
     
+    // El catálogo vive en BD; los tipos originales se cargan solo si aún no existen
+    private void initializeConstructionTypes() {
+        logger.info("Inicializando catálogo de tipos de construcción...");
+
+        for (ConstructionTypeCriteria criteria : ConstructionTypeCriteria.values()) {
+            if (constructionTypeRepository.findByTypeName(criteria.name()).isEmpty()) {
+                ConstructionTypeEntity type = new ConstructionTypeEntity();
+                type.setTypeName(criteria.name());
+                type.setEstimatedDays(criteria.getEstimatedTime());
+                type.setMaterials(new HashMap<>(criteria.getMaterials()));
+
+                constructionTypeRepository.save(type);
+                logger.info("Tipo de construcción creado: {} (Días estimados: {})",
+                    type.getTypeName(), type.getEstimatedDays());
+            } else {
+                logger.debug("Tipo de construcción ya existe: {}", criteria.name());
+            }
+        }
+
+        logger.info("Inicialización del catálogo de tipos completada.");
+    }
+    
     private record MaterialData(String code, String name, int quantity) {}
 }
\ No newline at end of file
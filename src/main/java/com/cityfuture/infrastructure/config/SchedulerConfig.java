@@ -1,9 +1,40 @@
 package com.cityfuture.infrastructure.config;
 
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.concurrent.SimpleAsyncTaskScheduler;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 
+import java.time.Clock;
+
+// Cada ejecución programada corre en su propio hilo virtual: un job lento ya no retrasa a los
+// demás por falta de hilos en el pool. La no superposición de un mismo job la garantiza
+// ScheduledJobRunner
 @Configuration
 @EnableScheduling
-public class SchedulerConfig {
+public class SchedulerConfig implements SchedulingConfigurer {
+
+    private final Clock clock;
+
+    public SchedulerConfig(Clock clock) {
+        this.clock = clock;
+    }
+
+    @Bean
+    public TaskScheduler taskScheduler() {
+        SimpleAsyncTaskScheduler scheduler = new SimpleAsyncTaskScheduler();
+        scheduler.setVirtualThreads(true);
+        scheduler.setThreadNamePrefix("cityfuture-job-");
+        // Las horas programadas se miden con el mismo reloj que usa la lógica de negocio
+        scheduler.setClock(clock);
+        return scheduler;
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.setTaskScheduler(taskScheduler());
+    }
 }
@@ -1,6 +1,7 @@
 package com.cityfuture.infrastructure.mapper;
 
 import com.cityfuture.domain.model.ConstructionOrder;
+import com.cityfuture.domain.model.ConstructionStatus;
 import com.cityfuture.infrastructure.persistence.entity.ConstructionOrderEntity;
 import org.mapstruct.Mapper;
 
@@ -10,4 +11,13 @@ public interface ConstructionMapper {
     ConstructionOrderEntity toEntity(ConstructionOrder domain);
 
     ConstructionOrder toDomain(ConstructionOrderEntity entity);
+
+    // En la API el estado viaja como etiqueta ("En progreso"), no como nombre del enum
+    default String toLabel(ConstructionStatus status) {
+        return status == null ? null : status.getLabel();
+    }
+
+    default ConstructionStatus toStatus(String estado) {
+        return estado == null ? null : ConstructionStatus.fromLabel(estado);
+    }
 }
@@ -0,0 +1,11 @@
+package com.cityfuture.infrastructure.mapper;
+
+import com.cityfuture.domain.model.ConstructionType;
+import com.cityfuture.infrastructure.persistence.entity.ConstructionTypeEntity;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring")
+public interface ConstructionTypeMapper {
+    ConstructionTypeEntity toEntity(ConstructionType constructionType);
+    ConstructionType toDomain(ConstructionTypeEntity entity);
+}
@@ -0,0 +1,19 @@
+package com.cityfuture.infrastructure.persistence.converter;
+
+import com.cityfuture.domain.model.ConstructionStatus;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+@Converter
+public class ConstructionStatusConverter implements AttributeConverter<ConstructionStatus, String> {
+
+    @Override
+    public String convertToDatabaseColumn(ConstructionStatus status) {
+        return status == null ? null : status.getCode();
+    }
+
+    @Override
+    public ConstructionStatus convertToEntityAttribute(String code) {
+        return code == null ? null : ConstructionStatus.fromCode(code);
+    }
+}
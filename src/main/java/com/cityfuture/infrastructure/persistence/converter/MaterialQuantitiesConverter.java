@@ -0,0 +1,39 @@
+package com.cityfuture.infrastructure.persistence.converter;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+// Cantidades por código de material guardadas como "Ar=50,Ce=100"
+@Converter
+public class MaterialQuantitiesConverter implements AttributeConverter<Map<String, Integer>, String> {
+
+    @Override
+    public String convertToDatabaseColumn(Map<String, Integer> materials) {
+        if (materials == null) {
+            return null;
+        }
+        return new TreeMap<>(materials).entrySet().stream()
+                .map(entry -> entry.getKey() + "=" + entry.getValue())
+                .collect(Collectors.joining(","));
+    }
+
+    @Override
+    public Map<String, Integer> convertToEntityAttribute(String value) {
+        if (value == null) {
+            return null;
+        }
+        Map<String, Integer> materials = new TreeMap<>();
+        for (String entry : value.split(",")) {
+            int separator = entry.indexOf('=');
+            if (separator > 0) {
+                materials.put(entry.substring(0, separator).trim(),
+                        Integer.parseInt(entry.substring(separator + 1).trim()));
+            }
+        }
+        return materials;
+    }
+}
@@ -1,13 +1,26 @@
 package com.cityfuture.infrastructure.persistence.entity;
 
+import com.cityfuture.domain.model.ConstructionStatus;
+import com.cityfuture.infrastructure.persistence.converter.ConstructionStatusConverter;
+import com.cityfuture.infrastructure.persistence.converter.MaterialQuantitiesConverter;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDate;
+import java.util.Map;
 
 @Data
 @Entity
-@Table(name = "construction_orders")
+@Table(name = "construction_orders", indexes = {
+        @Index(name = "idx_construction_orders_entrega_date", columnList = "entregaDate"),
+        @Index(name = "idx_construction_orders_lane_start_date", columnList = "lane, startDate"),
+        @Index(name = "idx_construction_orders_estado_start_date", columnList = "estado, startDate"),
+        @Index(name = "idx_construction_orders_estado_entrega_date",
+                columnList = "estado, entregaDate")},
+        uniqueConstraints = {
+        @UniqueConstraint(name = "uk_construction_orders_location",
+                columnNames = {"latitude", "longitude"})})
 public class ConstructionOrderEntity {
 
     @Id
@@ -19,8 +32,23 @@ public class ConstructionOrderEntity {
     @Embedded
     private CoordinateEmbeddable location;
     private String typeConstruction;
-    private String estado;
+
+    @Convert(converter = ConstructionStatusConverter.class)
+    @Column(length = 1)
+    private ConstructionStatus estado;
+
     private Integer estimatedDays;
     private LocalDate startDate;
     private LocalDate entregaDate;
+
+    // Cuadrilla asignada; cada cuadrilla construye sus órdenes una tras otra
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Integer lane = 0;
+
+    // Materiales descontados del stock para esta orden; al eliminarla o cambiarle el tipo se
+    // devuelven estos y no los del catálogo vigente, que pudo cambiar desde entonces
+    @Convert(converter = MaterialQuantitiesConverter.class)
+    @Column(length = 1000)
+    private Map<String, Integer> reservedMaterials;
 }
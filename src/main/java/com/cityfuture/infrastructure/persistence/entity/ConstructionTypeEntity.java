@@ -0,0 +1,31 @@
+package com.cityfuture.infrastructure.persistence.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Entity
+@Table(name = "construction_types")
+public class ConstructionTypeEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true)
+    private String typeName;
+
+    @Column(nullable = false)
+    private Integer estimatedDays;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "construction_type_materials",
+            joinColumns = @JoinColumn(name = "construction_type_id"))
+    @MapKeyColumn(name = "material_code")
+    @Column(name = "quantity", nullable = false)
+    private Map<String, Integer> materials = new HashMap<>();
+
+}
@@ -6,6 +6,26 @@ import lombok.Data;
 @Data
 @Embeddable
 public class CoordinateEmbeddable {
+    // Las coordenadas se guardan redondeadas a 1e-7 grados (~1 cm en el ecuador): así el
+    // índice único compara los mismos valores que la ocupación en memoria
+    public static final double STEPS_PER_DEGREE = 1e7;
+
     private Double latitude;
     private Double longitude;
+
+    public void setLatitude(Double latitude) {
+        this.latitude = quantize(latitude);
+    }
+
+    public void setLongitude(Double longitude) {
+        this.longitude = quantize(longitude);
+    }
+
+    public static long step(double degrees) {
+        return Math.round(degrees * STEPS_PER_DEGREE);
+    }
+
+    public static Double quantize(Double degrees) {
+        return degrees == null ? null : step(degrees) / STEPS_PER_DEGREE;
+    }
 }
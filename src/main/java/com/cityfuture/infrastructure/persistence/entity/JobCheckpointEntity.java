@@ -0,0 +1,24 @@
+package com.cityfuture.infrastructure.persistence.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+// Avance persistido de un job por lotes: si el proceso cae, la siguiente ejecución del mismo
+// día retoma desde el último ID confirmado
+@Data
+@Entity
+@Table(name = "job_checkpoints")
+public class JobCheckpointEntity {
+
+    @Id
+    private String jobName;
+
+    private LocalDate runDate;
+    private Long lastId;
+    private Long processed;
+    private boolean completed;
+    private Instant updatedAt;
+}
@@ -0,0 +1,29 @@
+package com.cityfuture.infrastructure.persistence.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.Instant;
+
+// Lease de un job programado: solo el nodo dueño ejecuta el job hasta lockedUntil. El token se
+// incrementa en cada adquisición, así un dueño anterior con el lease vencido queda descartado
+@Data
+@Entity
+@Table(name = "job_locks")
+public class JobLockEntity {
+
+    @Id
+    private String jobName;
+
+    @Column(nullable = false)
+    private String owner;
+
+    @Column(nullable = false)
+    private Instant lockedAt;
+
+    @Column(nullable = false)
+    private Instant lockedUntil;
+
+    @Column(nullable = false)
+    private Long fencingToken;
+}
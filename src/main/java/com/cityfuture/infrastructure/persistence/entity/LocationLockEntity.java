@@ -0,0 +1,16 @@
+package com.cityfuture.infrastructure.persistence.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+// Fila única que serializa entre réplicas la comprobación de distancia mínima: el índice único
+// solo impide coordenadas idénticas, así que dos réplicas podrían aceptar a la vez ubicaciones
+// cercanas
+@Data
+@Entity
+@Table(name = "location_locks")
+public class LocationLockEntity {
+
+    @Id
+    private Integer id;
+}
@@ -2,6 +2,7 @@ package com.cityfuture.infrastructure.persistence.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.ColumnDefault;
 
 @Data
 @Entity
@@ -16,4 +17,9 @@ public class MaterialEntity {
     String code;
     private Integer quantity;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
 }
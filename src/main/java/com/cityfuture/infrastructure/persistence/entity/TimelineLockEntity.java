@@ -0,0 +1,19 @@
+package com.cityfuture.infrastructure.persistence.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+// Fila única que serializa entre réplicas los cambios del cronograma: cada cambio la bloquea
+// (SELECT ... FOR UPDATE) e incrementa la revisión, así un nodo detecta que otro movió fechas
+// desde su última lectura
+@Data
+@Entity
+@Table(name = "timeline_locks")
+public class TimelineLockEntity {
+
+    @Id
+    private Integer id;
+
+    @Column(nullable = false)
+    private Long revision;
+}
@@ -0,0 +1,70 @@
+package com.cityfuture.infrastructure.persistence.repository;
+
+import com.cityfuture.infrastructure.persistence.converter.MaterialQuantitiesConverter;
+import com.cityfuture.infrastructure.persistence.entity.ConstructionOrderEntity;
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+@AllArgsConstructor
+public class JdbcConstructionOrderBatchRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO construction_orders "
+            + "(project_name, latitude, longitude, type_construction, estado, estimated_days, "
+            + "start_date, entrega_date, lane, reserved_materials) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final MaterialQuantitiesConverter MATERIALS = new MaterialQuantitiesConverter();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Inserta todas las órdenes en un único batch JDBC y asigna los IDs generados
+    public void insertAll(List<ConstructionOrderEntity> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_SQL, new String[] {"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ConstructionOrderEntity order = orders.get(i);
+                        ps.setString(1, order.getProjectName());
+                        ps.setDouble(2, order.getLocation().getLatitude());
+                        ps.setDouble(3, order.getLocation().getLongitude());
+                        ps.setString(4, order.getTypeConstruction());
+                        // Con el estado derivado de las fechas una orden nueva no guarda estado
+                        ps.setString(5, order.getEstado() != null
+                                ? order.getEstado().getCode() : null);
+                        ps.setInt(6, order.getEstimatedDays());
+                        ps.setDate(7, Date.valueOf(order.getStartDate()));
+                        ps.setDate(8, Date.valueOf(order.getEntregaDate()));
+                        ps.setInt(9, order.getLane());
+                        ps.setString(10,
+                                MATERIALS.convertToDatabaseColumn(order.getReservedMaterials()));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return orders.size();
+                    }
+                }, keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < orders.size(); i++) {
+            orders.get(i).setId(((Number) keys.get(i).values().iterator().next()).longValue());
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.cityfuture.infrastructure.persistence.repository;
+
+import com.cityfuture.domain.model.ConstructionStatus;
+import com.cityfuture.infrastructure.service.JobLockService;
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+// Transiciones de estado como un único UPDATE por conjunto, sin cargar las órdenes
+@Repository
+@AllArgsConstructor
+public class JdbcConstructionStatusRepository {
+
+    private static final String OVERDUE_CHUNK_SQL = "SELECT id, start_date, entrega_date "
+            + "FROM construction_orders WHERE estado = ? AND start_date <= ? AND id > ? "
+            + "ORDER BY id LIMIT ?";
+
+    private static final String UPDATE_BY_ID_SQL =
+            "UPDATE construction_orders SET estado = ? WHERE id = ? AND estado = ?";
+
+    private static final String WATERMARK_SQL =
+            "SELECT run_date FROM job_checkpoints WHERE job_name = ?";
+
+    private static final String UPDATE_WATERMARK_SQL = "UPDATE job_checkpoints "
+            + "SET run_date = ?, updated_at = CURRENT_TIMESTAMP WHERE job_name = ? AND "
+            + JobLockService.FENCE_CONDITION;
+
+    // Se inserta solo si el lease sigue vigente: sin fila en job_locks con ese token no hay
+    // nada que seleccionar
+    private static final String INSERT_WATERMARK_SQL = "INSERT INTO job_checkpoints "
+            + "(job_name, run_date, last_id, processed, completed, updated_at) "
+            + "SELECT ?, ?, 0, 0, TRUE, CURRENT_TIMESTAMP FROM job_locks "
+            + "WHERE job_name = ? AND fencing_token = ?";
+
+    // Tope de parámetros por IN para no exceder el límite del driver
+    private static final int IN_CHUNK_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record OverdueRow(long id, LocalDate startDate, LocalDate entregaDate) {
+    }
+
+    // Pasa a "En progreso" las órdenes pendientes que inician el día indicado
+    public List<Long> startOrders(LocalDate day) {
+        return startOrders(day.minusDays(1), day, null);
+    }
+
+    // Igual que el anterior para todo el rango (after, through]; sin after no hay límite inferior.
+    // Con lease, el UPDATE solo afecta filas si su token sigue vigente (fencing)
+    public List<Long> startOrders(LocalDate after, LocalDate through, JobLockService.Lease lease) {
+        return transition(ConstructionStatus.PENDIENTE, ConstructionStatus.EN_PROGRESO,
+                "start_date", after, through, lease);
+    }
+
+    // Pasa a "Finalizado" las órdenes en progreso que se entregan el día indicado
+    public List<Long> finishOrders(LocalDate day) {
+        return finishOrders(day.minusDays(1), day, null);
+    }
+
+    public List<Long> finishOrders(LocalDate after, LocalDate through, JobLockService.Lease lease) {
+        return transition(ConstructionStatus.EN_PROGRESO, ConstructionStatus.FINALIZADO,
+                "entrega_date", after, through, lease);
+    }
+
+    // Finaliza, de las órdenes indicadas, las que siguen en progreso y se entregan hasta through,
+    // sin límite inferior: son órdenes iniciadas tarde cuya entrega quedó detrás de la marca
+    public List<Long> finishStartedOrders(Collection<Long> ids, LocalDate through,
+            JobLockService.Lease lease) {
+        List<Long> finished = new ArrayList<>();
+        List<Long> pending = List.copyOf(ids);
+        for (int from = 0; from < pending.size(); from += IN_CHUNK_SIZE) {
+            List<Long> chunk = pending.subList(from,
+                    Math.min(from + IN_CHUNK_SIZE, pending.size()));
+            String sql = "UPDATE construction_orders SET estado = ? WHERE estado = ? AND "
+                    + "entrega_date <= ? AND id IN ("
+                    + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")"
+                    + fence(lease);
+            finished.addAll(updateReturningIds(sql, ps -> {
+                ps.setString(1, ConstructionStatus.FINALIZADO.getCode());
+                ps.setString(2, ConstructionStatus.EN_PROGRESO.getCode());
+                ps.setDate(3, Date.valueOf(through));
+                for (int i = 0; i < chunk.size(); i++) {
+                    ps.setLong(4 + i, chunk.get(i));
+                }
+                setFence(ps, 4 + chunk.size(), lease);
+            }));
+        }
+        return finished;
+    }
+
+    // Último día cuya transición ya se aplicó, guardado como una fila de job_checkpoints
+    public LocalDate findWatermark(String name) {
+        List<Date> dates = jdbcTemplate.queryForList(WATERMARK_SQL, Date.class, name);
+        return dates.isEmpty() || dates.get(0) == null ? null : dates.get(0).toLocalDate();
+    }
+
+    // Ambas sentencias llevan la condición de fencing: si otro nodo tomó el lease después, la
+    // marca no avanza y se informa con una excepción para cortar el resto de la ejecución
+    public void saveWatermark(String name, LocalDate day, JobLockService.Lease lease) {
+        if (jdbcTemplate.update(UPDATE_WATERMARK_SQL, Date.valueOf(day), name, lease.jobName(),
+                lease.token()) == 0
+                && jdbcTemplate.update(INSERT_WATERMARK_SQL, name, Date.valueOf(day),
+                        lease.jobName(), lease.token()) == 0) {
+            throw new IllegalStateException("El lease del job '" + lease.jobName()
+                    + "' con token " + lease.token() + " ya no está vigente");
+        }
+    }
+
+    // Próximas fechas en que alguna orden cambia de estado; cada una es un MIN sobre el índice
+    // (estado, fecha). Los inicios no tienen límite inferior: una orden pendiente con inicio ya
+    // pasado (adelantada al eliminar otra) debe iniciarse en la próxima ejecución
+    public LocalDate findNextStartDate() {
+        return nextDate(ConstructionStatus.PENDIENTE, "start_date", null);
+    }
+
+    public LocalDate findNextDeliveryDate(LocalDate from) {
+        return nextDate(ConstructionStatus.EN_PROGRESO, "entrega_date", from);
+    }
+
+    // Siguiente tramo de órdenes pendientes cuyo inicio ya llegó, paginado por ID (keyset): cada
+    // consulta usa el índice y no depende de cuántas filas se recorrieron antes
+    public List<OverdueRow> findOverdueAfter(long afterId, LocalDate today, int limit) {
+        return jdbcTemplate.query(OVERDUE_CHUNK_SQL,
+                (rs, rowNum) -> new OverdueRow(rs.getLong("id"),
+                        rs.getDate("start_date").toLocalDate(),
+                        rs.getDate("entrega_date").toLocalDate()),
+                ConstructionStatus.PENDIENTE.getCode(), Date.valueOf(today), afterId, limit);
+    }
+
+    // Cambia el estado de cada orden en un único batch JDBC; solo afecta las que siguen en el
+    // estado de origen. Devuelve la cantidad de filas actualizadas
+    public int updateStatuses(Map<Long, ConstructionStatus> targets, ConstructionStatus from) {
+        if (targets.isEmpty()) {
+            return 0;
+        }
+        List<Map.Entry<Long, ConstructionStatus>> entries = List.copyOf(targets.entrySet());
+        int[] counts = jdbcTemplate.batchUpdate(UPDATE_BY_ID_SQL,
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ps.setString(1, entries.get(i).getValue().getCode());
+                        ps.setLong(2, entries.get(i).getKey());
+                        ps.setString(3, from.getCode());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return entries.size();
+                    }
+                });
+        // Algunos drivers informan SUCCESS_NO_INFO (-2) en lugar de la cantidad
+        return Arrays.stream(counts).map(count -> count < 0 ? 1 : count).sum();
+    }
+
+    private LocalDate nextDate(ConstructionStatus status, String dateColumn, LocalDate from) {
+        String sql = "SELECT MIN(" + dateColumn + ") FROM construction_orders WHERE estado = ?";
+        Date next = from != null
+                ? jdbcTemplate.queryForObject(sql + " AND " + dateColumn + " >= ?", Date.class,
+                        status.getCode(), Date.valueOf(from))
+                : jdbcTemplate.queryForObject(sql, Date.class, status.getCode());
+        return next != null ? next.toLocalDate() : null;
+    }
+
+    private List<Long> transition(ConstructionStatus from, ConstructionStatus to,
+            String dateColumn, LocalDate after, LocalDate through, JobLockService.Lease lease) {
+        String sql = "UPDATE construction_orders SET estado = ? WHERE estado = ? AND "
+                + dateColumn + " <= ?" + (after != null ? " AND " + dateColumn + " > ?" : "")
+                + fence(lease);
+        return updateReturningIds(sql, ps -> {
+            ps.setString(1, to.getCode());
+            ps.setString(2, from.getCode());
+            ps.setDate(3, Date.valueOf(through));
+            if (after != null) {
+                ps.setDate(4, Date.valueOf(after));
+            }
+            setFence(ps, after != null ? 5 : 4, lease);
+        });
+    }
+
+    private static String fence(JobLockService.Lease lease) {
+        return lease != null ? " AND " + JobLockService.FENCE_CONDITION : "";
+    }
+
+    private static void setFence(PreparedStatement ps, int index, JobLockService.Lease lease)
+            throws SQLException {
+        if (lease != null) {
+            ps.setString(index, lease.jobName());
+            ps.setLong(index + 1, lease.token());
+        }
+    }
+
+    // Los IDs afectados vuelven como claves generadas del mismo UPDATE (en PostgreSQL el
+    // driver agrega RETURNING id), así que no hace falta un SELECT previo
+    private List<Long> updateReturningIds(String sql, PreparedStatementSetter setter) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, new String[] {"id"});
+            setter.setValues(ps);
+            return ps;
+        }, keyHolder);
+        return keyHolder.getKeyList().stream()
+                .map(keys -> ((Number) keys.values().iterator().next()).longValue())
+                .toList();
+    }
+}
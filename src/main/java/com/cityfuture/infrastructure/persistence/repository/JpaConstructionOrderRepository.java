@@ -1,7 +1,10 @@
 package com.cityfuture.infrastructure.persistence.repository;
 
+import com.cityfuture.domain.model.ConstructionStatus;
 import com.cityfuture.infrastructure.persistence.entity.ConstructionOrderEntity;
+import com.cityfuture.infrastructure.persistence.entity.CoordinateEmbeddable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -14,6 +17,21 @@ import java.util.Optional;
 public interface JpaConstructionOrderRepository
         extends JpaRepository<ConstructionOrderEntity, Long> {
 
+    // Proyección mínima para reconstruir el cronograma en memoria
+    interface TimelineRow {
+        Long getId();
+
+        Integer getEstimatedDays();
+
+        LocalDate getStartDate();
+
+        LocalDate getEntregaDate();
+
+        Integer getLane();
+    }
+
+    List<TimelineRow> findAllByOrderByStartDateAscIdAsc();
+
     Optional<ConstructionOrderEntity> findFirstByOrderByEntregaDateAsc();
 
     Optional<ConstructionOrderEntity> findFirstByOrderByEntregaDateDesc();
@@ -21,17 +39,54 @@ public interface JpaConstructionOrderRepository
     @Query("SELECT COALESCE(SUM(c.estimatedDays), 0) FROM ConstructionOrderEntity c")
     Integer sumAllEstimatedDays();
 
-    @Query("SELECT c FROM ConstructionOrderEntity c WHERE c.estado = 'Pendiente' AND c.startDate = :today")
-    List<ConstructionOrderEntity> findOrdersToStartToday(@Param("today") LocalDate today);
+    // Criterios nulos no filtran. El estado se compara con el efectivo: el guardado o, si no hay,
+    // el que corresponde por fechas al día indicado (mismos códigos que ConstructionStatus)
+    @Query("SELECT c FROM ConstructionOrderEntity c WHERE (:code IS NULL OR c.estado = :estado "
+            + "OR (c.estado IS NULL AND CASE WHEN c.startDate > :today THEN 'P' "
+            + "WHEN c.entregaDate < :today THEN 'F' ELSE 'E' END = :code)) "
+            + "AND (:type IS NULL OR UPPER(c.typeConstruction) = UPPER(:type))")
+    List<ConstructionOrderEntity> findByEffectiveStatus(@Param("estado") ConstructionStatus estado,
+            @Param("code") String code, @Param("today") LocalDate today,
+            @Param("type") String typeConstruction);
+
+    default List<ConstructionOrderEntity> findByFilter(ConstructionStatus estado,
+            String typeConstruction, LocalDate today) {
+        return findByEffectiveStatus(estado, estado != null ? estado.getCode() : null, today,
+                typeConstruction);
+    }
+
+    @Query("SELECT c.location FROM ConstructionOrderEntity c")
+    List<CoordinateEmbeddable> findAllLocations();
+
+    // Rango sobre el índice único (latitud, longitud)
+    @Query("SELECT c.location FROM ConstructionOrderEntity c "
+            + "WHERE c.location.latitude BETWEEN :minLatitude AND :maxLatitude "
+            + "AND c.location.longitude BETWEEN :minLongitude AND :maxLongitude")
+    List<CoordinateEmbeddable> findLocationsWithin(@Param("minLatitude") double minLatitude,
+            @Param("maxLatitude") double maxLatitude, @Param("minLongitude") double minLongitude,
+            @Param("maxLongitude") double maxLongitude);
 
-    @Query("SELECT c FROM ConstructionOrderEntity c WHERE c.estado = 'En progreso' AND c.entregaDate = :today")
-    List<ConstructionOrderEntity> findOrdersToFinishToday(@Param("today") LocalDate today);
+    // Adelanta en bloque las órdenes de la cuadrilla que entregan después de la fecha indicada
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ConstructionOrderEntity c SET c.startDate = c.startDate - (:days) day, "
+            + "c.entregaDate = c.entregaDate - (:days) day "
+            + "WHERE c.lane = :lane AND c.entregaDate > :after")
+    int shiftOrdersDeliveredAfter(@Param("lane") int lane, @Param("after") LocalDate after,
+            @Param("days") int days);
 
-    @Query("SELECT c FROM ConstructionOrderEntity c WHERE c.estado = 'Pendiente'")
-    List<ConstructionOrderEntity> findPendingOrders();
+    // Adelanta en bloque las órdenes de la cuadrilla entre dos órdenes eliminadas
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ConstructionOrderEntity c SET c.startDate = c.startDate - (:days) day, "
+            + "c.entregaDate = c.entregaDate - (:days) day "
+            + "WHERE c.lane = :lane AND c.entregaDate > :after AND c.startDate < :before")
+    int shiftOrdersBetween(@Param("lane") int lane, @Param("after") LocalDate after,
+            @Param("before") LocalDate before, @Param("days") int days);
 
-    @Query("SELECT COUNT(c) > 0 FROM ConstructionOrderEntity c WHERE "
-            + "c.location.latitude = :latitude AND c.location.longitude = :longitude")
-    boolean existsByLocationCoordinates(@Param("latitude") Double latitude,
-            @Param("longitude") Double longitude);
+    // Atrasa en bloque las órdenes de la cuadrilla que inician desde la fecha indicada
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ConstructionOrderEntity c SET c.startDate = c.startDate + (:days) day, "
+            + "c.entregaDate = c.entregaDate + (:days) day "
+            + "WHERE c.lane = :lane AND c.startDate >= :from")
+    int shiftOrdersStartingFrom(@Param("lane") int lane, @Param("from") LocalDate from,
+            @Param("days") int days);
 }
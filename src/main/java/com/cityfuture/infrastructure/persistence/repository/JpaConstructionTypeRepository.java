@@ -0,0 +1,12 @@
+package com.cityfuture.infrastructure.persistence.repository;
+
+import com.cityfuture.infrastructure.persistence.entity.ConstructionTypeEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface JpaConstructionTypeRepository extends JpaRepository<ConstructionTypeEntity, Long> {
+    Optional<ConstructionTypeEntity> findByTypeName(String typeName);
+}
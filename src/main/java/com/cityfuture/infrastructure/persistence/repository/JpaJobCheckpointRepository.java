@@ -0,0 +1,9 @@
+package com.cityfuture.infrastructure.persistence.repository;
+
+import com.cityfuture.infrastructure.persistence.entity.JobCheckpointEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface JpaJobCheckpointRepository extends JpaRepository<JobCheckpointEntity, String> {
+}
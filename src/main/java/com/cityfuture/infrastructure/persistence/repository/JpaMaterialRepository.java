@@ -2,8 +2,13 @@ package com.cityfuture.infrastructure.persistence.repository;
 
 import com.cityfuture.infrastructure.persistence.entity.MaterialEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -11,4 +16,20 @@ public interface JpaMaterialRepository extends JpaRepository<MaterialEntity, Lon
     Optional<MaterialEntity> findByMaterialName(String materialName);
 
     Optional<MaterialEntity> findByCode(String code);
+
+    List<MaterialEntity> findByCodeIn(Collection<String> codes);
+
+    // Descuento condicionado: solo afecta la fila si hay stock suficiente. Las actualizaciones
+    // masivas incrementan la versión para que las escrituras optimistas concurrentes la detecten.
+    // No limpian el contexto de persistencia: en un group commit comparten transacción con otros
+    // comandos, y quien leyó la fila antes del UPDATE es responsable de desasociarla
+    @Modifying(flushAutomatically = true, clearAutomatically = false)
+    @Query("UPDATE MaterialEntity m SET m.quantity = m.quantity - :amount, m.version = m.version + 1 "
+            + "WHERE m.code = :code AND m.quantity >= :amount")
+    int decrementIfAvailable(@Param("code") String code, @Param("amount") int amount);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = false)
+    @Query("UPDATE MaterialEntity m SET m.quantity = m.quantity + :amount, m.version = m.version + 1 "
+            + "WHERE m.code = :code")
+    int increment(@Param("code") String code, @Param("amount") int amount);
 }
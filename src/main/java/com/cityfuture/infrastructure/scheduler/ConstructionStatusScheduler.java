@@ -1,132 +1,265 @@
 package com.cityfuture.infrastructure.scheduler;
 
-import com.cityfuture.infrastructure.persistence.entity.ConstructionOrderEntity;
-import com.cityfuture.infrastructure.persistence.repository.JpaConstructionOrderRepository;
+import com.cityfuture.domain.event.ConstructionScheduleChangedEvent;
+import com.cityfuture.infrastructure.persistence.repository.JdbcConstructionStatusRepository;
+import com.cityfuture.infrastructure.service.ConstructionStatusPolicy;
+import com.cityfuture.infrastructure.service.JobLockService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ScheduledFuture;
 
+// En lugar de revisar las órdenes periódicamente, calcula la próxima fecha en que alguna
+// cambia de estado y programa una sola ejecución para ese momento. Se vuelve a programar al
+// terminar cada ejecución y cuando se crean, eliminan o reprograman órdenes. Con el estado
+// derivado de las fechas no hay transiciones que guardar y no se programa nada.
+// Cada transición guarda el último día aplicado (marca de agua), así que al arrancar tras una
+// caída se recuperan los días perdidos con un UPDATE por rango para cada estado. Las órdenes
+// pendientes que quedan detrás de la marca se inician igual en la siguiente ejecución
 @Component
 public class ConstructionStatusScheduler {
 
     private static final Logger logger = LoggerFactory.getLogger(ConstructionStatusScheduler.class);
 
-    private final JpaConstructionOrderRepository orderRepository;
+    // Horarios de las validaciones: inicios por la mañana y finalizaciones por la noche
+    static final LocalTime START_TIME = LocalTime.of(8, 0);
+    static final LocalTime FINISH_TIME = LocalTime.of(23, 0);
+    // Si una transición no se pudo aplicar, se reintenta tras esta espera en lugar de en bucle
+    static final Duration RETRY_DELAY = Duration.ofMinutes(15);
+    static final String JOB_NAME = "transiciones-estado";
+    static final String START_WATERMARK = JOB_NAME + ".inicio";
+    static final String FINISH_WATERMARK = JOB_NAME + ".fin";
 
-    public ConstructionStatusScheduler(JpaConstructionOrderRepository orderRepository) {
-        this.orderRepository = orderRepository;
+    private final JdbcConstructionStatusRepository statusRepository;
+    private final TaskScheduler taskScheduler;
+    private final ScheduledJobRunner jobRunner;
+    private final ConstructionStatusPolicy statusPolicy;
+    private final Clock clock;
+
+    private ScheduledFuture<?> armed;
+    private LocalDateTime armedAt;
+    // La última recuperación falló: se reintenta aunque no haya transiciones próximas
+    private volatile boolean retryPending;
+
+    public ConstructionStatusScheduler(JdbcConstructionStatusRepository statusRepository,
+            TaskScheduler taskScheduler, ScheduledJobRunner jobRunner,
+            ConstructionStatusPolicy statusPolicy, Clock clock) {
+        this.statusRepository = statusRepository;
+        this.taskScheduler = taskScheduler;
+        this.jobRunner = jobRunner;
+        this.statusPolicy = statusPolicy;
+        this.clock = clock;
     }
 
-    // TEMPORAL: Ejecutar cada minuto para pruebas (cambiar después)
-    @Scheduled(cron = "0 * * * * *") // Cada minuto
-    public void checkConstructionsToStartTest() {
-        logger.info("PRUEBA: Ejecutando validación de construcciones a iniciar");
-
-        LocalDate today = LocalDate.now();
-        List<ConstructionOrderEntity> pendingOrders = orderRepository.findPendingOrders();
-        List<ConstructionOrderEntity> ordersToStart = pendingOrders.stream().filter(order -> {
-            LocalDate startDate = order.getEntregaDate().minusDays(order.getEstimatedDays() - 1);
-            return startDate.equals(today);
-        }).toList();
-
-        for (ConstructionOrderEntity order : ordersToStart) {
-            if ("Pendiente".equals(order.getEstado())) {
-                order.setEstado("En progreso");
-                orderRepository.save(order);
-                logger.info("PRUEBA: Orden {} cambiada a 'En progreso' - Proyecto: {}",
-                        order.getId(), order.getProjectName());
-            }
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (statusPolicy.isDerived()) {
+            logger.info("Estado derivado de las fechas: sin transiciones de estado programadas");
+            return;
         }
+        // La recuperación inicial (con el retardo aleatorio del runner) corre en el TaskScheduler
+        // para no retener el hilo de arranque
+        taskScheduler.schedule(this::catchUpOnStartup, clock.instant());
+    }
 
-        logger.info("PRUEBA: Validación completada. {} órdenes iniciadas", ordersToStart.size());
+    private void catchUpOnStartup() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        try {
+            jobRunner.run(JOB_NAME, now.atZone(clock.getZone()).toInstant(),
+                    ScheduledJobRunner.Overlap.COALESCE, this::applyDueTransitions);
+        } finally {
+            rearm(now);
+        }
     }
 
-    // TEMPORAL: Ejecutar cada 2 minutos para pruebas
-    @Scheduled(cron = "30 */2 * * * *") // Cada 2 minutos en el segundo 30
-    public void checkConstructionsToFinishTest() {
-        logger.info("PRUEBA: Ejecutando validación de construcciones a finalizar");
-
-        LocalDate today = LocalDate.now();
-        List<ConstructionOrderEntity> ordersToFinish =
-                orderRepository.findOrdersToFinishToday(today);
-
-        for (ConstructionOrderEntity order : ordersToFinish) {
-            if ("En progreso".equals(order.getEstado())) {
-                order.setEstado("Finalizado");
-                orderRepository.save(order);
-                logger.info("PRUEBA: Orden {} cambiada a 'Finalizado' - Proyecto: {}",
-                        order.getId(), order.getProjectName());
-            }
+    // Solo se recalcula si el cambio puede adelantar la ejecución ya programada
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public synchronized void onScheduleChanged(ConstructionScheduleChangedEvent event) {
+        if (statusPolicy.isDerived()) {
+            return;
+        }
+        if (armedAt != null && event.from() != null
+                && !armedAt.isAfter(event.from().atTime(START_TIME))) {
+            return;
+        }
+        rearm(LocalDateTime.now(clock));
+    }
+
+    public synchronized LocalDateTime nextRun() {
+        return armedAt;
+    }
+
+    // Todas las réplicas programan la misma ejecución, pero solo la que obtiene el lease aplica
+    // las transiciones; las demás solo vuelven a programarse. Los disparos que llegan durante
+    // una ejecución se agrupan en una sola repetición
+    void runTransitions(LocalDateTime scheduledAt) {
+        try {
+            jobRunner.run(JOB_NAME, scheduledAt.atZone(clock.getZone()).toInstant(),
+                    ScheduledJobRunner.Overlap.COALESCE, this::applyDueTransitions);
+        } finally {
+            rearm(LocalDateTime.now(clock).plus(RETRY_DELAY));
+        }
+    }
+
+    // Aplica los inicios hasta la última mañana y las finalizaciones hasta la última noche ya
+    // cumplidas; en una ejecución a tiempo cada rango es un solo día
+    private void applyDueTransitions(JobLockService.Lease lease) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        LocalDate today = now.toLocalDate();
+        List<Long> lateStarted = startDue(
+                now.toLocalTime().isBefore(START_TIME) ? today.minusDays(1) : today, lease);
+        boolean applied = lateStarted != null;
+        // Si los inicios fallaron (o el lease pasó a otro nodo) no se finaliza: una orden con
+        // ambos días perdidos seguiría pendiente y quedaría detrás de la marca de finalizaciones
+        if (applied) {
+            applied = finishDue(
+                    now.toLocalTime().isBefore(FINISH_TIME) ? today.minusDays(1) : today,
+                    lateStarted, lease);
+        }
+        retryPending = !applied;
+    }
+
+    // Programa la próxima transición, no antes de notBefore; sin transiciones pendientes no
+    // queda nada programado hasta el siguiente cambio en las órdenes
+    synchronized void rearm(LocalDateTime notBefore) {
+        if (armed != null) {
+            armed.cancel(false);
+            armed = null;
+            armedAt = null;
+        }
+
+        LocalDateTime next;
+        try {
+            next = nextTransition(LocalDate.now(clock));
+        } catch (Exception e) {
+            logger.error("Error al calcular la próxima transición de estado", e);
+            next = LocalDateTime.now(clock).plus(RETRY_DELAY);
+        }
+        if (retryPending) {
+            LocalDateTime retry = LocalDateTime.now(clock).plus(RETRY_DELAY);
+            next = next == null || retry.isBefore(next) ? retry : next;
         }
+        if (next == null) {
+            logger.info("Sin transiciones de estado pendientes");
+            return;
+        }
+
+        armedAt = next.isBefore(notBefore) ? notBefore : next;
+        LocalDateTime scheduledAt = armedAt;
+        armed = taskScheduler.schedule(() -> runTransitions(scheduledAt),
+                scheduledAt.atZone(clock.getZone()).toInstant());
+        logger.info("Próxima validación de estados programada para {}", armedAt);
+    }
+
+    private LocalDateTime nextTransition(LocalDate today) {
+        LocalDate nextStart = statusRepository.findNextStartDate();
+        LocalDate nextDelivery = statusRepository.findNextDeliveryDate(today);
+        LocalDateTime start = nextStart != null ? nextStart.atTime(START_TIME) : null;
+        LocalDateTime finish = nextDelivery != null ? nextDelivery.atTime(FINISH_TIME) : null;
+        if (start == null || finish == null) {
+            return start != null ? start : finish;
+        }
+        return start.isBefore(finish) ? start : finish;
+    }
+
+    // Validación matutina: un UPDATE inicia las órdenes de todos los días desde la marca de agua
+    // hasta through. Cada escritura lleva el token del lease (fencing), así que un nodo que lo
+    // perdió no cambia nada. Devuelve false si no se pudo aplicar
+    public boolean checkConstructionsToStart(LocalDate through, JobLockService.Lease lease) {
+        return startDue(through, lease) != null;
+    }
 
-        logger.info("PRUEBA: Validación completada. {} órdenes finalizadas", ordersToFinish.size());
+    // Validación nocturna: un UPDATE finaliza las órdenes que se entregan entre la marca de agua y
+    // through
+    public boolean checkConstructionsToFinish(LocalDate through, JobLockService.Lease lease) {
+        return finishDue(through, List.of(), lease);
     }
 
-    // Ejecutar cada día a las 8:00 AM - Validar inicio de construcciones
-    @Scheduled(cron = "0 0 8 * * *")
-    public void checkConstructionsToStart() {
+    // Los inicios no tienen límite inferior: las órdenes pendientes que quedaron detrás de la
+    // marca (adelantadas al eliminar otra de su cuadrilla) se inician con un UPDATE aparte. Sus
+    // IDs se devuelven para finalizarlas aunque su entrega también haya quedado detrás de la
+    // marca de finalizaciones; null si no se pudo aplicar
+    private List<Long> startDue(LocalDate through, JobLockService.Lease lease) {
         logger.info("Ejecutando validación matutina de construcciones a iniciar");
 
         try {
-            LocalDate today = LocalDate.now();
-            List<ConstructionOrderEntity> ordersToStart =
-                    orderRepository.findOrdersToStartToday(today);
-
-            for (ConstructionOrderEntity order : ordersToStart) {
-                try {
-                    if ("Pendiente".equals(order.getEstado())) {
-                        order.setEstado("En progreso");
-                        orderRepository.save(order);
-                        logger.info("Orden {} cambiada a 'En progreso' - Proyecto: {}",
-                                order.getId(), order.getProjectName());
-                    }
-                } catch (Exception e) {
-                    logger.error("Error al cambiar estado de orden {} a 'En progreso'",
-                            order.getId(), e);
+            LocalDate watermark = statusRepository.findWatermark(START_WATERMARK);
+            List<Long> late = List.of();
+            if (watermark != null) {
+                late = statusRepository.startOrders(null,
+                        watermark.isBefore(through) ? watermark : through, lease);
+                if (!late.isEmpty()) {
+                    logger.warn("{} órdenes pendientes con inicio anterior a la marca {} "
+                            + "cambiadas a 'En progreso': {}", late.size(), watermark, late);
                 }
             }
-
-            logger.info("Validación matutina completada. {} órdenes iniciadas",
-                    ordersToStart.size());
-
+            List<Long> started = catchUp(START_WATERMARK, watermark, through, lease,
+                    statusRepository::startOrders);
+            logger.info("Validación matutina completada. {} órdenes cambiadas a 'En progreso': {}",
+                    started.size(), started);
+            return late;
         } catch (Exception e) {
             logger.error("Error crítico en scheduler matutino", e);
+            return null;
         }
     }
 
-    // Ejecutar cada día a las 11:00 PM - Validar finalización de construcciones
-    @Scheduled(cron = "0 0 23 * * *")
-    public void checkConstructionsToFinish() {
+    // Las finalizaciones sí quedan acotadas por la marca, salvo las órdenes recién iniciadas tarde
+    private boolean finishDue(LocalDate through, List<Long> lateStarted,
+            JobLockService.Lease lease) {
         logger.info("Ejecutando validación nocturna de construcciones a finalizar");
 
         try {
-            LocalDate today = LocalDate.now();
-            List<ConstructionOrderEntity> ordersToFinish =
-                    orderRepository.findOrdersToFinishToday(today);
-
-            for (ConstructionOrderEntity order : ordersToFinish) {
-                try {
-                    if ("En progreso".equals(order.getEstado())) {
-                        order.setEstado("Finalizado");
-                        orderRepository.save(order);
-                        logger.info("Orden {} cambiada a 'Finalizado' - Proyecto: {}",
-                                order.getId(), order.getProjectName());
-                    }
-                } catch (Exception e) {
-                    logger.error("Error al cambiar estado de orden {} a 'Finalizado'",
-                            order.getId(), e);
-                }
+            List<Long> finished = new ArrayList<>();
+            if (!lateStarted.isEmpty()) {
+                finished.addAll(statusRepository.finishStartedOrders(lateStarted, through, lease));
             }
-
-            logger.info("Validación nocturna completada. {} órdenes finalizadas",
-                    ordersToFinish.size());
-
+            finished.addAll(catchUp(FINISH_WATERMARK,
+                    statusRepository.findWatermark(FINISH_WATERMARK), through, lease,
+                    statusRepository::finishOrders));
+            logger.info("Validación nocturna completada. {} órdenes cambiadas a 'Finalizado': {}",
+                    finished.size(), finished);
+            return true;
         } catch (Exception e) {
             logger.error("Error crítico en scheduler nocturno", e);
+            return false;
         }
     }
+
+    // La marca se guarda después del UPDATE: si el proceso cae entre ambos, la siguiente
+    // ejecución repite el rango sin efecto sobre las órdenes que ya cambiaron. Sin marca (primer
+    // arranque) el rango no tiene límite inferior
+    private List<Long> catchUp(String watermarkName, LocalDate watermark, LocalDate through,
+            JobLockService.Lease lease, Transition transition) {
+        if (watermark != null && !watermark.isBefore(through)) {
+            return List.of();
+        }
+        if (watermark == null || watermark.isBefore(through.minusDays(1))) {
+            logger.warn("Recuperando transiciones '{}' pendientes desde {} hasta {}", watermarkName,
+                    watermark != null ? watermark.plusDays(1) : "el inicio", through);
+        }
+        List<Long> changed = transition.apply(watermark, through, lease);
+        statusRepository.saveWatermark(watermarkName, through, lease);
+        return changed;
+    }
+
+    @FunctionalInterface
+    private interface Transition {
+        List<Long> apply(LocalDate after, LocalDate through, JobLockService.Lease lease);
+    }
 }
@@ -0,0 +1,158 @@
+package com.cityfuture.infrastructure.scheduler;
+
+import com.cityfuture.infrastructure.service.JobLockService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+// Envoltorio común de los jobs programados: evita que un mismo job se superponga consigo
+// mismo, agrega un retardo aleatorio para repartir el arranque entre réplicas, toma el lease
+// del cluster y publica duración, retraso y omisiones por job
+@Component
+public class ScheduledJobRunner {
+    private static final Logger logger = LoggerFactory.getLogger(ScheduledJobRunner.class);
+
+    // Qué hacer si el job se dispara mientras otra ejecución del mismo sigue activa
+    public enum Overlap {
+        // Se descarta el disparo
+        SKIP,
+        // Se repite una sola vez al terminar la ejecución activa, sin importar cuántos lleguen
+        COALESCE
+    }
+
+    private final JobLockService jobLockService;
+    private final MeterRegistry meterRegistry;
+    private final long maxJitterMillis;
+    private final Clock clock;
+    private final Map<String, JobState> jobs = new ConcurrentHashMap<>();
+
+    private static final class JobState {
+        private final AtomicBoolean running = new AtomicBoolean();
+        private final AtomicBoolean pending = new AtomicBoolean();
+        private final Timer duration;
+        private final Timer lag;
+
+        private JobState(String job, MeterRegistry meterRegistry) {
+            this.duration = Timer.builder("cityfuture.jobs.duration").tag("job", job)
+                    .description("Duración de cada ejecución del job")
+                    .register(meterRegistry);
+            this.lag = Timer.builder("cityfuture.jobs.lag").tag("job", job)
+                    .description("Retraso entre la hora programada y el inicio real")
+                    .register(meterRegistry);
+        }
+    }
+
+    public ScheduledJobRunner(JobLockService jobLockService, MeterRegistry meterRegistry,
+            @Value("${cityfuture.jobs.max-jitter-ms:2000}") long maxJitterMillis, Clock clock) {
+        this.jobLockService = jobLockService;
+        this.meterRegistry = meterRegistry;
+        this.maxJitterMillis = Math.max(0, maxJitterMillis);
+        this.clock = clock;
+    }
+
+    public boolean run(String job, Instant scheduledAt, Overlap overlap, Runnable task) {
+        return run(job, scheduledAt, overlap, lease -> task.run());
+    }
+
+    // Devuelve true si esta réplica ejecutó el job al menos una vez
+    public boolean run(String job, Instant scheduledAt, Overlap overlap,
+            Consumer<JobLockService.Lease> task) {
+        JobState state = jobs.computeIfAbsent(job, name -> new JobState(name, meterRegistry));
+        if (!state.running.compareAndSet(false, true)) {
+            if (overlap == Overlap.COALESCE) {
+                state.pending.set(true);
+                skipped(job, "coalescido");
+            } else {
+                skipped(job, "superpuesto");
+            }
+            logger.info("Job '{}' en curso; disparo {}", job,
+                    overlap == Overlap.COALESCE ? "agrupado con la siguiente ejecución" : "omitido");
+            return false;
+        }
+
+        jitter();
+        boolean ran = false;
+        Instant expected = scheduledAt;
+        while (true) {
+            try {
+                do {
+                    state.pending.set(false);
+                    ran |= execute(job, state, expected, task);
+                    expected = clock.instant();
+                } while (overlap == Overlap.COALESCE && state.pending.get());
+            } finally {
+                state.running.set(false);
+            }
+            // Un disparo que llegó justo después de la última revisión no se pierde
+            if (overlap != Overlap.COALESCE || !state.pending.get()
+                    || !state.running.compareAndSet(false, true)) {
+                return ran;
+            }
+        }
+    }
+
+    private boolean execute(String job, JobState state, Instant scheduledAt,
+            Consumer<JobLockService.Lease> task) {
+        Duration lag = Duration.between(scheduledAt, clock.instant());
+        state.lag.record(lag.isNegative() ? Duration.ZERO : lag);
+        long start = System.nanoTime();
+        boolean executed;
+        try {
+            executed = jobLockService.runExclusive(job, task);
+        } catch (RuntimeException e) {
+            logger.error("Error en el job '{}'", job, e);
+            executed = true;
+        }
+        if (executed) {
+            state.duration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } else {
+            skipped(job, "lease");
+        }
+        return executed;
+    }
+
+    // Última hora de disparo de la expresión cron que no es posterior a now; sirve para medir el
+    // retraso de los jobs con @Scheduled, que no reciben la hora programada
+    public static Instant lastFire(CronExpression cron, ZonedDateTime now) {
+        ZonedDateTime candidate = cron.next(now.minusDays(1));
+        ZonedDateTime last = candidate;
+        while (candidate != null && !candidate.isAfter(now)) {
+            last = candidate;
+            candidate = cron.next(candidate);
+        }
+        return last == null || last.isAfter(now) ? now.toInstant() : last.toInstant();
+    }
+
+    private void jitter() {
+        if (maxJitterMillis == 0) {
+            return;
+        }
+        try {
+            // En un hilo virtual la espera no ocupa un hilo de plataforma
+            Thread.sleep(ThreadLocalRandom.current().nextLong(maxJitterMillis + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void skipped(String job, String reason) {
+        Counter.builder("cityfuture.jobs.skipped").tag("job", job).tag("reason", reason)
+                .register(meterRegistry).increment();
+    }
+}
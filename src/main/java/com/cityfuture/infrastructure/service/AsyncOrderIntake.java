@@ -0,0 +1,170 @@
+package com.cityfuture.infrastructure.service;
+
+import com.cityfuture.domain.exception.InsufficientMaterialException;
+import com.cityfuture.domain.exception.LocationAlreadyOccupiedException;
+import com.cityfuture.domain.model.ConstructionOrder;
+import com.cityfuture.domain.model.OrderTicket;
+import com.cityfuture.domain.model.QueuePlacement;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+// Recepción asíncrona de órdenes: el hilo HTTP solo registra un ticket y el trabajo se
+// procesa en hilos virtuales, con un límite de órdenes en curso como control de admisión
+@Component
+public class AsyncOrderIntake {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncOrderIntake.class);
+
+    private final ConstructionRequestUseCase constructionRequestService;
+    private final OrderCommandPipeline orderCommandPipeline;
+    private final Semaphore admission;
+    private final int maxInFlight;
+    private final Duration ticketTtl;
+    private final Clock clock;
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, OrderTicket> tickets = new ConcurrentHashMap<>();
+
+    private final Counter acceptedCounter;
+    private final Counter rejectedCounter;
+    private final Counter completedCounter;
+    private final Counter failedCounter;
+    private final Timer processingTimer;
+
+    public AsyncOrderIntake(ConstructionRequestUseCase constructionRequestService,
+            OrderCommandPipeline orderCommandPipeline, MeterRegistry meterRegistry,
+            @Value("${cityfuture.async.max-in-flight:256}") int maxInFlight,
+            @Value("${cityfuture.async.ticket-ttl-minutes:30}") long ticketTtlMinutes,
+            Clock clock) {
+        this.constructionRequestService = constructionRequestService;
+        this.orderCommandPipeline = orderCommandPipeline;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.admission = new Semaphore(this.maxInFlight);
+        this.ticketTtl = Duration.ofMinutes(ticketTtlMinutes);
+        this.clock = clock;
+
+        Gauge.builder("cityfuture.orders.async.in_flight", admission,
+                permits -> this.maxInFlight - permits.availablePermits())
+                .description("Órdenes asíncronas admitidas y aún sin resultado")
+                .register(meterRegistry);
+        Gauge.builder("cityfuture.orders.pipeline.queue_depth", orderCommandPipeline,
+                OrderCommandPipeline::queueDepth)
+                .description("Comandos esperando al hilo escritor")
+                .register(meterRegistry);
+        Gauge.builder("cityfuture.orders.async.tickets", tickets, Map::size)
+                .register(meterRegistry);
+        this.acceptedCounter = Counter.builder("cityfuture.orders.async.admission")
+                .tag("result", "accepted").register(meterRegistry);
+        this.rejectedCounter = Counter.builder("cityfuture.orders.async.admission")
+                .tag("result", "rejected").register(meterRegistry);
+        this.completedCounter = Counter.builder("cityfuture.orders.async.outcome")
+                .tag("result", "completed").register(meterRegistry);
+        this.failedCounter = Counter.builder("cityfuture.orders.async.outcome")
+                .tag("result", "rejected").register(meterRegistry);
+        this.processingTimer = Timer.builder("cityfuture.orders.async.processing")
+                .description("Tiempo desde la admisión hasta el resultado")
+                .register(meterRegistry);
+    }
+
+    public OrderTicket submit(ConstructionOrder order) {
+        return submit(order, QueuePlacement.END);
+    }
+
+    public OrderTicket submit(ConstructionOrder order, QueuePlacement placement) {
+        if (!admission.tryAcquire()) {
+            rejectedCounter.increment();
+            throw new RejectedExecutionException(
+                    "Se alcanzó el límite de " + maxInFlight + " órdenes en proceso, intente nuevamente");
+        }
+
+        OrderTicket ticket = OrderTicket.queued(UUID.randomUUID().toString(), order.projectName(),
+                Instant.now(clock));
+        tickets.put(ticket.id(), ticket);
+        acceptedCounter.increment();
+
+        try {
+            workers.execute(() -> process(ticket, order, placement));
+        } catch (RejectedExecutionException e) {
+            tickets.remove(ticket.id());
+            admission.release();
+            throw e;
+        }
+        logger.info("Orden aceptada para proceso asíncrono - Ticket: {}, Proyecto: {}",
+                ticket.id(), order.projectName());
+        return ticket;
+    }
+
+    public Optional<OrderTicket> findTicket(String id) {
+        return Optional.ofNullable(tickets.get(id));
+    }
+
+    public int inFlight() {
+        return maxInFlight - admission.availablePermits();
+    }
+
+    private void process(OrderTicket ticket, ConstructionOrder order, QueuePlacement placement) {
+        tickets.put(ticket.id(), ticket.processing());
+        OrderTicket result;
+        try {
+            ConstructionOrder created = orderCommandPipeline.execute("crear-async",
+                    () -> constructionRequestService.createOrder(order, placement));
+            result = ticket.completed(created, Instant.now(clock));
+            completedCounter.increment();
+        } catch (LocationAlreadyOccupiedException e) {
+            result = ticket.rejected("Ubicación ocupada", e.getMessage(),
+                    Instant.now(clock));
+            failedCounter.increment();
+        } catch (InsufficientMaterialException e) {
+            result = ticket.rejected("Materiales insuficientes", e.getMessage(),
+                    Instant.now(clock));
+            failedCounter.increment();
+        } catch (IllegalArgumentException e) {
+            result = ticket.rejected("Error de validación", e.getMessage(),
+                    Instant.now(clock));
+            failedCounter.increment();
+        } catch (RuntimeException e) {
+            logger.error("Error inesperado procesando ticket {} - Proyecto: {}", ticket.id(),
+                    order.projectName(), e);
+            result = ticket.rejected("Error interno del servidor",
+                    "Ocurrió un error inesperado al procesar la solicitud", Instant.now(clock));
+            failedCounter.increment();
+        } finally {
+            admission.release();
+        }
+
+        tickets.put(ticket.id(), result);
+        processingTimer.record(Duration.between(ticket.acceptedAt(), result.completedAt()));
+        logger.info("Ticket {} finalizado - Estado: {}", ticket.id(), result.status());
+    }
+
+    // Los tickets terminados se conservan solo durante el TTL configurado
+    @Scheduled(fixedDelayString = "${cityfuture.async.ticket-purge-ms:60000}")
+    public void purgeExpiredTickets() {
+        Instant limit = Instant.now(clock).minus(ticketTtl);
+        tickets.values().removeIf(ticket -> ticket.isFinished()
+                && ticket.completedAt().isBefore(limit));
+    }
+
+    @PreDestroy
+    public void stop() {
+        workers.shutdown();
+    }
+}
@@ -1,25 +1,43 @@
 package com.cityfuture.infrastructure.service;
 
 import com.cityfuture.api.exception.ConstructionOrderNotFoundException;
+import com.cityfuture.domain.event.ConstructionScheduleChangedEvent;
 import com.cityfuture.domain.exception.InsufficientMaterialException;
+import com.cityfuture.domain.exception.LocationAlreadyOccupiedException;
+import com.cityfuture.domain.model.BatchOrderResult;
+import com.cityfuture.domain.model.BulkDeleteResult;
 import com.cityfuture.domain.model.ConstructionOrder;
 import com.cityfuture.domain.model.ConstructionReport;
-import com.cityfuture.domain.model.ConstructionTypeCriteria;
+import com.cityfuture.domain.model.ConstructionStatus;
+import com.cityfuture.domain.model.Coordinate;
+import com.cityfuture.domain.model.MaterialVector;
 import com.cityfuture.domain.model.ProjectSummary;
+import com.cityfuture.domain.model.QueuePlacement;
 import com.cityfuture.infrastructure.mapper.ConstructionMapper;
 import com.cityfuture.infrastructure.persistence.entity.ConstructionOrderEntity;
-import com.cityfuture.infrastructure.persistence.entity.MaterialEntity;
+import com.cityfuture.infrastructure.persistence.repository.JdbcConstructionOrderBatchRepository;
+import com.cityfuture.infrastructure.persistence.repository.JdbcConstructionStatusRepository;
 import com.cityfuture.infrastructure.persistence.repository.JpaConstructionOrderRepository;
-import com.cityfuture.infrastructure.persistence.repository.JpaMaterialRepository;
 import lombok.AllArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Clock;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 @AllArgsConstructor
 public class ConstructionRequestUseCase {
@@ -27,44 +45,69 @@ public class ConstructionRequestUseCase {
 
     private final JpaConstructionOrderRepository orderRepository;
     private final ConstructionMapper mapper;
-    private final JpaMaterialRepository materialRepository;
-    
+    private final MaterialReservationService materialReservationService;
+    private final TimelineAllocator timelineAllocator;
+    private final LocationOccupancyService locationOccupancyService;
+    private final JdbcConstructionOrderBatchRepository batchRepository;
+    private final JdbcConstructionStatusRepository statusRepository;
+    private final OverdueOrderProcessor overdueOrderProcessor;
+    private final InventorySnapshot inventorySnapshot;
+    private final ConstructionTypeCatalog constructionTypeCatalog;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ConstructionStatusPolicy statusPolicy;
+    private final Clock clock;
+
+    @Transactional
     public ConstructionOrder createOrder(ConstructionOrder order) {
+        return createOrder(order, QueuePlacement.END);
+    }
+
+    @Transactional
+    public ConstructionOrder createOrder(ConstructionOrder order, QueuePlacement placement) {
         logger.info("Iniciando creación de orden de construcción para proyecto: {}",
                 order.projectName());
 
         try {
-            ConstructionTypeCriteria criteria = validateConstructionType(order.typeConstruction());
+            ConstructionTypeCatalog.CompiledType type =
+                    validateConstructionType(order.typeConstruction());
             logger.debug("Tipo de construcción validado: {} - Días estimados: {}",
-                    order.typeConstruction(), criteria.getEstimatedTime());
+                    order.typeConstruction(), type.estimatedDays());
 
-            validateUniqueLocation(order.location());
+            locationOccupancyService.claim(order.location());
             logger.debug("Coordenadas validadas: lat={}, lon={}", order.location().latitude(),
                     order.location().longitude());
 
-            validateMaterials(criteria.getMaterials());
-            logger.debug("Materiales validados correctamente");
-
-            consumeMaterials(criteria.getMaterials());
-            logger.info("Materiales consumidos exitosamente para construcción: {}", order.projectName());
+            materialReservationService.reserve(type.requirements());
+            logger.info("Materiales reservados exitosamente para construcción: {}", order.projectName());
 
             ConstructionOrderEntity entity = mapper.toEntity(order);
-            entity.setEstado("Pendiente");
-            entity.setEstimatedDays(criteria.getEstimatedTime());
-
-            LocalDate deliveryDate = calculateNextDeliveryDate(criteria.getEstimatedTime());
-            entity.setEntregaDate(deliveryDate);
-
-            LocalDate startDate = deliveryDate.minusDays(criteria.getEstimatedTime() - 1);
-            entity.setStartDate(startDate);
+            entity.setEstado(initialStatus());
+            entity.setEstimatedDays(type.estimatedDays());
+            entity.setReservedMaterials(type.requirements().toMap());
+
+            TimelineAllocator.Slot slot = allocateSlot(placement, type.estimatedDays());
+            entity.setStartDate(slot.startDate());
+            entity.setEntregaDate(slot.deliveryDate());
+            entity.setLane(slot.lane());
+
+            if (!placement.atEnd()) {
+                // Las órdenes de la cuadrilla desde el punto de inserción se atrasan en un solo
+                // UPDATE
+                int shifted = orderRepository.shiftOrdersStartingFrom(slot.lane(),
+                        slot.startDate(), type.estimatedDays());
+                logger.info("Orden insertada en la cola - Inicio: {}, Órdenes reprogramadas: {}",
+                        slot.startDate(), shifted);
+            }
 
-            ConstructionOrderEntity saved = orderRepository.save(entity);
+            ConstructionOrderEntity saved = saveWithUniqueLocation(entity);
+            timelineAllocator.bind(slot, saved.getId());
+            eventPublisher.publishEvent(new ConstructionScheduleChangedEvent(slot.startDate()));
             logger.info(
                     "Orden de construcción creada exitosamente - ID: {}, Proyecto: {}, Inicio: {}, Entrega: {}",
                     saved.getId(), saved.getProjectName(), saved.getStartDate(),
                     saved.getEntregaDate());
 
-            return mapper.toDomain(saved);
+            return toDomain(saved, LocalDate.now(clock));
 
         } catch (IllegalArgumentException e) {
             logger.error(
@@ -90,42 +133,179 @@ public class ConstructionRequestUseCase {
         }
     }
 
-    private void validateUniqueLocation(com.cityfuture.domain.model.Coordinate location) {
-        boolean locationExists = orderRepository.existsByLocationCoordinates(location.latitude(),
-                location.longitude());
+    @Transactional
+    public List<BatchOrderResult> createOrders(List<ConstructionOrder> orders, boolean allOrNothing) {
+        logger.info("Iniciando creación en lote de {} órdenes - Modo: {}", orders.size(),
+                allOrNothing ? "todo o nada" : "parcial");
+
+        int size = orders.size();
+        String[] errors = new String[size];
+        ConstructionTypeCatalog.CompiledType[] types = new ConstructionTypeCatalog.CompiledType[size];
+        List<Coordinate> claimed = new ArrayList<>();
+
+        // 1. Tipos y ubicaciones, validados en memoria (incluye duplicados dentro del lote)
+        for (int i = 0; i < size; i++) {
+            ConstructionOrder order = orders.get(i);
+            try {
+                types[i] = validateConstructionType(order.typeConstruction());
+                locationOccupancyService.claim(order.location());
+                claimed.add(order.location());
+            } catch (IllegalArgumentException | LocationAlreadyOccupiedException e) {
+                errors[i] = e.getMessage();
+            }
+        }
+
+        // 2. Materiales: se descuentan en memoria orden por orden sobre una sola lectura del
+        // stock, recorriendo los vectores del catálogo compilado
+        String[] codes = constructionTypeCatalog.current().materialCodes();
+        int[] remaining = materialReservationService.availableStock(codes);
+        int[] totalRequired = new int[codes.length];
+
+        for (int i = 0; i < size; i++) {
+            if (errors[i] != null) {
+                continue;
+            }
+            MaterialVector required = types[i].requirements().alignTo(codes);
+            String deficit = findDeficit(required, remaining);
+            if (deficit != null) {
+                errors[i] = deficit;
+                locationOccupancyService.unclaim(orders.get(i).location());
+                claimed.remove(orders.get(i).location());
+                continue;
+            }
+            for (int slot = 0; slot < codes.length; slot++) {
+                remaining[slot] -= required.quantity(slot);
+                totalRequired[slot] += required.quantity(slot);
+            }
+        }
+
+        long rejected = Arrays.stream(errors).filter(Objects::nonNull).count();
+        if (allOrNothing && rejected > 0) {
+            claimed.forEach(locationOccupancyService::unclaim);
+            logger.warn("Lote rechazado - {} de {} órdenes con errores", rejected, size);
+            List<BatchOrderResult> results = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                results.add(BatchOrderResult.rejected(i, orders.get(i).projectName(),
+                        errors[i] != null ? errors[i]
+                                : "Lote cancelado por errores en otras órdenes"));
+            }
+            return results;
+        }
+
+        // 3. Una sola reserva con las necesidades agregadas del lote
+        MaterialVector batchRequired = new MaterialVector(codes, totalRequired);
+        if (!batchRequired.isEmpty()) {
+            materialReservationService.reserve(batchRequired);
+        }
+
+        // 4. Slots consecutivos en memoria e inserción JDBC en batch
+        List<Integer> acceptedIndexes = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (errors[i] == null) {
+                acceptedIndexes.add(i);
+            }
+        }
+        List<TimelineAllocator.Slot> slots = timelineAllocator.allocateAll(acceptedIndexes.stream()
+                .map(i -> types[i].estimatedDays()).toList());
+
+        List<ConstructionOrderEntity> entities = new ArrayList<>(acceptedIndexes.size());
+        for (int k = 0; k < acceptedIndexes.size(); k++) {
+            int i = acceptedIndexes.get(k);
+            ConstructionOrderEntity entity = mapper.toEntity(orders.get(i));
+            entity.setEstado(initialStatus());
+            entity.setEstimatedDays(types[i].estimatedDays());
+            entity.setReservedMaterials(types[i].requirements().toMap());
+            entity.setStartDate(slots.get(k).startDate());
+            entity.setEntregaDate(slots.get(k).deliveryDate());
+            entity.setLane(slots.get(k).lane());
+            entities.add(entity);
+        }
+
+        try {
+            batchRepository.insertAll(entities);
+        } catch (DataIntegrityViolationException e) {
+            throw new LocationAlreadyOccupiedException(
+                    "Una de las ubicaciones del lote fue registrada por otra instancia");
+        }
+        for (int k = 0; k < entities.size(); k++) {
+            timelineAllocator.bind(slots.get(k), entities.get(k).getId());
+        }
+        slots.stream().map(TimelineAllocator.Slot::startDate).min(Comparator.naturalOrder())
+                .ifPresent(from -> eventPublisher.publishEvent(
+                        new ConstructionScheduleChangedEvent(from)));
+
+        List<BatchOrderResult> results = new ArrayList<>(size);
+        int next = 0;
+        for (int i = 0; i < size; i++) {
+            if (errors[i] != null) {
+                results.add(BatchOrderResult.rejected(i, orders.get(i).projectName(), errors[i]));
+            } else {
+                ConstructionOrderEntity saved = entities.get(next++);
+                results.add(BatchOrderResult.accepted(i, saved.getProjectName(), saved.getId(),
+                        saved.getStartDate(), saved.getEntregaDate()));
+            }
+        }
 
-        if (locationExists) {
+        logger.info("Lote procesado - Creadas: {}, Rechazadas: {}", entities.size(), rejected);
+        return results;
+    }
+
+    private String findDeficit(MaterialVector required, int[] available) {
+        List<String> deficits = new ArrayList<>();
+        for (int slot = 0; slot < required.size(); slot++) {
+            int requiredQuantity = required.quantity(slot);
+            if (available[slot] < requiredQuantity) {
+                deficits.add(String.format("%s - Disponible: %d, Requerido: %d, Faltan: %d",
+                        required.code(slot), available[slot], requiredQuantity,
+                        requiredQuantity - available[slot]));
+            }
+        }
+        return deficits.isEmpty() ? null
+                : "Materiales insuficientes para construcción: " + String.join("; ", deficits);
+    }
+
+    private TimelineAllocator.Slot allocateSlot(QueuePlacement placement, int estimatedDays) {
+        if (placement.beforeOrderId() != null) {
+            return timelineAllocator.allocateBefore(placement.beforeOrderId(), estimatedDays);
+        }
+        return placement.priority() ? timelineAllocator.allocateFirst(estimatedDays)
+                : timelineAllocator.allocate(estimatedDays);
+    }
+
+    private ConstructionOrderEntity saveWithUniqueLocation(ConstructionOrderEntity entity) {
+        try {
+            return orderRepository.save(entity);
+        } catch (DataIntegrityViolationException e) {
+            // Otra instancia registró la misma ubicación: lo detecta el índice único
+            throw new LocationAlreadyOccupiedException(
+                    "Ya existe una orden de construcción en las coordenadas: "
+                            + entity.getLocation().getLatitude() + ", "
+                            + entity.getLocation().getLongitude());
+        }
+    }
+
+    private void validateUniqueLocation(com.cityfuture.domain.model.Coordinate location) {
+        if (locationOccupancyService.isOccupied(location)) {
             throw new com.cityfuture.domain.exception.LocationAlreadyOccupiedException(
                     "Ya existe una orden de construcción en las coordenadas: " + location.latitude()
                             + ", " + location.longitude());
         }
     }
 
-    private LocalDate calculateNextDeliveryDate(Integer estimatedDays) {
-        return orderRepository.findFirstByOrderByEntregaDateDesc().map(lastOrder -> {
-            LocalDate lastDeliveryDate = lastOrder.getEntregaDate();
-            // La nueva construcción inicia al día siguiente de terminar la anterior
-            // y termina después de los días estimados
-            LocalDate startDate = lastDeliveryDate.plusDays(1);
-            return startDate.plusDays(estimatedDays - 1); // -1 porque incluye el día de inicio
-        }).orElse(LocalDate.now().plusDays(1).plusDays(estimatedDays - 1)); // Primera orden: inicia
-                                                                            // mañana
-    }
-
+    // Totales y fechas del proyecto salen del cronograma en memoria, sin consultar la BD
     public Integer getTotalConstructionDays() {
-        return orderRepository.sumAllEstimatedDays();
+        return (int) timelineAllocator.summary().totalDays();
     }
 
     public LocalDate getEstimatedDeliveryDate() {
         // La fecha de entrega es simplemente la fecha de entrega de la última orden
-        return orderRepository.findFirstByOrderByEntregaDateDesc()
-                .map(ConstructionOrderEntity::getEntregaDate).orElse(LocalDate.now());
+        LocalDate endDate = timelineAllocator.summary().endDate();
+        return endDate != null ? endDate : LocalDate.now(clock);
     }
 
     public LocalDate getProjectStartDate() {
-        // Usar el campo startDate real de la primera orden
-        return orderRepository.findFirstByOrderByEntregaDateAsc()
-                .map(ConstructionOrderEntity::getStartDate).orElse(LocalDate.now().plusDays(1));
+        LocalDate startDate = timelineAllocator.summary().startDate();
+        return startDate != null ? startDate : LocalDate.now(clock).plusDays(1);
     }
 
     public LocalDate getProjectEndDate() {
@@ -134,260 +314,285 @@ public class ConstructionRequestUseCase {
     }
 
     public List<ConstructionOrder> getAllOrders() {
-        return orderRepository.findAll().stream().map(mapper::toDomain).toList();
+        LocalDate today = LocalDate.now(clock);
+        return orderRepository.findAll().stream().map(entity -> toDomain(entity, today)).toList();
     }
 
     public List<ConstructionOrder> getOrdersByStatus(String estado) {
         logger.info("Filtrando construcciones por estado: '{}'", estado);
-        
-        List<ConstructionOrderEntity> allEntities = orderRepository.findAll();
-        
-        // Debug: mostrar todos los estados en la BD
-        List<String> estadosEnBD = allEntities.stream()
-                .map(ConstructionOrderEntity::getEstado)
-                .distinct()
-                .toList();
-        logger.info("Estados únicos en BD: {}", estadosEnBD);
-        
-        List<ConstructionOrderEntity> filteredEntities = allEntities.stream()
-                .filter(entity -> {
-                    String estadoEntity = entity.getEstado();
-                    boolean matches = estado.equalsIgnoreCase(estadoEntity);
-                    logger.debug("Comparando '{}' con '{}': {}", estado, estadoEntity, matches);
-                    return matches;
-                })
-                .toList();
-                
-        logger.info("Construcciones encontradas con estado '{}': {} de {}", 
-                estado, filteredEntities.size(), allEntities.size());
-        
+
+        // Un estado desconocido no coincide con ninguna orden
+        ConstructionStatus status = ConstructionStatus.find(estado).orElse(null);
+        if (status == null) {
+            return List.of();
+        }
+        LocalDate today = LocalDate.now(clock);
+        List<ConstructionOrderEntity> filteredEntities =
+                orderRepository.findByFilter(status, null, today);
+        logger.info("Construcciones encontradas con estado '{}': {}", status.getLabel(),
+                filteredEntities.size());
+
         return filteredEntities.stream()
-                .map(mapper::toDomain)
+                .map(entity -> toDomain(entity, today))
                 .toList();
     }
 
     public ConstructionOrder getOrderById(Long id) {
-        return orderRepository.findById(id).map(mapper::toDomain).orElseThrow(
-                () -> new RuntimeException("Construction order not found with id: " + id));
+        return orderRepository.findById(id).map(entity -> toDomain(entity, LocalDate.now(clock)))
+                .orElseThrow(() -> new RuntimeException(
+                        "Construction order not found with id: " + id));
     }
 
-    public ConstructionOrder updateOrder(Long id, ConstructionOrder order) {
-        return orderRepository.findById(id).map(existing -> {
-            ConstructionTypeCriteria currentCriteria =
-                    validateConstructionType(existing.getTypeConstruction());
-            validateMaterials(currentCriteria.getMaterials());
-
-            if (!existing.getTypeConstruction().equalsIgnoreCase(order.typeConstruction())) {
-                ConstructionTypeCriteria newCriteria =
-                        validateConstructionType(order.typeConstruction());
-                validateMaterials(newCriteria.getMaterials());
-                existing.setEstimatedDays(newCriteria.getEstimatedTime());
-            }
-            existing.setTypeConstruction(order.typeConstruction());
-            existing.setProjectName(order.projectName());
-            existing.setEstado("Pendiente");
+    // Fija el estado de una orden a mano; sin estado se quita el fijado y vuelve a regir el de
+    // las fechas
+    @Transactional
+    public ConstructionOrder overrideStatus(Long id, String estado) {
+        ConstructionOrderEntity existing = orderRepository.findById(id).orElseThrow(
+                () -> new ConstructionOrderNotFoundException(
+                        "No existe una orden de construcción con el ID: " + id));
+
+        LocalDate today = LocalDate.now(clock);
+        ConstructionStatus status = blankToNull(estado) != null
+                ? ConstructionStatus.fromLabel(estado) : null;
+        if (status == null && !statusPolicy.isDerived()) {
+            // Con el estado guardado no hay lugar vacío: se guarda el que corresponde por fechas
+            status = ConstructionStatus.derive(existing.getStartDate(),
+                    existing.getEntregaDate(), today);
+        }
+        existing.setEstado(status);
 
-            return mapper.toDomain(orderRepository.save(existing));
-        }).orElseThrow(() -> new ConstructionOrderNotFoundException(
-                "No existe una orden de construcción con el ID: " + id));
+        ConstructionOrder updated = toDomain(orderRepository.save(existing), today);
+        eventPublisher.publishEvent(new ConstructionScheduleChangedEvent(existing.getStartDate()));
+        logger.info("Estado de la orden {} fijado a mano: {}", id,
+                status != null ? status.getLabel() : "derivado de las fechas");
+        return updated;
     }
 
-    private ConstructionTypeCriteria validateConstructionType(String typeConstruction) {
-        try {
-            return ConstructionTypeCriteria.valueOf(typeConstruction.toUpperCase());
-        } catch (IllegalArgumentException e) {
-            throw new IllegalArgumentException(
-                    "Tipo de construcción no válido: " + typeConstruction);
+    @Transactional
+    public ConstructionOrder updateOrder(Long id, ConstructionOrder order) {
+        ConstructionOrderEntity existing = orderRepository.findById(id).orElseThrow(
+                () -> new ConstructionOrderNotFoundException(
+                        "No existe una orden de construcción con el ID: " + id));
+
+        if (!existing.getTypeConstruction().equalsIgnoreCase(order.typeConstruction())) {
+            ConstructionTypeCatalog.CompiledType newType =
+                    validateConstructionType(order.typeConstruction());
+
+            // Solo se descuenta o devuelve la diferencia entre lo que la orden tiene reservado y
+            // lo que requiere el nuevo tipo
+            materialReservationService.adjust(
+                    newType.requirements().minus(reservedMaterials(existing)));
+            existing.setReservedMaterials(newType.requirements().toMap());
+
+            int daysDelta = newType.estimatedDays() - existing.getEstimatedDays();
+            if (daysDelta != 0) {
+                // El cronograma se bloquea antes de tocar fechas en BD; las órdenes posteriores
+                // de la cuadrilla se desplazan la diferencia en un solo UPDATE
+                timelineAllocator.resize(id, daysDelta);
+                int shifted = orderRepository.shiftOrdersStartingFrom(existing.getLane(),
+                        existing.getEntregaDate().plusDays(1), daysDelta);
+                existing.setEntregaDate(existing.getEntregaDate().plusDays(daysDelta));
+                logger.info("Orden {} cambia de {} a {} días - Órdenes reprogramadas: {}", id,
+                        existing.getEstimatedDays(), newType.estimatedDays(), shifted);
+            }
+            existing.setEstimatedDays(newType.estimatedDays());
         }
+        existing.setTypeConstruction(order.typeConstruction());
+        existing.setProjectName(order.projectName());
+        existing.setEstado(statusAfterUpdate(existing, order));
+
+        ConstructionOrder updated = toDomain(orderRepository.save(existing), LocalDate.now(clock));
+        // El estado puede haber cambiado y las órdenes posteriores pueden haberse desplazado
+        eventPublisher.publishEvent(new ConstructionScheduleChangedEvent(existing.getStartDate()));
+        return updated;
     }
 
-    private void validateMaterials(Map<String, Integer> requiredMaterials) {
-        logger.info("Validando y reservando materiales para construcción");
-        List<String> insufficientMaterials = new ArrayList<>();
-        
-        for (var requiredMaterial : requiredMaterials.entrySet()) {
-            String code = requiredMaterial.getKey();
-            int requiredQuantity = requiredMaterial.getValue();
+    private ConstructionTypeCatalog.CompiledType validateConstructionType(String typeConstruction) {
+        return constructionTypeCatalog.resolve(typeConstruction);
+    }
 
-            // Buscar el material en la base de datos por código
-            var materialOpt = materialRepository.findByCode(code);
-            if (!materialOpt.isPresent()) {
-                throw new InsufficientMaterialException(
-                        "Material no encontrado: " + code);
-            }
-            
-            MaterialEntity material = materialOpt.get();
-            int availableQuantity = material.getQuantity();
-
-            if (availableQuantity < requiredQuantity) {
-                int deficit = requiredQuantity - availableQuantity;
-                insufficientMaterials.add(
-                    String.format("%s (%s) - Disponible: %d, Requerido: %d, Faltan: %d", 
-                        material.getMaterialName(), code, availableQuantity, requiredQuantity, deficit)
-                );
-            } else {
-                logger.debug("Validación exitosa para {}: disponible={}, requerido={}", 
-                        code, availableQuantity, requiredQuantity);
-            }
-        }
-        
-        // Si hay materiales insuficientes, lanzar excepción con todos los detalles
-        if (!insufficientMaterials.isEmpty()) {
-            String errorMessage = "Materiales insuficientes para construcción: " + String.join("; ", insufficientMaterials);
-            throw new InsufficientMaterialException(errorMessage);
-        }
+    private MaterialVector reservedMaterials(ConstructionOrderEntity order) {
+        return constructionTypeCatalog.reservedFor(order.getTypeConstruction(),
+                order.getReservedMaterials());
     }
 
-    private void consumeMaterials(Map<String, Integer> requiredMaterials) {
-        logger.info("Consumiendo materiales para construcción");
-        
-        for (var requiredMaterial : requiredMaterials.entrySet()) {
-            String code = requiredMaterial.getKey();
-            int requiredQuantity = requiredMaterial.getValue();
-
-            // Buscar el material y reducir la cantidad
-            var materialOpt = materialRepository.findByCode(code);
-            if (materialOpt.isPresent()) {
-                MaterialEntity material = materialOpt.get();
-                int newQuantity = material.getQuantity() - requiredQuantity;
-                material.setQuantity(newQuantity);
-                materialRepository.save(material);
-                
-                logger.info("Material {} actualizado: {} -> {} unidades", 
-                        code, material.getQuantity() + requiredQuantity, newQuantity);
-            }
-        }
+    // Devuelve la cantidad de órdenes posteriores reprogramadas
+    @Transactional
+    public int deleteOrder(Long id) {
+        ConstructionOrderEntity orderToDelete = orderRepository.findById(id).orElseThrow(
+                () -> new ConstructionOrderNotFoundException(
+                        "No existe una orden de construcción con el ID: " + id));
+
+        materialReservationService.release(reservedMaterials(orderToDelete));
+        logger.info("Materiales devueltos al stock para construcción eliminada: {}",
+                orderToDelete.getProjectName());
+        // El cronograma se bloquea antes de tocar órdenes en BD
+        timelineAllocator.remove(id);
+        orderRepository.deleteById(id);
+        locationOccupancyService.release(new Coordinate(
+                orderToDelete.getLocation().getLatitude(),
+                orderToDelete.getLocation().getLongitude()));
+
+        // Las órdenes posteriores de la misma cuadrilla se adelantan los días que ocupaba la
+        // eliminada en un solo UPDATE
+        int shifted = orderRepository.shiftOrdersDeliveredAfter(orderToDelete.getLane(),
+                orderToDelete.getEntregaDate(), occupiedDays(orderToDelete));
+        eventPublisher.publishEvent(
+                new ConstructionScheduleChangedEvent(orderToDelete.getStartDate()));
+        logger.info("Orden {} eliminada - Órdenes reprogramadas: {}", id, shifted);
+        return shifted;
     }
 
-    private void returnMaterialsToStock(Map<String, Integer> requiredMaterials) {
-        logger.info("Devolviendo materiales al stock");
-        
-        for (var requiredMaterial : requiredMaterials.entrySet()) {
-            String code = requiredMaterial.getKey();
-            int quantityToReturn = requiredMaterial.getValue();
-
-            var materialOpt = materialRepository.findByCode(code);
-            if (materialOpt.isPresent()) {
-                MaterialEntity material = materialOpt.get();
-                int oldQuantity = material.getQuantity();
-                int newQuantity = oldQuantity + quantityToReturn;
-                material.setQuantity(newQuantity);
-                materialRepository.save(material);
-                
-                logger.info("Material {} devuelto al stock: {} -> {} unidades", 
-                        code, oldQuantity, newQuantity);
-            }
-        }
+    // Elimina varias órdenes con una sola devolución de materiales y una sola pasada de
+    // reprogramación; los IDs inexistentes se informan sin abortar el resto
+    @Transactional
+    public BulkDeleteResult deleteOrders(List<Long> ids) {
+        List<ConstructionOrderEntity> orders = orderRepository.findAllById(ids);
+        Set<Long> found = orders.stream().map(ConstructionOrderEntity::getId)
+                .collect(Collectors.toSet());
+        List<Long> notFound = ids.stream().distinct().filter(id -> !found.contains(id)).toList();
+        return deleteAll(orders, notFound);
+    }
+
+    @Transactional
+    public BulkDeleteResult deleteOrdersMatching(String estado, String typeConstruction) {
+        ConstructionStatus status = blankToNull(estado) != null
+                ? ConstructionStatus.fromLabel(estado) : null;
+        return deleteAll(orderRepository.findByFilter(status, blankToNull(typeConstruction),
+                LocalDate.now(clock)), List.of());
     }
 
-    public void deleteOrder(Long id) {
-        if (!orderRepository.existsById(id)) {
-            throw new RuntimeException("No existe una orden de construcción con el ID: " + id);
+    private BulkDeleteResult deleteAll(List<ConstructionOrderEntity> orders, List<Long> notFound) {
+        if (orders.isEmpty()) {
+            return new BulkDeleteResult(0, 0, notFound);
         }
 
-        ConstructionOrderEntity orderToDelete = orderRepository.findById(id).orElse(null);
-        if (orderToDelete != null) {
-            LocalDate deletedStartDate = orderToDelete.getEntregaDate();
-            
-            String constructionType = orderToDelete.getTypeConstruction();
-            ConstructionTypeCriteria criteria = validateConstructionType(constructionType);
-            returnMaterialsToStock(criteria.getMaterials());
-            logger.info("Materiales devueltos al stock para construcción eliminada: {}", orderToDelete.getProjectName());
-            orderRepository.deleteById(id);
-
-            // Recalcular fechas de órdenes posteriores
-            recalculateSubsequentOrders(deletedStartDate);
+        // 1. Materiales reservados de todas las órdenes sumados en una sola devolución
+        Map<String, Integer> totalReleased = new HashMap<>();
+        for (ConstructionOrderEntity order : orders) {
+            reservedMaterials(order).toMap()
+                    .forEach((code, quantity) -> totalReleased.merge(code, quantity, Integer::sum));
         }
+        materialReservationService.release(MaterialVector.of(totalReleased));
+
+        // 2. Un solo DELETE para todas las órdenes, con el cronograma ya bloqueado
+        List<Long> ids = orders.stream().map(ConstructionOrderEntity::getId).toList();
+        timelineAllocator.removeAll(ids);
+        orderRepository.deleteAllByIdInBatch(ids);
+        orders.forEach(order -> locationOccupancyService.release(new Coordinate(
+                order.getLocation().getLatitude(), order.getLocation().getLongitude())));
+
+        // 3. Por cuadrilla, cada tramo entre dos órdenes eliminadas se adelanta la suma de días
+        // eliminados antes de él: cada orden restante se actualiza a lo sumo una vez
+        int rescheduled = 0;
+        Map<Integer, List<ConstructionOrderEntity>> byLane = orders.stream()
+                .collect(Collectors.groupingBy(ConstructionOrderEntity::getLane, TreeMap::new,
+                        Collectors.toList()));
+        for (Map.Entry<Integer, List<ConstructionOrderEntity>> entry : byLane.entrySet()) {
+            int lane = entry.getKey();
+            List<ConstructionOrderEntity> removed = entry.getValue().stream()
+                    .sorted(Comparator.comparing(ConstructionOrderEntity::getStartDate)).toList();
+            int removedDays = 0;
+            for (int j = 0; j < removed.size(); j++) {
+                ConstructionOrderEntity current = removed.get(j);
+                removedDays += occupiedDays(current);
+                if (j + 1 == removed.size()) {
+                    rescheduled += orderRepository.shiftOrdersDeliveredAfter(lane,
+                            current.getEntregaDate(), removedDays);
+                } else {
+                    LocalDate nextStart = removed.get(j + 1).getStartDate();
+                    if (nextStart.isAfter(current.getEntregaDate().plusDays(1))) {
+                        rescheduled += orderRepository.shiftOrdersBetween(lane,
+                                current.getEntregaDate(), nextStart, removedDays);
+                    }
+                }
+            }
+        }
+        orders.stream().map(ConstructionOrderEntity::getStartDate).min(Comparator.naturalOrder())
+                .ifPresent(from -> eventPublisher.publishEvent(
+                        new ConstructionScheduleChangedEvent(from)));
+
+        logger.info("Eliminación en lote - Órdenes eliminadas: {}, Reprogramadas: {}, "
+                + "No encontradas: {}", ids.size(), rescheduled, notFound.size());
+        return new BulkDeleteResult(ids.size(), rescheduled, notFound);
     }
 
-    private void recalculateSubsequentOrders(LocalDate deletedDeliveryDate) {
-        List<ConstructionOrderEntity> allOrders = orderRepository.findAll().stream()
-                .sorted((o1, o2) -> o1.getEntregaDate().compareTo(o2.getEntregaDate())).toList();
+    // Días que la orden ocupa en su cuadrilla según sus fechas; en órdenes antiguas puede no
+    // coincidir con estimatedDays
+    private static int occupiedDays(ConstructionOrderEntity order) {
+        return (int) ChronoUnit.DAYS.between(order.getStartDate(), order.getEntregaDate()) + 1;
+    }
 
-        List<ConstructionOrderEntity> subsequentOrders = allOrders.stream()
-                .filter(order -> order.getEntregaDate().isAfter(deletedDeliveryDate)).toList();
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
 
-        LocalDate baseDate = allOrders.stream()
-                .filter(order -> order.getEntregaDate().isBefore(deletedDeliveryDate))
-                .reduce((first, second) -> second)
-                .map(ConstructionOrderEntity::getEntregaDate).orElse(LocalDate.now());
+    // Con el estado guardado la orden actualizada vuelve a quedar pendiente. Con el derivado se
+    // conserva el estado fijado a mano salvo que la solicitud lo borre con un estado vacío: la
+    // etiqueta del cuerpo suele ser el estado efectivo leído antes, y para fijar uno nuevo está
+    // PUT /{id}/estado
+    private ConstructionStatus statusAfterUpdate(ConstructionOrderEntity existing,
+            ConstructionOrder order) {
+        if (!statusPolicy.isDerived()) {
+            return ConstructionStatus.PENDIENTE;
+        }
+        return order.estado() != null && order.estado().isBlank() ? null : existing.getEstado();
+    }
 
-        for (ConstructionOrderEntity order : subsequentOrders) {
-            LocalDate newStartDate = baseDate.plusDays(1);
-            LocalDate newDeliveryDate = newStartDate.plusDays(order.getEstimatedDays() - 1);
+    // Con el estado derivado de las fechas solo se guardan los estados fijados a mano
+    private ConstructionStatus initialStatus() {
+        return statusPolicy.isDerived() ? null : ConstructionStatus.PENDIENTE;
+    }
 
-            order.setStartDate(newStartDate);
-            order.setEntregaDate(newDeliveryDate);
-            baseDate = newDeliveryDate;
-            orderRepository.save(order);
+    // La orden sale con el estado efectivo, que en modo derivado no está guardado
+    private ConstructionOrder toDomain(ConstructionOrderEntity entity, LocalDate today) {
+        ConstructionOrder order = mapper.toDomain(entity);
+        ConstructionStatus status = ConstructionStatus.effective(entity.getEstado(),
+                entity.getStartDate(), entity.getEntregaDate(), today);
+        if (order == null || status == null || status.getLabel().equals(order.estado())) {
+            return order;
         }
+        return new ConstructionOrder(order.id(), order.projectName(), order.location(),
+                order.typeConstruction(), status.getLabel(), order.estimatedDays(),
+                order.entregaDate());
     }
 
     public ProjectSummary getProjectSummary() {
-        Integer totalDays = getTotalConstructionDays();
-        LocalDate startDate = getProjectStartDate();
-        LocalDate endDate = getProjectEndDate();
-        LocalDate deliveryDate = getEstimatedDeliveryDate();
-        int totalOrders = (int) orderRepository.count();
-
-        String status = totalOrders == 0 ? "Sin órdenes"
-                : LocalDate.now().isBefore(startDate) ? "No iniciado"
-                        : LocalDate.now().isAfter(deliveryDate) ? "Completado" : "En progreso";
-
-        return new ProjectSummary(totalDays, startDate, endDate, deliveryDate, totalOrders, status);
+        return timelineAllocator.summary().toProjectSummary(LocalDate.now(clock));
     }
 
+    // Las transiciones del día son dos UPDATE por conjunto
     public void updateConstructionStatuses() {
-        LocalDate today = LocalDate.now();
-
-        List<ConstructionOrderEntity> pendingOrders = orderRepository.findPendingOrders();
-        List<ConstructionOrderEntity> ordersToStart =
-                pendingOrders.stream().filter(order -> order.getStartDate().equals(today)).toList();
-
-        ordersToStart.forEach(order -> {
-            order.setEstado("En progreso");
-            orderRepository.save(order);
-        });
-
-        List<ConstructionOrderEntity> ordersToFinish =
-                orderRepository.findOrdersToFinishToday(today);
-        ordersToFinish.forEach(order -> {
-            if ("En progreso".equals(order.getEstado())) {
-                order.setEstado("Finalizado");
-                orderRepository.save(order);
-            }
-        });
+        if (statusPolicy.isDerived()) {
+            logger.info("Estado derivado de las fechas: no hay transiciones que guardar");
+            return;
+        }
+        LocalDate today = LocalDate.now(clock);
+        List<Long> started = statusRepository.startOrders(today);
+        List<Long> finished = statusRepository.finishOrders(today);
+        logger.info("Estados actualizados - Iniciadas: {}, Finalizadas: {}", started, finished);
     }
 
-    public void processOverdueOrders() {
-        LocalDate today = LocalDate.now();
-
-        List<ConstructionOrderEntity> pendingOrders = orderRepository.findPendingOrders();
-        List<ConstructionOrderEntity> overdueOrders = pendingOrders.stream().filter(
-                order -> order.getStartDate().isBefore(today) || order.getStartDate().equals(today))
-                .toList();
-
-        overdueOrders.forEach(order -> {
-            LocalDate startDate = order.getStartDate();
-            LocalDate endDate = order.getEntregaDate();
-
-            if (today.isAfter(endDate)) {
-                order.setEstado("Finalizado");
-            } else if (today.isAfter(startDate) || today.equals(startDate)) {
-                order.setEstado("En progreso");
-            }
-
-            orderRepository.save(order);
-        });
+    // Procesamiento por tramos con checkpoint; ver OverdueOrderProcessor
+    public OverdueOrderProcessor.Result processOverdueOrders() {
+        if (statusPolicy.isDerived()) {
+            // Ninguna orden puede quedar atrasada: su estado se calcula al leerla
+            return new OverdueOrderProcessor.Result(0, 0, false);
+        }
+        return overdueOrderProcessor.process();
     }
 
     public Map<String, Object> validateConstructionRequest(ConstructionOrder order) {
         try {
-            ConstructionTypeCriteria criteria = validateConstructionType(order.typeConstruction());
+            // Solo lectura en memoria: ocupación de ubicaciones y snapshot versionado del stock
+            ConstructionTypeCatalog.CompiledType type =
+                    validateConstructionType(order.typeConstruction());
             validateUniqueLocation(order.location());
-            validateMaterials(criteria.getMaterials());
+            InventorySnapshot.Snapshot snapshot = inventorySnapshot.current();
+            snapshot.checkAvailability(type.requirements());
             return Map.of("valid", true, "message", "La solicitud de construcción puede realizarse",
-                    "estimatedDays", criteria.getEstimatedTime());
+                    "estimatedDays", type.estimatedDays(), "snapshotVersion",
+                    snapshot.version());
 
         } catch (IllegalArgumentException e) {
             return Map.of("valid", false, "error", "Tipo de construcción inválido", "message",
@@ -416,27 +621,30 @@ public class ConstructionRequestUseCase {
         // Procesar todas las órdenes
         for (ConstructionOrder order : allOrders) {
             String type = order.typeConstruction();
-            String status = order.estado();
+            ConstructionStatus status = ConstructionStatus.find(order.estado()).orElse(null);
+            if (status == null) {
+                continue;
+            }
 
             switch (status) {
-                case "Pendiente":
+                case PENDIENTE -> {
                     pendingCount++;
                     pendingByType.merge(type, 1, Integer::sum);
-                    break;
-                case "En progreso":
+                }
+                case EN_PROGRESO -> {
                     inProgressCount++;
                     inProgressByType.merge(type, 1, Integer::sum);
-                    break;
-                case "Finalizado":
+                }
+                case FINALIZADO -> {
                     finishedCount++;
                     finishedByType.merge(type, 1, Integer::sum);
-                    break;
+                }
             }
         }
 
         ProjectSummary projectSummary = getProjectSummary();
 
-        return new ConstructionReport(LocalDate.now(), allOrders.size(), pendingCount,
+        return new ConstructionReport(LocalDate.now(clock), allOrders.size(), pendingCount,
                 inProgressCount, finishedCount, pendingByType, inProgressByType, finishedByType,
                 projectSummary);
     }
@@ -0,0 +1,32 @@
+package com.cityfuture.infrastructure.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+// Cómo se obtiene el estado de las órdenes. En modo STORED cada orden guarda su estado y el
+// scheduler lo avanza con las transiciones del día; en modo DERIVED se calcula al leer a partir
+// de las fechas y solo se guardan los estados fijados a mano
+@Component
+public class ConstructionStatusPolicy {
+
+    public enum Mode {
+        STORED,
+        DERIVED
+    }
+
+    private final Mode mode;
+
+    public ConstructionStatusPolicy(@Value("${cityfuture.status.mode:stored}") String mode) {
+        this.mode = Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    public boolean isDerived() {
+        return mode == Mode.DERIVED;
+    }
+}
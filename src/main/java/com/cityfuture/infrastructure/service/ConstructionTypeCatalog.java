@@ -0,0 +1,129 @@
+package com.cityfuture.infrastructure.service;
+
+import com.cityfuture.domain.model.ConstructionType;
+import com.cityfuture.domain.model.MaterialVector;
+import com.cityfuture.infrastructure.mapper.ConstructionTypeMapper;
+import com.cityfuture.infrastructure.persistence.repository.JpaConstructionTypeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Catálogo de tipos de construcción cargado desde BD y compilado a vectores de requerimientos
+// indexados por slot de material; se puede recargar en caliente sin reiniciar
+@Component
+public class ConstructionTypeCatalog {
+    private static final Logger logger = LoggerFactory.getLogger(ConstructionTypeCatalog.class);
+
+    private final JpaConstructionTypeRepository typeRepository;
+    private final ConstructionTypeMapper typeMapper;
+    private final AtomicReference<Compiled> current =
+            new AtomicReference<>(Compiled.compile(0, List.of()));
+    // Tipos de la última compilación, para detectar cambios en la relectura periódica
+    private Set<ConstructionType> loaded = Set.of();
+
+    public ConstructionTypeCatalog(JpaConstructionTypeRepository typeRepository,
+            ConstructionTypeMapper typeMapper) {
+        this.typeRepository = typeRepository;
+        this.typeMapper = typeMapper;
+    }
+
+    public record CompiledType(String typeName, int estimatedDays, MaterialVector requirements) {
+    }
+
+    public record Compiled(long version, String[] materialCodes, Map<String, CompiledType> types) {
+
+        public static Compiled compile(long version, List<ConstructionType> types) {
+            // Slots ordenados por código para que el layout sea estable entre recargas
+            TreeSet<String> codes = new TreeSet<>();
+            types.forEach(type -> codes.addAll(type.getMaterials().keySet()));
+            String[] materialCodes = codes.toArray(String[]::new);
+
+            Map<String, CompiledType> compiled = new HashMap<>();
+            for (ConstructionType type : types) {
+                String key = type.getTypeName().toUpperCase(Locale.ROOT);
+                compiled.put(key, new CompiledType(key, type.getEstimatedDays(),
+                        MaterialVector.of(materialCodes, type.getMaterials())));
+            }
+            return new Compiled(version, materialCodes, Map.copyOf(compiled));
+        }
+
+        public MaterialVector emptyVector() {
+            return MaterialVector.empty(materialCodes);
+        }
+    }
+
+    public Compiled current() {
+        return current.get();
+    }
+
+    public CompiledType resolve(String typeName) {
+        CompiledType type = typeName == null ? null
+                : current.get().types().get(typeName.toUpperCase(Locale.ROOT));
+        if (type == null) {
+            throw new IllegalArgumentException("Tipo de construcción no válido: " + typeName);
+        }
+        return type;
+    }
+
+    // Materiales que una orden tiene descontados del stock. Las órdenes anteriores a guardar esa
+    // copia usan el tipo vigente y, si ya no existe, no devuelven nada en lugar de fallar
+    public MaterialVector reservedFor(String typeName, Map<String, Integer> reserved) {
+        if (reserved != null) {
+            return MaterialVector.of(reserved);
+        }
+        CompiledType type = typeName == null ? null
+                : current.get().types().get(typeName.toUpperCase(Locale.ROOT));
+        if (type == null) {
+            logger.warn("Tipo {} ya no está en el catálogo y la orden no guarda sus materiales; "
+                    + "no se devuelve stock", typeName);
+            return MaterialVector.of(Map.of());
+        }
+        return type.requirements();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        reload();
+    }
+
+    @Transactional(readOnly = true)
+    public synchronized List<ConstructionType> reload() {
+        List<ConstructionType> types = typeRepository.findAll().stream()
+                .map(typeMapper::toDomain).toList();
+        compile(types);
+        return types;
+    }
+
+    // POST /reload solo recompila el nodo que lo recibe: las demás réplicas toman el cambio en
+    // la siguiente relectura, y si nada cambió se conserva la versión vigente
+    @Scheduled(fixedDelayString = "${cityfuture.catalog.refresh-ms:60000}",
+            initialDelayString = "${cityfuture.catalog.refresh-ms:60000}")
+    @Transactional(readOnly = true)
+    public synchronized void refreshIfChanged() {
+        List<ConstructionType> types = typeRepository.findAll().stream()
+                .map(typeMapper::toDomain).toList();
+        if (!Set.copyOf(types).equals(loaded)) {
+            compile(types);
+        }
+    }
+
+    private void compile(List<ConstructionType> types) {
+        Compiled compiled = Compiled.compile(current.get().version() + 1, types);
+        current.set(compiled);
+        logger.info("Catálogo de tipos de construcción compilado - Versión: {}, Tipos: {}, Materiales: {}",
+                compiled.version(), compiled.types().keySet(), List.of(compiled.materialCodes()));
+        loaded = Set.copyOf(types);
+    }
+}
@@ -0,0 +1,139 @@
+package com.cityfuture.infrastructure.service;
+
+import com.cityfuture.domain.event.InventoryChangedEvent;
+import com.cityfuture.domain.exception.InsufficientMaterialException;
+import com.cityfuture.domain.model.MaterialVector;
+import com.cityfuture.infrastructure.persistence.entity.MaterialEntity;
+import com.cityfuture.infrastructure.persistence.repository.JpaMaterialRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+@Component
+public class InventorySnapshot {
+    private static final Logger logger = LoggerFactory.getLogger(InventorySnapshot.class);
+
+    private final JpaMaterialRepository materialRepository;
+    private final TransactionTemplate reloadTransaction;
+    private final AtomicLong versions = new AtomicLong();
+    private final AtomicReference<Snapshot> current =
+            new AtomicReference<>(new Snapshot(0, Map.of()));
+
+    public InventorySnapshot(JpaMaterialRepository materialRepository,
+            PlatformTransactionManager transactionManager) {
+        this.materialRepository = materialRepository;
+        // Tras confirmar, la recarga necesita su propia transacción de solo lectura
+        this.reloadTransaction = new TransactionTemplate(transactionManager);
+        this.reloadTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.reloadTransaction.setReadOnly(true);
+    }
+
+    public record MaterialStock(String materialName, int quantity) {
+    }
+
+    public record Snapshot(long version, Map<String, MaterialStock> materials) {
+
+        public void checkAvailability(MaterialVector required) {
+            List<String> deficits = new ArrayList<>();
+            for (int slot = 0; slot < required.size(); slot++) {
+                int requiredQuantity = required.quantity(slot);
+                if (requiredQuantity <= 0) {
+                    continue;
+                }
+                String code = required.code(slot);
+                MaterialStock stock = materials.get(code);
+                if (stock == null) {
+                    throw new InsufficientMaterialException("Material no encontrado: " + code);
+                }
+
+                if (stock.quantity() < requiredQuantity) {
+                    deficits.add(String.format("%s (%s) - Disponible: %d, Requerido: %d, Faltan: %d",
+                            stock.materialName(), code, stock.quantity(), requiredQuantity,
+                            requiredQuantity - stock.quantity()));
+                }
+            }
+
+            if (!deficits.isEmpty()) {
+                throw new InsufficientMaterialException(
+                        "Materiales insuficientes para construcción: " + String.join("; ", deficits));
+            }
+        }
+    }
+
+    public Snapshot current() {
+        return current.get();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void initialize() {
+        refresh(false);
+    }
+
+    // Se recarga una sola vez cuando confirma la transacción que modificó el stock, aunque
+    // publique varios eventos: un lote del pipeline de órdenes confirma muchos comandos juntos
+    @EventListener
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            reload();
+            return;
+        }
+        if (TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(InventorySnapshot.this);
+                if (status == STATUS_COMMITTED) {
+                    reload();
+                }
+            }
+        });
+    }
+
+    // Los cambios confirmados por otras réplicas no llegan como evento a este nodo: el stock se
+    // relee periódicamente y el snapshot solo se reemplaza si difiere del vigente
+    @Scheduled(fixedDelayString = "${cityfuture.inventory.refresh-ms:5000}",
+            initialDelayString = "${cityfuture.inventory.refresh-ms:5000}")
+    public void refreshIfChanged() {
+        reloadTransaction.executeWithoutResult(status -> refresh(true));
+    }
+
+    private void reload() {
+        reloadTransaction.executeWithoutResult(status -> refresh(false));
+    }
+
+    private void refresh(boolean onlyIfChanged) {
+        long version = versions.incrementAndGet();
+        Map<String, MaterialStock> materials = materialRepository.findAll().stream()
+                .collect(Collectors.toUnmodifiableMap(MaterialEntity::getCode,
+                        material -> new MaterialStock(material.getMaterialName(),
+                                material.getQuantity())));
+        if (onlyIfChanged && materials.equals(current.get().materials())) {
+            return;
+        }
+
+        // Una recarga más antigua nunca reemplaza a una más reciente
+        Snapshot updated = current.accumulateAndGet(new Snapshot(version, materials),
+                (previous, next) -> next.version() > previous.version() ? next : previous);
+        logger.debug("Snapshot de inventario actualizado - Versión: {}", updated.version());
+    }
+}
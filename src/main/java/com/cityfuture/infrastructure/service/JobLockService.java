@@ -0,0 +1,157 @@
+package com.cityfuture.infrastructure.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+// Exclusión entre réplicas para jobs programados, sobre la tabla job_locks de la propia BD.
+// Solo se usan UPDATE/INSERT condicionados, así que funciona igual en H2 y en PostgreSQL. Los
+// tiempos salen del reloj de cada nodo, por lo que se asume que están sincronizados (NTP)
+@Component
+public class JobLockService {
+    private static final Logger logger = LoggerFactory.getLogger(JobLockService.class);
+
+    private static final String TAKE_EXPIRED_SQL = "UPDATE job_locks SET owner = ?, locked_at = ?, "
+            + "locked_until = ?, fencing_token = fencing_token + 1 "
+            + "WHERE job_name = ? AND locked_until <= ?";
+    private static final String INSERT_SQL = "INSERT INTO job_locks "
+            + "(job_name, owner, locked_at, locked_until, fencing_token) VALUES (?, ?, ?, ?, 1)";
+    private static final String TOKEN_SQL = "SELECT fencing_token FROM job_locks "
+            + "WHERE job_name = ? AND owner = ? AND locked_at = ?";
+    private static final String VALID_SQL = "SELECT COUNT(*) FROM job_locks "
+            + "WHERE job_name = ? AND owner = ? AND fencing_token = ? AND locked_until > ?";
+    private static final String RELEASE_SQL = "UPDATE job_locks SET locked_until = ? "
+            + "WHERE job_name = ? AND owner = ? AND fencing_token = ?";
+
+    // Condición de fencing para las escrituras de un job: la sentencia solo afecta filas si el
+    // token del lease sigue siendo el vigente. Al evaluarse dentro de la misma sentencia no queda
+    // una ventana entre la comprobación y la escritura. Parámetros: job_name y fencing_token
+    public static final String FENCE_CONDITION = "EXISTS (SELECT 1 FROM job_locks "
+            + "WHERE job_name = ? AND fencing_token = ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String nodeId;
+    private final Duration leaseDuration;
+    private final Duration minHold;
+    private final Clock clock;
+
+    // Lease obtenido; el token identifica esta adquisición frente a las siguientes
+    public record Lease(String jobName, long token, Instant acquiredAt) {
+    }
+
+    public JobLockService(JdbcTemplate jdbcTemplate,
+            @Value("${cityfuture.jobs.node-id:}") String nodeId,
+            @Value("${cityfuture.jobs.lease-seconds:600}") long leaseSeconds,
+            @Value("${cityfuture.jobs.min-hold-seconds:30}") long minHoldSeconds, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.nodeId = nodeId == null || nodeId.isBlank() ? defaultNodeId() : nodeId;
+        this.leaseDuration = Duration.ofSeconds(Math.max(1, leaseSeconds));
+        this.minHold = Duration.ofSeconds(Math.max(0, minHoldSeconds));
+        this.clock = clock;
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    public boolean runExclusive(String jobName, Runnable task) {
+        return runExclusive(jobName, lease -> task.run());
+    }
+
+    // Ejecuta la tarea solo si este nodo obtiene el lease; devuelve false si otro nodo lo tiene
+    public boolean runExclusive(String jobName, Consumer<Lease> task) {
+        Lease lease = tryAcquire(jobName);
+        if (lease == null) {
+            logger.info("Job '{}' omitido: otro nodo tiene el lease", jobName);
+            return false;
+        }
+        try {
+            task.accept(lease);
+            return true;
+        } finally {
+            release(lease);
+        }
+    }
+
+    public Lease tryAcquire(String jobName) {
+        // Precisión de milisegundos para que el valor leído coincida con el escrito en ambas BD
+        Instant now = Instant.now(clock).truncatedTo(ChronoUnit.MILLIS);
+        OffsetDateTime lockedAt = toTimestamp(now);
+        OffsetDateTime lockedUntil = toTimestamp(now.plus(leaseDuration));
+        try {
+            int taken = jdbcTemplate.update(TAKE_EXPIRED_SQL, nodeId, lockedAt, lockedUntil,
+                    jobName, lockedAt);
+            if (taken == 0) {
+                try {
+                    jdbcTemplate.update(INSERT_SQL, jobName, nodeId, lockedAt, lockedUntil);
+                } catch (DuplicateKeyException e) {
+                    // La fila existe y el lease vigente pertenece a otro nodo
+                    return null;
+                }
+            }
+            List<Long> tokens = jdbcTemplate.queryForList(TOKEN_SQL, Long.class, jobName, nodeId,
+                    lockedAt);
+            if (tokens.isEmpty()) {
+                return null;
+            }
+            logger.debug("Lease de '{}' obtenido por {} - Token: {}", jobName, nodeId,
+                    tokens.get(0));
+            return new Lease(jobName, tokens.get(0), now);
+        } catch (DataAccessException e) {
+            logger.error("No se pudo obtener el lease del job '{}'", jobName, e);
+            return null;
+        }
+    }
+
+    // Falso si el lease venció o si otro nodo lo tomó después (token mayor). Es una consulta
+    // aparte, así que solo sirve para abandonar pronto; las escrituras protegidas deben incluir
+    // FENCE_CONDITION
+    public boolean isValid(Lease lease) {
+        Integer count = jdbcTemplate.queryForObject(VALID_SQL, Integer.class, lease.jobName(),
+                nodeId, lease.token(), toTimestamp(Instant.now(clock)));
+        return count != null && count > 0;
+    }
+
+    // El lease se mantiene al menos minHold desde la adquisición: las réplicas cuyo disparo llega
+    // unos segundos tarde lo encuentran tomado y no repiten el job
+    public void release(Lease lease) {
+        Instant holdUntil = lease.acquiredAt().plus(minHold);
+        Instant now = Instant.now(clock).truncatedTo(ChronoUnit.MILLIS);
+        try {
+            jdbcTemplate.update(RELEASE_SQL, toTimestamp(holdUntil.isAfter(now) ? holdUntil : now),
+                    lease.jobName(), nodeId, lease.token());
+        } catch (DataAccessException e) {
+            // El lease vence solo; no hace falta reintentar
+            logger.warn("No se pudo liberar el lease del job '{}'", lease.jobName(), e);
+        }
+    }
+
+    private static OffsetDateTime toTimestamp(Instant instant) {
+        return instant.atOffset(ZoneOffset.UTC);
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "nodo";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,296 @@
+package com.cityfuture.infrastructure.service;
+
+import com.cityfuture.domain.exception.LocationAlreadyOccupiedException;
+import com.cityfuture.domain.model.Coordinate;
+import com.cityfuture.infrastructure.persistence.entity.CoordinateEmbeddable;
+import com.cityfuture.infrastructure.persistence.repository.JpaConstructionOrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Ocupación de ubicaciones en memoria. Es una pista: otra réplica puede haber eliminado una
+// orden (la ocupación local queda vieja) o creado otra (la local no la tiene). Un acierto local
+// se confirma contra el índice único antes de rechazar, y la distancia mínima se comprueba
+// contra la BD con la fila de location_locks tomada hasta el fin de la transacción
+@Component
+public class LocationOccupancyService {
+    private static final Logger logger = LoggerFactory.getLogger(LocationOccupancyService.class);
+
+    private static final double METERS_PER_DEGREE = 111_320.0;
+    private static final double EARTH_RADIUS_METERS = 6_371_000.0;
+    // Media celda exacta: el rango que cubre todas las coordenadas con la misma clave
+    private static final double HALF_STEP_DEGREES = 0.5 / CoordinateEmbeddable.STEPS_PER_DEGREE;
+
+    private static final String LOCK_SQL = "SELECT id FROM location_locks WHERE id = 1 FOR UPDATE";
+    private static final String INSERT_SQL = "INSERT INTO location_locks (id) VALUES (1)";
+    // Marca de la transacción que ya tiene tomada la fila de location_locks
+    private static final Object LOCK_RESOURCE = new Object();
+
+    private final JpaConstructionOrderRepository orderRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final double minDistanceMeters;
+    private final double gridCellDegrees;
+
+    private final Set<Long> occupiedCells = ConcurrentHashMap.newKeySet();
+    // Reclamadas en este nodo por transacciones aún abiertas: la BD todavía no las ve
+    private final Set<Long> pendingCells = ConcurrentHashMap.newKeySet();
+    // Solo se usa con distancia mínima: celdas de tamaño ~minDistance con sus coordenadas
+    private final Map<Long, List<Coordinate>> proximityGrid = new ConcurrentHashMap<>();
+
+    public LocationOccupancyService(JpaConstructionOrderRepository orderRepository,
+            JdbcTemplate jdbcTemplate,
+            @Value("${cityfuture.location.min-distance-meters:0}") double minDistanceMeters) {
+        this.orderRepository = orderRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.minDistanceMeters = Math.max(0, minDistanceMeters);
+        this.gridCellDegrees = this.minDistanceMeters / METERS_PER_DEGREE;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        if (minDistanceMeters > 0) {
+            try {
+                jdbcTemplate.update(INSERT_SQL);
+            } catch (DuplicateKeyException e) {
+                // Otra réplica ya creó la fila
+            }
+        }
+        occupiedCells.clear();
+        pendingCells.clear();
+        proximityGrid.clear();
+        for (CoordinateEmbeddable location : orderRepository.findAllLocations()) {
+            add(quantize(new Coordinate(location.getLatitude(), location.getLongitude())));
+        }
+        logger.info("Ocupación de ubicaciones cargada - {} ubicaciones, distancia mínima: {} m",
+                occupiedCells.size(), minDistanceMeters);
+    }
+
+    // Una ocupación local sin orden en BD la eliminó otra réplica y se olvida. Una ubicación
+    // que solo conoce la BD no se detecta aquí; al crear la rechaza el índice único
+    public boolean isOccupied(Coordinate location) {
+        Coordinate cell = quantize(location);
+        if (occupiedCells.contains(exactKey(cell))) {
+            if (isPending(cell) || isStored(cell)) {
+                return true;
+            }
+            forget(cell);
+        }
+        if (minDistanceMeters > 0) {
+            List<Coordinate> neighbours = neighboursWithinRadius(cell);
+            if (neighbours.stream().anyMatch(this::isPending)) {
+                return true;
+            }
+            if (!neighbours.isEmpty()) {
+                if (hasStoredNeighbour(cell)) {
+                    return true;
+                }
+                neighbours.forEach(this::forget);
+            }
+        }
+        return false;
+    }
+
+    public synchronized void claim(Coordinate location) {
+        Coordinate cell = quantize(location);
+        if (occupiedCells.contains(exactKey(cell))) {
+            if (isPending(cell) || isStored(cell)) {
+                throw new LocationAlreadyOccupiedException(
+                        "Ya existe una orden de construcción en las coordenadas: "
+                                + location.latitude() + ", " + location.longitude());
+            }
+            forget(cell);
+        }
+        if (minDistanceMeters > 0) {
+            // Con la fila tomada, la BD ya muestra lo que confirmaron las demás réplicas
+            lockLocations();
+            if (neighboursWithinRadius(cell).stream().anyMatch(this::isPending)
+                    || hasStoredNeighbour(cell)) {
+                throw new LocationAlreadyOccupiedException(
+                        "Ya existe una orden de construcción a menos de " + minDistanceMeters
+                                + " metros de las coordenadas: " + location.latitude() + ", "
+                                + location.longitude());
+            }
+        }
+        add(cell);
+        pendingCells.add(exactKey(cell));
+
+        // Al terminar la transacción la BD ya refleja el resultado; si se revierte, la ubicación
+        // queda libre. Sin transacción queda pendiente hasta liberarla
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCompletion(int status) {
+                            pendingCells.remove(exactKey(cell));
+                            if (status != STATUS_COMMITTED) {
+                                remove(cell);
+                            }
+                        }
+                    });
+        }
+    }
+
+    // Libera de inmediato una ubicación reclamada que finalmente no se usará
+    public void unclaim(Coordinate location) {
+        remove(quantize(location));
+    }
+
+    public void release(Coordinate location) {
+        Coordinate cell = quantize(location);
+        afterCompletion(true, () -> remove(cell));
+    }
+
+    private void afterCompletion(boolean onCommit, Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            if (onCommit) {
+                action.run();
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if ((status == STATUS_COMMITTED) == onCommit) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    private void add(Coordinate location) {
+        occupiedCells.add(exactKey(location));
+        if (minDistanceMeters > 0) {
+            proximityGrid.computeIfAbsent(gridKey(location), key -> new CopyOnWriteArrayList<>())
+                    .add(location);
+        }
+    }
+
+    private synchronized void remove(Coordinate location) {
+        pendingCells.remove(exactKey(location));
+        forget(location);
+    }
+
+    private void forget(Coordinate location) {
+        occupiedCells.remove(exactKey(location));
+        if (minDistanceMeters > 0) {
+            List<Coordinate> cell = proximityGrid.get(gridKey(location));
+            if (cell != null) {
+                cell.remove(location);
+            }
+        }
+    }
+
+    private boolean isPending(Coordinate location) {
+        return pendingCells.contains(exactKey(location));
+    }
+
+    // Consulta por rango sobre el índice único; incluye filas guardadas antes de redondear
+    private boolean isStored(Coordinate location) {
+        long key = exactKey(location);
+        return orderRepository.findLocationsWithin(location.latitude() - HALF_STEP_DEGREES,
+                location.latitude() + HALF_STEP_DEGREES, location.longitude() - HALF_STEP_DEGREES,
+                location.longitude() + HALF_STEP_DEGREES).stream()
+                .anyMatch(stored -> exactKey(new Coordinate(stored.getLatitude(),
+                        stored.getLongitude())) == key);
+    }
+
+    private boolean hasStoredNeighbour(Coordinate location) {
+        double latitudeSpan = minDistanceMeters / METERS_PER_DEGREE;
+        double longitudeSpan = latitudeSpan / cosLatitude(location);
+        return orderRepository.findLocationsWithin(location.latitude() - latitudeSpan,
+                location.latitude() + latitudeSpan, location.longitude() - longitudeSpan,
+                location.longitude() + longitudeSpan).stream()
+                .anyMatch(stored -> distanceMeters(location,
+                        new Coordinate(stored.getLatitude(), stored.getLongitude()))
+                        < minDistanceMeters);
+    }
+
+    // Toma la fila de location_locks hasta el fin de la transacción, una vez por transacción
+    private void lockLocations() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.hasResource(LOCK_RESOURCE)) {
+            return;
+        }
+        if (jdbcTemplate.queryForList(LOCK_SQL, Integer.class).isEmpty()) {
+            jdbcTemplate.update(INSERT_SQL);
+            jdbcTemplate.queryForList(LOCK_SQL, Integer.class);
+        }
+        TransactionSynchronizationManager.bindResource(LOCK_RESOURCE, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(LOCK_RESOURCE);
+            }
+        });
+    }
+
+    private List<Coordinate> neighboursWithinRadius(Coordinate location) {
+        long row = (long) Math.floor(location.latitude() / gridCellDegrees);
+        long column = (long) Math.floor(location.longitude() / gridCellDegrees);
+        // Los grados de longitud se acortan con la latitud: se revisan más columnas vecinas
+        long columnSpan = (long) Math.ceil(1 / cosLatitude(location));
+
+        List<Coordinate> neighbours = new ArrayList<>();
+        for (long r = row - 1; r <= row + 1; r++) {
+            for (long c = column - columnSpan; c <= column + columnSpan; c++) {
+                List<Coordinate> cell = proximityGrid.get(pack(r, c));
+                if (cell == null) {
+                    continue;
+                }
+                for (Coordinate other : cell) {
+                    if (distanceMeters(location, other) < minDistanceMeters) {
+                        neighbours.add(other);
+                    }
+                }
+            }
+        }
+        return neighbours;
+    }
+
+    private static double cosLatitude(Coordinate location) {
+        return Math.max(Math.cos(Math.toRadians(location.latitude())), 1e-6);
+    }
+
+    // Misma celda que el valor guardado en BD (ver CoordinateEmbeddable)
+    private static Coordinate quantize(Coordinate location) {
+        return new Coordinate(CoordinateEmbeddable.quantize(location.latitude()),
+                CoordinateEmbeddable.quantize(location.longitude()));
+    }
+
+    private long exactKey(Coordinate location) {
+        return pack(CoordinateEmbeddable.step(location.latitude()),
+                CoordinateEmbeddable.step(location.longitude()));
+    }
+
+    private long gridKey(Coordinate location) {
+        return pack((long) Math.floor(location.latitude() / gridCellDegrees),
+                (long) Math.floor(location.longitude() / gridCellDegrees));
+    }
+
+    private static long pack(long row, long column) {
+        return (row << 32) ^ (column & 0xFFFFFFFFL);
+    }
+
+    private static double distanceMeters(Coordinate a, Coordinate b) {
+        double dLat = Math.toRadians(b.latitude() - a.latitude());
+        double dLon = Math.toRadians(b.longitude() - a.longitude());
+        double h = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(a.latitude())) * Math.cos(Math.toRadians(b.latitude()))
+                        * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.sqrt(h));
+    }
+}
@@ -0,0 +1,186 @@
+package com.cityfuture.infrastructure.service;
+
+import com.cityfuture.domain.event.InventoryChangedEvent;
+import com.cityfuture.domain.exception.InsufficientMaterialException;
+import com.cityfuture.domain.model.MaterialVector;
+import com.cityfuture.infrastructure.persistence.entity.MaterialEntity;
+import com.cityfuture.infrastructure.persistence.repository.JpaMaterialRepository;
+import jakarta.persistence.EntityManager;
+import lombok.AllArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@AllArgsConstructor
+public class MaterialReservationService {
+    private static final Logger logger = LoggerFactory.getLogger(MaterialReservationService.class);
+
+    private final JpaMaterialRepository materialRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MaterialWriteGuard materialWriteGuard;
+    private final EntityManager entityManager;
+
+    @Transactional(readOnly = true)
+    public void checkAvailability(MaterialVector required) {
+        List<String> deficits = collectDeficits(required, loadStock(required));
+        if (!deficits.isEmpty()) {
+            throw insufficient(deficits);
+        }
+    }
+
+    // Stock disponible alineado con los slots de codes (0 si el material no existe)
+    @Transactional(readOnly = true)
+    public int[] availableStock(String[] codes) {
+        Map<String, Integer> stock = materialRepository.findByCodeIn(Arrays.asList(codes)).stream()
+                .collect(Collectors.toMap(MaterialEntity::getCode, MaterialEntity::getQuantity));
+        int[] available = new int[codes.length];
+        for (int slot = 0; slot < codes.length; slot++) {
+            available[slot] = stock.getOrDefault(codes[slot], 0);
+        }
+        return available;
+    }
+
+    @Transactional
+    public void reserve(MaterialVector required) {
+        logger.info("Reservando materiales para construcción: {}", required);
+        materialWriteGuard.lockForTransaction(required.toMap().keySet());
+        decrementAll(required);
+
+        eventPublisher.publishEvent(new InventoryChangedEvent("reserva"));
+        logger.info("Materiales reservados exitosamente: {}", required.toMap().keySet());
+    }
+
+    // Aplica la diferencia de requerimientos entre dos tipos bajo un solo lock: los valores
+    // positivos se descuentan del stock y los negativos se devuelven
+    @Transactional
+    public void adjust(MaterialVector delta) {
+        if (delta.isEmpty()) {
+            return;
+        }
+        logger.info("Ajustando materiales por cambio de tipo: {}", delta);
+        materialWriteGuard.lockForTransaction(delta.toMap().keySet());
+        decrementAll(delta);
+
+        for (int slot = 0; slot < delta.size(); slot++) {
+            int quantity = delta.quantity(slot);
+            if (quantity < 0 && materialRepository.increment(delta.code(slot), -quantity) == 0) {
+                logger.warn("Material {} no existe, no se pudo devolver al stock",
+                        delta.code(slot));
+            }
+        }
+        eventPublisher.publishEvent(new InventoryChangedEvent("ajuste"));
+    }
+
+    @Transactional
+    public void release(MaterialVector materials) {
+        logger.info("Devolviendo materiales al stock: {}", materials);
+        materialWriteGuard.lockForTransaction(materials.toMap().keySet());
+
+        for (int slot = 0; slot < materials.size(); slot++) {
+            int quantity = materials.quantity(slot);
+            if (quantity > 0 && materialRepository.increment(materials.code(slot), quantity) == 0) {
+                logger.warn("Material {} no existe, no se pudo devolver al stock",
+                        materials.code(slot));
+            }
+        }
+        eventPublisher.publishEvent(new InventoryChangedEvent("devolución"));
+    }
+
+    // Descuenta las cantidades positivas del vector; las demás se ignoran
+    private void decrementAll(MaterialVector required) {
+        // Una sola consulta para todos los códigos requeridos
+        Map<String, MaterialEntity> stock = loadStock(required);
+        List<String> deficits = collectDeficits(required, stock);
+        if (!deficits.isEmpty()) {
+            throw insufficient(deficits);
+        }
+
+        // Descuentos condicionados (quantity >= requerido); si alguno falla se revierte todo
+        int[] failed = new int[required.size()];
+        boolean anyFailed = false;
+        for (int slot = 0; slot < required.size(); slot++) {
+            int quantity = required.quantity(slot);
+            if (quantity > 0
+                    && materialRepository.decrementIfAvailable(required.code(slot), quantity) == 0) {
+                failed[slot] = quantity;
+                anyFailed = true;
+            }
+        }
+        // Las filas leídas quedaron desactualizadas tras el UPDATE; se desasocian solo ellas para
+        // que una nueva lectura en esta transacción vea el stock y la versión vigentes
+        stock.values().forEach(entityManager::detach);
+
+        if (anyFailed) {
+            // Otra reserva concurrente consumió el stock entre la lectura y el descuento
+            MaterialVector failedVector = new MaterialVector(required.codes(), failed);
+            List<String> deficits = collectDeficits(failedVector, loadStock(failedVector));
+            if (deficits.isEmpty()) {
+                // El stock se repuso después del descuento fallido: se informan los pedidos
+                deficits = failedRequests(failedVector);
+            }
+            throw insufficient(deficits);
+        }
+    }
+
+    private Map<String, MaterialEntity> loadStock(MaterialVector required) {
+        return materialRepository.findByCodeIn(required.toMap().keySet()).stream()
+                .collect(Collectors.toMap(MaterialEntity::getCode, Function.identity()));
+    }
+
+    private List<String> collectDeficits(MaterialVector required,
+            Map<String, MaterialEntity> stock) {
+        List<String> missing = new ArrayList<>();
+        for (int slot = 0; slot < required.size(); slot++) {
+            if (required.quantity(slot) > 0 && !stock.containsKey(required.code(slot))) {
+                missing.add(required.code(slot));
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new InsufficientMaterialException(
+                    "Material no encontrado: " + String.join(", ", missing));
+        }
+
+        List<String> deficits = new ArrayList<>();
+        for (int slot = 0; slot < required.size(); slot++) {
+            int requiredQuantity = required.quantity(slot);
+            if (requiredQuantity <= 0) {
+                continue;
+            }
+            MaterialEntity material = stock.get(required.code(slot));
+            int availableQuantity = material.getQuantity();
+
+            if (availableQuantity < requiredQuantity) {
+                deficits.add(String.format("%s (%s) - Disponible: %d, Requerido: %d, Faltan: %d",
+                        material.getMaterialName(), material.getCode(), availableQuantity,
+                        requiredQuantity, requiredQuantity - availableQuantity));
+            }
+        }
+        return deficits;
+    }
+
+    private List<String> failedRequests(MaterialVector failed) {
+        List<String> requests = new ArrayList<>();
+        for (int slot = 0; slot < failed.size(); slot++) {
+            if (failed.quantity(slot) > 0) {
+                requests.add(String.format("%s - Requerido: %d, consumido por otra reserva",
+                        failed.code(slot), failed.quantity(slot)));
+            }
+        }
+        return requests;
+    }
+
+    private InsufficientMaterialException insufficient(List<String> deficits) {
+        return new InsufficientMaterialException(
+                "Materiales insuficientes para construcción: " + String.join("; ", deficits));
+    }
+}
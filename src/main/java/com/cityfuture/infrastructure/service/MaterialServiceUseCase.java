@@ -2,7 +2,9 @@ package com.cityfuture.infrastructure.service;
 
 import com.cityfuture.api.exception.MaterialAlreadyExistsException;
 import com.cityfuture.api.exception.MaterialNotFoundException;
+import com.cityfuture.api.exception.MaterialVersionConflictException;
 import com.cityfuture.application.service.MaterialService;
+import com.cityfuture.domain.event.InventoryChangedEvent;
 import com.cityfuture.domain.model.Material;
 import com.cityfuture.infrastructure.mapper.MaterialMapper;
 import com.cityfuture.infrastructure.persistence.entity.MaterialEntity;
@@ -10,10 +12,14 @@ import com.cityfuture.infrastructure.persistence.repository.JpaMaterialRepositor
 import lombok.AllArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Primary;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 
 @Primary
 @Service
@@ -23,6 +29,8 @@ public class MaterialServiceUseCase implements MaterialService {
 
     private final JpaMaterialRepository materialRepository;
     private final MaterialMapper mapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MaterialWriteGuard materialWriteGuard;
 
     @Override
     public Material createMaterial(Material material) {
@@ -37,8 +45,11 @@ public class MaterialServiceUseCase implements MaterialService {
             }
 
             MaterialEntity entity = mapper.toEntity(material);
+            // Un material nuevo siempre parte de la versión inicial, venga lo que venga en el cuerpo
+            entity.setVersion(null);
             MaterialEntity saved = materialRepository.save(entity);
             logger.debug("Material guardado en BD - ID: {}", saved.getId());
+            eventPublisher.publishEvent(new InventoryChangedEvent("creación de material"));
 
             logger.info("Material creado exitosamente - ID: {}, Nombre: {}", saved.getId(),
                     saved.getMaterialName());
@@ -68,13 +79,42 @@ public class MaterialServiceUseCase implements MaterialService {
     @Override
     public Material updateMaterial(Long id, Material material) {
         validateMaterialNameNotExistsForUpdate(material.materialName(), id);
+        if (material.version() == null) {
+            throw new IllegalArgumentException(
+                    "Se requiere la versión del material para actualizarlo");
+        }
 
-        return materialRepository.findById(id).map(existing -> {
-            MaterialEntity updated = mapper.toEntity(material);
-            updated.setId(existing.getId());
-            return mapper.toDomain(materialRepository.save(updated));
-        }).orElseThrow(
-                () -> new MaterialNotFoundException("No existe un material con el ID: " + id));
+        // Se bloquea la franja del código guardado y, si cambia, también la del nuevo: ninguna
+        // reserva sobre uno u otro puede cruzarse con el cambio de código
+        String storedCode = materialRepository.findById(id).map(MaterialEntity::getCode)
+                .orElseThrow(() -> new MaterialNotFoundException(
+                        "No existe un material con el ID: " + id));
+        Set<String> codes = new TreeSet<>(List.of(storedCode, material.code()));
+
+        // La versión que se compara es la que leyó el cliente, no la de esta lectura: si otra
+        // escritura la cambió se responde con conflicto en lugar de pisarla
+        try {
+            return materialWriteGuard.write(codes,
+                    () -> materialRepository.findById(id).map(existing -> {
+                        if (!material.version().equals(existing.getVersion())) {
+                            throw new MaterialVersionConflictException("El material con ID " + id
+                                    + " cambió desde la versión " + material.version()
+                                    + "; versión actual: " + existing.getVersion());
+                        }
+                        MaterialEntity updated = mapper.toEntity(material);
+                        updated.setId(existing.getId());
+                        updated.setVersion(material.version());
+                        MaterialEntity saved = materialRepository.save(updated);
+                        eventPublisher.publishEvent(
+                                new InventoryChangedEvent("actualización de material"));
+                        return mapper.toDomain(saved);
+                    }).orElseThrow(() -> new MaterialNotFoundException(
+                            "No existe un material con el ID: " + id)));
+        } catch (OptimisticLockingFailureException e) {
+            // Otra escritura (por ejemplo desde otro nodo) confirmó entre la lectura y el UPDATE
+            throw new MaterialVersionConflictException("El material con ID " + id
+                    + " cambió desde la versión " + material.version());
+        }
     }
 
     private void validateMaterialNameNotExistsForUpdate(String materialName, Long excludeId) {
@@ -100,6 +140,7 @@ public class MaterialServiceUseCase implements MaterialService {
             }
 
             materialRepository.deleteById(id);
+            eventPublisher.publishEvent(new InventoryChangedEvent("eliminación de material"));
             logger.info("Material eliminado exitosamente - ID: {}", id);
 
         } catch (RuntimeException e) {
@@ -0,0 +1,170 @@
+package com.cityfuture.infrastructure.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Locks en memoria repartidos en franjas por código de material: escrituras sobre materiales
+// distintos avanzan en paralelo y las del mismo material se serializan antes de llegar a la BD
+@Component
+public class MaterialWriteGuard {
+    private static final Logger logger = LoggerFactory.getLogger(MaterialWriteGuard.class);
+
+    private static final Object HELD_RESOURCE = new Object();
+
+    private final ReentrantLock[] stripes;
+    private final TransactionTemplate transactionTemplate;
+    private final long lockTimeoutMillis;
+
+    private final Timer lockWaitTimer;
+    private final Counter contendedCounter;
+    private final Counter lockTimeoutCounter;
+    private final Counter outOfOrderCounter;
+    private final Counter conflictCounter;
+
+    public MaterialWriteGuard(PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${cityfuture.materials.lock-stripes:64}") int stripeCount,
+            @Value("${cityfuture.materials.lock-timeout-ms:2000}") long lockTimeoutMillis) {
+        this.stripes = new ReentrantLock[Math.max(1, stripeCount)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.lockTimeoutMillis = lockTimeoutMillis;
+
+        this.lockWaitTimer = Timer.builder("cityfuture.materials.lock.wait")
+                .description("Espera para obtener las franjas de los materiales")
+                .register(meterRegistry);
+        this.contendedCounter = Counter.builder("cityfuture.materials.lock.contended")
+                .register(meterRegistry);
+        this.lockTimeoutCounter = Counter.builder("cityfuture.materials.lock.timeouts")
+                .register(meterRegistry);
+        this.outOfOrderCounter = Counter.builder("cityfuture.materials.lock.out_of_order")
+                .description("Franjas ocupadas pedidas fuera de orden dentro de una transacción")
+                .register(meterRegistry);
+        this.conflictCounter = Counter.builder("cityfuture.materials.optimistic.conflicts")
+                .register(meterRegistry);
+    }
+
+    // Franjas tomadas por la transacción en curso, en orden de índice
+    private static final class HeldStripes {
+        private final TreeSet<Integer> indexes = new TreeSet<>();
+        private final List<ReentrantLock> locks = new ArrayList<>();
+    }
+
+    // Escritura con transacción propia. Un conflicto de versión no se reintenta: la versión
+    // esperada la fija el cliente, así que repetir la escritura daría el mismo conflicto
+    public <T> T write(Collection<String> codes, Supplier<T> action) {
+        List<ReentrantLock> held = acquire(codes, indexes(codes), -1);
+        try {
+            return transactionTemplate.execute(status -> action.get());
+        } catch (OptimisticLockingFailureException e) {
+            conflictCounter.increment();
+            throw e;
+        } finally {
+            unlock(held);
+        }
+    }
+
+    // Escritura dentro de una transacción en curso: las franjas se liberan al terminarla. El
+    // pipeline agrupa varios comandos en una transacción, así que las franjas de un comando pueden
+    // quedar por debajo de las que ya tomó otro anterior; esas no se esperan (otro hilo podría
+    // tenerlas esperando por las nuestras) y si están ocupadas se falla de inmediato para que el
+    // lote se revierta y cada comando se reintente solo, tomando sus franjas en orden
+    public void lockForTransaction(Collection<String> codes) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            unlock(acquire(codes, indexes(codes), -1));
+            return;
+        }
+        HeldStripes held = (HeldStripes) TransactionSynchronizationManager.getResource(HELD_RESOURCE);
+        if (held == null) {
+            HeldStripes bound = new HeldStripes();
+            TransactionSynchronizationManager.bindResource(HELD_RESOURCE, bound);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(HELD_RESOURCE);
+                    unlock(bound.locks);
+                }
+            });
+            held = bound;
+        }
+
+        TreeSet<Integer> missing = indexes(codes);
+        missing.removeAll(held.indexes);
+        if (missing.isEmpty()) {
+            return;
+        }
+        int highestHeld = held.indexes.isEmpty() ? -1 : held.indexes.last();
+        held.locks.addAll(acquire(codes, missing, highestHeld));
+        held.indexes.addAll(missing);
+    }
+
+    private TreeSet<Integer> indexes(Collection<String> codes) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        codes.forEach(code -> indexes.add(Math.floorMod(code.hashCode(), stripes.length)));
+        return indexes;
+    }
+
+    // Siempre en orden de franja para no generar esperas circulares entre hilos; las franjas por
+    // debajo de highestHeld solo se toman si están libres
+    private List<ReentrantLock> acquire(Collection<String> codes, TreeSet<Integer> indexes,
+            int highestHeld) {
+        List<ReentrantLock> held = new ArrayList<>(indexes.size());
+        long start = System.nanoTime();
+        try {
+            for (int index : indexes) {
+                ReentrantLock lock = stripes[index];
+                if (!lock.tryLock()) {
+                    contendedCounter.increment();
+                    if (index < highestHeld) {
+                        outOfOrderCounter.increment();
+                        throw new CannotAcquireLockException(
+                                "Materiales ocupados fuera de orden de bloqueo: " + codes);
+                    }
+                    if (!lock.tryLock(lockTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                        lockTimeoutCounter.increment();
+                        throw new CannotAcquireLockException(
+                                "Tiempo de espera agotado bloqueando materiales: " + codes);
+                    }
+                }
+                held.add(lock);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            unlock(held);
+            throw new CannotAcquireLockException("Interrumpido bloqueando materiales: " + codes);
+        } catch (RuntimeException e) {
+            unlock(held);
+            throw e;
+        } finally {
+            lockWaitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return held;
+    }
+
+    private void unlock(List<ReentrantLock> held) {
+        for (int i = held.size() - 1; i >= 0; i--) {
+            held.get(i).unlock();
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.cityfuture.infrastructure.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// Todas las mutaciones de órdenes (stock, cronograma, fechas de órdenes posteriores) pasan por
+// un único hilo escritor que confirma lotes de comandos en una sola transacción
+@Component
+public class OrderCommandPipeline {
+    private static final Logger logger = LoggerFactory.getLogger(OrderCommandPipeline.class);
+
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<Command<?>> queue;
+    private final int maxBatchSize;
+    private final long timeoutMillis;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public OrderCommandPipeline(PlatformTransactionManager transactionManager,
+            @Value("${cityfuture.pipeline.capacity:1024}") int capacity,
+            @Value("${cityfuture.pipeline.max-batch:32}") int maxBatchSize,
+            @Value("${cityfuture.pipeline.timeout-ms:30000}") long timeoutMillis) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.timeoutMillis = Math.max(1, timeoutMillis);
+    }
+
+    private record Command<T>(String name, Supplier<T> action, CompletableFuture<T> result) {
+
+        void complete(Object value) {
+            @SuppressWarnings("unchecked")
+            T typed = (T) value;
+            result.complete(typed);
+        }
+
+        void reject(String message) {
+            result.completeExceptionally(new RejectedExecutionException(message));
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer = Thread.ofPlatform().name("order-writer").daemon().start(this::drain);
+        logger.info("Pipeline de órdenes iniciado - Capacidad: {}, Lote máximo: {}",
+                queue.remainingCapacity(), maxBatchSize);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        writer.interrupt();
+        List<Command<?>> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        pending.forEach(command -> command.result()
+                .completeExceptionally(new CancellationException("Aplicación deteniéndose")));
+    }
+
+    public <T> CompletableFuture<T> submit(String name, Supplier<T> action) {
+        return enqueue(name, action).result();
+    }
+
+    // Variante bloqueante: propaga la excepción original del comando. Si el resultado no llega
+    // a tiempo se rechaza; un comando que ya empezó puede confirmarse igual más tarde
+    public <T> T execute(String name, Supplier<T> action) {
+        Command<T> command = enqueue(name, action);
+        try {
+            return command.result().get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (queue.remove(command)) {
+                command.reject("La orden no se procesó a tiempo, intente nuevamente");
+                throw new RejectedExecutionException(
+                        "La orden no se procesó a tiempo, intente nuevamente");
+            }
+            logger.warn("Comando '{}' sin resultado tras {} ms; sigue en proceso", name,
+                    timeoutMillis);
+            throw new RejectedExecutionException("La orden sigue en proceso tras " + timeoutMillis
+                    + " ms y puede confirmarse más tarde; consulte antes de reintentar");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new CompletionException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Espera de la orden interrumpida", e);
+        }
+    }
+
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    private <T> Command<T> enqueue(String name, Supplier<T> action) {
+        Command<T> command = new Command<>(name, action, new CompletableFuture<>());
+        if (!running) {
+            command.reject("El pipeline de órdenes está detenido");
+        } else if (!queue.offer(command)) {
+            command.reject("La cola de órdenes está llena, intente nuevamente");
+        } else if (!running && queue.remove(command)) {
+            // stop() o la caída del escritor vaciaron la cola entre la comprobación y el offer
+            command.reject("El pipeline de órdenes está detenido");
+        }
+        return command;
+    }
+
+    private void drain() {
+        List<Command<?>> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (running) {
+                try {
+                    Command<?> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, maxBatchSize - 1);
+                    commit(batch);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (RuntimeException e) {
+                    logger.error("Error inesperado en el pipeline de órdenes", e);
+                    fail(batch, e);
+                } catch (Error e) {
+                    // Un Error deja el escritor en un estado incierto: se falla el lote y el hilo
+                    // termina
+                    logger.error("Error fatal en el hilo escritor de órdenes", e);
+                    fail(batch, e);
+                    throw e;
+                } finally {
+                    batch.clear();
+                }
+            }
+        } finally {
+            // Sin escritor nadie procesaría la cola: se dejan de aceptar comandos y se rechazan
+            // los que esperaban
+            if (running) {
+                logger.error("Hilo escritor de órdenes detenido; el pipeline deja de aceptar órdenes");
+            }
+            running = false;
+            List<Command<?>> pending = new ArrayList<>();
+            queue.drainTo(pending);
+            pending.forEach(command -> command.reject("El pipeline de órdenes está detenido"));
+        }
+    }
+
+    // Los comandos ya completados no cambian
+    private static void fail(List<Command<?>> batch, Throwable error) {
+        batch.forEach(command -> command.result().completeExceptionally(error));
+    }
+
+    private void commit(List<Command<?>> batch) {
+        List<Object> results = new ArrayList<>(batch.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Command<?> command : batch) {
+                    results.add(command.action().get());
+                }
+            });
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).result().completeExceptionally(e);
+                return;
+            }
+            // El lote se revirtió completo: cada comando se reintenta en su propia transacción
+            // para que el error de uno no afecte a los demás
+            logger.debug("Lote de {} comandos revertido, reintentando individualmente: {}",
+                    batch.size(), e.getMessage());
+            for (Command<?> command : batch) {
+                commit(List.of(command));
+            }
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).complete(results.get(i));
+        }
+        logger.debug("Lote de {} comandos confirmado", batch.size());
+    }
+}
@@ -0,0 +1,152 @@
+package com.cityfuture.infrastructure.service;
+
+import com.cityfuture.domain.model.ConstructionStatus;
+import com.cityfuture.infrastructure.persistence.entity.JobCheckpointEntity;
+import com.cityfuture.infrastructure.persistence.repository.JdbcConstructionStatusRepository;
+import com.cityfuture.infrastructure.persistence.repository.JpaJobCheckpointRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Recorre las órdenes pendientes vencidas por tramos paginados por ID. Cada tramo se actualiza
+// con un batch JDBC y confirma en su propia transacción junto con el checkpoint, así la memoria
+// y la duración de cada transacción quedan acotadas y un fallo no obliga a empezar de nuevo
+@Component
+public class OverdueOrderProcessor {
+    private static final Logger logger = LoggerFactory.getLogger(OverdueOrderProcessor.class);
+
+    static final String JOB_NAME = "procesar-vencidas";
+
+    private final JdbcConstructionStatusRepository statusRepository;
+    private final JpaJobCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final Clock clock;
+
+    private final Counter startedCounter;
+    private final Counter finishedCounter;
+    private final Timer chunkTimer;
+    private final AtomicLong lastProcessedId = new AtomicLong();
+
+    public record Result(long processed, int chunks, boolean resumed) {
+    }
+
+    public OverdueOrderProcessor(JdbcConstructionStatusRepository statusRepository,
+            JpaJobCheckpointRepository checkpointRepository,
+            PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+            @Value("${cityfuture.overdue.chunk-size:500}") int chunkSize, Clock clock) {
+        this.statusRepository = statusRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.clock = clock;
+
+        this.startedCounter = Counter.builder("cityfuture.overdue.processed")
+                .tag("estado", ConstructionStatus.EN_PROGRESO.getLabel())
+                .register(meterRegistry);
+        this.finishedCounter = Counter.builder("cityfuture.overdue.processed")
+                .tag("estado", ConstructionStatus.FINALIZADO.getLabel())
+                .register(meterRegistry);
+        this.chunkTimer = Timer.builder("cityfuture.overdue.chunk")
+                .description("Duración de cada tramo de órdenes vencidas")
+                .register(meterRegistry);
+        Gauge.builder("cityfuture.overdue.last_id", lastProcessedId, AtomicLong::get)
+                .description("Último ID confirmado por el procesamiento de vencidas")
+                .register(meterRegistry);
+    }
+
+    public synchronized Result process() {
+        LocalDate today = LocalDate.now(clock);
+        JobCheckpointEntity checkpoint = loadCheckpoint(today);
+        boolean resumed = checkpoint.getLastId() > 0;
+        if (resumed) {
+            logger.info("Retomando procesamiento de vencidas desde la orden {} ({} ya procesadas)",
+                    checkpoint.getLastId(), checkpoint.getProcessed());
+        }
+
+        int chunks = 0;
+        while (true) {
+            JobCheckpointEntity current = checkpoint;
+            Integer updated = chunkTimer.record(() -> transactionTemplate
+                    .execute(status -> processChunk(current, today)));
+            if (updated == null || updated < 0) {
+                break;
+            }
+            chunks++;
+            lastProcessedId.set(checkpoint.getLastId());
+            logger.info("Tramo {} de vencidas confirmado - Actualizadas: {}, Último ID: {}",
+                    chunks, updated, checkpoint.getLastId());
+        }
+
+        logger.info("Procesamiento de vencidas completado - Órdenes: {}, Tramos: {}",
+                checkpoint.getProcessed(), chunks);
+        return new Result(checkpoint.getProcessed(), chunks, resumed);
+    }
+
+    // Devuelve las filas actualizadas del tramo, o -1 si ya no quedan órdenes vencidas
+    private int processChunk(JobCheckpointEntity checkpoint, LocalDate today) {
+        List<JdbcConstructionStatusRepository.OverdueRow> rows =
+                statusRepository.findOverdueAfter(checkpoint.getLastId(), today, chunkSize);
+        if (rows.isEmpty()) {
+            checkpoint.setCompleted(true);
+            saveCheckpoint(checkpoint);
+            return -1;
+        }
+
+        Map<Long, ConstructionStatus> targets = new LinkedHashMap<>();
+        int finished = 0;
+        for (JdbcConstructionStatusRepository.OverdueRow row : rows) {
+            boolean delivered = today.isAfter(row.entregaDate());
+            targets.put(row.id(), delivered ? ConstructionStatus.FINALIZADO
+                    : ConstructionStatus.EN_PROGRESO);
+            finished += delivered ? 1 : 0;
+        }
+        int updated = statusRepository.updateStatuses(targets, ConstructionStatus.PENDIENTE);
+
+        checkpoint.setLastId(rows.get(rows.size() - 1).id());
+        checkpoint.setProcessed(checkpoint.getProcessed() + updated);
+        saveCheckpoint(checkpoint);
+
+        finishedCounter.increment(finished);
+        startedCounter.increment(rows.size() - finished);
+        return updated;
+    }
+
+    // Un checkpoint sin terminar del mismo día se retoma; cualquier otro se reinicia porque
+    // con otra fecha cambian las órdenes vencidas
+    private JobCheckpointEntity loadCheckpoint(LocalDate today) {
+        JobCheckpointEntity checkpoint = checkpointRepository.findById(JOB_NAME)
+                .filter(existing -> !existing.isCompleted() && today.equals(existing.getRunDate()))
+                .orElse(null);
+        if (checkpoint != null) {
+            return checkpoint;
+        }
+        checkpoint = new JobCheckpointEntity();
+        checkpoint.setJobName(JOB_NAME);
+        checkpoint.setRunDate(today);
+        checkpoint.setLastId(0L);
+        checkpoint.setProcessed(0L);
+        checkpoint.setCompleted(false);
+        return checkpoint;
+    }
+
+    private void saveCheckpoint(JobCheckpointEntity checkpoint) {
+        checkpoint.setUpdatedAt(clock.instant());
+        checkpointRepository.save(checkpoint);
+    }
+}
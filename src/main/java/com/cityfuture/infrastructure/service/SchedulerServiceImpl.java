@@ -2,20 +2,35 @@ package com.cityfuture.infrastructure.service;
 
 import com.cityfuture.application.service.ReportService;
 import com.cityfuture.application.service.SchedulerService;
+import com.cityfuture.infrastructure.scheduler.ScheduledJobRunner;
 import lombok.AllArgsConstructor;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.support.CronExpression;
 import org.springframework.stereotype.Service;
 
+import java.time.Clock;
+import java.time.ZonedDateTime;
+
 @Service
 @AllArgsConstructor
 public class SchedulerServiceImpl implements SchedulerService {
 
+    private static final String DAILY_REPORT_CRON = "0 0 8 * * *"; // Todos los días a las 8 AM
+    private static final CronExpression DAILY_REPORT = CronExpression.parse(DAILY_REPORT_CRON);
+
     private final ReportService reportService;
+    private final ScheduledJobRunner jobRunner;
+    private final Clock clock;
 
     @Override
-    @Scheduled(cron = "0 0 8 * * *") // Ejecuta todos los días a las 8 AM
+    @Scheduled(cron = DAILY_REPORT_CRON)
     public void scheduleDailyReports() {
-        String report = reportService.generateMaterialReport();
-        System.out.println("📊 Reporte automático: " + report);
+        // Con varias réplicas el reporte se genera en una sola; si el anterior sigue en curso,
+        // este disparo se omite
+        jobRunner.run("reporte-diario", ScheduledJobRunner.lastFire(DAILY_REPORT, ZonedDateTime.now(clock)),
+                ScheduledJobRunner.Overlap.SKIP, () -> {
+            String report = reportService.generateMaterialReport();
+            System.out.println("📊 Reporte automático: " + report);
+        });
     }
-}
\ No newline at end of file
+}
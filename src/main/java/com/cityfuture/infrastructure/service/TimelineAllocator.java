@@ -0,0 +1,449 @@
+package com.cityfuture.infrastructure.service;
+
+import com.cityfuture.domain.model.ProjectSummary;
+import com.cityfuture.infrastructure.persistence.repository.JpaConstructionOrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+@Component
+public class TimelineAllocator {
+    private static final Logger logger = LoggerFactory.getLogger(TimelineAllocator.class);
+
+    private static final String REVISION_SQL = "SELECT revision FROM timeline_locks WHERE id = 1";
+    private static final String LOCK_SQL = REVISION_SQL + " FOR UPDATE";
+    private static final String INSERT_SQL =
+            "INSERT INTO timeline_locks (id, revision) VALUES (1, 0)";
+    private static final String BUMP_SQL =
+            "UPDATE timeline_locks SET revision = revision + 1 WHERE id = 1";
+    // Marca de la transacción que ya tiene tomada la fila de timeline_locks
+    private static final Object LOCK_RESOURCE = new Object();
+
+    private final JpaConstructionOrderRepository orderRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final int crews;
+    private final Clock clock;
+
+    // Cada cuadrilla tiene su propia cola; las fechas de una orden se derivan del inicio de su
+    // cola más los días acumulados (con sus huecos) de las órdenes anteriores en la misma cola
+    private final TreeMap<Integer, Lane> lanes = new TreeMap<>();
+    // Cuadrillas activas ordenadas por el día en que quedan libres (vacías primero)
+    private final PriorityQueue<Lane> available = new PriorityQueue<>(Comparator
+            .comparing((Lane lane) -> lane.nextFree, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparingInt(lane -> lane.number));
+    private volatile boolean stale = true;
+    // Revisión de timeline_locks que refleja el estado en memoria; null si no se conoce
+    private Long revision;
+
+    public TimelineAllocator(JpaConstructionOrderRepository orderRepository,
+            JdbcTemplate jdbcTemplate, @Value("${cityfuture.scheduling.crews:1}") int crews,
+            Clock clock) {
+        if (crews < 1) {
+            throw new IllegalArgumentException("Debe existir al menos una cuadrilla");
+        }
+        this.orderRepository = orderRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.crews = crews;
+        this.clock = clock;
+    }
+
+    public record Slot(LocalDate startDate, LocalDate deliveryDate, int lane,
+            TimelineIndex.Node node) {
+
+        public Slot(LocalDate startDate, LocalDate deliveryDate) {
+            this(startDate, deliveryDate, 0, null);
+        }
+    }
+
+    public record Summary(int orders, long totalDays, LocalDate startDate, LocalDate endDate) {
+
+        // Sin órdenes el proyecto iniciaría mañana y se entregaría hoy
+        public ProjectSummary toProjectSummary(LocalDate today) {
+            LocalDate start = startDate != null ? startDate : today.plusDays(1);
+            LocalDate delivery = endDate != null ? endDate : today;
+            String status = orders == 0 ? "Sin órdenes"
+                    : today.isBefore(start) ? "No iniciado"
+                            : today.isAfter(delivery) ? "Completado" : "En progreso";
+            return new ProjectSummary((int) totalDays, start, delivery, delivery, orders, status);
+        }
+    }
+
+    // Estado agregado de una cuadrilla; start es null si no tiene órdenes. totalDays incluye
+    // los huecos entre órdenes y busyDays solo los días ocupados
+    public record LaneState(int lane, LocalDate start, long totalDays, long busyDays, int orders,
+            boolean active) {
+    }
+
+    private static final class Lane {
+        private final int number;
+        private final TimelineIndex index = new TimelineIndex();
+        private LocalDate start;
+        private LocalDate nextFree;
+
+        private Lane(int number) {
+            this.number = number;
+        }
+
+        private void refresh() {
+            if (index.size() == 0) {
+                start = null;
+            }
+            nextFree = start == null ? null : start.plusDays(index.totalDays());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            jdbcTemplate.update(INSERT_SQL);
+        } catch (DuplicateKeyException e) {
+            // Otra réplica ya creó la fila
+        }
+        rebuild();
+    }
+
+    // Cada orden se ubica con sus fechas guardadas: su duración es la de sus fechas y la
+    // distancia a la anterior de la cuadrilla queda como hueco
+    public synchronized void rebuild() {
+        // La revisión se lee antes que las órdenes: si otra réplica confirma entre ambas
+        // lecturas, el próximo cambio ve una revisión distinta y vuelve a reconstruir
+        revision = readRevision(REVISION_SQL);
+        lanes.clear();
+        available.clear();
+        for (int number = 0; number < crews; number++) {
+            lanes.put(number, new Lane(number));
+        }
+        for (JpaConstructionOrderRepository.TimelineRow row
+                : orderRepository.findAllByOrderByStartDateAscIdAsc()) {
+            // Las órdenes de cuadrillas retiradas cuentan en el resumen pero no reciben nuevas
+            Lane lane = lanes.computeIfAbsent(row.getLane(), Lane::new);
+            int gap = 0;
+            if (lane.start == null) {
+                lane.start = row.getStartDate();
+            } else {
+                gap = (int) ChronoUnit.DAYS.between(
+                        lane.start.plusDays(lane.index.totalDays()), row.getStartDate());
+            }
+            lane.index.append(row.getId(), gap, occupiedDays(row));
+        }
+        for (Lane lane : lanes.values()) {
+            lane.refresh();
+            if (lane.number < crews) {
+                available.add(lane);
+            }
+        }
+        stale = false;
+        logger.info("Cronograma reconstruido desde BD - Cuadrillas: {}, Órdenes: {}", crews,
+                lanes.values().stream().mapToInt(lane -> lane.index.size()).sum());
+    }
+
+    // La nueva orden va a la cuadrilla que queda libre primero: inicia al día siguiente de su
+    // última entrega, o mañana si la cuadrilla no tiene órdenes
+    public Slot allocate(int estimatedDays) {
+        Long locked = lockTimeline();
+        synchronized (this) {
+            syncRevision(locked);
+            return append(estimatedDays);
+        }
+    }
+
+    // Slots para un lote, asignados en una sola sección crítica
+    public List<Slot> allocateAll(List<Integer> estimatedDays) {
+        Long locked = lockTimeline();
+        synchronized (this) {
+            syncRevision(locked);
+            List<Slot> slots = new ArrayList<>(estimatedDays.size());
+            for (Integer days : estimatedDays) {
+                slots.add(append(days));
+            }
+            return slots;
+        }
+    }
+
+    // Inserta la orden antes de otra que aún no inicia, en la cuadrilla de esa orden; las
+    // posteriores de la misma cuadrilla se atrasan implícitamente la duración de la nueva
+    public Slot allocateBefore(Long orderId, int estimatedDays) {
+        Long locked = lockTimeline();
+        synchronized (this) {
+            syncRevision(locked);
+            Lane lane = laneOf(orderId);
+            if (lane == null) {
+                throw new IllegalArgumentException(
+                        "La orden " + orderId + " no está en la cola de construcción");
+            }
+            TimelineIndex.Node next = lane.index.find(orderId);
+            if (!slotOf(lane, next).startDate().isAfter(LocalDate.now(clock))) {
+                throw new IllegalArgumentException(
+                        "No se puede insertar antes de la orden " + orderId + " porque ya inició");
+            }
+            return insertAt(lane, lane.index.positionOf(next), estimatedDays);
+        }
+    }
+
+    // Inserta la orden antes de la primera que aún no inicia, en la cuadrilla donde puede
+    // empezar más pronto
+    public Slot allocateFirst(int estimatedDays) {
+        Long locked = lockTimeline();
+        synchronized (this) {
+            syncRevision(locked);
+            LocalDate tomorrow = LocalDate.now(clock).plusDays(1);
+            Lane best = null;
+            int bestPosition = 0;
+            LocalDate bestStart = null;
+            for (Lane lane : available) {
+                if (lane.start == null) {
+                    return append(estimatedDays);
+                }
+                long offset = Math.max(ChronoUnit.DAYS.between(lane.start, tomorrow), 0);
+                int position = lane.index.firstPositionFrom(offset);
+                LocalDate start = position < lane.index.size()
+                        ? lane.start.plusDays(lane.index.startOf(lane.index.nodeAt(position)))
+                        : lane.nextFree;
+                if (bestStart == null || start.isBefore(bestStart)
+                        || (start.isEqual(bestStart) && lane.number < best.number)) {
+                    best = lane;
+                    bestPosition = position;
+                    bestStart = start;
+                }
+            }
+            return insertAt(best, bestPosition, estimatedDays);
+        }
+    }
+
+    // Asocia el id persistido al slot reservado
+    public synchronized void bind(Slot slot, Long orderId) {
+        if (slot.node() != null && !stale) {
+            lanes.get(slot.lane()).index.bind(slot.node(), orderId);
+        }
+    }
+
+    // Quita la orden de su cuadrilla; las posteriores de esa cuadrilla quedan adelantadas
+    // implícitamente
+    public void remove(Long orderId) {
+        removeAll(List.of(orderId));
+    }
+
+    public void removeAll(Collection<Long> orderIds) {
+        Long locked = lockTimeline();
+        synchronized (this) {
+            syncRevision(locked);
+            for (Long orderId : orderIds) {
+                Lane lane = laneOf(orderId);
+                if (lane == null) {
+                    stale = true;
+                    break;
+                }
+                boolean active = available.remove(lane);
+                lane.index.remove(orderId);
+                lane.refresh();
+                if (active) {
+                    available.add(lane);
+                }
+            }
+            invalidateOn(false);
+        }
+    }
+
+    // Alarga o acorta la orden en la diferencia indicada; las posteriores de su cuadrilla se
+    // desplazan implícitamente lo mismo
+    public void resize(Long orderId, int daysDelta) {
+        Long locked = lockTimeline();
+        synchronized (this) {
+            syncRevision(locked);
+            Lane lane = laneOf(orderId);
+            if (lane == null) {
+                stale = true;
+            } else {
+                boolean active = available.remove(lane);
+                lane.index.updateDays(orderId, lane.index.find(orderId).days() + daysDelta);
+                lane.refresh();
+                if (active) {
+                    available.add(lane);
+                }
+            }
+            invalidateOn(false);
+        }
+    }
+
+    public synchronized Optional<Slot> slotOf(Long orderId) {
+        ensureFresh();
+        Lane lane = laneOf(orderId);
+        return lane == null ? Optional.empty()
+                : Optional.of(slotOf(lane, lane.index.find(orderId)));
+    }
+
+    public synchronized Summary summary() {
+        ensureFresh();
+        int orders = 0;
+        long totalDays = 0;
+        LocalDate startDate = null;
+        LocalDate endDate = null;
+        for (Lane lane : lanes.values()) {
+            if (lane.start == null) {
+                continue;
+            }
+            orders += lane.index.size();
+            totalDays += lane.index.busyDays();
+            LocalDate laneEnd = lane.nextFree.minusDays(1);
+            startDate = startDate == null || lane.start.isBefore(startDate) ? lane.start : startDate;
+            endDate = endDate == null || laneEnd.isAfter(endDate) ? laneEnd : endDate;
+        }
+        return new Summary(orders, totalDays, startDate, endDate);
+    }
+
+    // Copia de los agregados por cuadrilla para simular cambios sin tocar el cronograma
+    public synchronized List<LaneState> laneStates() {
+        ensureFresh();
+        List<LaneState> states = new ArrayList<>(lanes.size());
+        for (Lane lane : lanes.values()) {
+            states.add(new LaneState(lane.number, lane.start, lane.index.totalDays(),
+                    lane.index.busyDays(), lane.index.size(), lane.number < crews));
+        }
+        return states;
+    }
+
+    // Tras cambios que el índice no refleja, el estado en memoria se recalcula desde BD
+    public void invalidate() {
+        stale = true;
+        invalidateOn(true);
+    }
+
+    private Slot append(int estimatedDays) {
+        Lane lane = available.poll();
+        if (lane.start == null) {
+            lane.start = LocalDate.now(clock).plusDays(1);
+        }
+        TimelineIndex.Node node = lane.index.append(null, estimatedDays);
+        lane.refresh();
+        available.add(lane);
+        invalidateOn(false);
+
+        Slot slot = slotOf(lane, node);
+        logger.debug("Slot asignado: cuadrilla={}, inicio={}, entrega={}", lane.number,
+                slot.startDate(), slot.deliveryDate());
+        return slot;
+    }
+
+    private Slot insertAt(Lane lane, int position, int estimatedDays) {
+        boolean active = available.remove(lane);
+        TimelineIndex.Node node = lane.index.insert(position, null, estimatedDays);
+        lane.refresh();
+        if (active) {
+            available.add(lane);
+        }
+        invalidateOn(false);
+
+        Slot slot = slotOf(lane, node);
+        logger.debug("Slot insertado: cuadrilla={}, posición={}, inicio={}, entrega={}",
+                lane.number, position, slot.startDate(), slot.deliveryDate());
+        return slot;
+    }
+
+    private Lane laneOf(Long orderId) {
+        for (Lane lane : lanes.values()) {
+            if (lane.index.find(orderId) != null) {
+                return lane;
+            }
+        }
+        return null;
+    }
+
+    private Slot slotOf(Lane lane, TimelineIndex.Node node) {
+        LocalDate startDate = lane.start.plusDays(lane.index.startOf(node));
+        return new Slot(startDate, startDate.plusDays(node.days() - 1L), lane.number, node);
+    }
+
+    // Días que la orden ocupa según sus fechas guardadas; en filas antiguas puede no coincidir
+    // con estimatedDays
+    private static int occupiedDays(JpaConstructionOrderRepository.TimelineRow row) {
+        return (int) ChronoUnit.DAYS.between(row.getStartDate(), row.getEntregaDate()) + 1;
+    }
+
+    private void ensureFresh() {
+        if (stale) {
+            rebuild();
+        }
+    }
+
+    // Toma la fila de timeline_locks hasta el fin de la transacción, así las réplicas cambian el
+    // cronograma de a una, y devuelve la revisión leída. Se llama fuera del monitor: un hilo
+    // que espera la fila no debe bloquear al que la tiene. Sin transacción (arranque, pruebas)
+    // o con la fila ya tomada devuelve null
+    private Long lockTimeline() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.hasResource(LOCK_RESOURCE)) {
+            return null;
+        }
+        Long locked = readRevision(LOCK_SQL);
+        if (locked == null) {
+            jdbcTemplate.update(INSERT_SQL);
+            locked = readRevision(LOCK_SQL);
+        }
+        TransactionSynchronizationManager.bindResource(LOCK_RESOURCE, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(LOCK_RESOURCE);
+            }
+        });
+        return locked;
+    }
+
+    // Si la revisión bloqueada no es la que refleja la memoria, otra réplica movió fechas y se
+    // reconstruye desde BD antes del cambio; luego se incrementa la revisión para las demás
+    private void syncRevision(Long locked) {
+        if (locked == null) {
+            ensureFresh();
+            return;
+        }
+        if (!locked.equals(revision)) {
+            if (!stale) {
+                logger.info("Cronograma modificado por otra réplica (revisión {} -> {})",
+                        revision, locked);
+            }
+            stale = true;
+        }
+        ensureFresh();
+        jdbcTemplate.update(BUMP_SQL);
+        revision = locked + 1;
+        // Si la transacción no confirma, la revisión incrementada no llega a la BD
+        invalidateOn(false);
+    }
+
+    private Long readRevision(String sql) {
+        List<Long> revisions = jdbcTemplate.queryForList(sql, Long.class);
+        return revisions.isEmpty() ? null : revisions.get(0);
+    }
+
+    private void invalidateOn(boolean anyOutcome) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (anyOutcome || status != STATUS_COMMITTED) {
+                    stale = true;
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,285 @@
+package com.cityfuture.infrastructure.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+// Cola de construcción como treap implícito: la clave es la posición en la cola y cada nodo
+// guarda la suma de días de su subárbol. El inicio de una orden es la suma de días de las
+// anteriores, así que insertar, eliminar o cambiar una duración desplaza a todas las
+// posteriores en O(log n) sin tocarlas. Cada nodo lleva además los días libres que lo separan
+// de la orden anterior (negativos si se solapan), para conservar las fechas guardadas
+public class TimelineIndex {
+
+    public static final class Node {
+        private Long id;
+        private int days;
+        private int gap;
+        private final int priority;
+        private Node left;
+        private Node right;
+        private Node parent;
+        private int size = 1;
+        private long sum;
+
+        private Node(Long id, int gap, int days, int priority) {
+            this.id = id;
+            this.gap = gap;
+            this.days = days;
+            this.priority = priority;
+            this.sum = gap + days;
+        }
+
+        public Long id() {
+            return id;
+        }
+
+        public int days() {
+            return days;
+        }
+
+        public int gap() {
+            return gap;
+        }
+    }
+
+    private final SplittableRandom random = new SplittableRandom(42);
+    private final Map<Long, Node> byId = new HashMap<>();
+    private Node root;
+    // Días ocupados por las órdenes, sin contar los huecos entre ellas
+    private long busyDays;
+
+    public int size() {
+        return size(root);
+    }
+
+    // Largo de la cola: desde el inicio de la primera orden hasta el fin de la última
+    public long totalDays() {
+        return sum(root);
+    }
+
+    public long busyDays() {
+        return busyDays;
+    }
+
+    public Node append(Long id, int days) {
+        return append(id, 0, days);
+    }
+
+    public Node append(Long id, int gap, int days) {
+        Node node = insert(size(), id, days);
+        if (gap != 0) {
+            updateGap(node, gap);
+        }
+        return node;
+    }
+
+    // Inserta en la posición indicada (0 = inicio de la cola). La nueva orden toma el hueco de
+    // la que ocupaba esa posición, que queda inmediatamente después de ella
+    public Node insert(int position, Long id, int days) {
+        if (position < 0 || position > size()) {
+            throw new IndexOutOfBoundsException("Posición fuera de la cola: " + position);
+        }
+        int gap = 0;
+        if (position < size()) {
+            Node next = nodeAt(position);
+            gap = next.gap;
+            updateGap(next, 0);
+        }
+        Node node = new Node(id, gap, days, random.nextInt());
+        Node[] parts = split(root, position);
+        root = merge(merge(parts[0], node), parts[1]);
+        root.parent = null;
+        busyDays += days;
+        if (id != null) {
+            byId.put(id, node);
+        }
+        return node;
+    }
+
+    // Asocia el id definitivo a un nodo reservado antes de persistir la orden
+    public void bind(Node node, Long id) {
+        node.id = id;
+        byId.put(id, node);
+    }
+
+    public Node find(Long id) {
+        return byId.get(id);
+    }
+
+    // Las posteriores se adelantan la duración de la orden quitada; su hueco pasa a la
+    // siguiente
+    public boolean remove(Long id) {
+        Node node = byId.remove(id);
+        if (node == null) {
+            return false;
+        }
+        int position = positionOf(node);
+        Node[] head = split(root, position);
+        Node[] tail = split(head[1], 1);
+        root = merge(head[0], tail[1]);
+        if (root != null) {
+            root.parent = null;
+        }
+        busyDays -= node.days;
+        if (node.gap != 0 && position < size()) {
+            Node next = nodeAt(position);
+            updateGap(next, next.gap + node.gap);
+        }
+        return true;
+    }
+
+    public void updateDays(Long id, int days) {
+        Node node = byId.get(id);
+        if (node == null) {
+            throw new IllegalArgumentException("Orden no registrada en el cronograma: " + id);
+        }
+        busyDays += days - node.days;
+        node.days = days;
+        recalculateUpwards(node);
+    }
+
+    public int positionOf(Node node) {
+        int position = size(node.left);
+        for (Node current = node; current.parent != null; current = current.parent) {
+            if (current == current.parent.right) {
+                position += size(current.parent.left) + 1;
+            }
+        }
+        return position;
+    }
+
+    // Días acumulados por las órdenes (y sus huecos) que preceden al nodo en la cola
+    public long daysBefore(Node node) {
+        long days = sum(node.left);
+        for (Node current = node; current.parent != null; current = current.parent) {
+            if (current == current.parent.right) {
+                days += sum(current.parent.left) + weight(current.parent);
+            }
+        }
+        return days;
+    }
+
+    // Día de inicio de la orden contado desde el inicio de la cola
+    public long startOf(Node node) {
+        return daysBefore(node) + node.gap;
+    }
+
+    // Primera posición cuya orden inicia en o después del día indicado, contado desde el
+    // inicio de la cola; size() si ninguna
+    public int firstPositionFrom(long day) {
+        int result = size();
+        int position = 0;
+        long before = 0;
+        Node current = root;
+        while (current != null) {
+            long start = before + sum(current.left) + current.gap;
+            if (start >= day) {
+                result = position + size(current.left);
+                current = current.left;
+            } else {
+                position += size(current.left) + 1;
+                before = start + current.days;
+                current = current.right;
+            }
+        }
+        return result;
+    }
+
+    public Node nodeAt(int position) {
+        Node current = root;
+        while (current != null) {
+            int leftSize = size(current.left);
+            if (position < leftSize) {
+                current = current.left;
+            } else if (position == leftSize) {
+                return current;
+            } else {
+                position -= leftSize + 1;
+                current = current.right;
+            }
+        }
+        throw new IndexOutOfBoundsException("Posición fuera de la cola: " + position);
+    }
+
+    public void clear() {
+        root = null;
+        byId.clear();
+        busyDays = 0;
+    }
+
+    private void updateGap(Node node, int gap) {
+        node.gap = gap;
+        recalculateUpwards(node);
+    }
+
+    private void recalculateUpwards(Node node) {
+        for (Node current = node; current != null; current = current.parent) {
+            recalculate(current);
+        }
+    }
+
+    private Node[] split(Node node, int count) {
+        if (node == null) {
+            return new Node[] {null, null};
+        }
+        if (size(node.left) < count) {
+            Node[] parts = split(node.right, count - size(node.left) - 1);
+            node.right = parts[0];
+            recalculate(node);
+            detach(parts[1]);
+            return new Node[] {node, parts[1]};
+        }
+        Node[] parts = split(node.left, count);
+        node.left = parts[1];
+        recalculate(node);
+        detach(parts[0]);
+        return new Node[] {parts[0], node};
+    }
+
+    private Node merge(Node first, Node second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        if (first.priority > second.priority) {
+            first.right = merge(first.right, second);
+            recalculate(first);
+            return first;
+        }
+        second.left = merge(first, second.left);
+        recalculate(second);
+        return second;
+    }
+
+    private void recalculate(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+        node.sum = weight(node) + sum(node.left) + sum(node.right);
+        if (node.left != null) {
+            node.left.parent = node;
+        }
+        if (node.right != null) {
+            node.right.parent = node;
+        }
+    }
+
+    private static void detach(Node node) {
+        if (node != null) {
+            node.parent = null;
+        }
+    }
+
+    private static long weight(Node node) {
+        return (long) node.gap + node.days;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static long sum(Node node) {
+        return node == null ? 0 : node.sum;
+    }
+}
@@ -0,0 +1,289 @@
+package com.cityfuture.infrastructure.service;
+
+import com.cityfuture.domain.model.MaterialVector;
+import com.cityfuture.domain.model.SimulationCommand;
+import com.cityfuture.domain.model.SimulationResult;
+import com.cityfuture.infrastructure.persistence.entity.ConstructionOrderEntity;
+import com.cityfuture.infrastructure.persistence.repository.JpaConstructionOrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Simula cambios sobre el plan sin tocar la BD: parte de copias inmutables del inventario y
+// de los agregados por cuadrilla, y solo registra las diferencias que producen los comandos,
+// así que el costo depende de la cantidad de cambios y no del tamaño del plan
+@Component
+public class TimelineSimulator {
+    private static final Logger logger = LoggerFactory.getLogger(TimelineSimulator.class);
+
+    private final TimelineAllocator timelineAllocator;
+    private final InventorySnapshot inventorySnapshot;
+    private final ConstructionTypeCatalog constructionTypeCatalog;
+    private final JpaConstructionOrderRepository orderRepository;
+    private final Clock clock;
+
+    public TimelineSimulator(TimelineAllocator timelineAllocator,
+            InventorySnapshot inventorySnapshot, ConstructionTypeCatalog constructionTypeCatalog,
+            JpaConstructionOrderRepository orderRepository, Clock clock) {
+        this.timelineAllocator = timelineAllocator;
+        this.inventorySnapshot = inventorySnapshot;
+        this.constructionTypeCatalog = constructionTypeCatalog;
+        this.orderRepository = orderRepository;
+        this.clock = clock;
+    }
+
+    public SimulationResult simulate(List<SimulationCommand> commands) {
+        Simulation simulation = new Simulation(inventorySnapshot.current(),
+                timelineAllocator.laneStates(), loadTargets(commands));
+
+        List<SimulationResult.Rejection> rejected = new ArrayList<>();
+        for (int i = 0; i < commands.size(); i++) {
+            SimulationCommand command = commands.get(i);
+            try {
+                simulation.apply(command);
+            } catch (IllegalArgumentException e) {
+                rejected.add(new SimulationResult.Rejection(i, command.action(), e.getMessage()));
+            }
+        }
+
+        SimulationResult result = new SimulationResult(simulation.summary().toProjectSummary(LocalDate.now(clock)),
+                commands.size() - rejected.size(), rejected, simulation.balances());
+        logger.info("Simulación ejecutada - Comandos: {}, Rechazados: {}, Entrega estimada: {}",
+                commands.size(), rejected.size(), result.projectSummary().estimatedDeliveryDate());
+        return result;
+    }
+
+    // Solo se leen de BD las órdenes referenciadas por los comandos
+    private Map<Long, ConstructionOrderEntity> loadTargets(List<SimulationCommand> commands) {
+        Set<Long> ids = commands.stream().map(SimulationCommand::orderId)
+                .filter(Objects::nonNull).collect(Collectors.toSet());
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return orderRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(ConstructionOrderEntity::getId, Function.identity()));
+    }
+
+    private static final class SimulatedLane {
+        private final int number;
+        private final boolean active;
+        private LocalDate start;
+        private long totalDays;
+        private long busyDays;
+        private int orders;
+
+        private SimulatedLane(TimelineAllocator.LaneState state) {
+            this.number = state.lane();
+            this.active = state.active();
+            this.start = state.start();
+            this.totalDays = state.totalDays();
+            this.busyDays = state.busyDays();
+            this.orders = state.orders();
+        }
+
+        private LocalDate nextFree() {
+            return start == null ? null : start.plusDays(totalDays);
+        }
+    }
+
+    // Orden existente tal como queda en la simulación, con los materiales que tiene reservados
+    private record SimulatedOrder(int lane, String typeConstruction, int estimatedDays,
+            MaterialVector reserved) {
+    }
+
+    private final class Simulation {
+        private final InventorySnapshot.Snapshot inventory;
+        private final Map<Integer, SimulatedLane> lanes = new TreeMap<>();
+        private final Map<Long, ConstructionOrderEntity> targets;
+        private final Map<Long, SimulatedOrder> changed = new HashMap<>();
+        private final Set<Long> deleted = new HashSet<>();
+        // Diferencia de stock por código respecto del snapshot (positivo = consumido)
+        private final Map<String, Integer> consumed = new HashMap<>();
+
+        private Simulation(InventorySnapshot.Snapshot inventory,
+                List<TimelineAllocator.LaneState> laneStates,
+                Map<Long, ConstructionOrderEntity> targets) {
+            this.inventory = inventory;
+            this.targets = targets;
+            laneStates.forEach(state -> lanes.put(state.lane(), new SimulatedLane(state)));
+        }
+
+        private void apply(SimulationCommand command) {
+            if (command.action() == null) {
+                throw new IllegalArgumentException("La acción es obligatoria");
+            }
+            switch (command.action()) {
+                case CREATE -> create(command);
+                case DELETE -> delete(command);
+                case UPDATE -> update(command);
+            }
+        }
+
+        private void create(SimulationCommand command) {
+            ConstructionTypeCatalog.CompiledType type = resolve(command.typeConstruction());
+            checkAvailability(type.requirements());
+            consume(type.requirements(), 1);
+
+            // Misma regla que el cronograma: la cuadrilla activa que queda libre primero
+            SimulatedLane lane = null;
+            for (SimulatedLane candidate : lanes.values()) {
+                if (candidate.active && (lane == null || freesBefore(candidate, lane))) {
+                    lane = candidate;
+                }
+            }
+            if (lane.start == null) {
+                lane.start = LocalDate.now(clock).plusDays(1);
+            }
+            lane.totalDays += type.estimatedDays();
+            lane.busyDays += type.estimatedDays();
+            lane.orders++;
+        }
+
+        private void delete(SimulationCommand command) {
+            SimulatedOrder order = find(command.orderId());
+            consume(order.reserved(), -1);
+
+            SimulatedLane lane = lanes.get(order.lane());
+            if (lane != null) {
+                lane.totalDays -= order.estimatedDays();
+                lane.busyDays -= order.estimatedDays();
+                lane.orders--;
+                if (lane.orders == 0) {
+                    lane.start = null;
+                    lane.totalDays = 0;
+                    lane.busyDays = 0;
+                }
+            }
+            deleted.add(command.orderId());
+        }
+
+        // Igual que la actualización real: se aplica la diferencia de materiales entre ambos
+        // tipos y cambia la duración
+        private void update(SimulationCommand command) {
+            SimulatedOrder order = find(command.orderId());
+            ConstructionTypeCatalog.CompiledType type = resolve(command.typeConstruction());
+            if (type.typeName().equalsIgnoreCase(order.typeConstruction())) {
+                return;
+            }
+            MaterialVector delta = type.requirements().minus(order.reserved());
+            checkAvailability(delta);
+            consume(delta, 1);
+
+            SimulatedLane lane = lanes.get(order.lane());
+            if (lane != null) {
+                lane.totalDays += type.estimatedDays() - order.estimatedDays();
+                lane.busyDays += type.estimatedDays() - order.estimatedDays();
+            }
+            changed.put(command.orderId(),
+                    new SimulatedOrder(order.lane(), type.typeName(), type.estimatedDays(),
+                            type.requirements()));
+        }
+
+        private SimulatedOrder find(Long orderId) {
+            if (orderId == null) {
+                throw new IllegalArgumentException("El ID de la orden es obligatorio");
+            }
+            ConstructionOrderEntity entity = targets.get(orderId);
+            if (entity == null || deleted.contains(orderId)) {
+                throw new IllegalArgumentException(
+                        "No existe una orden de construcción con el ID: " + orderId);
+            }
+            SimulatedOrder order = changed.get(orderId);
+            if (order != null) {
+                return order;
+            }
+            return new SimulatedOrder(entity.getLane(), entity.getTypeConstruction(),
+                    entity.getEstimatedDays(), constructionTypeCatalog.reservedFor(
+                            entity.getTypeConstruction(), entity.getReservedMaterials()));
+        }
+
+        private ConstructionTypeCatalog.CompiledType resolve(String typeConstruction) {
+            if (typeConstruction == null || typeConstruction.isBlank()) {
+                throw new IllegalArgumentException("El tipo de construcción es obligatorio");
+            }
+            return constructionTypeCatalog.resolve(typeConstruction);
+        }
+
+        private void checkAvailability(MaterialVector required) {
+            List<String> deficits = new ArrayList<>();
+            for (int slot = 0; slot < required.size(); slot++) {
+                int requiredQuantity = required.quantity(slot);
+                if (requiredQuantity <= 0) {
+                    continue;
+                }
+                String code = required.code(slot);
+                InventorySnapshot.MaterialStock stock = inventory.materials().get(code);
+                if (stock == null) {
+                    throw new IllegalArgumentException("Material no encontrado: " + code);
+                }
+                int available = stock.quantity() - consumed.getOrDefault(code, 0);
+                if (available < requiredQuantity) {
+                    deficits.add(String.format("%s (%s) - Disponible: %d, Requerido: %d",
+                            stock.materialName(), code, available, requiredQuantity));
+                }
+            }
+            if (!deficits.isEmpty()) {
+                throw new IllegalArgumentException(
+                        "Materiales insuficientes: " + String.join("; ", deficits));
+            }
+        }
+
+        private void consume(MaterialVector required, int sign) {
+            for (int slot = 0; slot < required.size(); slot++) {
+                if (required.quantity(slot) != 0) {
+                    consumed.merge(required.code(slot), sign * required.quantity(slot),
+                            Integer::sum);
+                }
+            }
+        }
+
+        private boolean freesBefore(SimulatedLane candidate, SimulatedLane current) {
+            LocalDate candidateFree = candidate.nextFree();
+            LocalDate currentFree = current.nextFree();
+            if (candidateFree == null || currentFree == null) {
+                return candidateFree == null && currentFree != null;
+            }
+            return candidateFree.isBefore(currentFree);
+        }
+
+        private TimelineAllocator.Summary summary() {
+            int orders = 0;
+            long totalDays = 0;
+            LocalDate startDate = null;
+            LocalDate endDate = null;
+            for (SimulatedLane lane : lanes.values()) {
+                if (lane.start == null) {
+                    continue;
+                }
+                orders += lane.orders;
+                totalDays += lane.busyDays;
+                LocalDate laneEnd = lane.nextFree().minusDays(1);
+                startDate = startDate == null || lane.start.isBefore(startDate) ? lane.start
+                        : startDate;
+                endDate = endDate == null || laneEnd.isAfter(endDate) ? laneEnd : endDate;
+            }
+            return new TimelineAllocator.Summary(orders, totalDays, startDate, endDate);
+        }
+
+        private Map<String, SimulationResult.MaterialBalance> balances() {
+            Map<String, SimulationResult.MaterialBalance> balances = new TreeMap<>();
+            inventory.materials().forEach((code, stock) -> balances.put(code,
+                    new SimulationResult.MaterialBalance(stock.materialName(), stock.quantity(),
+                            stock.quantity() - consumed.getOrDefault(code, 0))));
+            return balances;
+        }
+    }
+}
@@ -1,9 +1,19 @@
 package com.cityfuture.api.controller;
 
+import com.cityfuture.api.dto.BatchConstructionOrderRequest;
+import com.cityfuture.api.dto.BulkDeleteRequest;
 import com.cityfuture.api.dto.CreateConstructionOrderRequest;
+import com.cityfuture.api.exception.ConstructionOrderNotFoundException;
+import com.cityfuture.api.idempotency.IdempotencyStore;
+import com.cityfuture.domain.model.BatchOrderResult;
+import com.cityfuture.domain.model.BulkDeleteResult;
 import com.cityfuture.domain.model.ConstructionOrder;
 import com.cityfuture.domain.model.Coordinate;
+import com.cityfuture.domain.model.OrderTicket;
+import com.cityfuture.domain.model.QueuePlacement;
+import com.cityfuture.infrastructure.service.AsyncOrderIntake;
 import com.cityfuture.infrastructure.service.ConstructionRequestUseCase;
+import com.cityfuture.infrastructure.service.OrderCommandPipeline;
 import com.cityfuture.infrastructure.service.ReportServiceImpl;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,15 +22,22 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.Clock;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -30,6 +47,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 @ExtendWith(MockitoExtension.class)
 @WebMvcTest(ConstructionController.class)
+@Import(IdempotencyStore.class)
 class ConstructionControllerTest {
 
     @Autowired
@@ -41,6 +59,15 @@ class ConstructionControllerTest {
     @MockitoBean
     private ReportServiceImpl reportService;
 
+    @MockitoBean
+    private OrderCommandPipeline orderCommandPipeline;
+
+    @MockitoBean
+    private AsyncOrderIntake asyncOrderIntake;
+
+    @MockitoBean
+    private Clock clock;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -50,6 +77,13 @@ class ConstructionControllerTest {
 
     @BeforeEach
     void setUp() {
+        lenient().when(clock.instant()).thenReturn(Instant.parse("2030-03-10T12:00:00Z"));
+        lenient().when(clock.getZone()).thenReturn(ZoneOffset.UTC);
+
+        // El pipeline ejecuta el comando en el mismo hilo
+        when(orderCommandPipeline.execute(anyString(), any()))
+            .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+
         Coordinate coordinate = new Coordinate(10.123, -74.567);
         testOrder = new ConstructionOrder(
             1L,
@@ -78,7 +112,7 @@ class ConstructionControllerTest {
     @WithMockUser(roles = "ARQUITECTO")
     void createOrder_ValidRequest_ReturnsCreatedOrder() throws Exception {
         // Arrange
-        when(constructionRequestService.createOrder(any(ConstructionOrder.class))).thenReturn(testOrder);
+        when(constructionRequestService.createOrder(any(ConstructionOrder.class), any(QueuePlacement.class))).thenReturn(testOrder);
 
         // Act & Assert
         mockMvc.perform(post("/api/constructions")
@@ -91,7 +125,7 @@ class ConstructionControllerTest {
                 .andExpect(jsonPath("$.typeConstruction").value("CASA"))
                 .andExpect(jsonPath("$.estado").value("Pendiente"));
 
-        verify(constructionRequestService).createOrder(any(ConstructionOrder.class));
+        verify(constructionRequestService).createOrder(any(ConstructionOrder.class), any(QueuePlacement.class));
     }
 
     @Test
@@ -107,7 +141,7 @@ class ConstructionControllerTest {
                 .content(objectMapper.writeValueAsString(invalidRequest)))
                 .andExpect(status().isBadRequest());
 
-        verify(constructionRequestService, never()).createOrder(any(ConstructionOrder.class));
+        verify(constructionRequestService, never()).createOrder(any(ConstructionOrder.class), any(QueuePlacement.class));
     }
 
     @Test
@@ -120,7 +154,77 @@ class ConstructionControllerTest {
                 .content(objectMapper.writeValueAsString(testRequest)))
                 .andExpect(status().isForbidden());
 
-        verify(constructionRequestService, never()).createOrder(any(ConstructionOrder.class));
+        verify(constructionRequestService, never()).createOrder(any(ConstructionOrder.class), any(QueuePlacement.class));
+    }
+
+    @Test
+    @WithMockUser(roles = "ARQUITECTO")
+    void createOrder_InsertBeforeOrder_PassesPlacementToService() throws Exception {
+        // Arrange
+        CreateConstructionOrderRequest request = new CreateConstructionOrderRequest(
+            "Hospital Urgente", testRequest.location(), "CASA", 7L, null);
+        when(constructionRequestService.createOrder(any(ConstructionOrder.class), any(QueuePlacement.class))).thenReturn(testOrder);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/constructions")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk());
+
+        verify(constructionRequestService).createOrder(any(ConstructionOrder.class),
+            eq(new QueuePlacement(7L, false)));
+    }
+
+    @Test
+    @WithMockUser(roles = "ARQUITECTO")
+    void createOrder_PriorityAndInsertBeforeOrder_ReturnsBadRequest() throws Exception {
+        // Arrange
+        CreateConstructionOrderRequest request = new CreateConstructionOrderRequest(
+            "Hospital Urgente", testRequest.location(), "CASA", 7L, true);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/constructions")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Solicitud inválida"));
+
+        verify(constructionRequestService, never()).createOrder(any(ConstructionOrder.class), any(QueuePlacement.class));
+    }
+
+    @Test
+    @WithMockUser(roles = "ARQUITECTO")
+    void deleteOrders_ByIds_ReturnsDeletedAndNotFound() throws Exception {
+        // Arrange
+        when(constructionRequestService.deleteOrders(List.of(1L, 2L, 9L)))
+            .thenReturn(new BulkDeleteResult(2, 5, List.of(9L)));
+
+        // Act & Assert
+        mockMvc.perform(delete("/api/constructions")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                    new BulkDeleteRequest(List.of(1L, 2L, 9L), null, null))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(2))
+                .andExpect(jsonPath("$.rescheduled").value(5))
+                .andExpect(jsonPath("$.notFound[0]").value(9));
+    }
+
+    @Test
+    @WithMockUser(roles = "ARQUITECTO")
+    void deleteOrders_EmptySelection_ReturnsBadRequest() throws Exception {
+        // Act & Assert
+        mockMvc.perform(delete("/api/constructions")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new BulkDeleteRequest(null, " ", null))))
+                .andExpect(status().isBadRequest());
+
+        verify(constructionRequestService, never()).deleteOrdersMatching(any(), any());
+        verify(constructionRequestService, never()).deleteOrders(anyList());
     }
 
     @Test
@@ -212,7 +316,7 @@ class ConstructionControllerTest {
     @WithMockUser(roles = "ARQUITECTO")
     void deleteOrder_ExistingOrder_ReturnsNoContent() throws Exception {
         // Arrange
-        doNothing().when(constructionRequestService).deleteOrder(1L);
+        when(constructionRequestService.deleteOrder(1L)).thenReturn(0);
 
         // Act & Assert
         mockMvc.perform(delete("/api/constructions/1")
@@ -233,6 +337,63 @@ class ConstructionControllerTest {
         verify(constructionRequestService, never()).deleteOrder(anyLong());
     }
 
+    @Test
+    @WithMockUser(roles = "ARQUITECTO")
+    void deleteOrder_NonExistingOrder_ReturnsNotFound() throws Exception {
+        // Arrange
+        when(constructionRequestService.deleteOrder(99L))
+            .thenThrow(new ConstructionOrderNotFoundException("No existe una orden de construcción con el ID: 99"));
+
+        // Act & Assert
+        mockMvc.perform(delete("/api/constructions/99")
+                .with(csrf()))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(roles = "ARQUITECTO")
+    void deleteOrder_QueueFull_ReturnsServiceUnavailable() throws Exception {
+        // Arrange
+        when(orderCommandPipeline.execute(eq("eliminar"), any()))
+            .thenThrow(new RejectedExecutionException("La cola de órdenes está llena, intente nuevamente"));
+
+        // Act & Assert
+        mockMvc.perform(delete("/api/constructions/1")
+                .with(csrf())
+                .header(IdempotencyStore.HEADER, "eliminar-1"))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    @WithMockUser(roles = "ARQUITECTO")
+    void deleteOrder_UnexpectedError_ReturnsInternalServerError() throws Exception {
+        // Arrange
+        when(constructionRequestService.deleteOrder(1L))
+            .thenThrow(new IllegalStateException("Conexión perdida"));
+
+        // Act & Assert
+        mockMvc.perform(delete("/api/constructions/1")
+                .with(csrf()))
+                .andExpect(status().isInternalServerError());
+    }
+
+    @Test
+    @WithMockUser(roles = "ARQUITECTO")
+    void updateOrder_QueueFull_ReturnsServiceUnavailable() throws Exception {
+        // Arrange
+        when(orderCommandPipeline.execute(eq("actualizar"), any()))
+            .thenThrow(new RejectedExecutionException("La cola de órdenes está llena, intente nuevamente"));
+
+        // Act & Assert
+        mockMvc.perform(put("/api/constructions/1")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(testOrder)))
+                .andExpect(status().isServiceUnavailable());
+
+        verify(constructionRequestService, never()).updateOrder(anyLong(), any(ConstructionOrder.class));
+    }
+
     @Test
     @WithMockUser(roles = "ARQUITECTO")
     void validateOrder_ValidOrder_ReturnsValidationResult() throws Exception {
@@ -269,4 +430,184 @@ class ConstructionControllerTest {
 
         verify(constructionRequestService, never()).validateConstructionRequest(any(ConstructionOrder.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithMockUser(roles = "ARQUITECTO")
+    void createOrdersBatch_PartialMode_ReturnsPerItemResults() throws Exception {
+        // Arrange
+        BatchConstructionOrderRequest batchRequest = new BatchConstructionOrderRequest(
+            List.of(testRequest, testRequest), BatchConstructionOrderRequest.Mode.PARTIAL);
+        when(constructionRequestService.createOrders(anyList(), eq(false))).thenReturn(List.of(
+            BatchOrderResult.accepted(0, "Casa del Futuro", 1L, LocalDate.now().plusDays(1),
+                LocalDate.now().plusDays(3)),
+            BatchOrderResult.rejected(1, "Casa del Futuro",
+                "Ya existe una orden de construcción en las coordenadas: 10.123, -74.567")));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/constructions/batch")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batchRequest)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(1))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.results[0].id").value(1L))
+                .andExpect(jsonPath("$.results[1].accepted").value(false));
+
+        verify(constructionRequestService).createOrders(anyList(), eq(false));
+    }
+
+    @Test
+    @WithMockUser(roles = "ARQUITECTO")
+    void createOrdersBatch_AllOrNothingWithErrors_ReturnsBadRequest() throws Exception {
+        // Arrange
+        BatchConstructionOrderRequest batchRequest = new BatchConstructionOrderRequest(
+            List.of(testRequest), null);
+        when(constructionRequestService.createOrders(anyList(), eq(true))).thenReturn(List.of(
+            BatchOrderResult.rejected(0, "Casa del Futuro", "Tipo de construcción no válido: X")));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/constructions/batch")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batchRequest)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.mode").value("ALL_OR_NOTHING"))
+                .andExpect(jsonPath("$.accepted").value(0));
+    }
+
+    @Test
+    @WithMockUser(roles = "ARQUITECTO")
+    void createOrderAsync_Admitted_ReturnsAcceptedWithTicket() throws Exception {
+        // Arrange
+        when(asyncOrderIntake.submit(any(ConstructionOrder.class), any(QueuePlacement.class)))
+            .thenReturn(OrderTicket.queued("ticket-1", "Casa del Futuro", Instant.now()));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/constructions/async")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(testRequest)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/constructions/tickets/ticket-1"))
+                .andExpect(jsonPath("$.ticketId").value("ticket-1"))
+                .andExpect(jsonPath("$.status").value("EN_COLA"));
+
+        verify(constructionRequestService, never()).createOrder(any(ConstructionOrder.class));
+    }
+
+    @Test
+    @WithMockUser(roles = "ARQUITECTO")
+    void createOrdersBatch_WithPlacement_ReturnsBadRequest() throws Exception {
+        // Arrange
+        CreateConstructionOrderRequest priorityRequest = new CreateConstructionOrderRequest(
+            "Casa del Futuro", testRequest.location(), "CASA", null, true);
+        BatchConstructionOrderRequest batchRequest = new BatchConstructionOrderRequest(
+            List.of(testRequest, priorityRequest), null);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/constructions/batch")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batchRequest)))
+                .andExpect(status().isBadRequest());
+
+        verify(constructionRequestService, never()).createOrders(anyList(), anyBoolean());
+    }
+
+    @Test
+    @WithMockUser(roles = "ARQUITECTO")
+    void createOrderAsync_WithPriority_PassesPlacementToIntake() throws Exception {
+        // Arrange
+        CreateConstructionOrderRequest priorityRequest = new CreateConstructionOrderRequest(
+            "Casa del Futuro", testRequest.location(), "CASA", null, true);
+        when(asyncOrderIntake.submit(any(ConstructionOrder.class), any(QueuePlacement.class)))
+            .thenReturn(OrderTicket.queued("ticket-1", "Casa del Futuro", Instant.now()));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/constructions/async")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(priorityRequest)))
+                .andExpect(status().isAccepted());
+
+        verify(asyncOrderIntake).submit(any(ConstructionOrder.class),
+            eq(new QueuePlacement(null, true)));
+    }
+
+    @Test
+    @WithMockUser(roles = "ARQUITECTO")
+    void createOrderAsync_AdmissionLimitReached_ReturnsTooManyRequests() throws Exception {
+        // Arrange
+        when(asyncOrderIntake.submit(any(ConstructionOrder.class), any(QueuePlacement.class)))
+            .thenThrow(new RejectedExecutionException("Se alcanzó el límite de 1 órdenes en proceso"));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/constructions/async")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(testRequest)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+    }
+
+    @Test
+    @WithMockUser
+    void getTicket_CompletedTicket_ReturnsOutcome() throws Exception {
+        // Arrange
+        OrderTicket ticket = OrderTicket.queued("ticket-1", "Casa del Futuro", Instant.now())
+            .completed(testOrder, Instant.now());
+        when(asyncOrderIntake.findTicket("ticket-1")).thenReturn(Optional.of(ticket));
+        when(asyncOrderIntake.findTicket("otro")).thenReturn(Optional.empty());
+
+        // Act & Assert
+        mockMvc.perform(get("/api/constructions/tickets/ticket-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("COMPLETADO"))
+                .andExpect(jsonPath("$.orderId").value(1L));
+        mockMvc.perform(get("/api/constructions/tickets/otro"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(roles = "ARQUITECTO")
+    void createOrder_RepeatedIdempotencyKey_ReplaysFirstResponse() throws Exception {
+        // Arrange
+        when(constructionRequestService.createOrder(any(ConstructionOrder.class), any(QueuePlacement.class))).thenReturn(testOrder);
+        String body = objectMapper.writeValueAsString(testRequest);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/constructions")
+                .with(csrf())
+                .header(IdempotencyStore.HEADER, "reintento-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/constructions")
+                .with(csrf())
+                .header(IdempotencyStore.HEADER, "reintento-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isOk())
+                .andExpect(header().string(IdempotencyStore.REPLAYED_HEADER, "true"))
+                .andExpect(jsonPath("$.idOrden").value(1L));
+
+        verify(constructionRequestService, times(1)).createOrder(any(ConstructionOrder.class), any(QueuePlacement.class));
+    }
+
+    @Test
+    @WithMockUser
+    void debugOrder_UsesInjectedClock() throws Exception {
+        // Arrange
+        ConstructionOrder order = new ConstructionOrder(1L, "Casa del Futuro",
+            testRequest.location(), "CASA", "Pendiente", 3, LocalDate.of(2030, 3, 12));
+        when(constructionRequestService.getOrderById(1L)).thenReturn(order);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/constructions/debug-order/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.today").value("2030-03-10"))
+                .andExpect(jsonPath("$.shouldStart").value(true))
+                .andExpect(jsonPath("$.shouldFinish").value(false));
+    }
+}
@@ -1,5 +1,7 @@
 package com.cityfuture.api.controller;
 
+import com.cityfuture.api.exception.MaterialVersionConflictException;
+import com.cityfuture.api.idempotency.IdempotencyStore;
 import com.cityfuture.domain.model.Material;
 import com.cityfuture.infrastructure.service.MaterialServiceUseCase;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -9,6 +11,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
@@ -25,6 +28,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 @ExtendWith(MockitoExtension.class)
 @WebMvcTest(MaterialController.class)
+@Import(IdempotencyStore.class)
 class MaterialControllerTest {
 
     @Autowired
@@ -41,11 +45,11 @@ class MaterialControllerTest {
 
     @BeforeEach
     void setUp() {
-        testMaterial = new Material(1L, "Cemento", "Ce", 100);
+        testMaterial = new Material(1L, "Cemento", "Ce", 100, null);
         testMaterials = Arrays.asList(
             testMaterial,
-            new Material(2L, "Arena", "Ar", 200),
-            new Material(3L, "Grava", "Gr", 150)
+            new Material(2L, "Arena", "Ar", 200, null),
+            new Material(3L, "Grava", "Gr", 150, null)
         );
     }
 
@@ -53,7 +57,7 @@ class MaterialControllerTest {
     @WithMockUser(roles = "ARQUITECTO")
     void createMaterial_ValidMaterial_ReturnsCreatedMaterial() throws Exception {
         // Arrange
-        Material materialToCreate = new Material(null, "Cemento", "Ce", 100);
+        Material materialToCreate = new Material(null, "Cemento", "Ce", 100, null);
         when(materialServiceUseCase.createMaterial(any(Material.class))).thenReturn(testMaterial);
 
         // Act & Assert
@@ -74,7 +78,7 @@ class MaterialControllerTest {
     @WithMockUser(roles = "ARQUITECTO")
     void createMaterial_InvalidMaterial_ReturnsBadRequest() throws Exception {
         // Arrange
-        Material invalidMaterial = new Material(null, "", "", -1);
+        Material invalidMaterial = new Material(null, "", "", -1, null);
 
         // Act & Assert
         mockMvc.perform(post("/api/materials")
@@ -90,7 +94,7 @@ class MaterialControllerTest {
     @WithMockUser(roles = "USER")
     void createMaterial_NonArquitectoRole_ReturnsForbidden() throws Exception {
         // Arrange
-        Material materialToCreate = new Material(null, "Cemento", "Ce", 100);
+        Material materialToCreate = new Material(null, "Cemento", "Ce", 100, null);
 
         // Act & Assert
         mockMvc.perform(post("/api/materials")
@@ -147,7 +151,7 @@ class MaterialControllerTest {
     @WithMockUser(roles = "ARQUITECTO")
     void updateMaterial_ValidUpdate_ReturnsUpdatedMaterial() throws Exception {
         // Arrange
-        Material updatedMaterial = new Material(1L, "Cemento Mejorado", "Ce", 150);
+        Material updatedMaterial = new Material(1L, "Cemento Mejorado", "Ce", 150, 3L);
         when(materialServiceUseCase.updateMaterial(eq(1L), any(Material.class))).thenReturn(updatedMaterial);
 
         // Act & Assert
@@ -156,17 +160,71 @@ class MaterialControllerTest {
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(updatedMaterial)))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
                 .andExpect(jsonPath("$.materialName").value("Cemento Mejorado"))
                 .andExpect(jsonPath("$.quantity").value(150));
 
         verify(materialServiceUseCase).updateMaterial(eq(1L), any(Material.class));
     }
 
+    @Test
+    @WithMockUser(roles = "ARQUITECTO")
+    void updateMaterial_IfMatchHeader_UsesHeaderVersion() throws Exception {
+        // Arrange
+        Material body = new Material(1L, "Cemento Mejorado", "Ce", 150, null);
+        when(materialServiceUseCase.updateMaterial(eq(1L), any(Material.class)))
+            .thenReturn(new Material(1L, "Cemento Mejorado", "Ce", 150, 8L));
+
+        // Act & Assert
+        mockMvc.perform(put("/api/materials/1")
+                .with(csrf())
+                .header("If-Match", "\"7\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"8\""));
+
+        verify(materialServiceUseCase).updateMaterial(eq(1L),
+            argThat(material -> Long.valueOf(7L).equals(material.version())));
+    }
+
+    @Test
+    @WithMockUser(roles = "ARQUITECTO")
+    void updateMaterial_WithoutVersion_ReturnsPreconditionRequired() throws Exception {
+        // Arrange
+        Material body = new Material(1L, "Cemento Mejorado", "Ce", 150, null);
+
+        // Act & Assert
+        mockMvc.perform(put("/api/materials/1")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().isPreconditionRequired());
+
+        verify(materialServiceUseCase, never()).updateMaterial(anyLong(), any(Material.class));
+    }
+
+    @Test
+    @WithMockUser(roles = "ARQUITECTO")
+    void updateMaterial_StaleVersion_ReturnsConflict() throws Exception {
+        // Arrange
+        Material body = new Material(1L, "Cemento Mejorado", "Ce", 150, 2L);
+        when(materialServiceUseCase.updateMaterial(eq(1L), any(Material.class)))
+            .thenThrow(new MaterialVersionConflictException("versión actual: 3"));
+
+        // Act & Assert
+        mockMvc.perform(put("/api/materials/1")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().isConflict());
+    }
+
     @Test
     @WithMockUser(roles = "USER")
     void updateMaterial_NonArquitectoRole_ReturnsForbidden() throws Exception {
         // Arrange
-        Material updatedMaterial = new Material(1L, "Cemento Mejorado", "Ce", 150);
+        Material updatedMaterial = new Material(1L, "Cemento Mejorado", "Ce", 150, 3L);
 
         // Act & Assert
         mockMvc.perform(put("/api/materials/1")
@@ -182,7 +240,7 @@ class MaterialControllerTest {
     @WithMockUser(roles = "ARQUITECTO")
     void updateMaterial_ServiceThrowsException_ReturnsInternalServerError() throws Exception {
         // Arrange
-        Material updatedMaterial = new Material(1L, "Cemento Mejorado", "Ce", 150);
+        Material updatedMaterial = new Material(1L, "Cemento Mejorado", "Ce", 150, 3L);
         when(materialServiceUseCase.updateMaterial(eq(1L), any(Material.class)))
             .thenThrow(new RuntimeException("Material not found"));
 
@@ -0,0 +1,163 @@
+package com.cityfuture.api.idempotency;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyStoreTest {
+
+    private IdempotencyStore store;
+    private AtomicInteger executions;
+
+    @BeforeEach
+    void setUp() {
+        store = new IdempotencyStore(2, 60);
+        executions = new AtomicInteger();
+    }
+
+    private ResponseEntity<String> created() {
+        return ResponseEntity.ok("orden-" + executions.incrementAndGet());
+    }
+
+    @Test
+    void execute_SameKey_ReplaysStoredResponse() {
+        // Act
+        ResponseEntity<String> first = store.execute("crear", "k1", "body", this::created);
+        ResponseEntity<String> second = store.execute("crear", "k1", "body", this::created);
+
+        // Assert
+        assertEquals(1, executions.get());
+        assertEquals(first.getBody(), second.getBody());
+        assertEquals("true", second.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+    }
+
+    @Test
+    void execute_WithoutKey_AlwaysExecutes() {
+        // Act
+        store.execute("crear", null, "body", this::created);
+        store.execute("crear", " ", "body", this::created);
+
+        // Assert
+        assertEquals(2, executions.get());
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void execute_SameKeyDifferentPayload_ReturnsUnprocessableEntity() {
+        // Arrange
+        store.execute("crear", "k1", "body", this::created);
+
+        // Act
+        ResponseEntity<String> response = store.execute("crear", "k1", "otro", this::created);
+
+        // Assert
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void execute_ServerError_IsNotStored() {
+        // Arrange
+        store.execute("crear", "k1", "body", () -> ResponseEntity.status(503).body("saturado"));
+
+        // Act
+        ResponseEntity<String> retry = store.execute("crear", "k1", "body", this::created);
+
+        // Assert
+        assertEquals(HttpStatus.OK, retry.getStatusCode());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void execute_ConcurrentSameKey_CoalescesIntoOneExecution() throws Exception {
+        // Arrange
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<ResponseEntity<String>> first = CompletableFuture.supplyAsync(() ->
+            store.execute("crear", "k1", "body", () -> {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return created();
+            }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Act
+        CompletableFuture<ResponseEntity<String>> second = CompletableFuture.supplyAsync(() ->
+            store.execute("crear", "k1", "body", this::created));
+        release.countDown();
+
+        // Assert
+        assertEquals(first.get(5, TimeUnit.SECONDS).getBody(),
+            second.get(5, TimeUnit.SECONDS).getBody());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void execute_BeyondCapacity_EvictsLeastRecentlyUsedKey() {
+        // Act
+        store.execute("crear", "k1", "body", this::created);
+        store.execute("crear", "k2", "body", this::created);
+        store.execute("crear", "k3", "body", this::created);
+        store.execute("crear", "k1", "body", this::created);
+
+        // Assert
+        assertEquals(2, store.size());
+        assertEquals(4, executions.get());
+    }
+
+    @Test
+    void execute_SameKeyPayloadWithSameHashCode_ReturnsUnprocessableEntity() {
+        // Arrange: "Aa" y "BB" tienen el mismo hashCode
+        store.execute("crear", "k1", "Aa", this::created);
+
+        // Act
+        ResponseEntity<String> response = store.execute("crear", "k1", "BB", this::created);
+
+        // Assert
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void execute_BeyondCapacity_DoesNotEvictInFlightKey() throws Exception {
+        // Arrange: k1 queda en ejecución mientras se llenan las demás claves
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<ResponseEntity<String>> first = CompletableFuture.supplyAsync(() ->
+            store.execute("crear", "k1", "body", () -> {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return created();
+            }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        store.execute("crear", "k2", "body", this::created);
+        store.execute("crear", "k3", "body", this::created);
+
+        // Act
+        CompletableFuture<ResponseEntity<String>> duplicate = CompletableFuture.supplyAsync(() ->
+            store.execute("crear", "k1", "body", this::created));
+        release.countDown();
+
+        // Assert
+        assertEquals(first.get(5, TimeUnit.SECONDS).getBody(),
+            duplicate.get(5, TimeUnit.SECONDS).getBody());
+        assertEquals(3, executions.get());
+        assertEquals(2, store.size());
+    }
+}
@@ -0,0 +1,114 @@
+package com.cityfuture.infrastructure.persistence.repository;
+
+import com.cityfuture.infrastructure.persistence.entity.ConstructionOrderEntity;
+import com.cityfuture.infrastructure.persistence.entity.CoordinateEmbeddable;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Los desplazamientos en bloque usan aritmética de fechas de HQL (c.startDate - (:days) day),
+// así que se prueban contra una BD real (H2) y no con mocks
+@DataJpaTest
+@ActiveProfiles("test")
+class JpaConstructionOrderRepositoryTest {
+
+    @Autowired
+    private JpaConstructionOrderRepository repository;
+
+    private final AtomicInteger locations = new AtomicInteger();
+
+    private ConstructionOrderEntity save(int lane, LocalDate start, LocalDate entrega) {
+        CoordinateEmbeddable location = new CoordinateEmbeddable();
+        location.setLatitude(10.0 + locations.incrementAndGet() * 0.001);
+        location.setLongitude(-74.0);
+
+        ConstructionOrderEntity entity = new ConstructionOrderEntity();
+        entity.setProjectName("Proyecto " + locations.get());
+        entity.setLocation(location);
+        entity.setTypeConstruction("CASA");
+        entity.setEstimatedDays((int) ChronoUnit.DAYS.between(start, entrega) + 1);
+        entity.setStartDate(start);
+        entity.setEntregaDate(entrega);
+        entity.setLane(lane);
+        return repository.saveAndFlush(entity);
+    }
+
+    private void assertDates(ConstructionOrderEntity order, LocalDate start, LocalDate entrega) {
+        ConstructionOrderEntity stored = repository.findById(order.getId()).orElseThrow();
+        assertEquals(start, stored.getStartDate());
+        assertEquals(entrega, stored.getEntregaDate());
+    }
+
+    @Test
+    void shiftOrdersDeliveredAfter_MovesLaterOrdersOfLaneBack() {
+        // Arrange
+        ConstructionOrderEntity deliveredOnLimit = save(0, LocalDate.of(2030, 3, 1),
+            LocalDate.of(2030, 3, 5));
+        ConstructionOrderEntity later = save(0, LocalDate.of(2030, 3, 6), LocalDate.of(2030, 3, 10));
+        ConstructionOrderEntity nextMonth = save(0, LocalDate.of(2030, 4, 1),
+            LocalDate.of(2030, 4, 2));
+        ConstructionOrderEntity otherLane = save(1, LocalDate.of(2030, 3, 6),
+            LocalDate.of(2030, 3, 10));
+
+        // Act
+        int shifted = repository.shiftOrdersDeliveredAfter(0, LocalDate.of(2030, 3, 5), 3);
+
+        // Assert
+        assertEquals(2, shifted);
+        assertDates(deliveredOnLimit, LocalDate.of(2030, 3, 1), LocalDate.of(2030, 3, 5));
+        assertDates(later, LocalDate.of(2030, 3, 3), LocalDate.of(2030, 3, 7));
+        assertDates(nextMonth, LocalDate.of(2030, 3, 29), LocalDate.of(2030, 3, 30));
+        assertDates(otherLane, LocalDate.of(2030, 3, 6), LocalDate.of(2030, 3, 10));
+    }
+
+    @Test
+    void shiftOrdersBetween_OnlyMovesOrdersInsideRange() {
+        // Arrange
+        ConstructionOrderEntity before = save(0, LocalDate.of(2030, 3, 1), LocalDate.of(2030, 3, 5));
+        ConstructionOrderEntity inside = save(0, LocalDate.of(2030, 3, 6), LocalDate.of(2030, 3, 10));
+        ConstructionOrderEntity startsOnLimit = save(0, LocalDate.of(2030, 3, 20),
+            LocalDate.of(2030, 3, 25));
+        ConstructionOrderEntity otherLane = save(1, LocalDate.of(2030, 3, 6),
+            LocalDate.of(2030, 3, 10));
+
+        // Act
+        int shifted = repository.shiftOrdersBetween(0, LocalDate.of(2030, 3, 5),
+            LocalDate.of(2030, 3, 20), 2);
+
+        // Assert
+        assertEquals(1, shifted);
+        assertDates(before, LocalDate.of(2030, 3, 1), LocalDate.of(2030, 3, 5));
+        assertDates(inside, LocalDate.of(2030, 3, 4), LocalDate.of(2030, 3, 8));
+        assertDates(startsOnLimit, LocalDate.of(2030, 3, 20), LocalDate.of(2030, 3, 25));
+        assertDates(otherLane, LocalDate.of(2030, 3, 6), LocalDate.of(2030, 3, 10));
+    }
+
+    @Test
+    void shiftOrdersStartingFrom_MovesOrdersFromDateForward() {
+        // Arrange
+        ConstructionOrderEntity earlier = save(0, LocalDate.of(2030, 3, 1), LocalDate.of(2030, 3, 5));
+        ConstructionOrderEntity startsOnLimit = save(0, LocalDate.of(2030, 3, 6),
+            LocalDate.of(2030, 3, 10));
+        ConstructionOrderEntity yearEnd = save(0, LocalDate.of(2030, 12, 30),
+            LocalDate.of(2030, 12, 31));
+        ConstructionOrderEntity otherLane = save(1, LocalDate.of(2030, 3, 6),
+            LocalDate.of(2030, 3, 10));
+
+        // Act
+        int shifted = repository.shiftOrdersStartingFrom(0, LocalDate.of(2030, 3, 6), 4);
+
+        // Assert
+        assertEquals(2, shifted);
+        assertDates(earlier, LocalDate.of(2030, 3, 1), LocalDate.of(2030, 3, 5));
+        assertDates(startsOnLimit, LocalDate.of(2030, 3, 10), LocalDate.of(2030, 3, 14));
+        assertDates(yearEnd, LocalDate.of(2031, 1, 3), LocalDate.of(2031, 1, 4));
+        assertDates(otherLane, LocalDate.of(2030, 3, 6), LocalDate.of(2030, 3, 10));
+    }
+}
@@ -0,0 +1,325 @@
+package com.cityfuture.infrastructure.scheduler;
+
+import com.cityfuture.domain.event.ConstructionScheduleChangedEvent;
+import com.cityfuture.infrastructure.persistence.repository.JdbcConstructionStatusRepository;
+import com.cityfuture.infrastructure.service.ConstructionStatusPolicy;
+import com.cityfuture.infrastructure.service.JobLockService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConstructionStatusSchedulerTest {
+
+    private static final JobLockService.Lease LEASE =
+        new JobLockService.Lease(ConstructionStatusScheduler.JOB_NAME, 1L, Instant.EPOCH);
+
+    @Mock
+    private JdbcConstructionStatusRepository statusRepository;
+
+    @Mock
+    private TaskScheduler taskScheduler;
+
+    @Mock
+    private ScheduledJobRunner jobRunner;
+
+    @Mock
+    private ConstructionStatusPolicy statusPolicy;
+
+    @Mock
+    private ScheduledFuture<?> scheduledFuture;
+
+    private Clock clock;
+    private ConstructionStatusScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        clock = Clock.fixed(Instant.now(), ZoneId.systemDefault());
+        scheduler = new ConstructionStatusScheduler(statusRepository, taskScheduler, jobRunner,
+            statusPolicy, clock);
+    }
+
+    // initialize solo programa la recuperación inicial; aquí se ejecuta como lo haría el
+    // TaskScheduler
+    private void startUp() {
+        scheduler.initialize();
+        ArgumentCaptor<Runnable> startup = ArgumentCaptor.forClass(Runnable.class);
+        verify(taskScheduler).schedule(startup.capture(), eq(clock.instant()));
+        startup.getValue().run();
+    }
+
+    private Instant at(LocalDate date, LocalTime time) {
+        return date.atTime(time).atZone(clock.getZone()).toInstant();
+    }
+
+    @Test
+    void initialize_PendingStartBeforeDelivery_SchedulesMorningOfStartDate() {
+        // Arrange
+        LocalDate start = LocalDate.now(clock).plusDays(3);
+        when(statusRepository.findNextStartDate()).thenReturn(start);
+        when(statusRepository.findNextDeliveryDate(LocalDate.now(clock))).thenReturn(start.plusDays(2));
+
+        // Act
+        startUp();
+
+        // Assert
+        verify(taskScheduler).schedule(any(Runnable.class),
+            eq(at(start, ConstructionStatusScheduler.START_TIME)));
+        assertEquals(start.atTime(ConstructionStatusScheduler.START_TIME), scheduler.nextRun());
+    }
+
+    @Test
+    void initialize_DeliveryBeforeNextStart_SchedulesNightOfDeliveryDate() {
+        // Arrange
+        LocalDate delivery = LocalDate.now(clock).plusDays(2);
+        when(statusRepository.findNextStartDate()).thenReturn(null);
+        when(statusRepository.findNextDeliveryDate(LocalDate.now(clock))).thenReturn(delivery);
+
+        // Act
+        startUp();
+
+        // Assert
+        verify(taskScheduler).schedule(any(Runnable.class),
+            eq(at(delivery, ConstructionStatusScheduler.FINISH_TIME)));
+    }
+
+    @Test
+    void initialize_NoPendingTransitions_SchedulesNothing() {
+        // Act
+        startUp();
+
+        // Assert: solo la ejecución inicial
+        verify(taskScheduler, times(1)).schedule(any(Runnable.class), any(Instant.class));
+        assertNull(scheduler.nextRun());
+    }
+
+    @Test
+    void initialize_SubmitsCatchUpInsteadOfRunningOnStartupThread() {
+        // Act
+        scheduler.initialize();
+
+        // Assert
+        verify(taskScheduler).schedule(any(Runnable.class), eq(clock.instant()));
+        verifyNoInteractions(jobRunner, statusRepository);
+    }
+
+    @Test
+    void initialize_DerivedStatusMode_SchedulesNothing() {
+        // Arrange
+        when(statusPolicy.isDerived()).thenReturn(true);
+
+        // Act
+        scheduler.initialize();
+        scheduler.onScheduleChanged(new ConstructionScheduleChangedEvent(LocalDate.now(clock)));
+
+        // Assert
+        verifyNoInteractions(statusRepository, taskScheduler);
+        assertNull(scheduler.nextRun());
+    }
+
+    @Test
+    void onScheduleChanged_LaterThanArmedRun_DoesNotQueryDatabase() {
+        // Arrange
+        LocalDate start = LocalDate.now(clock).plusDays(3);
+        when(statusRepository.findNextStartDate()).thenReturn(start);
+        doReturn(scheduledFuture).when(taskScheduler).schedule(any(Runnable.class), any(Instant.class));
+        startUp();
+
+        // Act
+        scheduler.onScheduleChanged(new ConstructionScheduleChangedEvent(start.plusDays(5)));
+
+        // Assert
+        verify(statusRepository, times(1)).findNextStartDate();
+        verify(scheduledFuture, never()).cancel(anyBoolean());
+    }
+
+    @Test
+    void onScheduleChanged_EarlierThanArmedRun_ReplacesScheduledRun() {
+        // Arrange
+        LocalDate start = LocalDate.now(clock).plusDays(5);
+        LocalDate earlier = LocalDate.now(clock).plusDays(1);
+        when(statusRepository.findNextStartDate()).thenReturn(start, earlier);
+        doReturn(scheduledFuture).when(taskScheduler).schedule(any(Runnable.class), any(Instant.class));
+        startUp();
+
+        // Act
+        scheduler.onScheduleChanged(new ConstructionScheduleChangedEvent(earlier));
+
+        // Assert
+        verify(scheduledFuture).cancel(false);
+        verify(taskScheduler).schedule(any(Runnable.class),
+            eq(at(earlier, ConstructionStatusScheduler.START_TIME)));
+        assertEquals(earlier.atTime(ConstructionStatusScheduler.START_TIME), scheduler.nextRun());
+    }
+
+    @Test
+    void checkConstructionsToStart_StartsDayOrdersAndThoseBehindWatermark() {
+        // Arrange
+        LocalDate today = LocalDate.now(clock);
+        when(statusRepository.findWatermark(ConstructionStatusScheduler.START_WATERMARK))
+            .thenReturn(today.minusDays(1));
+        when(statusRepository.startOrders(today.minusDays(1), today, LEASE))
+            .thenReturn(List.of(4L, 7L));
+
+        // Act
+        boolean applied = scheduler.checkConstructionsToStart(today, LEASE);
+
+        // Assert
+        assertTrue(applied);
+        verify(statusRepository).startOrders(null, today.minusDays(1), LEASE);
+        verify(statusRepository).startOrders(today.minusDays(1), today, LEASE);
+        verify(statusRepository).saveWatermark(ConstructionStatusScheduler.START_WATERMARK, today,
+            LEASE);
+        verifyNoMoreInteractions(statusRepository);
+    }
+
+    @Test
+    void checkConstructionsToStart_WatermarkUpToDate_OnlyStartsOrdersBehindIt() {
+        // Arrange
+        LocalDate today = LocalDate.now(clock);
+        when(statusRepository.findWatermark(ConstructionStatusScheduler.START_WATERMARK))
+            .thenReturn(today);
+
+        // Act
+        boolean applied = scheduler.checkConstructionsToStart(today, LEASE);
+
+        // Assert
+        assertTrue(applied);
+        verify(statusRepository).startOrders(null, today, LEASE);
+        verify(statusRepository, never()).startOrders(eq(today), any(), any());
+        verify(statusRepository, never()).saveWatermark(anyString(), any(), any());
+    }
+
+    @Test
+    void runTransitions_OrderShiftedBehindWatermarks_StartsAndFinishesIt() {
+        // Arrange: ambas validaciones ya corrieron hoy y luego una eliminación adelantó la orden 9
+        // a un inicio y una entrega anteriores a las marcas
+        ZoneId zone = ZoneId.systemDefault();
+        clock = Clock.fixed(LocalDate.of(2030, 3, 10).atTime(23, 30).atZone(zone).toInstant(), zone);
+        scheduler = new ConstructionStatusScheduler(statusRepository, taskScheduler, jobRunner,
+            statusPolicy, clock);
+        LocalDate today = LocalDate.of(2030, 3, 10);
+        when(jobRunner.run(eq(ConstructionStatusScheduler.JOB_NAME), any(Instant.class),
+            eq(ScheduledJobRunner.Overlap.COALESCE),
+            ArgumentMatchers.<Consumer<JobLockService.Lease>>any())).thenAnswer(invocation -> {
+                invocation.<Consumer<JobLockService.Lease>>getArgument(3).accept(LEASE);
+                return true;
+            });
+        when(statusRepository.findWatermark(anyString())).thenReturn(today);
+        when(statusRepository.startOrders(null, today, LEASE)).thenReturn(List.of(9L));
+        when(statusRepository.finishStartedOrders(List.of(9L), today, LEASE))
+            .thenReturn(List.of(9L));
+
+        // Act
+        scheduler.runTransitions(LocalDateTime.now(clock));
+
+        // Assert
+        verify(statusRepository).startOrders(null, today, LEASE);
+        verify(statusRepository).finishStartedOrders(List.of(9L), today, LEASE);
+        verify(statusRepository, never()).finishOrders(any(), any(), any());
+        verify(statusRepository, never()).saveWatermark(anyString(), any(), any());
+    }
+
+    @Test
+    void initialize_PendingOrderStartBeforeToday_SchedulesImmediately() {
+        // Arrange: la orden pendiente quedó con un inicio ya pasado
+        LocalDate shifted = LocalDate.now(clock).minusDays(2);
+        when(statusRepository.findNextStartDate()).thenReturn(shifted);
+
+        // Act
+        startUp();
+
+        // Assert
+        verify(taskScheduler, times(2)).schedule(any(Runnable.class), eq(clock.instant()));
+        assertEquals(LocalDateTime.now(clock), scheduler.nextRun());
+    }
+
+    @Test
+    void checkConstructionsToFinish_UpdateFails_KeepsWatermark() {
+        // Arrange
+        LocalDate today = LocalDate.now(clock);
+        when(statusRepository.findWatermark(ConstructionStatusScheduler.FINISH_WATERMARK))
+            .thenReturn(today.minusDays(3));
+        when(statusRepository.finishOrders(today.minusDays(3), today, LEASE))
+            .thenThrow(new RuntimeException("Conexión perdida"));
+
+        // Act
+        boolean applied = scheduler.checkConstructionsToFinish(today, LEASE);
+
+        // Assert
+        assertFalse(applied);
+        verify(statusRepository, never()).saveWatermark(anyString(), any(), any());
+    }
+
+    @Test
+    void initialize_AfterDowntime_CatchesUpMissedDaysWithOneUpdatePerStatus() {
+        // Arrange: el servicio estuvo detenido del 6 al 10 de marzo y arranca a mediodía
+        ZoneId zone = ZoneId.systemDefault();
+        clock = Clock.fixed(LocalDate.of(2030, 3, 10).atTime(12, 0).atZone(zone).toInstant(), zone);
+        scheduler = new ConstructionStatusScheduler(statusRepository, taskScheduler, jobRunner,
+            statusPolicy, clock);
+        LocalDate lastStart = LocalDate.of(2030, 3, 5);
+        LocalDate lastFinish = LocalDate.of(2030, 3, 4);
+        when(jobRunner.run(eq(ConstructionStatusScheduler.JOB_NAME), any(Instant.class),
+            eq(ScheduledJobRunner.Overlap.COALESCE),
+            ArgumentMatchers.<Consumer<JobLockService.Lease>>any())).thenAnswer(invocation -> {
+                invocation.<Consumer<JobLockService.Lease>>getArgument(3).accept(LEASE);
+                return true;
+            });
+        when(statusRepository.findWatermark(ConstructionStatusScheduler.START_WATERMARK))
+            .thenReturn(lastStart);
+        when(statusRepository.findWatermark(ConstructionStatusScheduler.FINISH_WATERMARK))
+            .thenReturn(lastFinish);
+        when(statusRepository.startOrders(any(), any(), any())).thenReturn(List.of(1L, 2L));
+        when(statusRepository.finishOrders(any(), any(), any())).thenReturn(List.of(3L));
+
+        // Act
+        startUp();
+
+        // Assert: inicios hasta esta mañana, finalizaciones hasta anoche
+        verify(statusRepository).startOrders(null, lastStart, LEASE);
+        verify(statusRepository).startOrders(lastStart, LocalDate.of(2030, 3, 10), LEASE);
+        verify(statusRepository).finishOrders(lastFinish, LocalDate.of(2030, 3, 9), LEASE);
+        verify(statusRepository).saveWatermark(ConstructionStatusScheduler.START_WATERMARK,
+            LocalDate.of(2030, 3, 10), LEASE);
+        verify(statusRepository).saveWatermark(ConstructionStatusScheduler.FINISH_WATERMARK,
+            LocalDate.of(2030, 3, 9), LEASE);
+        verify(statusRepository).findNextStartDate();
+    }
+
+    @Test
+    void runTransitions_LeaseHeldByOtherReplica_OnlyRearms() {
+        // Arrange
+        when(jobRunner.run(eq(ConstructionStatusScheduler.JOB_NAME), any(Instant.class),
+            eq(ScheduledJobRunner.Overlap.COALESCE),
+            ArgumentMatchers.<Consumer<JobLockService.Lease>>any())).thenReturn(false);
+
+        // Act
+        scheduler.runTransitions(LocalDateTime.now(clock));
+
+        // Assert
+        verify(statusRepository, never()).startOrders(any(), any(), any());
+        verify(statusRepository, never()).finishOrders(any(), any(), any());
+        verify(statusRepository, never()).saveWatermark(anyString(), any(), any());
+        verify(statusRepository).findNextStartDate();
+    }
+}
@@ -0,0 +1,173 @@
+package com.cityfuture.infrastructure.scheduler;
+
+import com.cityfuture.infrastructure.service.JobLockService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.support.CronExpression;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ScheduledJobRunnerTest {
+
+    @Mock
+    private JobLockService jobLockService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ScheduledJobRunner runner;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        runner = new ScheduledJobRunner(jobLockService, meterRegistry, 0, Clock.systemUTC());
+    }
+
+    // El lease simulado siempre se obtiene y ejecuta la tarea
+    private void leaseAlwaysGranted() {
+        when(jobLockService.runExclusive(anyString(),
+            ArgumentMatchers.<Consumer<JobLockService.Lease>>any())).thenAnswer(invocation -> {
+                invocation.<Consumer<JobLockService.Lease>>getArgument(1)
+                    .accept(new JobLockService.Lease(invocation.getArgument(0), 1L, Instant.now()));
+                return true;
+            });
+    }
+
+    private double skipped(String job, String reason) {
+        return meterRegistry.get("cityfuture.jobs.skipped").tag("job", job).tag("reason", reason)
+            .counter().count();
+    }
+
+    @Test
+    void run_LeaseGranted_RecordsDurationAndLag() {
+        // Arrange
+        leaseAlwaysGranted();
+        AtomicInteger executions = new AtomicInteger();
+
+        // Act
+        boolean ran = runner.run("reporte-diario", Instant.now().minusSeconds(5),
+            ScheduledJobRunner.Overlap.SKIP, executions::incrementAndGet);
+
+        // Assert
+        assertTrue(ran);
+        assertEquals(1, executions.get());
+        assertEquals(1, meterRegistry.get("cityfuture.jobs.duration").tag("job", "reporte-diario")
+            .timer().count());
+        assertTrue(meterRegistry.get("cityfuture.jobs.lag").tag("job", "reporte-diario")
+            .timer().totalTime(TimeUnit.SECONDS) >= 5);
+    }
+
+    @Test
+    void run_LeaseHeldByOtherReplica_CountsSkipWithoutDuration() {
+        // Arrange
+        when(jobLockService.runExclusive(anyString(),
+            ArgumentMatchers.<Consumer<JobLockService.Lease>>any())).thenReturn(false);
+
+        // Act
+        boolean ran = runner.run("reporte-diario", Instant.now(), ScheduledJobRunner.Overlap.SKIP,
+            () -> fail("No debe ejecutarse sin lease"));
+
+        // Assert
+        assertFalse(ran);
+        assertEquals(1.0, skipped("reporte-diario", "lease"));
+        assertEquals(0, meterRegistry.get("cityfuture.jobs.duration").tag("job", "reporte-diario")
+            .timer().count());
+    }
+
+    @Test
+    void run_SkipWhileRunning_DropsOverlappingTrigger() throws Exception {
+        // Arrange
+        leaseAlwaysGranted();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger executions = new AtomicInteger();
+        CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(() ->
+            runner.run("reporte-diario", Instant.now(), ScheduledJobRunner.Overlap.SKIP, () -> {
+                executions.incrementAndGet();
+                started.countDown();
+                await(release);
+            }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Act
+        boolean overlapped = runner.run("reporte-diario", Instant.now(),
+            ScheduledJobRunner.Overlap.SKIP, executions::incrementAndGet);
+        release.countDown();
+
+        // Assert
+        assertFalse(overlapped);
+        assertTrue(first.get(5, TimeUnit.SECONDS));
+        assertEquals(1, executions.get());
+        assertEquals(1.0, skipped("reporte-diario", "superpuesto"));
+    }
+
+    @Test
+    void run_CoalesceWhileRunning_RepeatsOnceForSeveralTriggers() throws Exception {
+        // Arrange
+        leaseAlwaysGranted();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger executions = new AtomicInteger();
+        Runnable task = () -> {
+            if (executions.incrementAndGet() == 1) {
+                started.countDown();
+                await(release);
+            }
+        };
+        CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(() ->
+            runner.run("transiciones-estado", Instant.now(), ScheduledJobRunner.Overlap.COALESCE, task));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Act
+        boolean second = runner.run("transiciones-estado", Instant.now(),
+            ScheduledJobRunner.Overlap.COALESCE, task);
+        boolean third = runner.run("transiciones-estado", Instant.now(),
+            ScheduledJobRunner.Overlap.COALESCE, task);
+        release.countDown();
+
+        // Assert
+        assertFalse(second);
+        assertFalse(third);
+        assertTrue(first.get(5, TimeUnit.SECONDS));
+        assertEquals(2, executions.get());
+        assertEquals(2.0, skipped("transiciones-estado", "coalescido"));
+    }
+
+    @Test
+    void lastFire_BetweenDailyFires_ReturnsMostRecentFire() {
+        // Arrange
+        CronExpression cron = CronExpression.parse("0 0 8 * * *");
+        ZoneId zone = ZoneId.of("America/Bogota");
+        ZonedDateTime now = ZonedDateTime.of(2025, 3, 10, 8, 0, 3, 0, zone);
+        ZonedDateTime beforeFire = ZonedDateTime.of(2025, 3, 10, 7, 59, 0, 0, zone);
+
+        // Act & Assert
+        assertEquals(now.withSecond(0).toInstant(), ScheduledJobRunner.lastFire(cron, now));
+        assertEquals(beforeFire.minusDays(1).withHour(8).withMinute(0).toInstant(),
+            ScheduledJobRunner.lastFire(cron, beforeFire));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
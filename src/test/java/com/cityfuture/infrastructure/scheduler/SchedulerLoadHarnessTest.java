@@ -0,0 +1,325 @@
+package com.cityfuture.infrastructure.scheduler;
+
+import com.cityfuture.infrastructure.persistence.repository.JdbcConstructionStatusRepository;
+import com.cityfuture.infrastructure.service.ConstructionStatusPolicy;
+import com.cityfuture.infrastructure.service.JobLockService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.scheduling.TaskScheduler;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// Arnés de carga: recorre un año de operación con un reloj simulado sobre una BD H2 sembrada con
+// órdenes, saltando de una ejecución programada a la siguiente sin esperar. Registra el ritmo del
+// scheduler, las transiciones por día y las sentencias enviadas a la BD. Fuera de la suite normal:
+// ./gradlew loadTest -Pharness.orders=100000 -Pharness.days=365
+@Tag("load")
+class SchedulerLoadHarnessTest {
+    private static final Logger logger = LoggerFactory.getLogger(SchedulerLoadHarnessTest.class);
+
+    private static final int ORDERS = Integer.getInteger("harness.orders", 100_000);
+    private static final int DAYS = Integer.getInteger("harness.days", 365);
+    private static final int MAX_ESTIMATED_DAYS = 30;
+    // Tope de sentencias por ejecución: lease, marcas de agua, UPDATE por conjunto y cálculo de
+    // la siguiente
+    private static final long MAX_STATEMENTS_PER_RUN = 16;
+    private static final LocalDate DAY_ZERO = LocalDate.of(2030, 1, 1);
+    private static final Path REPORT = Path.of("build", "reports", "scheduler-load",
+        "transitions.csv");
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate raw;
+    private StatementCounter counter;
+    private SimulatedClock clock;
+    private final AtomicReference<Armed> armed = new AtomicReference<>();
+    private ConstructionStatusScheduler scheduler;
+
+    private record Armed(Runnable task, Instant at) {
+    }
+
+    private static final class DayStats {
+        private int runs;
+        private long statements;
+        private long nanos;
+        private long started;
+        private long finished;
+    }
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true).build();
+        raw = new JdbcTemplate(database);
+        raw.execute("CREATE TABLE construction_orders (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+            + "project_name VARCHAR(255), latitude DOUBLE PRECISION, longitude DOUBLE PRECISION, "
+            + "type_construction VARCHAR(255), estado VARCHAR(1), estimated_days INT, "
+            + "start_date DATE, entrega_date DATE, lane INT DEFAULT 0 NOT NULL)");
+        raw.execute("CREATE INDEX idx_construction_orders_estado_start_date "
+            + "ON construction_orders (estado, start_date)");
+        raw.execute("CREATE INDEX idx_construction_orders_estado_entrega_date "
+            + "ON construction_orders (estado, entrega_date)");
+        raw.execute("CREATE TABLE job_locks (job_name VARCHAR(255) PRIMARY KEY, "
+            + "owner VARCHAR(255) NOT NULL, locked_at TIMESTAMP WITH TIME ZONE NOT NULL, "
+            + "locked_until TIMESTAMP WITH TIME ZONE NOT NULL, fencing_token BIGINT NOT NULL)");
+        raw.execute("CREATE TABLE job_checkpoints (job_name VARCHAR(255) PRIMARY KEY, "
+            + "run_date DATE, last_id BIGINT, processed BIGINT, completed BOOLEAN NOT NULL, "
+            + "updated_at TIMESTAMP WITH TIME ZONE)");
+        seed();
+
+        // Solo se cuentan las sentencias del scheduler; la siembra y las mediciones van por raw
+        counter = new StatementCounter(database);
+        JdbcTemplate counted = new JdbcTemplate(counter);
+        clock = new SimulatedClock(DAY_ZERO.atStartOfDay(ZoneId.systemDefault()).toInstant(),
+            ZoneId.systemDefault());
+        JobLockService jobLockService = new JobLockService(counted, "arnes", 600, 0, clock);
+        ScheduledJobRunner jobRunner = new ScheduledJobRunner(jobLockService,
+            new SimpleMeterRegistry(), 0, clock);
+        scheduler = new ConstructionStatusScheduler(new JdbcConstructionStatusRepository(counted),
+            steppingScheduler(), jobRunner, new ConstructionStatusPolicy("stored"),
+            clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void simulatedYear_TransitionsEveryOrderWithBoundedStatementsPerRun() throws IOException {
+        // Arrange
+        Map<LocalDate, DayStats> days = new TreeMap<>();
+        Instant horizon = DAY_ZERO.plusDays(DAYS + MAX_ESTIMATED_DAYS + 1L)
+            .atStartOfDay(clock.getZone()).toInstant();
+        long maxStatementsPerRun = 0;
+        long wallStart = System.nanoTime();
+
+        // Act: cada ejecución programada se dispara en cuanto termina la anterior
+        scheduler.initialize();
+        Armed next;
+        while ((next = armed.get()) != null && next.at().isBefore(horizon)) {
+            armed.compareAndSet(next, null);
+            clock.set(next.at());
+            long statementsBefore = counter.count();
+            long runStart = System.nanoTime();
+            next.task().run();
+
+            DayStats day = days.computeIfAbsent(LocalDate.now(clock), date -> new DayStats());
+            long statements = counter.count() - statementsBefore;
+            day.runs++;
+            day.statements += statements;
+            day.nanos += System.nanoTime() - runStart;
+            maxStatementsPerRun = Math.max(maxStatementsPerRun, statements);
+        }
+        long wallNanos = System.nanoTime() - wallStart;
+
+        // Assert
+        long started = 0;
+        long finished = 0;
+        for (Map.Entry<LocalDate, DayStats> entry : days.entrySet()) {
+            Date date = Date.valueOf(entry.getKey());
+            DayStats day = entry.getValue();
+            day.started = raw.queryForObject("SELECT COUNT(*) FROM construction_orders "
+                + "WHERE start_date = ? AND estado <> 'P'", Long.class, date);
+            day.finished = raw.queryForObject("SELECT COUNT(*) FROM construction_orders "
+                + "WHERE entrega_date = ? AND estado = 'F'", Long.class, date);
+            started += day.started;
+            finished += day.finished;
+        }
+        writeReport(days);
+        report(days, started, finished, wallNanos, maxStatementsPerRun);
+
+        assertNull(armed.get(), "Quedaron transiciones después del horizonte simulado");
+        assertEquals(ORDERS, started);
+        assertEquals(ORDERS, finished);
+        assertEquals(0L, raw.queryForObject(
+            "SELECT COUNT(*) FROM construction_orders WHERE estado <> 'F'", Long.class));
+        assertTrue(maxStatementsPerRun <= MAX_STATEMENTS_PER_RUN,
+            "Sentencias por ejecución: " + maxStatementsPerRun);
+    }
+
+    // Órdenes pendientes con inicio repartido en el año y duraciones de 1 a 30 días
+    private void seed() {
+        SplittableRandom random = new SplittableRandom(42);
+        raw.batchUpdate("INSERT INTO construction_orders (project_name, latitude, longitude, "
+            + "type_construction, estado, estimated_days, start_date, entrega_date, lane) "
+            + "VALUES (?, ?, ?, ?, 'P', ?, ?, ?, 0)", new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    int estimatedDays = random.nextInt(1, MAX_ESTIMATED_DAYS + 1);
+                    LocalDate start = DAY_ZERO.plusDays(random.nextInt(1, DAYS + 1));
+                    ps.setString(1, "Proyecto " + i);
+                    ps.setDouble(2, i / 1000.0);
+                    ps.setDouble(3, i % 1000 / 1000.0);
+                    ps.setString(4, "CASA");
+                    ps.setInt(5, estimatedDays);
+                    ps.setDate(6, Date.valueOf(start));
+                    ps.setDate(7, Date.valueOf(start.plusDays(estimatedDays - 1L)));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return ORDERS;
+                }
+            });
+    }
+
+    // Guarda la única ejecución programada en lugar de esperarla; cancelarla la descarta
+    private TaskScheduler steppingScheduler() {
+        TaskScheduler taskScheduler = mock(TaskScheduler.class);
+        when(taskScheduler.schedule(any(Runnable.class), any(Instant.class)))
+            .thenAnswer(invocation -> {
+                Armed run = new Armed(invocation.getArgument(0), invocation.getArgument(1));
+                armed.set(run);
+                ScheduledFuture<?> future = mock(ScheduledFuture.class);
+                when(future.cancel(anyBoolean())).thenAnswer(cancel -> armed.compareAndSet(run, null));
+                return future;
+            });
+        return taskScheduler;
+    }
+
+    private void report(Map<LocalDate, DayStats> days, long started, long finished,
+            long wallNanos, long maxStatementsPerRun) {
+        int runs = days.values().stream().mapToInt(day -> day.runs).sum();
+        long statements = days.values().stream().mapToLong(day -> day.statements).sum();
+        long peak = days.values().stream().mapToLong(day -> day.started + day.finished).max()
+            .orElse(0);
+        double seconds = wallNanos / 1_000_000_000.0;
+        logger.info("Arnés de carga - Órdenes: {}, Días simulados: {}, Ejecuciones: {}, "
+            + "Tiempo real: {} s", ORDERS, days.size(), runs, String.format("%.2f", seconds));
+        logger.info("Ritmo - {} días simulados/s, {} transiciones/s, {} ms por ejecución",
+            String.format("%.1f", days.size() / seconds),
+            String.format("%.0f", (started + finished) / seconds),
+            String.format("%.2f", wallNanos / 1_000_000.0 / Math.max(runs, 1)));
+        logger.info("Transiciones - Iniciadas: {}, Finalizadas: {}, Máximo en un día: {}",
+            started, finished, peak);
+        logger.info("Sentencias - Total: {}, Por ejecución: {} (máx. {}), Por día: {}", statements,
+            String.format("%.1f", (double) statements / Math.max(runs, 1)), maxStatementsPerRun,
+            String.format("%.1f", (double) statements / Math.max(days.size(), 1)));
+        logger.info("Detalle por día en {}", REPORT.toAbsolutePath());
+    }
+
+    private void writeReport(Map<LocalDate, DayStats> days) throws IOException {
+        Files.createDirectories(REPORT.getParent());
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(REPORT))) {
+            out.println("fecha,ejecuciones,iniciadas,finalizadas,sentencias,ms");
+            days.forEach((date, day) -> out.printf("%s,%d,%d,%d,%d,%.3f%n", date, day.runs,
+                day.started, day.finished, day.statements, day.nanos / 1_000_000.0));
+        }
+    }
+
+    // Reloj que solo avanza cuando el arnés lo mueve
+    private static final class SimulatedClock extends Clock {
+        private volatile Instant now;
+        private final ZoneId zone;
+
+        private SimulatedClock(Instant now, ZoneId zone) {
+            this.now = now;
+            this.zone = zone;
+        }
+
+        private void set(Instant instant) {
+            now = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return zone;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return new SimulatedClock(now, zone);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        @Override
+        public String toString() {
+            return "SimulatedClock[" + LocalDateTime.ofInstant(now, zone) + "]";
+        }
+    }
+
+    // Cuenta cada execute* que llega al driver; un batch JDBC cuenta como una sola sentencia
+    private static final class StatementCounter extends DelegatingDataSource {
+        private final AtomicLong statements = new AtomicLong();
+
+        private StatementCounter(DataSource target) {
+            super(target);
+        }
+
+        private long count() {
+            return statements.get();
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = super.getConnection();
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    return result instanceof Statement statement
+                        ? countExecutions(statement, method.getReturnType()) : result;
+                });
+        }
+
+        private Object countExecutions(Statement statement, Class<?> type) {
+            return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {type},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("execute")) {
+                        statements.incrementAndGet();
+                    }
+                    return invoke(statement, method, args);
+                });
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args)
+                throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
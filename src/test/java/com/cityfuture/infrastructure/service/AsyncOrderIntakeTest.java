@@ -0,0 +1,165 @@
+package com.cityfuture.infrastructure.service;
+
+import com.cityfuture.domain.exception.InsufficientMaterialException;
+import com.cityfuture.domain.model.ConstructionOrder;
+import com.cityfuture.domain.model.Coordinate;
+import com.cityfuture.domain.model.OrderTicket;
+import com.cityfuture.domain.model.QueuePlacement;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncOrderIntakeTest {
+
+    @Mock
+    private ConstructionRequestUseCase constructionRequestService;
+
+    @Mock
+    private OrderCommandPipeline orderCommandPipeline;
+
+    private final AtomicReference<Instant> now =
+        new AtomicReference<>(Instant.parse("2030-03-10T12:00:00Z"));
+    private final Clock clock = mock(Clock.class);
+    private SimpleMeterRegistry meterRegistry;
+    private AsyncOrderIntake intake;
+    private ConstructionOrder order;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        lenient().when(clock.instant()).thenAnswer(invocation -> now.get());
+        intake = new AsyncOrderIntake(constructionRequestService, orderCommandPipeline,
+            meterRegistry, 1, 30, clock);
+        order = new ConstructionOrder(null, "Casa del Futuro", new Coordinate(10.0, 20.0),
+            "CASA", null, null, null);
+
+        // El pipeline ejecuta el comando en el mismo hilo
+        lenient().when(orderCommandPipeline.execute(anyString(), any()))
+            .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+    }
+
+    @AfterEach
+    void tearDown() {
+        intake.stop();
+    }
+
+    private OrderTicket awaitFinished(String ticketId) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            OrderTicket ticket = intake.findTicket(ticketId).orElseThrow();
+            if (ticket.isFinished()) {
+                return ticket;
+            }
+            Thread.sleep(10);
+        }
+        fail("El ticket no terminó a tiempo");
+        return null;
+    }
+
+    @Test
+    void submit_ProcessesOrderInBackground() throws Exception {
+        // Arrange
+        ConstructionOrder created = new ConstructionOrder(7L, "Casa del Futuro",
+            order.location(), "CASA", "Pendiente", 3, LocalDate.now().plusDays(3));
+        when(constructionRequestService.createOrder(order, QueuePlacement.END)).thenReturn(created);
+
+        // Act
+        OrderTicket ticket = intake.submit(order);
+        OrderTicket finished = awaitFinished(ticket.id());
+
+        // Assert
+        assertEquals(OrderTicket.Status.COMPLETADO, finished.status());
+        assertEquals(7L, finished.orderId());
+        assertEquals(1.0, meterRegistry.get("cityfuture.orders.async.outcome")
+            .tag("result", "completed").counter().count());
+    }
+
+    @Test
+    void submit_WithPlacement_CreatesOrderAtRequestedPosition() throws Exception {
+        // Arrange
+        QueuePlacement placement = new QueuePlacement(3L, false);
+        ConstructionOrder created = new ConstructionOrder(7L, "Casa del Futuro",
+            order.location(), "CASA", "Pendiente", 3, LocalDate.now().plusDays(3));
+        when(constructionRequestService.createOrder(order, placement)).thenReturn(created);
+
+        // Act
+        OrderTicket finished = awaitFinished(intake.submit(order, placement).id());
+
+        // Assert
+        assertEquals(OrderTicket.Status.COMPLETADO, finished.status());
+        verify(constructionRequestService, never()).createOrder(order, QueuePlacement.END);
+    }
+
+    @Test
+    void purgeExpiredTickets_TtlMeasuredWithInjectedClock() throws Exception {
+        // Arrange
+        when(constructionRequestService.createOrder(order, QueuePlacement.END))
+            .thenThrow(new InsufficientMaterialException("Materiales insuficientes para construcción"));
+        OrderTicket finished = awaitFinished(intake.submit(order).id());
+
+        // Act
+        now.set(now.get().plus(Duration.ofMinutes(29)));
+        intake.purgeExpiredTickets();
+        boolean keptWithinTtl = intake.findTicket(finished.id()).isPresent();
+        now.set(now.get().plus(Duration.ofMinutes(2)));
+        intake.purgeExpiredTickets();
+
+        // Assert
+        assertEquals(Instant.parse("2030-03-10T12:00:00Z"), finished.acceptedAt());
+        assertTrue(keptWithinTtl);
+        assertTrue(intake.findTicket(finished.id()).isEmpty());
+    }
+
+    @Test
+    void submit_FailedOrder_RecordsRejectionOnTicket() throws Exception {
+        // Arrange
+        when(constructionRequestService.createOrder(order, QueuePlacement.END))
+            .thenThrow(new InsufficientMaterialException("Materiales insuficientes para construcción"));
+
+        // Act
+        OrderTicket finished = awaitFinished(intake.submit(order).id());
+
+        // Assert
+        assertEquals(OrderTicket.Status.RECHAZADO, finished.status());
+        assertEquals("Materiales insuficientes", finished.error());
+    }
+
+    @Test
+    void submit_AdmissionLimitReached_RejectsImmediately() throws Exception {
+        // Arrange: la única plaza queda ocupada hasta liberar el latch
+        CountDownLatch release = new CountDownLatch(1);
+        when(constructionRequestService.createOrder(order, QueuePlacement.END))
+            .thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return order;
+        });
+        OrderTicket first = intake.submit(order);
+
+        // Act & Assert
+        assertThrows(RejectedExecutionException.class, () -> intake.submit(order));
+        assertEquals(1, intake.inFlight());
+        assertEquals(1.0, meterRegistry.get("cityfuture.orders.async.admission")
+            .tag("result", "rejected").counter().count());
+
+        release.countDown();
+        awaitFinished(first.id());
+    }
+}
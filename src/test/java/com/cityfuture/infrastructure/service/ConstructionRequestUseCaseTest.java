@@ -1,22 +1,28 @@
 package com.cityfuture.infrastructure.service;
 
 import com.cityfuture.api.exception.ConstructionOrderNotFoundException;
+import com.cityfuture.domain.event.ConstructionScheduleChangedEvent;
 import com.cityfuture.domain.exception.InsufficientMaterialException;
 import com.cityfuture.domain.model.*;
 import com.cityfuture.infrastructure.mapper.ConstructionMapper;
 import com.cityfuture.infrastructure.persistence.entity.ConstructionOrderEntity;
 import com.cityfuture.infrastructure.persistence.entity.CoordinateEmbeddable;
-import com.cityfuture.infrastructure.persistence.entity.MaterialEntity;
+import com.cityfuture.infrastructure.persistence.repository.JdbcConstructionOrderBatchRepository;
+import com.cityfuture.infrastructure.persistence.repository.JdbcConstructionStatusRepository;
 import com.cityfuture.infrastructure.persistence.repository.JpaConstructionOrderRepository;
-import com.cityfuture.infrastructure.persistence.repository.JpaMaterialRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
+import java.time.Clock;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -33,18 +39,71 @@ class ConstructionRequestUseCaseTest {
     private ConstructionMapper mapper;
 
     @Mock
-    private JpaMaterialRepository materialRepository;
+    private MaterialReservationService materialReservationService;
+
+    @Mock
+    private TimelineAllocator timelineAllocator;
+
+    @Mock
+    private LocationOccupancyService locationOccupancyService;
+
+    @Mock
+    private JdbcConstructionOrderBatchRepository batchRepository;
+
+    @Mock
+    private JdbcConstructionStatusRepository statusRepository;
+
+    @Mock
+    private InventorySnapshot inventorySnapshot;
+
+    @Mock
+    private ConstructionTypeCatalog constructionTypeCatalog;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ConstructionStatusPolicy statusPolicy;
+
+    @Mock
+    private Clock clock;
 
     @InjectMocks
     private ConstructionRequestUseCase constructionRequestUseCase;
 
     private ConstructionOrder testOrder;
     private ConstructionOrderEntity testEntity;
-    private MaterialEntity cementoEntity;
-    private MaterialEntity gravaEntity;
+    private ConstructionTypeCatalog.Compiled catalog;
 
     @BeforeEach
     void setUp() {
+        // Reloj del sistema detrás del mock que recibe el servicio
+        lenient().when(clock.getZone()).thenReturn(ZoneId.systemDefault());
+        lenient().when(clock.instant()).thenAnswer(invocation -> Instant.now());
+        // Catálogo compilado a partir de los tipos originales
+        catalog = ConstructionTypeCatalog.Compiled.compile(1,
+            Arrays.stream(ConstructionTypeCriteria.values()).map(criteria -> {
+                ConstructionType type = new ConstructionType();
+                type.setTypeName(criteria.name());
+                type.setEstimatedDays(criteria.getEstimatedTime());
+                type.setMaterials(criteria.getMaterials());
+                return type;
+            }).toList());
+        lenient().when(constructionTypeCatalog.current()).thenReturn(catalog);
+        lenient().when(constructionTypeCatalog.resolve(anyString())).thenAnswer(invocation -> {
+            String typeName = invocation.getArgument(0);
+            ConstructionTypeCatalog.CompiledType type = catalog.types().get(typeName.toUpperCase());
+            if (type == null) {
+                throw new IllegalArgumentException("Tipo de construcción no válido: " + typeName);
+            }
+            return type;
+        });
+        lenient().when(constructionTypeCatalog.reservedFor(any(), any())).thenAnswer(invocation -> {
+            Map<String, Integer> reserved = invocation.getArgument(1);
+            return reserved != null ? MaterialVector.of(reserved)
+                : catalog.types().get(invocation.<String>getArgument(0).toUpperCase()).requirements();
+        });
+
         // Crear datos de prueba
         Coordinate location = new Coordinate(10.0, 20.0);
         testOrder = new ConstructionOrder(
@@ -66,34 +125,17 @@ class ConstructionRequestUseCaseTest {
         testEntity.setProjectName("Casa del Futuro");
         testEntity.setLocation(locationEmbeddable);
         testEntity.setTypeConstruction("CASA");
-        testEntity.setEstado("Pendiente");
+        testEntity.setEstado(ConstructionStatus.PENDIENTE);
         testEntity.setEstimatedDays(5);
         testEntity.setStartDate(LocalDate.now().plusDays(1));
         testEntity.setEntregaDate(LocalDate.now().plusDays(5));
-
-        // Materiales de prueba
-        cementoEntity = new MaterialEntity();
-        cementoEntity.setId(1L);
-        cementoEntity.setCode("Ce");
-        cementoEntity.setMaterialName("Cemento");
-        cementoEntity.setQuantity(100);
-
-        gravaEntity = new MaterialEntity();
-        gravaEntity.setId(2L);
-        gravaEntity.setCode("Gr");
-        gravaEntity.setMaterialName("Grava");
-        gravaEntity.setQuantity(50);
     }
 
     @Test
     void createOrder_ValidOrder_ReturnsCreatedOrder() {
         // Arrange
-        when(materialRepository.findByCode("Ce")).thenReturn(Optional.of(cementoEntity));
-        when(materialRepository.findByCode("Gr")).thenReturn(Optional.of(gravaEntity));
-        when(orderRepository.existsByLocationCoordinates(10.0, 20.0))
-            .thenReturn(false);
-        when(orderRepository.findFirstByOrderByEntregaDateDesc())
-            .thenReturn(Optional.empty());
+        when(timelineAllocator.allocate(3)).thenReturn(new TimelineAllocator.Slot(
+            LocalDate.now().plusDays(1), LocalDate.now().plusDays(3)));
         when(mapper.toEntity(any(ConstructionOrder.class))).thenReturn(testEntity);
         when(orderRepository.save(any(ConstructionOrderEntity.class))).thenReturn(testEntity);
         when(mapper.toDomain(testEntity)).thenReturn(testOrder);
@@ -108,17 +150,51 @@ class ConstructionRequestUseCaseTest {
         assertEquals("Pendiente", result.estado());
         
         verify(orderRepository).save(any(ConstructionOrderEntity.class));
-        verify(materialRepository, times(2)).save(any(MaterialEntity.class));
+        verify(materialReservationService).reserve(catalog.types().get("CASA").requirements());
+    }
+
+    @Test
+    void createOrder_InsertBeforeOrder_ShiftsLaterOrdersWithOneUpdate() {
+        // Arrange
+        LocalDate start = LocalDate.now().plusDays(4);
+        when(timelineAllocator.allocateBefore(7L, 3)).thenReturn(new TimelineAllocator.Slot(
+            start, start.plusDays(2), 2, null));
+        when(mapper.toEntity(any(ConstructionOrder.class))).thenReturn(testEntity);
+        when(orderRepository.shiftOrdersStartingFrom(2, start, 3)).thenReturn(12);
+        when(orderRepository.save(any(ConstructionOrderEntity.class))).thenReturn(testEntity);
+        when(mapper.toDomain(testEntity)).thenReturn(testOrder);
+
+        // Act
+        constructionRequestUseCase.createOrder(testOrder, new QueuePlacement(7L, false));
+
+        // Assert
+        assertEquals(start, testEntity.getStartDate());
+        assertEquals(2, testEntity.getLane());
+        verify(orderRepository).shiftOrdersStartingFrom(2, start, 3);
+        verify(timelineAllocator, never()).allocate(anyInt());
+    }
+
+    @Test
+    void createOrder_AtEnd_DoesNotShiftOtherOrders() {
+        // Arrange
+        when(timelineAllocator.allocate(3)).thenReturn(new TimelineAllocator.Slot(
+            LocalDate.now().plusDays(1), LocalDate.now().plusDays(3)));
+        when(mapper.toEntity(any(ConstructionOrder.class))).thenReturn(testEntity);
+        when(orderRepository.save(any(ConstructionOrderEntity.class))).thenReturn(testEntity);
+        when(mapper.toDomain(testEntity)).thenReturn(testOrder);
+
+        // Act
+        constructionRequestUseCase.createOrder(testOrder, QueuePlacement.END);
+
+        // Assert
+        verify(orderRepository, never()).shiftOrdersStartingFrom(anyInt(), any(), anyInt());
     }
 
     @Test
     void createOrder_InsufficientMaterials_ThrowsException() {
         // Arrange
-        cementoEntity.setQuantity(1); // Insuficiente para CASA que requiere 5
-        when(materialRepository.findByCode("Ce")).thenReturn(Optional.of(cementoEntity));
-        when(materialRepository.findByCode("Gr")).thenReturn(Optional.of(gravaEntity));
-        when(orderRepository.existsByLocationCoordinates(10.0, 20.0))
-            .thenReturn(false);
+        doThrow(new InsufficientMaterialException("Materiales insuficientes para construcción: Cemento (Ce)"))
+            .when(materialReservationService).reserve(any(MaterialVector.class));
 
         // Act & Assert
         InsufficientMaterialException exception = assertThrows(
@@ -133,8 +209,9 @@ class ConstructionRequestUseCaseTest {
     @Test
     void createOrder_LocationAlreadyOccupied_ThrowsException() {
         // Arrange
-        when(orderRepository.existsByLocationCoordinates(10.0, 20.0))
-            .thenReturn(true);
+        doThrow(new com.cityfuture.domain.exception.LocationAlreadyOccupiedException(
+                "Ya existe una orden de construcción en las coordenadas: 10.0, 20.0"))
+            .when(locationOccupancyService).claim(testOrder.location());
 
         // Act & Assert
         Exception exception = assertThrows(
@@ -144,7 +221,7 @@ class ConstructionRequestUseCaseTest {
 
         assertTrue(exception.getMessage().contains("coordenadas"));
         verify(orderRepository, never()).save(any());
-        verify(materialRepository, never()).save(any());
+        verify(materialReservationService, never()).reserve(any(MaterialVector.class));
     }
 
     @Test
@@ -165,6 +242,51 @@ class ConstructionRequestUseCaseTest {
         verify(orderRepository, never()).save(any());
     }
 
+    @Test
+    void createOrders_PartialMode_RejectsOrdersWithoutStockAndReservesOnce() {
+        // Arrange: alcanza el stock para una sola CASA (Ce 100, Ad 100)
+        ConstructionOrder second = new ConstructionOrder(
+            null, "Casa Vecina", new Coordinate(11.0, 21.0), "CASA", null, null, null);
+        Map<String, Integer> stock = Map.of("Ce", 150, "Gr", 100, "Ar", 200, "Ma", 50, "Ad", 150);
+        when(materialReservationService.availableStock(catalog.materialCodes()))
+            .thenReturn(MaterialVector.of(catalog.materialCodes(), stock).quantities());
+        when(timelineAllocator.allocateAll(List.of(3))).thenReturn(List.of(
+            new TimelineAllocator.Slot(LocalDate.now().plusDays(1), LocalDate.now().plusDays(3))));
+        when(mapper.toEntity(any(ConstructionOrder.class))).thenReturn(testEntity);
+
+        // Act
+        List<BatchOrderResult> results =
+            constructionRequestUseCase.createOrders(List.of(testOrder, second), false);
+
+        // Assert
+        assertTrue(results.get(0).accepted());
+        assertFalse(results.get(1).accepted());
+        assertTrue(results.get(1).error().contains("Materiales insuficientes"));
+        verify(materialReservationService).reserve(catalog.types().get("CASA").requirements());
+        verify(locationOccupancyService).unclaim(second.location());
+        verify(batchRepository).insertAll(List.of(testEntity));
+        verify(orderRepository, never()).save(any());
+    }
+
+    @Test
+    void createOrders_AllOrNothingWithInvalidType_PersistsNothing() {
+        // Arrange
+        ConstructionOrder invalid = new ConstructionOrder(
+            null, "Test", new Coordinate(11.0, 21.0), "INVALID", null, null, null);
+        when(materialReservationService.availableStock(any(String[].class)))
+            .thenReturn(new int[catalog.materialCodes().length]);
+
+        // Act
+        List<BatchOrderResult> results =
+            constructionRequestUseCase.createOrders(List.of(testOrder, invalid), true);
+
+        // Assert
+        assertTrue(results.stream().noneMatch(BatchOrderResult::accepted));
+        assertTrue(results.get(1).error().contains("Tipo de construcción no válido"));
+        verify(materialReservationService, never()).reserve(any(MaterialVector.class));
+        verify(batchRepository, never()).insertAll(anyList());
+    }
+
     @Test
     void getOrderById_ExistingId_ReturnsOrder() {
         // Arrange
@@ -222,41 +344,173 @@ class ConstructionRequestUseCaseTest {
     void getOrdersByStatus_ValidStatus_ReturnsFilteredOrders() {
         // Arrange
         List<ConstructionOrderEntity> entities = Arrays.asList(testEntity);
-        when(orderRepository.findAll()).thenReturn(entities);
+        when(orderRepository.findByFilter(ConstructionStatus.PENDIENTE, null, LocalDate.now())).thenReturn(entities);
         when(mapper.toDomain(testEntity)).thenReturn(testOrder);
 
         // Act
-        List<ConstructionOrder> result = constructionRequestUseCase.getOrdersByStatus("Pendiente");
+        List<ConstructionOrder> result = constructionRequestUseCase.getOrdersByStatus("pendiente");
 
         // Assert
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals("Pendiente", result.get(0).estado());
         
-        verify(orderRepository).findAll();
+        verify(orderRepository, never()).findAll();
         verify(mapper).toDomain(testEntity);
     }
 
+    @Test
+    void getAllOrders_NoStoredStatus_ComputesStatusFromDates() {
+        // Arrange: sin estado guardado, la orden ya inició y aún no se entrega
+        testEntity.setEstado(null);
+        testEntity.setStartDate(LocalDate.now().minusDays(1));
+        when(orderRepository.findAll()).thenReturn(List.of(testEntity));
+        when(mapper.toDomain(testEntity)).thenReturn(testOrder);
+
+        // Act
+        List<ConstructionOrder> result = constructionRequestUseCase.getAllOrders();
+
+        // Assert
+        assertEquals("En progreso", result.get(0).estado());
+        assertEquals(testOrder.projectName(), result.get(0).projectName());
+    }
+
+    @Test
+    void overrideStatus_DerivedStatusMode_PersistsOnlyManualStatus() {
+        // Arrange
+        when(statusPolicy.isDerived()).thenReturn(true);
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(testEntity));
+        when(orderRepository.save(testEntity)).thenReturn(testEntity);
+        when(mapper.toDomain(testEntity)).thenReturn(testOrder);
+
+        // Act
+        ConstructionOrder fixed = constructionRequestUseCase.overrideStatus(1L, "Finalizado");
+        ConstructionOrder cleared = constructionRequestUseCase.overrideStatus(1L, null);
+
+        // Assert
+        assertEquals("Finalizado", fixed.estado());
+        assertNull(testEntity.getEstado());
+        assertEquals("Pendiente", cleared.estado());
+    }
+
+    @Test
+    void overrideStatus_StoredStatusModeWithoutStatus_StoresStatusFromDates() {
+        // Arrange
+        testEntity.setEstado(ConstructionStatus.FINALIZADO);
+        testEntity.setStartDate(LocalDate.now());
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(testEntity));
+        when(orderRepository.save(testEntity)).thenReturn(testEntity);
+        when(mapper.toDomain(testEntity)).thenReturn(testOrder);
+
+        // Act
+        constructionRequestUseCase.overrideStatus(1L, " ");
+
+        // Assert
+        assertEquals(ConstructionStatus.EN_PROGRESO, testEntity.getEstado());
+    }
+
     @Test
     void deleteOrder_ExistingOrder_DeletesSuccessfully() {
         // Arrange
-        when(orderRepository.existsById(1L)).thenReturn(true);
         when(orderRepository.findById(1L)).thenReturn(Optional.of(testEntity));
-        when(materialRepository.findByCode("Ce")).thenReturn(Optional.of(cementoEntity));
-        when(materialRepository.findByCode("Gr")).thenReturn(Optional.of(gravaEntity));
+        when(orderRepository.shiftOrdersDeliveredAfter(0, testEntity.getEntregaDate(), 5))
+            .thenReturn(3);
+
+        // Act
+        int shifted = constructionRequestUseCase.deleteOrder(1L);
+
+        // Assert
+        assertEquals(3, shifted);
+        verify(orderRepository).deleteById(1L);
+        verify(orderRepository, never()).findAll();
+        verify(orderRepository, never()).save(any());
+        verify(materialReservationService).release(catalog.types().get("CASA").requirements());
+        InOrder inOrder = inOrder(timelineAllocator, orderRepository);
+        inOrder.verify(timelineAllocator).remove(1L);
+        inOrder.verify(orderRepository).deleteById(1L);
+        verify(eventPublisher).publishEvent(
+            new ConstructionScheduleChangedEvent(testEntity.getStartDate()));
+    }
+
+    @Test
+    void deleteOrder_DatesLongerThanEstimatedDays_ShiftsByOccupiedDays() {
+        // Arrange: orden antigua de 5 días estimados cuyas fechas ocupan 7
+        testEntity.setEntregaDate(testEntity.getStartDate().plusDays(6));
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(testEntity));
+
+        // Act
+        constructionRequestUseCase.deleteOrder(1L);
+
+        // Assert
+        verify(orderRepository).shiftOrdersDeliveredAfter(0, testEntity.getEntregaDate(), 7);
+    }
+
+    @Test
+    void deleteOrders_SeveralIds_RestocksOnceAndShiftsEachGapOnce() {
+        // Arrange: CASA (días 1-3) y LAGO (días 6-7) en la cuadrilla 0, con órdenes entre ambas
+        LocalDate start = LocalDate.now().plusDays(1);
+        testEntity.setStartDate(start);
+        testEntity.setEntregaDate(start.plusDays(2));
+        testEntity.setEstimatedDays(3);
+        ConstructionOrderEntity lago = new ConstructionOrderEntity();
+        lago.setId(3L);
+        lago.setLocation(testEntity.getLocation());
+        lago.setTypeConstruction("LAGO");
+        lago.setEstimatedDays(2);
+        lago.setStartDate(start.plusDays(5));
+        lago.setEntregaDate(start.plusDays(6));
+        when(orderRepository.findAllById(List.of(1L, 3L, 99L))).thenReturn(List.of(lago, testEntity));
+        when(orderRepository.shiftOrdersBetween(0, start.plusDays(2), start.plusDays(5), 3))
+            .thenReturn(2);
+        when(orderRepository.shiftOrdersDeliveredAfter(0, start.plusDays(6), 5)).thenReturn(4);
+
+        // Act
+        BulkDeleteResult result = constructionRequestUseCase.deleteOrders(List.of(1L, 3L, 99L));
+
+        // Assert
+        assertEquals(new BulkDeleteResult(2, 6, List.of(99L)), result);
+        verify(materialReservationService, times(1)).release(MaterialVector.of(catalog.types()
+            .get("CASA").requirements().plus(catalog.types().get("LAGO").requirements()).toMap()));
+        verify(orderRepository).deleteAllByIdInBatch(List.of(3L, 1L));
+        verify(orderRepository, never()).deleteById(any());
+        verify(locationOccupancyService, times(2)).release(any(Coordinate.class));
+        verify(timelineAllocator).removeAll(List.of(3L, 1L));
+    }
+
+    @Test
+    void deleteOrder_TypeRemovedFromCatalog_ReleasesStoredReservation() {
+        // Arrange: el tipo se eliminó del catálogo después de crear la orden
+        testEntity.setTypeConstruction("CASTILLO");
+        testEntity.setReservedMaterials(Map.of("Ce", 80, "Ad", 20));
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(testEntity));
 
         // Act
         constructionRequestUseCase.deleteOrder(1L);
 
         // Assert
+        verify(materialReservationService).release(MaterialVector.of(Map.of("Ce", 80, "Ad", 20)));
         verify(orderRepository).deleteById(1L);
-        verify(materialRepository, times(2)).save(any(MaterialEntity.class));
+        verify(constructionTypeCatalog, never()).resolve(anyString());
+    }
+
+    @Test
+    void deleteOrdersMatching_NoMatches_DoesNothing() {
+        // Arrange
+        when(orderRepository.findByFilter(ConstructionStatus.PENDIENTE, null, LocalDate.now())).thenReturn(List.of());
+
+        // Act
+        BulkDeleteResult result = constructionRequestUseCase.deleteOrdersMatching("Pendiente", " ");
+
+        // Assert
+        assertEquals(0, result.deleted());
+        verifyNoInteractions(materialReservationService, timelineAllocator);
+        verify(orderRepository, never()).deleteAllByIdInBatch(any());
     }
 
     @Test
     void deleteOrder_NonExistingOrder_ThrowsException() {
         // Arrange
-        when(orderRepository.existsById(999L)).thenReturn(false);
+        when(orderRepository.findById(999L)).thenReturn(Optional.empty());
 
         // Act & Assert
         RuntimeException exception = assertThrows(
@@ -277,8 +531,6 @@ class ConstructionRequestUseCaseTest {
         );
         
         when(orderRepository.findById(1L)).thenReturn(Optional.of(testEntity));
-        when(materialRepository.findByCode("Ce")).thenReturn(Optional.of(cementoEntity));
-        when(materialRepository.findByCode("Gr")).thenReturn(Optional.of(gravaEntity));
         when(orderRepository.save(any(ConstructionOrderEntity.class))).thenReturn(testEntity);
         when(mapper.toDomain(testEntity)).thenReturn(updatedOrder);
 
@@ -293,6 +545,100 @@ class ConstructionRequestUseCaseTest {
         verify(orderRepository).save(any(ConstructionOrderEntity.class));
     }
 
+    @Test
+    void updateOrder_TypeChange_AppliesMaterialDeltaAndShiftsLaterOrders() {
+        // Arrange: CASA (5 días en la orden) pasa a EDIFICIO (6 días)
+        LocalDate entrega = testEntity.getEntregaDate();
+        ConstructionOrder updatedOrder = new ConstructionOrder(
+            1L, "Edificio del Futuro", testOrder.location(), "EDIFICIO",
+            "Pendiente", 6, LocalDate.now()
+        );
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(testEntity));
+        when(orderRepository.shiftOrdersStartingFrom(0, entrega.plusDays(1), 1)).thenReturn(4);
+        when(orderRepository.save(any(ConstructionOrderEntity.class))).thenReturn(testEntity);
+        when(mapper.toDomain(testEntity)).thenReturn(updatedOrder);
+
+        // Act
+        constructionRequestUseCase.updateOrder(1L, updatedOrder);
+
+        // Assert
+        MaterialVector delta = catalog.types().get("EDIFICIO").requirements()
+            .minus(catalog.types().get("CASA").requirements());
+        verify(materialReservationService).adjust(delta);
+        verify(materialReservationService, never()).checkAvailability(any());
+        verify(orderRepository).shiftOrdersStartingFrom(0, entrega.plusDays(1), 1);
+        verify(timelineAllocator).resize(1L, 1);
+        assertEquals(entrega.plusDays(1), testEntity.getEntregaDate());
+        assertEquals(6, testEntity.getEstimatedDays());
+    }
+
+    @Test
+    void updateOrder_CatalogChangedSinceCreation_AdjustsAgainstStoredReservation() {
+        // Arrange: la orden reservó menos cemento del que hoy pide CASA en el catálogo
+        testEntity.setReservedMaterials(Map.of("Ce", 30));
+        ConstructionOrder updatedOrder = new ConstructionOrder(
+            1L, "Edificio del Futuro", testOrder.location(), "EDIFICIO",
+            "Pendiente", 6, LocalDate.now()
+        );
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(testEntity));
+        when(orderRepository.save(any(ConstructionOrderEntity.class))).thenReturn(testEntity);
+        when(mapper.toDomain(testEntity)).thenReturn(updatedOrder);
+
+        // Act
+        constructionRequestUseCase.updateOrder(1L, updatedOrder);
+
+        // Assert
+        MaterialVector edificio = catalog.types().get("EDIFICIO").requirements();
+        verify(materialReservationService).adjust(edificio.minus(MaterialVector.of(Map.of("Ce", 30))));
+        assertEquals(edificio.toMap(), testEntity.getReservedMaterials());
+    }
+
+    @Test
+    void updateOrder_SameType_DoesNotTouchMaterialsOrTimeline() {
+        // Arrange
+        ConstructionOrder updatedOrder = new ConstructionOrder(
+            1L, "Casa Renombrada", testOrder.location(), "casa",
+            "Pendiente", 5, LocalDate.now()
+        );
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(testEntity));
+        when(orderRepository.save(any(ConstructionOrderEntity.class))).thenReturn(testEntity);
+        when(mapper.toDomain(testEntity)).thenReturn(updatedOrder);
+
+        // Act
+        constructionRequestUseCase.updateOrder(1L, updatedOrder);
+
+        // Assert
+        verifyNoInteractions(materialReservationService, timelineAllocator);
+        verify(orderRepository, never()).shiftOrdersStartingFrom(anyInt(), any(), anyInt());
+    }
+
+    @Test
+    void updateOrder_DerivedStatusMode_KeepsManualStatusUnlessCleared() {
+        // Arrange
+        when(statusPolicy.isDerived()).thenReturn(true);
+        testEntity.setEstado(ConstructionStatus.FINALIZADO);
+        ConstructionOrder echoed = new ConstructionOrder(
+            1L, "Casa Renombrada", testOrder.location(), "casa",
+            "En progreso", 5, LocalDate.now()
+        );
+        ConstructionOrder clearing = new ConstructionOrder(
+            1L, "Casa Renombrada", testOrder.location(), "casa",
+            "", 5, LocalDate.now()
+        );
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(testEntity));
+        when(orderRepository.save(testEntity)).thenReturn(testEntity);
+        when(mapper.toDomain(testEntity)).thenReturn(testOrder);
+
+        // Act
+        constructionRequestUseCase.updateOrder(1L, echoed);
+        ConstructionStatus afterEcho = testEntity.getEstado();
+        constructionRequestUseCase.updateOrder(1L, clearing);
+
+        // Assert
+        assertEquals(ConstructionStatus.FINALIZADO, afterEcho);
+        assertNull(testEntity.getEstado());
+    }
+
     @Test
     void updateOrder_NonExistingOrder_ThrowsException() {
         // Arrange
@@ -311,10 +657,13 @@ class ConstructionRequestUseCaseTest {
     @Test
     void validateConstructionRequest_ValidRequest_ReturnsValidTrue() {
         // Arrange
-        when(materialRepository.findByCode("Ce")).thenReturn(Optional.of(cementoEntity));
-        when(materialRepository.findByCode("Gr")).thenReturn(Optional.of(gravaEntity));
-        when(orderRepository.existsByLocationCoordinates(10.0, 20.0))
-            .thenReturn(false);
+        when(locationOccupancyService.isOccupied(testOrder.location())).thenReturn(false);
+        when(inventorySnapshot.current()).thenReturn(new InventorySnapshot.Snapshot(7, Map.of(
+            "Ce", new InventorySnapshot.MaterialStock("Cemento", 1000),
+            "Gr", new InventorySnapshot.MaterialStock("Grava", 800),
+            "Ar", new InventorySnapshot.MaterialStock("Arena", 1500),
+            "Ma", new InventorySnapshot.MaterialStock("Madera", 600),
+            "Ad", new InventorySnapshot.MaterialStock("Adobe", 400))));
 
         // Act
         Map<String, Object> result = constructionRequestUseCase.validateConstructionRequest(testOrder);
@@ -323,6 +672,8 @@ class ConstructionRequestUseCaseTest {
         assertNotNull(result);
         assertEquals(true, result.get("valid"));
         assertEquals("La solicitud de construcción puede realizarse", result.get("message"));
+        assertEquals(7L, result.get("snapshotVersion"));
+        verifyNoInteractions(materialReservationService, orderRepository);
         assertEquals(5, result.get("estimatedDays"));
     }
 
@@ -349,9 +700,8 @@ class ConstructionRequestUseCaseTest {
         List<ConstructionOrderEntity> entities = Arrays.asList(testEntity);
         when(orderRepository.findAll()).thenReturn(entities);
         when(mapper.toDomain(testEntity)).thenReturn(testOrder);
-        when(orderRepository.count()).thenReturn(1L);
-        when(orderRepository.findFirstByOrderByEntregaDateAsc()).thenReturn(Optional.of(testEntity));
-        when(orderRepository.findFirstByOrderByEntregaDateDesc()).thenReturn(Optional.of(testEntity));
+        when(timelineAllocator.summary()).thenReturn(new TimelineAllocator.Summary(1, 5,
+            testEntity.getStartDate(), testEntity.getEntregaDate()));
 
         // Act
         ConstructionReport result = constructionRequestUseCase.generateConstructionReport();
@@ -368,9 +718,8 @@ class ConstructionRequestUseCaseTest {
     @Test
     void getProjectSummary_WithOrders_ReturnsCorrectSummary() {
         // Arrange
-        when(orderRepository.count()).thenReturn(2L);
-        when(orderRepository.findFirstByOrderByEntregaDateAsc()).thenReturn(Optional.of(testEntity));
-        when(orderRepository.findFirstByOrderByEntregaDateDesc()).thenReturn(Optional.of(testEntity));
+        when(timelineAllocator.summary()).thenReturn(new TimelineAllocator.Summary(2, 8,
+            LocalDate.now().minusDays(2), LocalDate.now().plusDays(5)));
 
         // Act
         ProjectSummary result = constructionRequestUseCase.getProjectSummary();
@@ -378,6 +727,7 @@ class ConstructionRequestUseCaseTest {
         // Assert
         assertNotNull(result);
         assertEquals(2, result.totalOrders());
+        assertEquals(8, result.totalConstructionDays());
         assertEquals("En progreso", result.status());
         assertNotNull(result.projectStartDate());
         assertNotNull(result.projectEndDate());
@@ -386,73 +736,82 @@ class ConstructionRequestUseCaseTest {
     @Test
     void updateConstructionStatuses_UpdatesStatusesCorrectly() {
         // Arrange
-        List<ConstructionOrderEntity> pendingOrders = Arrays.asList(testEntity);
-        List<ConstructionOrderEntity> ordersToFinish = Arrays.asList();
-        
-        when(orderRepository.findPendingOrders()).thenReturn(pendingOrders);
-        when(orderRepository.findOrdersToFinishToday(any(LocalDate.class))).thenReturn(ordersToFinish);
+        when(statusRepository.startOrders(LocalDate.now())).thenReturn(List.of(1L, 2L));
+        when(statusRepository.finishOrders(LocalDate.now())).thenReturn(List.of(3L));
 
         // Act
         constructionRequestUseCase.updateConstructionStatuses();
 
+        // Assert: dos UPDATE por conjunto, sin cargar ni guardar órdenes una a una
+        verify(statusRepository).startOrders(LocalDate.now());
+        verify(statusRepository).finishOrders(LocalDate.now());
+        verify(orderRepository, never()).save(any());
+    }
+
+    @Test
+    void updateConstructionStatuses_DerivedStatusMode_WritesNothing() {
+        // Arrange
+        when(statusPolicy.isDerived()).thenReturn(true);
+
+        // Act
+        constructionRequestUseCase.updateConstructionStatuses();
+        OverdueOrderProcessor.Result overdue = constructionRequestUseCase.processOverdueOrders();
+
         // Assert
-        verify(orderRepository).findPendingOrders();
-        verify(orderRepository).findOrdersToFinishToday(any(LocalDate.class));
+        verifyNoInteractions(statusRepository);
+        assertEquals(0, overdue.processed());
     }
 
     @Test
     void getTotalConstructionDays_WithOrders_ReturnsCorrectTotal() {
         // Arrange
-        testEntity.setEstimatedDays(5);
-        ConstructionOrderEntity secondEntity = new ConstructionOrderEntity();
-        secondEntity.setEstimatedDays(3);
-        
-        when(orderRepository.findAll()).thenReturn(Arrays.asList(testEntity, secondEntity));
+        when(timelineAllocator.summary()).thenReturn(new TimelineAllocator.Summary(2, 8,
+            testEntity.getStartDate(), testEntity.getStartDate().plusDays(7)));
 
         // Act
         Integer result = constructionRequestUseCase.getTotalConstructionDays();
 
         // Assert
         assertEquals(8, result);
-        verify(orderRepository).findAll();
+        verify(orderRepository, never()).findAll();
     }
 
     @Test
     void getProjectStartDate_WithOrders_ReturnsCorrectDate() {
         // Arrange
-        when(orderRepository.findFirstByOrderByEntregaDateAsc()).thenReturn(Optional.of(testEntity));
+        when(timelineAllocator.summary()).thenReturn(new TimelineAllocator.Summary(1, 5,
+            testEntity.getStartDate(), testEntity.getEntregaDate()));
 
         // Act
         LocalDate result = constructionRequestUseCase.getProjectStartDate();
 
         // Assert
         assertEquals(testEntity.getStartDate(), result);
-        verify(orderRepository).findFirstByOrderByEntregaDateAsc();
     }
 
     @Test
     void getProjectEndDate_WithOrders_ReturnsCorrectDate() {
         // Arrange
-        when(orderRepository.findFirstByOrderByEntregaDateDesc()).thenReturn(Optional.of(testEntity));
+        when(timelineAllocator.summary()).thenReturn(new TimelineAllocator.Summary(1, 5,
+            testEntity.getStartDate(), testEntity.getEntregaDate()));
 
         // Act
         LocalDate result = constructionRequestUseCase.getProjectEndDate();
 
         // Assert
         assertEquals(testEntity.getEntregaDate(), result);
-        verify(orderRepository).findFirstByOrderByEntregaDateDesc();
     }
 
     @Test
     void getEstimatedDeliveryDate_WithOrders_ReturnsCorrectDate() {
         // Arrange
-        when(orderRepository.findFirstByOrderByEntregaDateDesc()).thenReturn(Optional.of(testEntity));
+        when(timelineAllocator.summary()).thenReturn(new TimelineAllocator.Summary(1, 5,
+            testEntity.getStartDate(), testEntity.getEntregaDate()));
 
         // Act
         LocalDate result = constructionRequestUseCase.getEstimatedDeliveryDate();
 
         // Assert
         assertEquals(testEntity.getEntregaDate(), result);
-        verify(orderRepository).findFirstByOrderByEntregaDateDesc();
     }
 }
\ No newline at end of file
@@ -0,0 +1,141 @@
+package com.cityfuture.infrastructure.service;
+
+import com.cityfuture.domain.model.ConstructionType;
+import com.cityfuture.infrastructure.mapper.ConstructionTypeMapper;
+import com.cityfuture.infrastructure.persistence.entity.ConstructionTypeEntity;
+import com.cityfuture.infrastructure.persistence.repository.JpaConstructionTypeRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConstructionTypeCatalogTest {
+
+    @Mock
+    private JpaConstructionTypeRepository typeRepository;
+
+    @Mock
+    private ConstructionTypeMapper typeMapper;
+
+    @InjectMocks
+    private ConstructionTypeCatalog constructionTypeCatalog;
+
+    private ConstructionType type(String name, int days, Map<String, Integer> materials) {
+        ConstructionType type = new ConstructionType();
+        type.setTypeName(name);
+        type.setEstimatedDays(days);
+        type.setMaterials(materials);
+        return type;
+    }
+
+    @Test
+    void compile_DifferentMaterials_SharesSortedSlotLayout() {
+        // Act
+        ConstructionTypeCatalog.Compiled compiled = ConstructionTypeCatalog.Compiled.compile(1, List.of(
+            type("CASA", 3, Map.of("Ce", 100, "Ad", 50)),
+            type("lago", 2, Map.of("Gr", 60))));
+
+        // Assert
+        assertArrayEquals(new String[]{"Ad", "Ce", "Gr"}, compiled.materialCodes());
+        assertArrayEquals(new int[]{50, 100, 0}, compiled.types().get("CASA").requirements().quantities());
+        assertArrayEquals(new int[]{0, 0, 60}, compiled.types().get("LAGO").requirements().quantities());
+    }
+
+    @Test
+    void resolve_IsCaseInsensitiveAndRejectsUnknownTypes() {
+        // Arrange
+        ConstructionTypeEntity entity = new ConstructionTypeEntity();
+        when(typeRepository.findAll()).thenReturn(List.of(entity));
+        when(typeMapper.toDomain(entity)).thenReturn(type("CASA", 3, Map.of("Ce", 100)));
+        constructionTypeCatalog.reload();
+
+        // Act
+        ConstructionTypeCatalog.CompiledType casa = constructionTypeCatalog.resolve("casa");
+
+        // Assert
+        assertEquals(3, casa.estimatedDays());
+        IllegalArgumentException exception = assertThrows(
+            IllegalArgumentException.class,
+            () -> constructionTypeCatalog.resolve("INVALID")
+        );
+        assertTrue(exception.getMessage().contains("Tipo de construcción no válido"));
+    }
+
+    @Test
+    void reload_PicksUpChangesWithoutRestart() {
+        // Arrange
+        ConstructionTypeEntity entity = new ConstructionTypeEntity();
+        when(typeRepository.findAll()).thenReturn(List.of(entity));
+        when(typeMapper.toDomain(entity))
+            .thenReturn(type("CASA", 3, Map.of("Ce", 100)))
+            .thenReturn(type("CASA", 4, Map.of("Ce", 120, "Ma", 10)));
+        constructionTypeCatalog.reload();
+        long firstVersion = constructionTypeCatalog.current().version();
+
+        // Act
+        constructionTypeCatalog.reload();
+
+        // Assert
+        assertEquals(firstVersion + 1, constructionTypeCatalog.current().version());
+        assertEquals(4, constructionTypeCatalog.resolve("CASA").estimatedDays());
+        assertEquals(Map.of("Ce", 120, "Ma", 10),
+            constructionTypeCatalog.resolve("CASA").requirements().toMap());
+    }
+
+    @Test
+    void reservedFor_CatalogChangedOrTypeRemoved_UsesStoredReservation() {
+        // Arrange: la orden reservó 100 de cemento y luego el tipo cambió a 120
+        ConstructionTypeEntity entity = new ConstructionTypeEntity();
+        when(typeRepository.findAll()).thenReturn(List.of(entity));
+        when(typeMapper.toDomain(entity)).thenReturn(type("CASA", 4, Map.of("Ce", 120)));
+        constructionTypeCatalog.reload();
+
+        // Act & Assert
+        assertEquals(Map.of("Ce", 100),
+            constructionTypeCatalog.reservedFor("CASA", Map.of("Ce", 100)).toMap());
+        assertEquals(Map.of("Ad", 50),
+            constructionTypeCatalog.reservedFor("CASTILLO", Map.of("Ad", 50)).toMap());
+    }
+
+    @Test
+    void reservedFor_LegacyOrderWithoutCopy_FallsBackToCatalogOrNothing() {
+        // Arrange
+        ConstructionTypeEntity entity = new ConstructionTypeEntity();
+        when(typeRepository.findAll()).thenReturn(List.of(entity));
+        when(typeMapper.toDomain(entity)).thenReturn(type("CASA", 3, Map.of("Ce", 100)));
+        constructionTypeCatalog.reload();
+
+        // Act & Assert
+        assertEquals(Map.of("Ce", 100), constructionTypeCatalog.reservedFor("casa", null).toMap());
+        assertTrue(constructionTypeCatalog.reservedFor("CASTILLO", null).isEmpty());
+    }
+
+    @Test
+    void refreshIfChanged_RecompilesOnlyWhenTypesChanged() {
+        // Arrange: otra réplica cambió los tipos en BD después de la carga inicial
+        ConstructionTypeEntity entity = new ConstructionTypeEntity();
+        when(typeRepository.findAll()).thenReturn(List.of(entity));
+        when(typeMapper.toDomain(entity)).thenReturn(type("CASA", 3, Map.of("Ce", 100)));
+        constructionTypeCatalog.reload();
+        long initialVersion = constructionTypeCatalog.current().version();
+        constructionTypeCatalog.refreshIfChanged();
+        long unchangedVersion = constructionTypeCatalog.current().version();
+        when(typeMapper.toDomain(entity)).thenReturn(type("CASA", 5, Map.of("Ce", 100)));
+
+        // Act
+        constructionTypeCatalog.refreshIfChanged();
+
+        // Assert
+        assertEquals(initialVersion, unchangedVersion);
+        assertEquals(initialVersion + 1, constructionTypeCatalog.current().version());
+        assertEquals(5, constructionTypeCatalog.resolve("casa").estimatedDays());
+    }
+}
@@ -0,0 +1,122 @@
+package com.cityfuture.infrastructure.service;
+
+import com.cityfuture.domain.event.InventoryChangedEvent;
+import com.cityfuture.infrastructure.persistence.entity.MaterialEntity;
+import com.cityfuture.infrastructure.persistence.repository.JpaMaterialRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InventorySnapshotTest {
+
+    @Mock
+    private JpaMaterialRepository materialRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private InventorySnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionManager.getTransaction(any()))
+            .thenReturn(new SimpleTransactionStatus());
+        snapshot = new InventorySnapshot(materialRepository, transactionManager);
+        MaterialEntity cemento = new MaterialEntity();
+        cemento.setCode("Ce");
+        cemento.setMaterialName("Cemento");
+        cemento.setQuantity(40);
+        lenient().when(materialRepository.findAll()).thenReturn(List.of(cemento));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.unbindResourceIfPossible(snapshot);
+    }
+
+    @Test
+    void onInventoryChanged_SeveralEventsInOneTransaction_ReloadsOnceAfterCommit() {
+        // Arrange
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        snapshot.onInventoryChanged(new InventoryChangedEvent("reserva"));
+        snapshot.onInventoryChanged(new InventoryChangedEvent("reserva"));
+        snapshot.onInventoryChanged(new InventoryChangedEvent("devolución"));
+        verify(materialRepository, never()).findAll();
+        List<TransactionSynchronization> synchronizations =
+            TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(sync ->
+            sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        // Assert
+        assertEquals(1, synchronizations.size());
+        verify(materialRepository, times(1)).findAll();
+        assertEquals(40, snapshot.current().materials().get("Ce").quantity());
+        assertFalse(TransactionSynchronizationManager.hasResource(snapshot));
+    }
+
+    @Test
+    void onInventoryChanged_RolledBack_KeepsPreviousSnapshot() {
+        // Arrange
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        snapshot.onInventoryChanged(new InventoryChangedEvent("reserva"));
+        TransactionSynchronizationManager.getSynchronizations().forEach(sync ->
+            sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        // Assert
+        verify(materialRepository, never()).findAll();
+        assertTrue(snapshot.current().materials().isEmpty());
+    }
+
+    @Test
+    void onInventoryChanged_WithoutTransaction_ReloadsImmediately() {
+        // Act
+        snapshot.onInventoryChanged(new InventoryChangedEvent("actualización de material"));
+
+        // Assert
+        verify(materialRepository).findAll();
+        assertEquals("Cemento", snapshot.current().materials().get("Ce").materialName());
+    }
+
+    @Test
+    void refreshIfChanged_ReplacesSnapshotOnlyWhenStockChanged() {
+        // Arrange: otra réplica confirma un cambio que no llega como evento a este nodo
+        snapshot.initialize();
+        long initialVersion = snapshot.current().version();
+        snapshot.refreshIfChanged();
+        long unchangedVersion = snapshot.current().version();
+        MaterialEntity restocked = new MaterialEntity();
+        restocked.setCode("Ce");
+        restocked.setMaterialName("Cemento");
+        restocked.setQuantity(90);
+        when(materialRepository.findAll()).thenReturn(List.of(restocked));
+
+        // Act
+        snapshot.refreshIfChanged();
+
+        // Assert
+        assertEquals(initialVersion, unchangedVersion);
+        assertTrue(snapshot.current().version() > initialVersion);
+        assertEquals(90, snapshot.current().materials().get("Ce").quantity());
+    }
+}
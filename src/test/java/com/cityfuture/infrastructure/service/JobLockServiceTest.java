@@ -0,0 +1,158 @@
+package com.cityfuture.infrastructure.service;
+
+import com.cityfuture.infrastructure.persistence.repository.JdbcConstructionStatusRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Contra H2 real: valida que el SQL del lease sea portable y que la exclusión se cumpla
+class JobLockServiceTest {
+
+    private final Clock clock = Clock.fixed(Instant.parse("2030-03-10T12:00:00Z"), ZoneOffset.UTC);
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true).build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE job_locks (job_name VARCHAR(255) PRIMARY KEY, "
+            + "owner VARCHAR(255) NOT NULL, locked_at TIMESTAMP WITH TIME ZONE NOT NULL, "
+            + "locked_until TIMESTAMP WITH TIME ZONE NOT NULL, fencing_token BIGINT NOT NULL)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    private JobLockService node(String nodeId, long minHoldSeconds) {
+        return new JobLockService(jdbcTemplate, nodeId, 600, minHoldSeconds, clock);
+    }
+
+    @Test
+    void tryAcquire_LeaseHeldByOtherNode_ReturnsNull() {
+        // Arrange
+        JobLockService first = node("nodo-1", 0);
+        JobLockService second = node("nodo-2", 0);
+
+        // Act
+        JobLockService.Lease lease = first.tryAcquire("reporte-diario");
+        JobLockService.Lease rejected = second.tryAcquire("reporte-diario");
+
+        // Assert
+        assertNotNull(lease);
+        assertEquals(1, lease.token());
+        assertNull(rejected);
+        assertTrue(first.isValid(lease));
+    }
+
+    @Test
+    void tryAcquire_LeaseTimesComeFromInjectedClock() {
+        // Act
+        JobLockService.Lease lease = node("nodo-1", 0).tryAcquire("reporte-diario");
+
+        // Assert
+        assertEquals(clock.instant(), lease.acquiredAt());
+        assertEquals(clock.instant().plusSeconds(600), jdbcTemplate.queryForObject(
+            "SELECT locked_until FROM job_locks WHERE job_name = 'reporte-diario'",
+            OffsetDateTime.class).toInstant());
+    }
+
+    @Test
+    void tryAcquire_ExpiredLease_IsTakenWithHigherTokenAndFencesPreviousOwner() {
+        // Arrange
+        JobLockService first = node("nodo-1", 0);
+        JobLockService second = node("nodo-2", 0);
+        JobLockService.Lease stale = first.tryAcquire("transiciones-estado");
+        jdbcTemplate.update("UPDATE job_locks SET locked_until = ?",
+            clock.instant().minusSeconds(5).atOffset(ZoneOffset.UTC));
+
+        // Act
+        JobLockService.Lease lease = second.tryAcquire("transiciones-estado");
+
+        // Assert
+        assertNotNull(lease);
+        assertEquals(2, lease.token());
+        assertFalse(first.isValid(stale));
+        assertTrue(second.isValid(lease));
+    }
+
+    @Test
+    void runExclusive_SecondReplicaFiringLate_SkipsWhileMinimumHoldLasts() {
+        // Arrange
+        JobLockService first = node("nodo-1", 30);
+        JobLockService second = node("nodo-2", 30);
+        AtomicInteger runs = new AtomicInteger();
+
+        // Act
+        boolean firstRan = first.runExclusive("reporte-diario", runs::incrementAndGet);
+        boolean secondRan = second.runExclusive("reporte-diario", runs::incrementAndGet);
+
+        // Assert
+        assertTrue(firstRan);
+        assertFalse(secondRan);
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void runExclusive_WithoutMinimumHold_ReleasesForNextRun() {
+        // Arrange
+        JobLockService first = node("nodo-1", 0);
+        JobLockService second = node("nodo-2", 0);
+
+        // Act
+        first.runExclusive("reporte-diario", () -> { });
+        boolean secondRan = second.runExclusive("reporte-diario", () -> { });
+
+        // Assert
+        assertTrue(secondRan);
+        assertEquals(2L, jdbcTemplate.queryForObject(
+            "SELECT fencing_token FROM job_locks WHERE job_name = 'reporte-diario'", Long.class));
+    }
+
+    @Test
+    void saveWatermark_LeaseTakenByOtherNode_WriteIsFencedOut() {
+        // Arrange
+        jdbcTemplate.execute("CREATE TABLE job_checkpoints (job_name VARCHAR(255) PRIMARY KEY, "
+            + "run_date DATE, last_id BIGINT, processed BIGINT, completed BOOLEAN NOT NULL, "
+            + "updated_at TIMESTAMP WITH TIME ZONE)");
+        JdbcConstructionStatusRepository statusRepository =
+            new JdbcConstructionStatusRepository(jdbcTemplate);
+        JobLockService first = node("nodo-1", 0);
+        JobLockService second = node("nodo-2", 0);
+        JobLockService.Lease stale = first.tryAcquire("transiciones-estado");
+        statusRepository.saveWatermark("transiciones-estado.inicio", LocalDate.of(2030, 3, 9),
+            stale);
+        jdbcTemplate.update("UPDATE job_locks SET locked_until = ?",
+            clock.instant().minusSeconds(5).atOffset(ZoneOffset.UTC));
+        JobLockService.Lease lease = second.tryAcquire("transiciones-estado");
+
+        // Act
+        assertThrows(IllegalStateException.class, () -> statusRepository.saveWatermark(
+            "transiciones-estado.inicio", LocalDate.of(2030, 3, 10), stale));
+        assertThrows(IllegalStateException.class, () -> statusRepository.saveWatermark(
+            "transiciones-estado.fin", LocalDate.of(2030, 3, 10), stale));
+        statusRepository.saveWatermark("transiciones-estado.fin", LocalDate.of(2030, 3, 9), lease);
+
+        // Assert
+        assertEquals(LocalDate.of(2030, 3, 9),
+            statusRepository.findWatermark("transiciones-estado.inicio"));
+        assertEquals(LocalDate.of(2030, 3, 9),
+            statusRepository.findWatermark("transiciones-estado.fin"));
+    }
+}
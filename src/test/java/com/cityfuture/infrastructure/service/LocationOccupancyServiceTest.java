@@ -0,0 +1,183 @@
+package com.cityfuture.infrastructure.service;
+
+import com.cityfuture.domain.exception.LocationAlreadyOccupiedException;
+import com.cityfuture.domain.model.Coordinate;
+import com.cityfuture.infrastructure.persistence.entity.CoordinateEmbeddable;
+import com.cityfuture.infrastructure.persistence.repository.JpaConstructionOrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LocationOccupancyServiceTest {
+
+    @Mock
+    private JpaConstructionOrderRepository orderRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private CoordinateEmbeddable existing;
+
+    @BeforeEach
+    void setUp() {
+        existing = new CoordinateEmbeddable();
+        existing.setLatitude(4.6097);
+        existing.setLongitude(-74.0817);
+    }
+
+    @Test
+    void isOccupied_AfterRebuild_DetectsExistingLocation() {
+        // Arrange
+        when(orderRepository.findAllLocations()).thenReturn(List.of(existing));
+        when(orderRepository.findLocationsWithin(anyDouble(), anyDouble(), anyDouble(),
+            anyDouble())).thenReturn(List.of(existing));
+        LocationOccupancyService service =
+            new LocationOccupancyService(orderRepository, jdbcTemplate, 0);
+
+        // Act
+        service.rebuild();
+
+        // Assert
+        assertTrue(service.isOccupied(new Coordinate(4.6097, -74.0817)));
+        assertFalse(service.isOccupied(new Coordinate(4.6098, -74.0817)));
+    }
+
+    @Test
+    void claim_SameLocationTwice_ThrowsException() {
+        // Arrange
+        LocationOccupancyService service =
+            new LocationOccupancyService(orderRepository, jdbcTemplate, 0);
+        service.claim(new Coordinate(10.0, 20.0));
+
+        // Act & Assert
+        LocationAlreadyOccupiedException exception = assertThrows(
+            LocationAlreadyOccupiedException.class,
+            () -> service.claim(new Coordinate(10.0, 20.0))
+        );
+
+        assertTrue(exception.getMessage().contains("coordenadas"));
+    }
+
+    @Test
+    void claim_WithinMinimumDistance_ThrowsException() {
+        // Arrange
+        LocationOccupancyService service =
+            new LocationOccupancyService(orderRepository, jdbcTemplate, 50);
+        service.claim(new Coordinate(4.6097, -74.0817));
+
+        // Act & Assert: ~22 m al norte está dentro del radio; ~111 m queda fuera
+        assertThrows(
+            LocationAlreadyOccupiedException.class,
+            () -> service.claim(new Coordinate(4.6099, -74.0817))
+        );
+        assertDoesNotThrow(() -> service.claim(new Coordinate(4.6107, -74.0817)));
+    }
+
+    @Test
+    void release_WithoutTransaction_FreesLocation() {
+        // Arrange
+        LocationOccupancyService service =
+            new LocationOccupancyService(orderRepository, jdbcTemplate, 0);
+        Coordinate location = new Coordinate(10.0, 20.0);
+        service.claim(location);
+
+        // Act
+        service.release(location);
+
+        // Assert
+        assertFalse(service.isOccupied(location));
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    void isOccupied_LocationDeletedOnOtherReplica_ForgetsStaleEntry() {
+        // Arrange: la orden figura en memoria pero otra réplica ya la eliminó
+        when(orderRepository.findAllLocations()).thenReturn(List.of(existing));
+        LocationOccupancyService service =
+            new LocationOccupancyService(orderRepository, jdbcTemplate, 0);
+        service.rebuild();
+
+        // Act
+        boolean first = service.isOccupied(new Coordinate(4.6097, -74.0817));
+        boolean second = service.isOccupied(new Coordinate(4.6097, -74.0817));
+
+        // Assert
+        assertFalse(first);
+        assertFalse(second);
+        verify(orderRepository, times(1)).findLocationsWithin(anyDouble(), anyDouble(),
+            anyDouble(), anyDouble());
+    }
+
+    @Test
+    void isOccupied_CoordinateInSameCellAsStoredValue_IsSameLocation() {
+        // Arrange: el valor guardado se redondea con la misma celda que la clave en memoria
+        CoordinateEmbeddable stored = new CoordinateEmbeddable();
+        stored.setLatitude(4.60970003);
+        stored.setLongitude(-74.0817);
+        when(orderRepository.findAllLocations()).thenReturn(List.of(stored));
+        when(orderRepository.findLocationsWithin(anyDouble(), anyDouble(), anyDouble(),
+            anyDouble())).thenReturn(List.of(stored));
+        LocationOccupancyService service =
+            new LocationOccupancyService(orderRepository, jdbcTemplate, 0);
+        service.rebuild();
+
+        // Act
+        boolean occupied = service.isOccupied(new Coordinate(4.6097, -74.08170004));
+
+        // Assert
+        assertEquals(4.6097, stored.getLatitude());
+        assertTrue(occupied);
+    }
+
+    @Test
+    void claim_NearLocationStoredByOtherReplica_ThrowsException() {
+        // Arrange: este nodo no la conoce, pero está guardada ~22 m al norte
+        CoordinateEmbeddable near = new CoordinateEmbeddable();
+        near.setLatitude(4.6099);
+        near.setLongitude(-74.0817);
+        when(orderRepository.findLocationsWithin(anyDouble(), anyDouble(), anyDouble(),
+            anyDouble())).thenReturn(List.of(near));
+        LocationOccupancyService service =
+            new LocationOccupancyService(orderRepository, jdbcTemplate, 50);
+
+        // Act & Assert
+        assertThrows(LocationAlreadyOccupiedException.class,
+            () -> service.claim(new Coordinate(4.6097, -74.0817)));
+    }
+
+    @Test
+    void claim_MinimumDistanceInTransaction_LocksLocationRowOncePerTransaction() {
+        // Arrange
+        when(jdbcTemplate.queryForList(anyString(), eq(Integer.class))).thenReturn(List.of(1));
+        LocationOccupancyService service =
+            new LocationOccupancyService(orderRepository, jdbcTemplate, 50);
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            // Act
+            service.claim(new Coordinate(4.6097, -74.0817));
+            service.claim(new Coordinate(4.6107, -74.0817));
+        } finally {
+            TransactionSynchronizationManager.getSynchronizations().forEach(
+                sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            TransactionSynchronizationManager.clearSynchronization();
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+
+        // Assert
+        verify(jdbcTemplate, times(1)).queryForList(contains("FOR UPDATE"), eq(Integer.class));
+        verify(orderRepository, times(2)).findLocationsWithin(anyDouble(), anyDouble(),
+            anyDouble(), anyDouble());
+    }
+}
@@ -0,0 +1,212 @@
+package com.cityfuture.infrastructure.service;
+
+import com.cityfuture.domain.event.InventoryChangedEvent;
+import com.cityfuture.domain.exception.InsufficientMaterialException;
+import com.cityfuture.domain.model.MaterialVector;
+import com.cityfuture.infrastructure.persistence.entity.MaterialEntity;
+import com.cityfuture.infrastructure.persistence.repository.JpaMaterialRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MaterialReservationServiceTest {
+
+    @Mock
+    private JpaMaterialRepository materialRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private MaterialWriteGuard materialWriteGuard;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @InjectMocks
+    private MaterialReservationService materialReservationService;
+
+    private MaterialEntity cementoEntity;
+    private MaterialEntity gravaEntity;
+    private MaterialVector required;
+
+    @BeforeEach
+    void setUp() {
+        cementoEntity = new MaterialEntity();
+        cementoEntity.setId(1L);
+        cementoEntity.setCode("Ce");
+        cementoEntity.setMaterialName("Cemento");
+        cementoEntity.setQuantity(100);
+
+        gravaEntity = new MaterialEntity();
+        gravaEntity.setId(2L);
+        gravaEntity.setCode("Gr");
+        gravaEntity.setMaterialName("Grava");
+        gravaEntity.setQuantity(50);
+
+        // Slots: Ce, Gr, Ma (Madera no se requiere)
+        required = new MaterialVector(new String[]{"Ce", "Gr", "Ma"}, new int[]{80, 40, 0});
+    }
+
+    @Test
+    void reserve_EnoughStock_DecrementsWithSingleLookup() {
+        // Arrange
+        when(materialRepository.findByCodeIn(Set.of("Ce", "Gr")))
+            .thenReturn(Arrays.asList(cementoEntity, gravaEntity));
+        when(materialRepository.decrementIfAvailable(anyString(), anyInt())).thenReturn(1);
+
+        // Act
+        materialReservationService.reserve(required);
+
+        // Assert
+        verify(materialRepository, times(1)).findByCodeIn(anyCollection());
+        verify(materialRepository).decrementIfAvailable("Ce", 80);
+        verify(materialRepository).decrementIfAvailable("Gr", 40);
+        verify(entityManager).detach(cementoEntity);
+        verify(entityManager).detach(gravaEntity);
+        verify(materialRepository, never()).findByCode(anyString());
+        verify(materialRepository, never()).save(any());
+        verify(eventPublisher).publishEvent(any(InventoryChangedEvent.class));
+        verify(materialWriteGuard).lockForTransaction(Set.of("Ce", "Gr"));
+    }
+
+    @Test
+    void reserve_InsufficientStock_ReportsEveryDeficit() {
+        // Arrange
+        cementoEntity.setQuantity(10);
+        gravaEntity.setQuantity(5);
+        when(materialRepository.findByCodeIn(Set.of("Ce", "Gr")))
+            .thenReturn(Arrays.asList(cementoEntity, gravaEntity));
+
+        // Act & Assert
+        InsufficientMaterialException exception = assertThrows(
+            InsufficientMaterialException.class,
+            () -> materialReservationService.reserve(required)
+        );
+
+        assertTrue(exception.getMessage().contains("Cemento (Ce)"));
+        assertTrue(exception.getMessage().contains("Grava (Gr)"));
+        verify(materialRepository, never()).decrementIfAvailable(anyString(), anyInt());
+    }
+
+    @Test
+    void reserve_GuardFailsConcurrently_ThrowsWithCurrentStock() {
+        // Arrange
+        MaterialEntity consumedGrava = new MaterialEntity();
+        consumedGrava.setCode("Gr");
+        consumedGrava.setMaterialName("Grava");
+        consumedGrava.setQuantity(10);
+
+        when(materialRepository.findByCodeIn(anyCollection()))
+            .thenReturn(Arrays.asList(cementoEntity, gravaEntity))
+            .thenReturn(List.of(consumedGrava));
+        when(materialRepository.decrementIfAvailable("Ce", 80)).thenReturn(1);
+        when(materialRepository.decrementIfAvailable("Gr", 40)).thenReturn(0);
+
+        // Act & Assert
+        InsufficientMaterialException exception = assertThrows(
+            InsufficientMaterialException.class,
+            () -> materialReservationService.reserve(required)
+        );
+
+        assertTrue(exception.getMessage().contains("Disponible: 10"));
+        assertFalse(exception.getMessage().contains("Cemento"));
+    }
+
+    @Test
+    void reserve_StockRestoredBeforeRecheck_ReportsFailedRequest() {
+        // Arrange: el descuento falla, pero al releer el stock ya alcanza otra vez
+        MaterialEntity restoredGrava = new MaterialEntity();
+        restoredGrava.setCode("Gr");
+        restoredGrava.setMaterialName("Grava");
+        restoredGrava.setQuantity(60);
+
+        when(materialRepository.findByCodeIn(anyCollection()))
+            .thenReturn(Arrays.asList(cementoEntity, gravaEntity))
+            .thenReturn(List.of(restoredGrava));
+        when(materialRepository.decrementIfAvailable("Ce", 80)).thenReturn(1);
+        when(materialRepository.decrementIfAvailable("Gr", 40)).thenReturn(0);
+
+        // Act & Assert
+        InsufficientMaterialException exception = assertThrows(
+            InsufficientMaterialException.class,
+            () -> materialReservationService.reserve(required)
+        );
+
+        assertTrue(exception.getMessage().contains("Gr - Requerido: 40"));
+        assertFalse(exception.getMessage().contains("Ce"));
+    }
+
+    @Test
+    void reserve_UnknownMaterial_ThrowsException() {
+        // Arrange
+        when(materialRepository.findByCodeIn(Set.of("Ce", "Gr")))
+            .thenReturn(List.of(cementoEntity));
+
+        // Act & Assert
+        InsufficientMaterialException exception = assertThrows(
+            InsufficientMaterialException.class,
+            () -> materialReservationService.reserve(required)
+        );
+
+        assertTrue(exception.getMessage().contains("Material no encontrado: Gr"));
+    }
+
+    @Test
+    void release_IncrementsEveryMaterial() {
+        // Arrange
+        when(materialRepository.increment(anyString(), anyInt())).thenReturn(1);
+
+        // Act
+        materialReservationService.release(required);
+
+        // Assert
+        verify(materialRepository).increment("Ce", 80);
+        verify(materialRepository).increment("Gr", 40);
+        verify(materialRepository, never()).increment(eq("Ma"), anyInt());
+    }
+
+    @Test
+    void adjust_TypeChange_ReservesIncreaseAndReturnsDecreaseUnderOneLock() {
+        // Arrange: el nuevo tipo usa 30 más de cemento y 20 menos de grava
+        MaterialVector delta = new MaterialVector(new String[]{"Ce", "Gr", "Ma"},
+            new int[]{30, -20, 0});
+        when(materialRepository.findByCodeIn(Set.of("Ce", "Gr")))
+            .thenReturn(Arrays.asList(cementoEntity, gravaEntity));
+        when(materialRepository.decrementIfAvailable("Ce", 30)).thenReturn(1);
+        when(materialRepository.increment("Gr", 20)).thenReturn(1);
+
+        // Act
+        materialReservationService.adjust(delta);
+
+        // Assert
+        verify(materialWriteGuard, times(1)).lockForTransaction(Set.of("Ce", "Gr"));
+        verify(materialRepository).decrementIfAvailable("Ce", 30);
+        verify(materialRepository).increment("Gr", 20);
+        verify(materialRepository, never()).decrementIfAvailable(eq("Gr"), anyInt());
+        verify(eventPublisher, times(1)).publishEvent(any(InventoryChangedEvent.class));
+    }
+
+    @Test
+    void adjust_SameRequirements_DoesNothing() {
+        // Act
+        materialReservationService.adjust(new MaterialVector(new String[]{"Ce"}, new int[]{0}));
+
+        // Assert
+        verifyNoInteractions(materialRepository, materialWriteGuard, eventPublisher);
+    }
+}
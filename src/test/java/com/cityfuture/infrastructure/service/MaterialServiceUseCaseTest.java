@@ -2,6 +2,7 @@ package com.cityfuture.infrastructure.service;
 
 import com.cityfuture.api.exception.MaterialAlreadyExistsException;
 import com.cityfuture.api.exception.MaterialNotFoundException;
+import com.cityfuture.api.exception.MaterialVersionConflictException;
 import com.cityfuture.domain.model.Material;
 import com.cityfuture.infrastructure.mapper.MaterialMapper;
 import com.cityfuture.infrastructure.persistence.entity.MaterialEntity;
@@ -12,10 +13,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -30,6 +35,12 @@ class MaterialServiceUseCaseTest {
     @Mock
     private MaterialMapper mapper;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private MaterialWriteGuard materialWriteGuard;
+
     @InjectMocks
     private MaterialServiceUseCase materialServiceUseCase;
 
@@ -39,7 +50,7 @@ class MaterialServiceUseCaseTest {
     @BeforeEach
     void setUp() {
         // Material domain model
-        testMaterial = new Material(1L, "Cemento", "Ce", 100);
+        testMaterial = new Material(1L, "Cemento", "Ce", 100, null);
 
         // Material entity
         testEntity = new MaterialEntity();
@@ -50,6 +61,9 @@ class MaterialServiceUseCaseTest {
 
         // Material stock entity
 
+        // El guard ejecuta la escritura en el mismo hilo
+        lenient().when(materialWriteGuard.write(anyCollection(), any()))
+            .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
     }
 
     @Test
@@ -163,13 +177,14 @@ class MaterialServiceUseCaseTest {
     @Test
     void updateMaterial_ExistingMaterial_UpdatesSuccessfully() {
         // Arrange
-        Material updatedMaterial = new Material(1L, "Cemento Premium", "Ce", 150);
+        Material updatedMaterial = new Material(1L, "Cemento Premium", "Ce", 150, 4L);
         MaterialEntity updatedEntity = new MaterialEntity();
         updatedEntity.setId(1L);
         updatedEntity.setMaterialName("Cemento Premium");
         updatedEntity.setCode("Ce");
         updatedEntity.setQuantity(150);
 
+        testEntity.setVersion(4L);
         when(materialRepository.findByMaterialName("Cemento Premium"))
             .thenReturn(Optional.empty());
         when(materialRepository.findById(1L)).thenReturn(Optional.of(testEntity));
@@ -185,15 +200,86 @@ class MaterialServiceUseCaseTest {
         assertEquals("Cemento Premium", result.materialName());
         assertEquals(150, result.quantity());
 
-        verify(materialRepository).findById(1L);
+        verify(materialRepository, times(2)).findById(1L);
         verify(materialRepository).save(any(MaterialEntity.class));
         verify(mapper).toDomain(updatedEntity);
+        verify(materialWriteGuard).write(eq(Set.of("Ce")), any());
+        assertEquals(4L, updatedEntity.getVersion());
+    }
+
+    @Test
+    void updateMaterial_StaleClientVersion_ThrowsConflictWithoutSaving() {
+        // Arrange
+        Material staleMaterial = new Material(1L, "Cemento Premium", "Ce", 150, 3L);
+        testEntity.setVersion(4L);
+        when(materialRepository.findByMaterialName("Cemento Premium"))
+            .thenReturn(Optional.empty());
+        when(materialRepository.findById(1L)).thenReturn(Optional.of(testEntity));
+
+        // Act & Assert
+        assertThrows(MaterialVersionConflictException.class,
+            () -> materialServiceUseCase.updateMaterial(1L, staleMaterial));
+
+        verify(materialRepository, never()).save(any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void updateMaterial_ConcurrentCommitOnSave_ThrowsConflict() {
+        // Arrange: la versión coincide al leer, pero otro nodo confirmó antes del UPDATE
+        Material updatedMaterial = new Material(1L, "Cemento Premium", "Ce", 150, 4L);
+        MaterialEntity updatedEntity = new MaterialEntity();
+        testEntity.setVersion(4L);
+        when(materialRepository.findByMaterialName("Cemento Premium"))
+            .thenReturn(Optional.empty());
+        when(materialRepository.findById(1L)).thenReturn(Optional.of(testEntity));
+        when(mapper.toEntity(updatedMaterial)).thenReturn(updatedEntity);
+        when(materialRepository.save(updatedEntity))
+            .thenThrow(new OptimisticLockingFailureException("versión desactualizada"));
+
+        // Act & Assert
+        assertThrows(MaterialVersionConflictException.class,
+            () -> materialServiceUseCase.updateMaterial(1L, updatedMaterial));
+        verify(materialWriteGuard, times(1)).write(anyCollection(), any());
+    }
+
+    @Test
+    void updateMaterial_CodeChanged_LocksStoredAndNewCode() {
+        // Arrange
+        Material renamed = new Material(1L, "Cemento", "Cm", 100, 2L);
+        MaterialEntity renamedEntity = new MaterialEntity();
+        renamedEntity.setCode("Cm");
+        testEntity.setVersion(2L);
+        when(materialRepository.findByMaterialName("Cemento")).thenReturn(Optional.of(testEntity));
+        when(materialRepository.findById(1L)).thenReturn(Optional.of(testEntity));
+        when(mapper.toEntity(renamed)).thenReturn(renamedEntity);
+        when(materialRepository.save(renamedEntity)).thenReturn(renamedEntity);
+        when(mapper.toDomain(renamedEntity)).thenReturn(renamed);
+
+        // Act
+        materialServiceUseCase.updateMaterial(1L, renamed);
+
+        // Assert
+        verify(materialWriteGuard).write(eq(Set.of("Ce", "Cm")), any());
+    }
+
+    @Test
+    void updateMaterial_WithoutVersion_ThrowsIllegalArgument() {
+        // Arrange
+        Material unversioned = new Material(1L, "Cemento", "Ce", 150, null);
+        when(materialRepository.findByMaterialName("Cemento")).thenReturn(Optional.of(testEntity));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+            () -> materialServiceUseCase.updateMaterial(1L, unversioned));
+
+        verify(materialWriteGuard, never()).write(anyCollection(), any());
     }
 
     @Test
     void updateMaterial_NonExistingId_ThrowsNotFoundException() {
         // Arrange
-        Material updatedMaterial = new Material(999L, "Material Test", "MT", 50);
+        Material updatedMaterial = new Material(999L, "Material Test", "MT", 50, 1L);
         when(materialRepository.findByMaterialName("Material Test"))
             .thenReturn(Optional.empty());
         when(materialRepository.findById(999L)).thenReturn(Optional.empty());
@@ -216,7 +302,7 @@ class MaterialServiceUseCaseTest {
         existingEntity.setId(2L);
         existingEntity.setMaterialName("Cemento Premium");
 
-        Material updatedMaterial = new Material(1L, "Cemento Premium", "Ce", 150);
+        Material updatedMaterial = new Material(1L, "Cemento Premium", "Ce", 150, null);
         when(materialRepository.findByMaterialName("Cemento Premium"))
             .thenReturn(Optional.of(existingEntity));
 
@@ -234,7 +320,7 @@ class MaterialServiceUseCaseTest {
     @Test
     void updateMaterial_SameNameForSameMaterial_AllowsUpdate() {
         // Arrange
-        Material updatedMaterial = new Material(1L, "Cemento", "Ce", 150);
+        Material updatedMaterial = new Material(1L, "Cemento", "Ce", 150, 0L);
         MaterialEntity updatedEntity = new MaterialEntity();
         updatedEntity.setId(1L);
         updatedEntity.setMaterialName("Cemento");
@@ -243,6 +329,7 @@ class MaterialServiceUseCaseTest {
 
         when(materialRepository.findByMaterialName("Cemento"))
             .thenReturn(Optional.of(testEntity));
+        testEntity.setVersion(0L);
         when(materialRepository.findById(1L)).thenReturn(Optional.of(testEntity));
         when(mapper.toEntity(updatedMaterial)).thenReturn(updatedEntity);
         when(materialRepository.save(any(MaterialEntity.class))).thenReturn(updatedEntity);
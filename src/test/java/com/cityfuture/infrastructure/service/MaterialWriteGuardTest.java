@@ -0,0 +1,123 @@
+package com.cityfuture.infrastructure.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MaterialWriteGuardTest {
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private MaterialWriteGuard guard;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionManager.getTransaction(any()))
+            .thenReturn(new SimpleTransactionStatus());
+        meterRegistry = new SimpleMeterRegistry();
+        guard = new MaterialWriteGuard(transactionManager, meterRegistry, 64, 50);
+    }
+
+    @Test
+    void write_VersionConflict_PropagatesWithoutRetry() {
+        // Arrange
+        AtomicInteger attempts = new AtomicInteger();
+
+        // Act & Assert: la versión la fija el cliente, reintentar daría el mismo conflicto
+        assertThrows(OptimisticLockingFailureException.class, () -> guard.write(List.of("Ce"), () -> {
+            attempts.incrementAndGet();
+            throw new OptimisticLockingFailureException("versión desactualizada");
+        }));
+        assertEquals(1, attempts.get());
+        assertEquals(1.0, meterRegistry.get("cityfuture.materials.optimistic.conflicts")
+            .counter().count());
+    }
+
+    @Test
+    void lockForTransaction_BusyStripeBelowHeldOne_FailsWithoutWaiting() throws Exception {
+        // Arrange: otro hilo retiene "Ce" (franja 2) mientras la transacción ya tiene "Gr" (11)
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> other = CompletableFuture.supplyAsync(
+            () -> guard.write(List.of("Ce"), () -> {
+                locked.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "cemento";
+            }));
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+        TransactionSynchronizationManager.initSynchronization();
+
+        try {
+            guard.lockForTransaction(List.of("Gr"));
+            guard.lockForTransaction(List.of("Gr"));
+
+            // Act & Assert
+            assertThrows(CannotAcquireLockException.class,
+                () -> guard.lockForTransaction(List.of("Ce")));
+            assertEquals(1.0, meterRegistry.get("cityfuture.materials.lock.out_of_order")
+                .counter().count());
+            assertEquals(0.0, meterRegistry.get("cityfuture.materials.lock.timeouts")
+                .counter().count());
+        } finally {
+            TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+            TransactionSynchronizationManager.clearSynchronization();
+            release.countDown();
+        }
+        assertEquals("cemento", other.get(5, TimeUnit.SECONDS));
+
+        // Las franjas de la transacción quedaron libres al terminarla
+        assertEquals("grava", guard.write(List.of("Gr"), () -> "grava"));
+    }
+
+    @Test
+    void write_DisjointMaterials_DoNotBlockEachOther() throws Exception {
+        // Act: mientras "Ce" está bloqueado, otro hilo escribe "Gr" y otro intenta "Ce"
+        String result = guard.write(List.of("Ce"), () -> {
+            CompletableFuture<String> disjoint = CompletableFuture.supplyAsync(
+                () -> guard.write(List.of("Gr"), () -> "grava"));
+            CompletableFuture<String> same = CompletableFuture.supplyAsync(
+                () -> guard.write(List.of("Ce"), () -> "cemento"));
+            try {
+                assertEquals("grava", disjoint.get(1, TimeUnit.SECONDS));
+                Exception exception = assertThrows(Exception.class,
+                    () -> same.get(1, TimeUnit.SECONDS));
+                assertInstanceOf(CannotAcquireLockException.class, exception.getCause());
+            } catch (Exception e) {
+                fail(e);
+            }
+            return "ok";
+        });
+
+        // Assert
+        assertEquals("ok", result);
+        assertEquals(1.0, meterRegistry.get("cityfuture.materials.lock.timeouts")
+            .counter().count());
+    }
+}
@@ -0,0 +1,153 @@
+package com.cityfuture.infrastructure.service;
+
+import com.cityfuture.domain.exception.InsufficientMaterialException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderCommandPipelineTest {
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private OrderCommandPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionManager.getTransaction(any()))
+            .thenReturn(new SimpleTransactionStatus());
+        pipeline = new OrderCommandPipeline(transactionManager, 16, 8, 5000);
+        pipeline.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.stop();
+    }
+
+    @Test
+    void execute_ReturnsCommandResultAfterCommit() {
+        // Act
+        String result = pipeline.execute("crear", () -> "orden-1");
+
+        // Assert
+        assertEquals("orden-1", result);
+        verify(transactionManager, atLeastOnce()).commit(any());
+    }
+
+    @Test
+    void execute_FailingCommand_PropagatesOriginalException() {
+        // Act & Assert
+        assertThrows(
+            InsufficientMaterialException.class,
+            () -> pipeline.execute("crear", () -> {
+                throw new InsufficientMaterialException("Materiales insuficientes");
+            })
+        );
+    }
+
+    @Test
+    void submit_FailingCommandInBatch_DoesNotAffectOthers() {
+        // Act
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            int value = i;
+            futures.add(pipeline.submit("crear", () -> {
+                if (value == 3) {
+                    throw new IllegalArgumentException("Tipo de construcción no válido");
+                }
+                return value;
+            }));
+        }
+
+        // Assert
+        for (int i = 0; i < 6; i++) {
+            if (i == 3) {
+                CompletableFuture<Integer> failed = futures.get(i);
+                CompletionException exception = assertThrows(CompletionException.class, failed::join);
+                assertInstanceOf(IllegalArgumentException.class, exception.getCause());
+            } else {
+                assertEquals(i, futures.get(i).join());
+            }
+        }
+    }
+
+    @Test
+    void submit_AfterStop_RejectsCommand() {
+        // Arrange
+        pipeline.stop();
+
+        // Act
+        CompletableFuture<String> future = pipeline.submit("crear", () -> "orden");
+
+        // Assert
+        CompletionException exception = assertThrows(CompletionException.class, future::join);
+        assertInstanceOf(RejectedExecutionException.class, exception.getCause());
+    }
+
+    @Test
+    void execute_CommandThrowsError_FailsCommandAndStopsAcceptingCommands() {
+        // Act
+        assertThrows(
+            StackOverflowError.class,
+            () -> pipeline.execute("crear", () -> {
+                throw new StackOverflowError();
+            })
+        );
+        CompletableFuture<String> next = pipeline.submit("crear", () -> "orden");
+
+        // Assert: el escritor terminó, así que el comando siguiente se rechaza en vez de quedar
+        // esperando para siempre
+        CompletionException exception = assertThrows(CompletionException.class, next::join);
+        assertInstanceOf(RejectedExecutionException.class, exception.getCause());
+    }
+
+    @Test
+    void execute_ResultNotReadyInTime_RejectsQueuedCommand() throws InterruptedException {
+        // Arrange: el escritor queda ocupado con un comando que espera
+        OrderCommandPipeline slowPipeline = new OrderCommandPipeline(transactionManager, 16, 1, 50);
+        slowPipeline.start();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        slowPipeline.submit("lento", () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "lento";
+        });
+        started.await();
+        List<String> executed = new ArrayList<>();
+
+        try {
+            // Act & Assert
+            assertThrows(
+                RejectedExecutionException.class,
+                () -> slowPipeline.execute("crear", () -> executed.add("orden"))
+            );
+        } finally {
+            release.countDown();
+            slowPipeline.stop();
+        }
+        assertTrue(executed.isEmpty());
+    }
+}
@@ -0,0 +1,131 @@
+package com.cityfuture.infrastructure.service;
+
+import com.cityfuture.domain.model.ConstructionStatus;
+import com.cityfuture.infrastructure.persistence.entity.JobCheckpointEntity;
+import com.cityfuture.infrastructure.persistence.repository.JdbcConstructionStatusRepository;
+import com.cityfuture.infrastructure.persistence.repository.JdbcConstructionStatusRepository.OverdueRow;
+import com.cityfuture.infrastructure.persistence.repository.JpaJobCheckpointRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OverdueOrderProcessorTest {
+
+    @Mock
+    private JdbcConstructionStatusRepository statusRepository;
+
+    @Mock
+    private JpaJobCheckpointRepository checkpointRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OverdueOrderProcessor processor;
+    private LocalDate today;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionManager.getTransaction(any()))
+            .thenReturn(new SimpleTransactionStatus());
+        meterRegistry = new SimpleMeterRegistry();
+        Clock clock = Clock.fixed(Instant.parse("2030-03-10T12:00:00Z"), ZoneOffset.UTC);
+        processor = new OverdueOrderProcessor(statusRepository, checkpointRepository,
+            transactionManager, meterRegistry, 2, clock);
+        today = LocalDate.now(clock);
+    }
+
+    @Test
+    void process_SeveralChunks_UpdatesEachChunkInOneBatchAndCommitsSeparately() {
+        // Arrange: tres órdenes vencidas en tramos de dos; la 3 ya debía estar entregada
+        when(checkpointRepository.findById(OverdueOrderProcessor.JOB_NAME))
+            .thenReturn(Optional.empty());
+        when(statusRepository.findOverdueAfter(0L, today, 2)).thenReturn(List.of(
+            new OverdueRow(1L, today, today.plusDays(2)),
+            new OverdueRow(3L, today.minusDays(5), today.minusDays(1))));
+        when(statusRepository.findOverdueAfter(3L, today, 2)).thenReturn(List.of(
+            new OverdueRow(8L, today.minusDays(1), today)));
+        when(statusRepository.findOverdueAfter(8L, today, 2)).thenReturn(List.of());
+        when(statusRepository.updateStatuses(anyMap(), eq(ConstructionStatus.PENDIENTE)))
+            .thenAnswer(invocation -> invocation.<Map<?, ?>>getArgument(0).size());
+
+        // Act
+        OverdueOrderProcessor.Result result = processor.process();
+
+        // Assert
+        assertEquals(3, result.processed());
+        assertEquals(2, result.chunks());
+        assertFalse(result.resumed());
+        verify(statusRepository).updateStatuses(Map.of(1L, ConstructionStatus.EN_PROGRESO,
+            3L, ConstructionStatus.FINALIZADO), ConstructionStatus.PENDIENTE);
+        verify(statusRepository).updateStatuses(Map.of(8L, ConstructionStatus.EN_PROGRESO),
+            ConstructionStatus.PENDIENTE);
+        verify(transactionManager, times(3)).commit(any());
+        assertEquals(1.0, meterRegistry.get("cityfuture.overdue.processed")
+            .tag("estado", "Finalizado").counter().count());
+        assertEquals(8.0, meterRegistry.get("cityfuture.overdue.last_id").gauge().value());
+    }
+
+    @Test
+    void process_UnfinishedCheckpointFromToday_ResumesAfterLastId() {
+        // Arrange
+        JobCheckpointEntity checkpoint = new JobCheckpointEntity();
+        checkpoint.setJobName(OverdueOrderProcessor.JOB_NAME);
+        checkpoint.setRunDate(today);
+        checkpoint.setLastId(40L);
+        checkpoint.setProcessed(40L);
+        when(checkpointRepository.findById(OverdueOrderProcessor.JOB_NAME))
+            .thenReturn(Optional.of(checkpoint));
+        when(statusRepository.findOverdueAfter(40L, today, 2)).thenReturn(List.of());
+
+        // Act
+        OverdueOrderProcessor.Result result = processor.process();
+
+        // Assert
+        assertTrue(result.resumed());
+        assertEquals(40, result.processed());
+        verify(statusRepository, never()).findOverdueAfter(eq(0L), any(), anyInt());
+        ArgumentCaptor<JobCheckpointEntity> saved = ArgumentCaptor.forClass(JobCheckpointEntity.class);
+        verify(checkpointRepository).save(saved.capture());
+        assertTrue(saved.getValue().isCompleted());
+    }
+
+    @Test
+    void process_CheckpointFromPreviousDay_StartsOver() {
+        // Arrange
+        JobCheckpointEntity checkpoint = new JobCheckpointEntity();
+        checkpoint.setJobName(OverdueOrderProcessor.JOB_NAME);
+        checkpoint.setRunDate(today.minusDays(1));
+        checkpoint.setLastId(40L);
+        checkpoint.setProcessed(40L);
+        when(checkpointRepository.findById(OverdueOrderProcessor.JOB_NAME))
+            .thenReturn(Optional.of(checkpoint));
+        when(statusRepository.findOverdueAfter(0L, today, 2)).thenReturn(List.of());
+
+        // Act
+        OverdueOrderProcessor.Result result = processor.process();
+
+        // Assert
+        assertFalse(result.resumed());
+        assertEquals(0, result.processed());
+    }
+}
@@ -0,0 +1,379 @@
+package com.cityfuture.infrastructure.service;
+
+import com.cityfuture.infrastructure.persistence.repository.JpaConstructionOrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TimelineAllocatorTest {
+
+    @Mock
+    private JpaConstructionOrderRepository orderRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private TimelineAllocator timelineAllocator;
+
+    @BeforeEach
+    void setUp() {
+        timelineAllocator = new TimelineAllocator(orderRepository, jdbcTemplate, 1,
+            Clock.systemDefaultZone());
+    }
+
+    private JpaConstructionOrderRepository.TimelineRow row(long id, int days, LocalDate startDate) {
+        return row(0, id, days, startDate);
+    }
+
+    private JpaConstructionOrderRepository.TimelineRow row(int lane, long id, int days,
+            LocalDate startDate) {
+        return row(lane, id, days, startDate, startDate.plusDays(days - 1L));
+    }
+
+    private JpaConstructionOrderRepository.TimelineRow row(int lane, long id, int days,
+            LocalDate startDate, LocalDate entregaDate) {
+        return new JpaConstructionOrderRepository.TimelineRow() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Integer getEstimatedDays() {
+                return days;
+            }
+
+            @Override
+            public LocalDate getStartDate() {
+                return startDate;
+            }
+
+            @Override
+            public LocalDate getEntregaDate() {
+                return entregaDate;
+            }
+
+            @Override
+            public Integer getLane() {
+                return lane;
+            }
+        };
+    }
+
+    // Ejecuta la acción como dentro de una transacción que luego confirma
+    private <T> T inTransaction(Supplier<T> action) {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            return action.get();
+        } finally {
+            TransactionSynchronizationManager.getSynchronizations().forEach(
+                sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            TransactionSynchronizationManager.clearSynchronization();
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+    }
+
+    @Test
+    void allocate_EmptyTimeline_StartsTomorrow() {
+        // Arrange
+        when(orderRepository.findAllByOrderByStartDateAscIdAsc()).thenReturn(List.of());
+
+        // Act
+        TimelineAllocator.Slot slot = timelineAllocator.allocate(3);
+
+        // Assert
+        assertEquals(LocalDate.now().plusDays(1), slot.startDate());
+        assertEquals(LocalDate.now().plusDays(3), slot.deliveryDate());
+    }
+
+    @Test
+    void allocate_ConsecutiveCalls_ReadDatabaseOnce() {
+        // Arrange: una orden del 1 al 10 de enero
+        when(orderRepository.findAllByOrderByStartDateAscIdAsc())
+            .thenReturn(List.of(row(1L, 10, LocalDate.of(2030, 1, 1))));
+
+        // Act
+        TimelineAllocator.Slot first = timelineAllocator.allocate(2);
+        TimelineAllocator.Slot second = timelineAllocator.allocate(6);
+
+        // Assert
+        assertEquals(LocalDate.of(2030, 1, 11), first.startDate());
+        assertEquals(LocalDate.of(2030, 1, 12), first.deliveryDate());
+        assertEquals(LocalDate.of(2030, 1, 13), second.startDate());
+        assertEquals(LocalDate.of(2030, 1, 18), second.deliveryDate());
+        verify(orderRepository, times(1)).findAllByOrderByStartDateAscIdAsc();
+    }
+
+    @Test
+    void remove_ShiftsLaterOrdersWithoutReadingDatabase() {
+        // Arrange
+        when(orderRepository.findAllByOrderByStartDateAscIdAsc()).thenReturn(List.of(
+            row(1L, 3, LocalDate.of(2030, 1, 1)),
+            row(2L, 2, LocalDate.of(2030, 1, 4)),
+            row(3L, 4, LocalDate.of(2030, 1, 6))));
+        timelineAllocator.rebuild();
+
+        // Act
+        timelineAllocator.remove(2L);
+
+        // Assert
+        TimelineAllocator.Slot third = timelineAllocator.slotOf(3L).orElseThrow();
+        assertEquals(LocalDate.of(2030, 1, 4), third.startDate());
+        assertEquals(LocalDate.of(2030, 1, 7), third.deliveryDate());
+        assertEquals(new TimelineAllocator.Summary(2, 7, LocalDate.of(2030, 1, 1),
+            LocalDate.of(2030, 1, 7)), timelineAllocator.summary());
+        verify(orderRepository, times(1)).findAllByOrderByStartDateAscIdAsc();
+    }
+
+    @Test
+    void allocateBefore_PendingOrder_TakesItsSlotAndDelaysLaterOrders() {
+        // Arrange
+        LocalDate start = LocalDate.now().plusDays(1);
+        when(orderRepository.findAllByOrderByStartDateAscIdAsc()).thenReturn(List.of(
+            row(1L, 3, start),
+            row(2L, 2, start.plusDays(3))));
+
+        // Act
+        TimelineAllocator.Slot slot = timelineAllocator.allocateBefore(2L, 4);
+
+        // Assert
+        assertEquals(start.plusDays(3), slot.startDate());
+        assertEquals(start.plusDays(6), slot.deliveryDate());
+        assertEquals(start.plusDays(7), timelineAllocator.slotOf(2L).orElseThrow().startDate());
+        assertEquals(start, timelineAllocator.slotOf(1L).orElseThrow().startDate());
+    }
+
+    @Test
+    void allocateBefore_StartedOrder_ThrowsException() {
+        // Arrange
+        when(orderRepository.findAllByOrderByStartDateAscIdAsc()).thenReturn(List.of(
+            row(1L, 5, LocalDate.now().minusDays(1))));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> timelineAllocator.allocateBefore(1L, 2));
+        assertEquals(1, timelineAllocator.summary().orders());
+    }
+
+    @Test
+    void allocateFirst_SkipsOrdersAlreadyStarted() {
+        // Arrange: la primera orden ya inició, la segunda inicia en unos días
+        LocalDate start = LocalDate.now().minusDays(2);
+        when(orderRepository.findAllByOrderByStartDateAscIdAsc()).thenReturn(List.of(
+            row(1L, 5, start),
+            row(2L, 2, start.plusDays(5))));
+
+        // Act
+        TimelineAllocator.Slot slot = timelineAllocator.allocateFirst(3);
+
+        // Assert
+        assertEquals(start.plusDays(5), slot.startDate());
+        assertEquals(start.plusDays(8), timelineAllocator.slotOf(2L).orElseThrow().startDate());
+    }
+
+    @Test
+    void allocate_SeveralCrews_AssignsEarliestFreeCrew() {
+        // Arrange
+        timelineAllocator = new TimelineAllocator(orderRepository, jdbcTemplate, 2,
+            Clock.systemDefaultZone());
+        when(orderRepository.findAllByOrderByStartDateAscIdAsc()).thenReturn(List.of());
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+
+        // Act
+        TimelineAllocator.Slot first = timelineAllocator.allocate(5);
+        TimelineAllocator.Slot second = timelineAllocator.allocate(2);
+        TimelineAllocator.Slot third = timelineAllocator.allocate(4);
+
+        // Assert: las dos primeras inician en paralelo; la tercera va a la cuadrilla que termina antes
+        assertEquals(tomorrow, first.startDate());
+        assertEquals(tomorrow, second.startDate());
+        assertNotEquals(first.lane(), second.lane());
+        assertEquals(second.lane(), third.lane());
+        assertEquals(tomorrow.plusDays(2), third.startDate());
+        assertEquals(new TimelineAllocator.Summary(3, 11, tomorrow, tomorrow.plusDays(5)),
+            timelineAllocator.summary());
+    }
+
+    @Test
+    void remove_SeveralCrews_OnlyShiftsOrdersOfSameCrew() {
+        // Arrange
+        timelineAllocator = new TimelineAllocator(orderRepository, jdbcTemplate, 2,
+            Clock.systemDefaultZone());
+        LocalDate start = LocalDate.of(2030, 1, 1);
+        when(orderRepository.findAllByOrderByStartDateAscIdAsc()).thenReturn(List.of(
+            row(0, 1L, 3, start),
+            row(1, 2L, 4, start),
+            row(0, 3L, 2, start.plusDays(3)),
+            row(1, 4L, 1, start.plusDays(4))));
+        timelineAllocator.rebuild();
+
+        // Act
+        timelineAllocator.remove(1L);
+
+        // Assert
+        assertEquals(start, timelineAllocator.slotOf(3L).orElseThrow().startDate());
+        assertEquals(start.plusDays(4), timelineAllocator.slotOf(4L).orElseThrow().startDate());
+        assertEquals(1, timelineAllocator.slotOf(4L).orElseThrow().lane());
+    }
+
+    @Test
+    void allocate_CrewsReducedInConfiguration_KeepsRetiredCrewOutOfRotation() {
+        // Arrange: hay órdenes en la cuadrilla 1, pero ahora solo se configura una
+        LocalDate start = LocalDate.of(2030, 1, 1);
+        when(orderRepository.findAllByOrderByStartDateAscIdAsc()).thenReturn(List.of(
+            row(0, 1L, 3, start),
+            row(1, 2L, 10, start)));
+
+        // Act
+        TimelineAllocator.Slot slot = timelineAllocator.allocate(2);
+
+        // Assert
+        assertEquals(0, slot.lane());
+        assertEquals(start.plusDays(3), slot.startDate());
+        assertEquals(start.plusDays(9), timelineAllocator.summary().endDate());
+    }
+
+    @Test
+    void resize_LongerOrder_DelaysLaterOrdersOfSameCrew() {
+        // Arrange
+        LocalDate start = LocalDate.of(2030, 1, 1);
+        when(orderRepository.findAllByOrderByStartDateAscIdAsc()).thenReturn(List.of(
+            row(1L, 3, start),
+            row(2L, 2, start.plusDays(3))));
+        timelineAllocator.rebuild();
+
+        // Act
+        timelineAllocator.resize(1L, 3);
+
+        // Assert
+        assertEquals(start.plusDays(6), timelineAllocator.slotOf(2L).orElseThrow().startDate());
+        assertEquals(8, timelineAllocator.summary().totalDays());
+    }
+
+    @Test
+    void bind_AllocatedSlot_CanBeLookedUpById() {
+        // Arrange
+        when(orderRepository.findAllByOrderByStartDateAscIdAsc()).thenReturn(List.of());
+        TimelineAllocator.Slot slot = timelineAllocator.allocate(2);
+
+        // Act
+        timelineAllocator.bind(slot, 9L);
+
+        // Assert
+        assertEquals(slot.startDate(), timelineAllocator.slotOf(9L).orElseThrow().startDate());
+    }
+
+    @Test
+    void invalidate_RebuildsFromDatabaseOnNextAllocation() {
+        // Arrange
+        when(orderRepository.findAllByOrderByStartDateAscIdAsc())
+            .thenReturn(List.of(row(1L, 10, LocalDate.of(2030, 1, 1))));
+        timelineAllocator.allocate(5);
+
+        // Act
+        timelineAllocator.invalidate();
+        TimelineAllocator.Slot slot = timelineAllocator.allocate(1);
+
+        // Assert
+        assertEquals(LocalDate.of(2030, 1, 11), slot.startDate());
+        verify(orderRepository, times(2)).findAllByOrderByStartDateAscIdAsc();
+    }
+
+    @Test
+    void rebuild_GapsAndLegacyDates_KeepsPersistedDates() {
+        // Arrange: hueco de 6 días entre la 1 y la 2; la 3 estima 2 días pero sus fechas
+        // ocupan 5
+        LocalDate start = LocalDate.of(2030, 1, 1);
+        when(orderRepository.findAllByOrderByStartDateAscIdAsc()).thenReturn(List.of(
+            row(0, 1L, 3, start),
+            row(0, 2L, 2, start.plusDays(9)),
+            row(0, 3L, 2, start.plusDays(11), start.plusDays(15))));
+        timelineAllocator.rebuild();
+
+        // Act
+        TimelineAllocator.Slot legacy = timelineAllocator.slotOf(3L).orElseThrow();
+        TimelineAllocator.Slot slot = timelineAllocator.allocate(2);
+
+        // Assert
+        assertEquals(start.plusDays(9), timelineAllocator.slotOf(2L).orElseThrow().startDate());
+        assertEquals(start.plusDays(11), legacy.startDate());
+        assertEquals(start.plusDays(15), legacy.deliveryDate());
+        assertEquals(start.plusDays(16), slot.startDate());
+        assertEquals(new TimelineAllocator.Summary(4, 12, start, start.plusDays(17)),
+            timelineAllocator.summary());
+    }
+
+    @Test
+    void remove_OrderFollowedByGap_KeepsGapLikeDatabaseShift() {
+        // Arrange: la BD adelanta las posteriores los días que ocupaba la eliminada
+        LocalDate start = LocalDate.of(2030, 1, 1);
+        when(orderRepository.findAllByOrderByStartDateAscIdAsc()).thenReturn(List.of(
+            row(0, 1L, 3, start),
+            row(0, 2L, 2, start.plusDays(5)),
+            row(0, 3L, 4, start.plusDays(10))));
+        timelineAllocator.rebuild();
+
+        // Act
+        timelineAllocator.remove(2L);
+
+        // Assert: el hueco de 2 días antes de la 2 y el de 3 días después se conservan
+        assertEquals(start.plusDays(8), timelineAllocator.slotOf(3L).orElseThrow().startDate());
+        assertEquals(start.plusDays(11), timelineAllocator.summary().endDate());
+    }
+
+    @Test
+    void allocate_TimelineChangedByOtherReplica_RebuildsUnderLock() {
+        // Arrange: este nodo leyó la revisión 3; otra réplica agregó una orden y dejó la 4
+        LocalDate start = LocalDate.of(2030, 1, 1);
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class)))
+            .thenReturn(List.of(3L), List.of(4L), List.of(4L));
+        when(orderRepository.findAllByOrderByStartDateAscIdAsc()).thenReturn(
+            List.of(row(1L, 10, start)),
+            List.of(row(1L, 10, start), row(2L, 4, start.plusDays(10))));
+        timelineAllocator.rebuild();
+
+        // Act
+        TimelineAllocator.Slot slot = inTransaction(() -> timelineAllocator.allocate(2));
+
+        // Assert
+        assertEquals(start.plusDays(14), slot.startDate());
+        verify(jdbcTemplate).queryForList(endsWith("FOR UPDATE"), eq(Long.class));
+        verify(jdbcTemplate).update(contains("revision = revision + 1"));
+        verify(orderRepository, times(2)).findAllByOrderByStartDateAscIdAsc();
+    }
+
+    @Test
+    void allocate_SameRevisionUnderLock_UsesMemoryAndLocksOncePerTransaction() {
+        // Arrange
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class))).thenReturn(List.of(3L));
+        when(orderRepository.findAllByOrderByStartDateAscIdAsc())
+            .thenReturn(List.of(row(1L, 10, LocalDate.of(2030, 1, 1))));
+        timelineAllocator.rebuild();
+
+        // Act
+        TimelineAllocator.Slot second = inTransaction(() -> {
+            timelineAllocator.allocate(2);
+            return timelineAllocator.allocate(3);
+        });
+
+        // Assert
+        assertEquals(LocalDate.of(2030, 1, 13), second.startDate());
+        verify(jdbcTemplate, times(1)).queryForList(endsWith("FOR UPDATE"), eq(Long.class));
+        verify(jdbcTemplate, times(1)).update(contains("revision = revision + 1"));
+        verify(orderRepository, times(1)).findAllByOrderByStartDateAscIdAsc();
+    }
+}
@@ -0,0 +1,117 @@
+package com.cityfuture.infrastructure.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimelineIndexTest {
+
+    @Test
+    void insertAndRemove_KeepPrefixSumsConsistentWithList() {
+        // Arrange: se compara contra una lista simple tras operaciones aleatorias
+        TimelineIndex index = new TimelineIndex();
+        List<long[]> expected = new ArrayList<>();
+        Random random = new Random(7);
+        long nextId = 1;
+
+        // Act
+        for (int step = 0; step < 2000; step++) {
+            if (expected.isEmpty() || random.nextInt(3) > 0) {
+                int position = random.nextInt(expected.size() + 1);
+                int days = 1 + random.nextInt(6);
+                index.insert(position, nextId, days);
+                expected.add(position, new long[] {nextId++, days});
+            } else {
+                int position = random.nextInt(expected.size());
+                assertTrue(index.remove(expected.remove(position)[0]));
+            }
+        }
+
+        // Assert
+        long before = 0;
+        for (int position = 0; position < expected.size(); position++) {
+            long[] order = expected.get(position);
+            TimelineIndex.Node node = index.find(order[0]);
+            assertEquals(position, index.positionOf(node));
+            assertEquals(before, index.daysBefore(node));
+            assertSame(node, index.nodeAt(position));
+            before += order[1];
+        }
+        assertEquals(before, index.totalDays());
+        assertEquals(expected.size(), index.size());
+    }
+
+    @Test
+    void updateDays_ShiftsOnlyLaterOrders() {
+        // Arrange
+        TimelineIndex index = new TimelineIndex();
+        index.append(1L, 3);
+        index.append(2L, 2);
+        index.append(3L, 4);
+
+        // Act
+        index.updateDays(2L, 5);
+
+        // Assert
+        assertEquals(3, index.daysBefore(index.find(2L)));
+        assertEquals(8, index.daysBefore(index.find(3L)));
+        assertEquals(12, index.totalDays());
+    }
+
+    @Test
+    void firstPositionFrom_ReturnsFirstOrderStartingOnOrAfterDay() {
+        // Arrange: inicios relativos 0, 3, 5
+        TimelineIndex index = new TimelineIndex();
+        index.append(1L, 3);
+        index.append(2L, 2);
+        index.append(3L, 4);
+
+        // Act & Assert
+        assertEquals(0, index.firstPositionFrom(0));
+        assertEquals(1, index.firstPositionFrom(1));
+        assertEquals(1, index.firstPositionFrom(3));
+        assertEquals(2, index.firstPositionFrom(4));
+        assertEquals(3, index.firstPositionFrom(6));
+    }
+
+    @Test
+    void bind_ProvisionalNode_BecomesAddressableById() {
+        // Arrange
+        TimelineIndex index = new TimelineIndex();
+        index.append(1L, 3);
+        TimelineIndex.Node provisional = index.append(null, 2);
+
+        // Act
+        index.bind(provisional, 10L);
+
+        // Assert
+        assertSame(provisional, index.find(10L));
+        assertTrue(index.remove(10L));
+        assertEquals(3, index.totalDays());
+    }
+
+    @Test
+    void insertAndRemove_NodeWithGap_GapMovesToFollowingNode() {
+        // Arrange: inicios relativos 0 y 5 (2 días libres tras la primera)
+        TimelineIndex index = new TimelineIndex();
+        index.append(1L, 3);
+        index.append(2L, 2, 4);
+
+        // Act
+        index.insert(1, 3L, 1);
+        long insertedStart = index.startOf(index.find(3L));
+        long delayedStart = index.startOf(index.find(2L));
+        index.remove(3L);
+
+        // Assert
+        assertEquals(5, insertedStart);
+        assertEquals(6, delayedStart);
+        assertEquals(5, index.startOf(index.find(2L)));
+        assertEquals(9, index.totalDays());
+        assertEquals(7, index.busyDays());
+    }
+}
@@ -0,0 +1,184 @@
+package com.cityfuture.infrastructure.service;
+
+import com.cityfuture.domain.model.ConstructionType;
+import com.cityfuture.domain.model.MaterialVector;
+import com.cityfuture.domain.model.SimulationCommand;
+import com.cityfuture.domain.model.SimulationCommand.Action;
+import com.cityfuture.domain.model.SimulationResult;
+import com.cityfuture.infrastructure.persistence.entity.ConstructionOrderEntity;
+import com.cityfuture.infrastructure.persistence.repository.JpaConstructionOrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TimelineSimulatorTest {
+
+    @Mock
+    private TimelineAllocator timelineAllocator;
+
+    @Mock
+    private InventorySnapshot inventorySnapshot;
+
+    @Mock
+    private ConstructionTypeCatalog constructionTypeCatalog;
+
+    @Mock
+    private JpaConstructionOrderRepository orderRepository;
+
+    @Mock
+    private Clock clock;
+
+    @InjectMocks
+    private TimelineSimulator timelineSimulator;
+
+    private LocalDate tomorrow;
+
+    @BeforeEach
+    void setUp() {
+        // Reloj del sistema detrás del mock que recibe el servicio
+        lenient().when(clock.getZone()).thenReturn(ZoneId.systemDefault());
+        lenient().when(clock.instant()).thenAnswer(invocation -> Instant.now());
+        ConstructionType casa = new ConstructionType();
+        casa.setTypeName("CASA");
+        casa.setEstimatedDays(3);
+        casa.setMaterials(Map.of("Ce", 10));
+        ConstructionType parque = new ConstructionType();
+        parque.setTypeName("PARQUE");
+        parque.setEstimatedDays(1);
+        parque.setMaterials(Map.of("Gr", 5));
+        ConstructionTypeCatalog.Compiled catalog =
+            ConstructionTypeCatalog.Compiled.compile(1, List.of(casa, parque));
+        lenient().when(constructionTypeCatalog.resolve(anyString())).thenAnswer(invocation -> {
+            String typeName = invocation.getArgument(0);
+            ConstructionTypeCatalog.CompiledType type = catalog.types().get(typeName.toUpperCase());
+            if (type == null) {
+                throw new IllegalArgumentException("Tipo de construcción no válido: " + typeName);
+            }
+            return type;
+        });
+        lenient().when(constructionTypeCatalog.reservedFor(any(), any())).thenAnswer(invocation -> {
+            Map<String, Integer> reserved = invocation.getArgument(1);
+            return reserved != null ? MaterialVector.of(reserved)
+                : catalog.types().get(invocation.<String>getArgument(0).toUpperCase()).requirements();
+        });
+
+        when(inventorySnapshot.current()).thenReturn(new InventorySnapshot.Snapshot(1, Map.of(
+            "Ce", new InventorySnapshot.MaterialStock("Cemento", 25),
+            "Gr", new InventorySnapshot.MaterialStock("Grava", 5))));
+
+        // Cuadrilla 0 con dos órdenes que suman 10 días; cuadrilla 1 libre
+        tomorrow = LocalDate.now().plusDays(1);
+        when(timelineAllocator.laneStates()).thenReturn(List.of(
+            new TimelineAllocator.LaneState(0, tomorrow, 10, 10, 2, true),
+            new TimelineAllocator.LaneState(1, null, 0, 0, 0, true)));
+    }
+
+    @Test
+    void simulate_CreateCommands_UseEarliestFreeCrewAndConsumeStock() {
+        // Arrange
+        List<SimulationCommand> commands = List.of(
+            new SimulationCommand(Action.CREATE, null, "CASA"),
+            new SimulationCommand(Action.CREATE, null, "casa"),
+            new SimulationCommand(Action.CREATE, null, "CASA"),
+            new SimulationCommand(Action.CREATE, null, "CASTILLO"));
+
+        // Act
+        SimulationResult result = timelineSimulator.simulate(commands);
+
+        // Assert
+        assertEquals(2, result.appliedCommands());
+        assertEquals(List.of(2, 3), result.rejectedCommands().stream()
+            .map(SimulationResult.Rejection::index).toList());
+        assertTrue(result.rejectedCommands().get(0).error().startsWith("Materiales insuficientes"));
+        assertEquals(4, result.projectSummary().totalOrders());
+        assertEquals(16, result.projectSummary().totalConstructionDays());
+        assertEquals(tomorrow.plusDays(9), result.projectSummary().estimatedDeliveryDate());
+        assertEquals(new SimulationResult.MaterialBalance("Cemento", 25, 5),
+            result.materials().get("Ce"));
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    void simulate_DeleteAndUpdate_ReleaseStockAndShortenCrewTimeline() {
+        // Arrange
+        ConstructionOrderEntity order = new ConstructionOrderEntity();
+        order.setId(7L);
+        order.setLane(0);
+        order.setTypeConstruction("CASA");
+        order.setEstimatedDays(3);
+        when(orderRepository.findAllById(Set.of(7L, 99L))).thenReturn(List.of(order));
+        List<SimulationCommand> commands = List.of(
+            new SimulationCommand(Action.DELETE, 7L, null),
+            new SimulationCommand(Action.UPDATE, 7L, "PARQUE"),
+            new SimulationCommand(Action.DELETE, 99L, null));
+
+        // Act
+        SimulationResult result = timelineSimulator.simulate(commands);
+
+        // Assert
+        assertEquals(1, result.appliedCommands());
+        assertEquals(1, result.projectSummary().totalOrders());
+        assertEquals(tomorrow.plusDays(6), result.projectSummary().estimatedDeliveryDate());
+        assertEquals(35, result.materials().get("Ce").simulated());
+        verify(orderRepository).findAllById(Set.of(7L, 99L));
+        verifyNoMoreInteractions(orderRepository);
+    }
+
+    @Test
+    void simulate_DeleteOrderOfRemovedType_ReleasesStoredReservation() {
+        // Arrange: CASTILLO ya no está en el catálogo, pero la orden guarda lo que reservó
+        ConstructionOrderEntity order = new ConstructionOrderEntity();
+        order.setId(7L);
+        order.setLane(0);
+        order.setTypeConstruction("CASTILLO");
+        order.setEstimatedDays(3);
+        order.setReservedMaterials(Map.of("Ce", 12));
+        when(orderRepository.findAllById(Set.of(7L))).thenReturn(List.of(order));
+
+        // Act
+        SimulationResult result = timelineSimulator.simulate(List.of(
+            new SimulationCommand(Action.DELETE, 7L, null)));
+
+        // Assert
+        assertEquals(1, result.appliedCommands());
+        assertEquals(37, result.materials().get("Ce").simulated());
+    }
+
+    @Test
+    void simulate_UpdateType_ChangesDurationOfCrew() {
+        // Arrange
+        ConstructionOrderEntity order = new ConstructionOrderEntity();
+        order.setId(7L);
+        order.setLane(0);
+        order.setTypeConstruction("CASA");
+        order.setEstimatedDays(3);
+        when(orderRepository.findAllById(Set.of(7L))).thenReturn(List.of(order));
+
+        // Act
+        SimulationResult result = timelineSimulator.simulate(List.of(
+            new SimulationCommand(Action.UPDATE, 7L, "PARQUE")));
+
+        // Assert
+        assertEquals(1, result.appliedCommands());
+        assertEquals(8, result.projectSummary().totalConstructionDays());
+        assertEquals(tomorrow.plusDays(7), result.projectSummary().estimatedDeliveryDate());
+        assertEquals(35, result.materials().get("Ce").simulated());
+        assertEquals(0, result.materials().get("Gr").simulated());
+    }
+}